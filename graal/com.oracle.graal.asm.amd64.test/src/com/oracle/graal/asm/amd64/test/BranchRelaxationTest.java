@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.asm.amd64.test;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.junit.Assume.assumeTrue;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.CallingConvention;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.RegisterConfig;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.JavaKind;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Assembler;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.test.AssemblerTest;
+import com.oracle.graal.code.CompilationResult;
+
+public class BranchRelaxationTest extends AssemblerTest {
+
+    @Before
+    public void checkAMD64() {
+        assumeTrue("skipping AMD64 specific test", codeCache.getTarget().arch instanceof AMD64);
+    }
+
+    /**
+     * Emits {@code arg == 0 ? 1 : (arg == 1 ? 2 : 3)} where the first forward branch jumps over
+     * {@code padding} bytes and the others are close to their targets.
+     */
+    private static void emitSelect(AMD64Assembler asm, Register ret, Register arg, int padding) {
+        Label notZero = new Label();
+        Label notOne = new Label();
+        Label done = new Label();
+        asm.cmpl(arg, 0);
+        asm.jcc(ConditionFlag.NotEqual, notZero);
+        asm.movl(ret, 1);
+        asm.jmp(done);
+        asm.bind(notZero);
+        asm.cmpl(arg, 1);
+        asm.jcc(ConditionFlag.NotEqual, notOne);
+        asm.nop(padding);
+        asm.movl(ret, 2);
+        asm.jmp(done);
+        asm.bind(notOne);
+        asm.movl(ret, 3);
+        asm.bind(done);
+        asm.ret(0);
+    }
+
+    private static byte[] emitRelaxed(AMD64Assembler asm, Register ret, Register arg, int padding) {
+        asm.setBranchRelaxation(true);
+        emitSelect(asm, ret, arg, padding);
+        int passes = 1;
+        while (asm.hasBranchDisplacementOverflow()) {
+            asm.reset();
+            emitSelect(asm, ret, arg, padding);
+            passes++;
+        }
+        Assert.assertTrue("too many passes: " + passes, passes <= 3);
+        return asm.close(true);
+    }
+
+    private void testSelect(int padding, int expectedSavings) {
+        for (int value = 0; value < 3; value++) {
+            CodeGenTest test = new CodeGenTest() {
+
+                @Override
+                public byte[] generateCode(CompilationResult compResult, TargetDescription target, RegisterConfig registerConfig, CallingConvention cc) {
+                    AMD64Assembler asm = new AMD64Assembler(target);
+                    Register ret = registerConfig.getReturnRegister(JavaKind.Int);
+                    Register arg = asRegister(cc.getArgument(0));
+                    byte[] code = emitRelaxed(asm, ret, arg, padding);
+                    Assert.assertEquals(expectedSavings, asm.getBranchRelaxationSavings());
+                    return code;
+                }
+            };
+            assertReturn("intStub", test, value + 1, value);
+        }
+    }
+
+    @Test
+    public void testShortBranches() {
+        // two jcc and two jmp fit into 8-bit displacements
+        testSelect(16, 2 * 4 + 2 * 3);
+    }
+
+    @Test
+    public void testWidenedBranches() {
+        // the second jcc and the first jmp overflow
+        testSelect(200, 4 + 3);
+    }
+
+    public static int intStub(int arg) {
+        return arg;
+    }
+}
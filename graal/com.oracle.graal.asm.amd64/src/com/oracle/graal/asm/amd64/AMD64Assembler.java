@@ -56,6 +56,10 @@ import static jdk.vm.ci.amd64.AMD64.rip;
 import static jdk.vm.ci.amd64.AMD64.rsp;
 import static jdk.vm.ci.code.MemoryBarriers.STORE_LOAD;
 
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
 import com.oracle.graal.asm.Assembler;
 import com.oracle.graal.asm.Label;
 import com.oracle.graal.asm.NumUtil;
@@ -353,6 +357,37 @@ public class AMD64Assembler extends Assembler {
         }
     }
 
+    /**
+     * Size of a {@code jcc} with an 8-bit and a 32-bit displacement.
+     */
+    private static final int JCC_SHORT_SIZE = 2;
+    private static final int JCC_LONG_SIZE = 6;
+
+    /**
+     * Size of a {@code jmp} with an 8-bit and a 32-bit displacement.
+     */
+    private static final int JMP_SHORT_SIZE = 2;
+    private static final int JMP_LONG_SIZE = 5;
+
+    private boolean branchRelaxation;
+
+    /**
+     * Forward branches that overflowed an 8-bit displacement in a previous emission. Branches are
+     * identified by the number of forward branches emitted before them, which does not depend on
+     * the size of the emitted code.
+     */
+    private final BitSet widenedBranches = new BitSet();
+
+    /**
+     * Maps the position of forward branches emitted with an 8-bit displacement by branch
+     * relaxation to their index.
+     */
+    private final Map<Integer, Integer> relaxedBranches = new HashMap<>();
+
+    private int forwardBranchCount;
+    private int relaxationSavings;
+    private boolean branchDisplacementOverflow;
+
     /**
      * Constructs an assembler for the AMD64 architecture.
      */
@@ -360,6 +395,50 @@ public class AMD64Assembler extends Assembler {
         super(target);
     }
 
+    @Override
+    public boolean supportsBranchRelaxation() {
+        return true;
+    }
+
+    @Override
+    public void setBranchRelaxation(boolean enable) {
+        this.branchRelaxation = enable;
+    }
+
+    @Override
+    public boolean hasBranchDisplacementOverflow() {
+        return branchDisplacementOverflow;
+    }
+
+    @Override
+    public int getBranchRelaxationSavings() {
+        return relaxationSavings;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        relaxedBranches.clear();
+        forwardBranchCount = 0;
+        relaxationSavings = 0;
+        branchDisplacementOverflow = false;
+    }
+
+    /**
+     * Determines if the next forward branch to an unbound label is emitted with an 8-bit
+     * displacement and, if so, records it so that an overflow can be detected when the label is
+     * bound.
+     */
+    private boolean useShortForwardBranch(int savings) {
+        int index = forwardBranchCount++;
+        if (branchRelaxation && !widenedBranches.get(index)) {
+            relaxedBranches.put(position(), index);
+            relaxationSavings += savings;
+            return true;
+        }
+        return false;
+    }
+
     public boolean supports(CPUFeature feature) {
         return ((AMD64) target.arch).getFeatures().contains(feature);
     }
@@ -1508,10 +1587,16 @@ public class AMD64Assembler extends Assembler {
             // is the same however, seems to be rather unlikely case.
             // Note: use jccb() if label to be bound is very close to get
             // an 8-bit displacement
-            l.addPatchAt(position());
-            emitByte(0x0F);
-            emitByte(0x80 | cc.getValue());
-            emitInt(0);
+            if (useShortForwardBranch(JCC_LONG_SIZE - JCC_SHORT_SIZE)) {
+                l.addPatchAt(position());
+                emitByte(0x70 | cc.getValue());
+                emitByte(0);
+            } else {
+                l.addPatchAt(position());
+                emitByte(0x0F);
+                emitByte(0x80 | cc.getValue());
+                emitInt(0);
+            }
         }
 
     }
@@ -1553,11 +1638,18 @@ public class AMD64Assembler extends Assembler {
             // By default, forward jumps are always 32-bit displacements, since
             // we can't yet know where the label will be bound. If you're sure that
             // the forward jump will not run beyond 256 bytes, use jmpb to
-            // force an 8-bit displacement.
+            // force an 8-bit displacement. With branch relaxation enabled, an 8-bit
+            // displacement is used unless the jump overflowed in a previous emission.
 
-            l.addPatchAt(position());
-            emitByte(0xE9);
-            emitInt(0);
+            if (useShortForwardBranch(JMP_LONG_SIZE - JMP_SHORT_SIZE)) {
+                l.addPatchAt(position());
+                emitByte(0xEB);
+                emitByte(0);
+            } else {
+                l.addPatchAt(position());
+                emitByte(0xE9);
+                emitInt(0);
+            }
         }
     }
 
@@ -2118,6 +2210,17 @@ public class AMD64Assembler extends Assembler {
         emitByte(0xC0 | encode);
     }
 
+    public final void pcmpestri(Register dst, Register src, int imm8) {
+        assert supports(CPUFeature.SSE4_2);
+        assert isUByte(imm8) : "invalid value";
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, Register.None, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F_3A, attributes);
+        emitByte(0x61);
+        emitByte(0xC0 | encode);
+        emitByte(imm8);
+    }
+
     public final void vptest(Register dst, Register src) {
         assert supports(CPUFeature.AVX);
         assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
@@ -2136,6 +2239,14 @@ public class AMD64Assembler extends Assembler {
         emitByte(0x9c);
     }
 
+    public final void paddb(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0xFC);
+        emitByte(0xC0 | encode);
+    }
+
     public final void paddd(Register dst, Register src) {
         assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
         AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
@@ -2153,6 +2264,65 @@ public class AMD64Assembler extends Assembler {
         emitByte(imm8);
     }
 
+    public final void pmaddubsw(Register dst, Register src) {
+        assert supports(CPUFeature.SSSE3);
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F_38, attributes);
+        emitByte(0x04);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pmulld(Register dst, Register src) {
+        assert supports(CPUFeature.SSE4_1);
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F_38, attributes);
+        emitByte(0x40);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pmovzxwd(Register dst, AMD64Address src) {
+        assert supports(CPUFeature.SSE4_1);
+        assert dst.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        simdPrefix(dst, Register.None, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F_38, attributes);
+        emitByte(0x33);
+        emitOperandHelper(dst, src);
+    }
+
+    public final void pmaddwd(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0xF5);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pmovmskb(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.CPU) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, Register.None, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0xD7);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pmulhuw(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0xE4);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pmullw(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0xD5);
+        emitByte(0xC0 | encode);
+    }
+
     public final void pinsrw(Register dst, Register src, int imm8) {
         assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.CPU);
         AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
@@ -2178,6 +2348,63 @@ public class AMD64Assembler extends Assembler {
         emitByte(0xC0 | encode);
     }
 
+    public final void packuswb(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0x67);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pcmpeqb(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0x74);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pcmpeqw(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0x75);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pcmpgtb(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0x64);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pshufb(Register dst, Register src) {
+        assert supports(CPUFeature.SSSE3);
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F_38, attributes);
+        emitByte(0x00);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void psubusb(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0xD8);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void punpcklbw(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        int encode = simdPrefixAndEncode(dst, dst, src, VexSimdPrefix.VEX_SIMD_66, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0x60);
+        emitByte(0xC0 | encode);
+    }
+
     public final void pxor(Register dst, Register src) {
         assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
         AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
@@ -2764,6 +2991,15 @@ public class AMD64Assembler extends Assembler {
         emitByte(0x99);
     }
 
+    /**
+     * Stores {@code rax} to the {@code rcx} quadwords starting at {@code rdi}.
+     */
+    public final void repStosq() {
+        emitByte(0xF3);
+        emitByte(Prefix.REXW);
+        emitByte(0xAB);
+    }
+
     public final void cmovq(ConditionFlag cc, Register dst, Register src) {
         int encode = prefixqAndEncode(dst.encoding, src.encoding);
         emitByte(0x0F);
@@ -2940,6 +3176,15 @@ public class AMD64Assembler extends Assembler {
         emitOperandHelper(dst, src);
     }
 
+    public final void movdqu(AMD64Address dst, Register src) {
+        assert src.getRegisterCategory().equals(AMD64.XMM);
+        // swap src/dst to get correct prefix
+        AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
+        simdPrefix(src, Register.None, dst, VexSimdPrefix.VEX_SIMD_F3, VexOpcode.VEX_OPCODE_0F, attributes);
+        emitByte(0x7F);
+        emitOperandHelper(src, dst);
+    }
+
     public final void movdqu(Register dst, Register src) {
         assert dst.getRegisterCategory().equals(AMD64.XMM);
         AMD64InstructionAttr attributes = new AMD64InstructionAttr(AvxVectorLen.AVX_128bit, /* rexVexW */ false, /* legacyMode */ false, /* noMaskReg */ false, /* usesVl */ false, target);
@@ -3128,7 +3373,14 @@ public class AMD64Assembler extends Assembler {
              * behaving code we should always fail with an exception instead of having an assert.
              */
             if (!NumUtil.isByte(imm8)) {
-                throw new InternalError("branch displacement out of range: " + imm8);
+                Integer index = relaxedBranches.get(branch);
+                if (index == null) {
+                    throw new InternalError("branch displacement out of range: " + imm8);
+                }
+                // the code is discarded and emitted again with a 32-bit displacement
+                widenedBranches.set(index);
+                branchDisplacementOverflow = true;
+                return;
             }
             emitByte(imm8, branch + 1);
 
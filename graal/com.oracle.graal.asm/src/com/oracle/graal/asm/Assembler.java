@@ -195,6 +195,40 @@ public abstract class Assembler {
         captureLabelPositions();
     }
 
+    /**
+     * Determines if this assembler can emit forward branches to unbound labels with a short
+     * displacement and widen them on demand (see {@link #setBranchRelaxation(boolean)}).
+     */
+    public boolean supportsBranchRelaxation() {
+        return false;
+    }
+
+    /**
+     * Enables or disables branch relaxation. If enabled, forward branches to unbound labels are
+     * emitted with the shortest available encoding unless they overflowed in a previous emission
+     * of the same code since this assembler was created. If a branch overflows when its label is
+     * bound, {@link #hasBranchDisplacementOverflow()} returns {@code true} and the code must be
+     * {@linkplain #reset() discarded} and emitted again.
+     */
+    public void setBranchRelaxation(boolean enable) {
+        throw new UnsupportedOperationException("Branch relaxation is not implemented for " + this);
+    }
+
+    /**
+     * Returns {@code true} if a branch emitted since the last {@link #reset()} could not reach its
+     * target with the displacement chosen by branch relaxation.
+     */
+    public boolean hasBranchDisplacementOverflow() {
+        return false;
+    }
+
+    /**
+     * Gets the number of code bytes saved by branch relaxation since the last {@link #reset()}.
+     */
+    public int getBranchRelaxationSavings() {
+        return 0;
+    }
+
     private void captureLabelPositions() {
         if (jumpDisplacementHints == null) {
             return;
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.amd64.test;
+
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.lir.amd64.phases.AMD64LatencyModel;
+import com.oracle.graal.lir.phases.LIRSuites;
+import com.oracle.graal.lir.sched.LIRListSchedulingPhase;
+
+import jdk.vm.ci.amd64.AMD64;
+
+public class LIRListSchedulingTest extends GraalCompilerTest {
+
+    @Before
+    public void checkAMD64() {
+        assumeTrue("skipping AMD64 specific test", getTarget().arch instanceof AMD64);
+    }
+
+    @Override
+    protected LIRSuites createLIRSuites() {
+        LIRSuites suites = super.createLIRSuites();
+        suites.getPreAllocationOptimizationStage().appendPhase(new LIRListSchedulingPhase(new AMD64LatencyModel()));
+        return suites;
+    }
+
+    public static double polynomialSnippet(double[] c, double x) {
+        double a = c[0] * x + c[1];
+        double b = c[2] * x + c[3];
+        double d = c[4] / x;
+        return a * b + d;
+    }
+
+    @Test
+    public void testPolynomial() {
+        test("polynomialSnippet", new double[]{1.5, 2.0, -3.0, 4.25, 8.0}, 3.0);
+    }
+
+    public static double dotSnippet(double[] a, double[] b) {
+        double sum0 = 0;
+        double sum1 = 0;
+        for (int i = 0; i + 1 < a.length; i += 2) {
+            sum0 += a[i] * b[i];
+            sum1 += a[i + 1] * b[i + 1];
+        }
+        return sum0 + sum1;
+    }
+
+    @Test
+    public void testDot() {
+        test("dotSnippet", new double[]{1, 2, 3, 4, 5, 6}, new double[]{6, 5, 4, 3, 2, 1});
+    }
+
+    public static long divideSnippet(long a, long b, int c, int d) {
+        long q = a / b;
+        int r = c % d;
+        int s = c * d + 7;
+        return q + r + s;
+    }
+
+    @Test
+    public void testDivide() {
+        test("divideSnippet", 123456789L, 37L, 1000, 7);
+    }
+
+    public static float mixedSnippet(float[] f, int[] i, int n) {
+        float x = f[n] / f[n + 1];
+        int y = i[n] * i[n + 1];
+        float z = f[n + 2] + y;
+        return x * z + (float) Math.sqrt(z);
+    }
+
+    @Test
+    public void testMixed() {
+        test("mixedSnippet", new float[]{2f, 4f, 5f, 1f}, new int[]{3, 9, 1}, 0);
+    }
+}
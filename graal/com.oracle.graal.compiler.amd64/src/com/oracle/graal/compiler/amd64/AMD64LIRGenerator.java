@@ -54,7 +54,16 @@ import com.oracle.graal.lir.SwitchStrategy;
 import com.oracle.graal.lir.Variable;
 import com.oracle.graal.lir.amd64.AMD64AddressValue;
 import com.oracle.graal.lir.amd64.AMD64ArithmeticLIRGeneratorTool;
+import com.oracle.graal.lir.amd64.AMD64ArrayCompareToOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayCompressOp;
 import com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayHashCodeOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayFillOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayIndexOfOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayInflateOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayMismatchOp;
+import com.oracle.graal.lir.amd64.AMD64Base64DecodeOp;
+import com.oracle.graal.lir.amd64.AMD64Base64EncodeOp;
 import com.oracle.graal.lir.amd64.AMD64BinaryConsumer;
 import com.oracle.graal.lir.amd64.AMD64ByteSwapOp;
 import com.oracle.graal.lir.amd64.AMD64Call;
@@ -70,6 +79,7 @@ import com.oracle.graal.lir.amd64.AMD64Move.CompareAndSwapOp;
 import com.oracle.graal.lir.amd64.AMD64Move.MembarOp;
 import com.oracle.graal.lir.amd64.AMD64Move.StackLeaOp;
 import com.oracle.graal.lir.amd64.AMD64PauseOp;
+import com.oracle.graal.lir.amd64.AMD64StringIndexOfOp;
 import com.oracle.graal.lir.gen.LIRGenerationResult;
 import com.oracle.graal.lir.gen.LIRGenerator;
 import com.oracle.graal.phases.util.Providers;
@@ -412,6 +422,76 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    @Override
+    public Variable emitArrayCompareTo(JavaKind kind, Value array1, Value array2, Value length1, Value length2) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayCompareToOp(this, kind, result, array1, array2, asAllocatable(length1), asAllocatable(length2)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayIndexOf(JavaKind kind, Value array, Value fromIndex, Value length, Value value) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayIndexOfOp(this, kind, result, array, asAllocatable(fromIndex), asAllocatable(length), asAllocatable(value)));
+        return result;
+    }
+
+    @Override
+    public Variable emitStringIndexOf(Value source, Value fromIndex, Value length, Value target, Value targetCount) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64StringIndexOfOp(this, result, asAllocatable(source), asAllocatable(fromIndex), asAllocatable(length), asAllocatable(target), asAllocatable(targetCount)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayHashCode(JavaKind kind, Value array, Value length) {
+        assert kind == JavaKind.Char : "only char arrays are supported: " + kind;
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayHashCodeOp(this, result, asAllocatable(array), asAllocatable(length)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayMismatch(JavaKind kind, Value array1, Value array2, Value length) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayMismatchOp(this, kind, result, array1, array2, asAllocatable(length)));
+        return result;
+    }
+
+    @Override
+    public void emitArrayFill(JavaKind kind, Value array, Value fromIndex, Value toIndex, Value value) {
+        append(new AMD64ArrayFillOp(this, kind, asAllocatable(array), asAllocatable(fromIndex), asAllocatable(toIndex), asAllocatable(value)));
+    }
+
+    @Override
+    public void emitMemoryFill(Value address, Value length, Value value) {
+        append(new AMD64ArrayFillOp(this, asAllocatable(address), asAllocatable(length), asAllocatable(value)));
+    }
+
+    @Override
+    public Variable emitArrayCompress(Value src, Value srcIndex, Value dst, Value dstIndex, Value length) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayCompressOp(this, result, asAllocatable(src), asAllocatable(srcIndex), asAllocatable(dst), asAllocatable(dstIndex), asAllocatable(length)));
+        return result;
+    }
+
+    @Override
+    public void emitArrayInflate(Value src, Value srcIndex, Value dst, Value dstIndex, Value length) {
+        append(new AMD64ArrayInflateOp(this, asAllocatable(src), asAllocatable(srcIndex), asAllocatable(dst), asAllocatable(dstIndex), asAllocatable(length)));
+    }
+
+    @Override
+    public void emitBase64EncodeBlock(Value src, Value sp, Value sl, Value dst, Value dp, Value isURL) {
+        append(new AMD64Base64EncodeOp(this, asAllocatable(src), asAllocatable(sp), asAllocatable(sl), asAllocatable(dst), asAllocatable(dp), asAllocatable(isURL)));
+    }
+
+    @Override
+    public Variable emitBase64DecodeBlock(Value src, Value sp, Value sl, Value dst, Value dp, Value isURL) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64Base64DecodeOp(this, result, asAllocatable(src), asAllocatable(sp), asAllocatable(sl), asAllocatable(dst), asAllocatable(dp), asAllocatable(isURL)));
+        return result;
+    }
+
     @Override
     public void emitReturn(JavaKind kind, Value input) {
         AllocatableValue operand = Value.ILLEGAL;
@@ -438,6 +518,11 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         append(new TableSwitchOp(lowKey, defaultTarget, targets, key, newVariable(LIRKind.value(target().arch.getWordKind())), newVariable(key.getValueKind())));
     }
 
+    @Override
+    protected void emitTableSwitch(int lowKey, LabelRef defaultTarget, LabelRef[] targets, Value key, int[] hotKeys, LabelRef[] hotTargets) {
+        append(new TableSwitchOp(lowKey, defaultTarget, targets, key, newVariable(LIRKind.value(target().arch.getWordKind())), newVariable(key.getValueKind()), hotKeys, hotTargets));
+    }
+
     @Override
     public void emitPause() {
         append(new AMD64PauseOp());
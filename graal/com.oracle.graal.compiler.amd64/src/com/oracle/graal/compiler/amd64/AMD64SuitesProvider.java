@@ -23,8 +23,10 @@
 package com.oracle.graal.compiler.amd64;
 
 import com.oracle.graal.java.DefaultSuitesProvider;
+import com.oracle.graal.lir.amd64.phases.AMD64LatencyModel;
 import com.oracle.graal.lir.amd64.phases.StackMoveOptimizationPhase;
 import com.oracle.graal.lir.phases.LIRSuites;
+import com.oracle.graal.lir.sched.LIRListSchedulingPhase;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import com.oracle.graal.phases.tiers.CompilerConfiguration;
 
@@ -37,6 +39,9 @@ public class AMD64SuitesProvider extends DefaultSuitesProvider {
     @Override
     public LIRSuites createLIRSuites() {
         LIRSuites lirSuites = super.createLIRSuites();
+        if (LIRListSchedulingPhase.Options.LIROptListScheduling.getValue()) {
+            lirSuites.getPreAllocationOptimizationStage().appendPhase(new LIRListSchedulingPhase(new AMD64LatencyModel()));
+        }
         if (StackMoveOptimizationPhase.Options.LIROptStackMoveOptimizer.getValue()) {
             /* Note: this phase must be inserted <b>after</b> RedundantMoveElimination */
             lirSuites.getPostAllocationOptimizationStage().appendPhase(new StackMoveOptimizationPhase());
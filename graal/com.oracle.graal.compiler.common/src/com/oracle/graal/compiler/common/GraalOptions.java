@@ -85,11 +85,11 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> PEAInliningHints = new OptionValue<>(false);
 
-    @Option(help = "", type = OptionType.Expert)
+    @Option(help = "Minimum probability of a merge for tail duplication of more than TailDuplicationTrivialSize nodes.", type = OptionType.Expert)
     public static final OptionValue<Double> TailDuplicationProbability = new OptionValue<>(0.5);
 
-    @Option(help = "", type = OptionType.Expert)
-    public static final OptionValue<Integer> TailDuplicationTrivialSize = new OptionValue<>(1);
+    @Option(help = "Maximum number of nodes duplicated by tail duplication at infrequently executed merges. The smallest tail is an if, its two successors and its condition.", type = OptionType.Expert)
+    public static final OptionValue<Integer> TailDuplicationTrivialSize = new OptionValue<>(6);
 
     @Option(help = "", type = OptionType.Expert)
     public static final OptionValue<Integer> DeoptsToDisableOptimisticOptimization = new OptionValue<>(40);
@@ -112,6 +112,24 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Expert)
     public static final OptionValue<Integer> LoopMaxUnswitch = new OptionValue<>(3);
 
+    @Option(help = "Replace induction variables used in address computations by their own loop phis.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> LoopStrengthReduction = new OptionValue<>(true);
+
+    @Option(help = "Maximum number of loop phis by which strength reduction may increase the values live across a loop back edge.", type = OptionType.Expert)
+    public static final OptionValue<Integer> LoopStrengthReductionMaxExtraPhis = new OptionValue<>(1);
+
+    @Option(help = "Nest long running counted loops into an outer loop that polls for safepoints, so that the inner loop can run without polls.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> LoopStripMining = new OptionValue<>(false);
+
+    @Option(help = "Number of iterations a strip mined loop executes between two safepoint polls.", type = OptionType.Expert)
+    public static final OptionValue<Integer> LoopStripMiningIterations = new OptionValue<>(1000);
+
+    @Option(help = "Speculatively hoist loop invariant guards, and the fixed reads they protect, into the loop pre-header.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> SpeculativeLoopInvariantMotion = new OptionValue<>(true);
+
+    @Option(help = "Minimum number of times per loop entry that a guard must be expected to execute to be hoisted out of the loop.", type = OptionType.Expert)
+    public static final OptionValue<Double> SpeculativeLoopInvariantMotionMinFrequency = new OptionValue<>(1.0);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> UseLoopLimitChecks = new OptionValue<>(true);
 
@@ -248,6 +266,12 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> OptPushThroughPi = new OptionValue<>(true);
 
+    @Option(help = "Emit rarely executed blocks after all other blocks of a method.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> OptHotColdSplitting = new OptionValue<>(true);
+
+    @Option(help = "Blocks whose execution probability relative to the method entry is below this value are emitted out of line.", type = OptionType.Expert)
+    public static final OptionValue<Double> ColdBlockProbability = new OptionValue<>(0.001);
+
     @Option(help = "Allow backend to match complex expressions.", type = OptionType.Debug)
     public static final OptionValue<Boolean> MatchExpressions = new OptionValue<>(true);
 
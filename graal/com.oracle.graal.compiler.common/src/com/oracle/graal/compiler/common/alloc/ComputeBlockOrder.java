@@ -42,8 +42,10 @@ import com.oracle.graal.compiler.common.cfg.Loop;
  *
  * The machine code generator order includes reordering of loop headers such that the backward jump
  * is a conditional jump if there is only one loop end block. Additionally, the target of loop
- * backward jumps are always marked as aligned. Aligning the target of conditional jumps does not
- * bring a measurable benefit and is therefore avoided to keep the code size small.
+ * backward jumps are marked as aligned unless the loop is {@linkplain AbstractBlockBase#isCold()
+ * cold}. Aligning the target of conditional jumps does not bring a measurable benefit and is
+ * therefore avoided to keep the code size small. Cold blocks are only emitted after all other
+ * blocks, which keeps the frequently executed code of a method dense in the instruction cache.
  *
  * The linear scan register allocator order has an additional mechanism that prevents merge nodes
  * from being scheduled if there is at least one highly likely predecessor still unscheduled. This
@@ -89,18 +91,25 @@ public final class ComputeBlockOrder {
         List<T> order = new ArrayList<>();
         BitSet visitedBlocks = new BitSet(blockCount);
         PriorityQueue<T> worklist = initializeWorklist(startBlock, visitedBlocks);
-        computeCodeEmittingOrder(order, worklist, visitedBlocks);
+        PriorityQueue<T> coldWorklist = new PriorityQueue<>(INITIAL_WORKLIST_CAPACITY, new BlockOrderComparator<>());
+        computeCodeEmittingOrder(order, worklist, coldWorklist, visitedBlocks);
+        computeCodeEmittingOrder(order, coldWorklist, null, visitedBlocks);
         assert checkOrder(order, blockCount);
         return order.toArray(new AbstractBlockBase<?>[0]);
     }
 
     /**
-     * Iteratively adds paths to the code emission block order.
+     * Iteratively adds paths to the code emission block order. If {@code coldWorklist} is not
+     * null, cold blocks are not added but deferred to {@code coldWorklist}.
      */
-    private static <T extends AbstractBlockBase<T>> void computeCodeEmittingOrder(List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks) {
+    private static <T extends AbstractBlockBase<T>> void computeCodeEmittingOrder(List<T> order, PriorityQueue<T> worklist, PriorityQueue<T> coldWorklist, BitSet visitedBlocks) {
         while (!worklist.isEmpty()) {
             T nextImportantPath = worklist.poll();
-            addPathToCodeEmittingOrder(nextImportantPath, order, worklist, visitedBlocks);
+            if (coldWorklist != null && nextImportantPath.isCold()) {
+                coldWorklist.add(nextImportantPath);
+            } else {
+                addPathToCodeEmittingOrder(nextImportantPath, order, worklist, coldWorklist, visitedBlocks);
+            }
         }
     }
 
@@ -159,7 +168,8 @@ public final class ComputeBlockOrder {
     /**
      * Add a linear path to the code emission order greedily following the most likely successor.
      */
-    private static <T extends AbstractBlockBase<T>> void addPathToCodeEmittingOrder(T initialBlock, List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks) {
+    private static <T extends AbstractBlockBase<T>> void addPathToCodeEmittingOrder(T initialBlock, List<T> order, PriorityQueue<T> worklist, PriorityQueue<T> coldWorklist,
+                    BitSet visitedBlocks) {
         T block = initialBlock;
         while (block != null) {
             // Skip loop headers if there is only a single loop end block to
@@ -167,7 +177,7 @@ public final class ComputeBlockOrder {
             if (!skipLoopHeader(block)) {
 
                 // Align unskipped loop headers as they are the target of the backward jump.
-                if (block.isLoopHeader()) {
+                if (block.isLoopHeader() && !block.isCold()) {
                     block.setAlign(true);
                 }
                 addBlock(block, order);
@@ -184,7 +194,7 @@ public final class ComputeBlockOrder {
                 // as they are the target
                 // of the backward jump.
                 for (T successor : loop.getHeader().getSuccessors()) {
-                    if (successor.getLoopDepth() == block.getLoopDepth()) {
+                    if (successor.getLoopDepth() == block.getLoopDepth() && !successor.isCold()) {
                         successor.setAlign(true);
                     }
                 }
@@ -192,6 +202,11 @@ public final class ComputeBlockOrder {
 
             T mostLikelySuccessor = findAndMarkMostLikelySuccessor(block, visitedBlocks);
             enqueueSuccessors(block, worklist, visitedBlocks);
+            if (coldWorklist != null && mostLikelySuccessor != null && mostLikelySuccessor.isCold()) {
+                // Do not continue a hot path with a cold block.
+                coldWorklist.add(mostLikelySuccessor);
+                mostLikelySuccessor = null;
+            }
             block = mostLikelySuccessor;
         }
     }
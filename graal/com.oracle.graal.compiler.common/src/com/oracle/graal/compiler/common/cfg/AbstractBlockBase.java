@@ -39,6 +39,7 @@ public abstract class AbstractBlockBase<T extends AbstractBlockBase<T>> {
     private int maxChildDomNumber;
 
     private boolean align;
+    private boolean cold;
     private int linearScanNumber;
 
     protected AbstractBlockBase() {
@@ -141,6 +142,18 @@ public abstract class AbstractBlockBase<T extends AbstractBlockBase<T>> {
         this.align = align;
     }
 
+    /**
+     * Determines if this block is executed so rarely that it should be emitted after all other
+     * blocks of the method.
+     */
+    public boolean isCold() {
+        return cold;
+    }
+
+    public void setCold(boolean cold) {
+        this.cold = cold;
+    }
+
     public abstract boolean isExceptionEntry();
 
     public abstract Loop<T> getLoop();
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Test;
+
+import com.oracle.graal.api.directives.GraalDirectives;
+
+/**
+ * Tests that {@link com.oracle.graal.phases.common.DominatorConditionalEliminationPhase} combines
+ * relations between values established by different dominating conditions.
+ */
+public class ConditionalEliminationTest12 extends ConditionalEliminationTestBase {
+
+    @SuppressWarnings("all")
+    public static int referenceSnippet(int i, int n, int m) {
+        if (i < n) {
+            if (n <= m) {
+                return 1;
+            }
+        }
+        return 3;
+    }
+
+    @SuppressWarnings("all")
+    public static int test1Snippet(int i, int n, int m) {
+        if (i < n) {
+            if (n <= m) {
+                if (i < m) {
+                    return 1;
+                }
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    @Test
+    public void test1() {
+        testConditionalElimination("test1Snippet", "referenceSnippet");
+    }
+
+    @SuppressWarnings("all")
+    public static int reference2Snippet(int i, int j, int k, int l) {
+        if (i >= j) {
+            GraalDirectives.deoptimize();
+        }
+        if (j > k) {
+            GraalDirectives.deoptimize();
+        }
+        if (k != l) {
+            GraalDirectives.deoptimize();
+        }
+        return 1;
+    }
+
+    @SuppressWarnings("all")
+    public static int test2Snippet(int i, int j, int k, int l) {
+        if (i >= j) {
+            GraalDirectives.deoptimize();
+        }
+        if (j > k) {
+            GraalDirectives.deoptimize();
+        }
+        if (k != l) {
+            GraalDirectives.deoptimize();
+        }
+        if (i >= l) {
+            GraalDirectives.deoptimize();
+        }
+        return 1;
+    }
+
+    @Test
+    public void test2() {
+        testConditionalElimination("test2Snippet", "reference2Snippet");
+    }
+
+    @SuppressWarnings("all")
+    public static int test3Snippet(int i, int n, int m) {
+        if (i < n) {
+            if (m <= n) {
+                if (i < m) {
+                    return 1;
+                }
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    @Test
+    public void test3() {
+        // i < n and m <= n say nothing about i and m.
+        testConditionalElimination("test3Snippet", "test3Snippet");
+    }
+}
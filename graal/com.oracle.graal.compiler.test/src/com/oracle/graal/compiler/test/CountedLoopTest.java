@@ -58,16 +58,25 @@ public class CountedLoopTest extends GraalCompilerTest {
         return iv;
     }
 
+    /**
+     * Get a property of a 64-bit induction variable.
+     *
+     * @param property
+     */
+    private static long get(IVProperty property, long iv) {
+        return iv;
+    }
+
     private static class Result {
-        public int extremum;
-        public int exitValue;
+        public long extremum;
+        public long exitValue;
 
         @Override
         public int hashCode() {
             final int prime = 31;
             int result = 1;
-            result = prime * result + exitValue;
-            result = prime * result + extremum;
+            result = prime * result + Long.hashCode(exitValue);
+            result = prime * result + Long.hashCode(extremum);
             return result;
         }
 
@@ -206,6 +215,55 @@ public class CountedLoopTest extends GraalCompilerTest {
         return ret;
     }
 
+    public static Result incrementLongSnippet(long start, long limit, long step) {
+        long i;
+        long inc = ((step - 1) & 0xFFFF) + 1; // make sure this value is always strictly positive
+        Result ret = new Result();
+        for (i = start; i < limit; i += inc) {
+            GraalDirectives.controlFlowAnchor();
+            ret.extremum = get(InductionVariable::extremumNode, i);
+        }
+        ret.exitValue = get(InductionVariable::exitValueNode, i);
+        return ret;
+    }
+
+    @Test
+    public void incrementLong1() {
+        test("incrementLongSnippet", 0L, 256L, 1L);
+    }
+
+    @Test
+    public void incrementLong2() {
+        test("incrementLongSnippet", 0L, 256L, 2L);
+    }
+
+    @Test
+    public void incrementLong3() {
+        test("incrementLongSnippet", 1L << 40, (1L << 40) + 256L, 3L);
+    }
+
+    public static Result decrementLongSnippet(long start, long limit, long step) {
+        long i;
+        long dec = ((step - 1) & 0xFFFF) + 1; // make sure this value is always strictly positive
+        Result ret = new Result();
+        for (i = start; i >= limit; i -= dec) {
+            GraalDirectives.controlFlowAnchor();
+            ret.extremum = get(InductionVariable::extremumNode, i);
+        }
+        ret.exitValue = get(InductionVariable::exitValueNode, i);
+        return ret;
+    }
+
+    @Test
+    public void decrementLong1() {
+        test("decrementLongSnippet", 256L, 0L, 1L);
+    }
+
+    @Test
+    public void decrementLong3() {
+        test("decrementLongSnippet", -(1L << 40), -(1L << 40) - 256L, 3L);
+    }
+
     @Test
     public void testTwoVariables() {
         test("twoVariablesSnippet");
@@ -243,7 +301,14 @@ public class CountedLoopTest extends GraalCompilerTest {
         Plugins plugins = super.getDefaultGraphBuilderPlugins();
         Registration r = new Registration(plugins.getInvocationPlugins(), CountedLoopTest.class);
 
-        r.register2("get", IVProperty.class, int.class, new InvocationPlugin() {
+        registerGet(r, int.class, JavaKind.Int);
+        registerGet(r, long.class, JavaKind.Long);
+
+        return plugins;
+    }
+
+    private void registerGet(Registration r, Class<?> type, JavaKind kind) {
+        r.register2("get", IVProperty.class, type, new InvocationPlugin() {
             @Override
             public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode arg1, ValueNode arg2) {
                 IVProperty property = null;
@@ -251,15 +316,13 @@ public class CountedLoopTest extends GraalCompilerTest {
                     property = getSnippetReflection().asObject(IVProperty.class, arg1.asJavaConstant());
                 }
                 if (property != null) {
-                    b.addPush(JavaKind.Int, new IVPropertyNode(property, arg2));
+                    b.addPush(kind, new IVPropertyNode(property, arg2));
                     return true;
                 } else {
                     return false;
                 }
             }
         });
-
-        return plugins;
     }
 
     @Override
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.memory.WriteNode;
+
+public class DeadStoreEliminationTest extends GraalCompilerTest {
+
+    static class Point {
+        int x;
+        int y;
+        volatile int v;
+    }
+
+    private int expectedWrites;
+
+    public static int overwriteSnippet(Point p, int a, int b) {
+        p.x = a;
+        p.y = b;
+        p.x = b;
+        return p.x * 31 + p.y;
+    }
+
+    public static int volatileSnippet(Point p, int a, int b) {
+        p.v = a;
+        p.v = b;
+        return p.v;
+    }
+
+    public static int conditionalSnippet(Point p, int a, int b) {
+        p.x = a;
+        if (b > a) {
+            p.x = b;
+        }
+        return p.x;
+    }
+
+    @Override
+    protected boolean checkMidTierGraph(StructuredGraph graph) {
+        Assert.assertEquals(expectedWrites, graph.getNodes().filter(WriteNode.class).count());
+        return true;
+    }
+
+    @Test
+    public void testOverwrite() {
+        expectedWrites = 2;
+        test("overwriteSnippet", new Point(), 1, 2);
+    }
+
+    @Test
+    public void testVolatile() {
+        expectedWrites = 2;
+        test("volatileSnippet", new Point(), 1, 2);
+    }
+
+    @Test
+    public void testConditional() {
+        expectedWrites = 2;
+        test("conditionalSnippet", new Point(), 1, 2);
+        test("conditionalSnippet", new Point(), 2, 1);
+    }
+}
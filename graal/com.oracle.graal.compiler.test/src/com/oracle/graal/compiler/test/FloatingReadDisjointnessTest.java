@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.memory.FloatingReadNode;
+import com.oracle.graal.nodes.memory.WriteNode;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FloatingReadPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+/**
+ * Tests that floating reads are not ordered after writes to provably different array elements.
+ */
+public class FloatingReadDisjointnessTest extends GraalCompilerTest {
+
+    public static int neighbourSnippet(int[] a, int i) {
+        int x = a[i + 1];
+        a[i] = 42;
+        return x + a[i + 1];
+    }
+
+    public static int sameElementSnippet(int[] a, int i) {
+        int x = a[i];
+        a[i] = 42;
+        return x + a[i];
+    }
+
+    public static int constantIndexSnippet(int[] a) {
+        a[0] = 42;
+        a[2] = 13;
+        return a[1];
+    }
+
+    public static int loopSnippet(int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length - 1; i++) {
+            a[i] = i;
+            sum += a[i + 1];
+        }
+        return sum;
+    }
+
+    private void checkReadsAfterWrites(String snippet, int expected) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        PhaseContext context = new PhaseContext(getProviders());
+        new LoweringPhase(new CanonicalizerPhase(), LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+        new FloatingReadPhase().apply(graph);
+        int count = 0;
+        for (FloatingReadNode read : graph.getNodes().filter(FloatingReadNode.class)) {
+            if (read.getLastLocationAccess() instanceof WriteNode) {
+                count++;
+            }
+        }
+        Assert.assertEquals(expected, count);
+    }
+
+    @Test
+    public void testNeighbour() {
+        checkReadsAfterWrites("neighbourSnippet", 0);
+        test("neighbourSnippet", new int[]{1, 2, 3}, 0);
+        test("neighbourSnippet", new int[]{1, 2, 3}, 2);
+    }
+
+    @Test
+    public void testSameElement() {
+        checkReadsAfterWrites("sameElementSnippet", 1);
+        test("sameElementSnippet", new int[]{1, 2, 3}, 1);
+    }
+
+    @Test
+    public void testConstantIndex() {
+        checkReadsAfterWrites("constantIndexSnippet", 0);
+        test("constantIndexSnippet", new int[]{1, 2, 3});
+    }
+
+    @Test
+    public void testLoop() {
+        checkReadsAfterWrites("loopSnippet", 0);
+        test("loopSnippet", new int[]{1, 2, 3, 4});
+        test("loopSnippet", new int[0]);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.ParameterNode;
+import com.oracle.graal.nodes.ReturnNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.MulNode;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.phases.common.GlobalValueNumberingPhase;
+
+public class GlobalValueNumberingTest extends GraalCompilerTest {
+
+    public static int identitySnippet(int[] array, int a, int b) {
+        return b;
+    }
+
+    public static int divisionSnippet(int a, int b, int c) {
+        int result = a / b;
+        if (c > 0) {
+            result += a / b;
+        }
+        return result;
+    }
+
+    private static void setResult(StructuredGraph graph, ValueNode result) {
+        ReturnNode ret = graph.getNodes(ReturnNode.TYPE).first();
+        ret.replaceFirstInput(ret.result(), result);
+    }
+
+    @Test
+    public void testFloatingNodes() {
+        StructuredGraph graph = parseEager("identitySnippet", AllowAssumptions.YES);
+        ParameterNode a = graph.getParameter(1);
+        ParameterNode b = graph.getParameter(2);
+        AddNode add1 = graph.addWithoutUnique(new AddNode(a, b));
+        AddNode add2 = graph.addWithoutUnique(new AddNode(a, b));
+        MulNode mul1 = graph.addWithoutUnique(new MulNode(add1, a));
+        MulNode mul2 = graph.addWithoutUnique(new MulNode(add2, a));
+        setResult(graph, graph.addWithoutUnique(new AddNode(mul1, mul2)));
+
+        new GlobalValueNumberingPhase().apply(graph);
+        Assert.assertEquals(2, graph.getNodes().filter(AddNode.class).count());
+        Assert.assertEquals(1, graph.getNodes().filter(MulNode.class).count());
+    }
+
+    @Test
+    public void testDominatedFixedNodes() {
+        StructuredGraph graph = parseEager("identitySnippet", AllowAssumptions.YES);
+        ParameterNode array = graph.getParameter(0);
+        ReturnNode ret = graph.getNodes(ReturnNode.TYPE).first();
+        ArrayLengthNode length1 = graph.add(new ArrayLengthNode(array));
+        graph.addBeforeFixed(ret, length1);
+        ArrayLengthNode length2 = graph.add(new ArrayLengthNode(array));
+        graph.addBeforeFixed(ret, length2);
+        setResult(graph, graph.addWithoutUnique(new AddNode(length1, length2)));
+
+        new GlobalValueNumberingPhase().apply(graph);
+        Assert.assertEquals(1, graph.getNodes().filter(ArrayLengthNode.class).count());
+    }
+
+    @Test
+    public void testDivision() {
+        test("divisionSnippet", 17, 3, 1);
+        test("divisionSnippet", 17, 3, -1);
+        test("divisionSnippet", 17, 0, 1);
+    }
+}
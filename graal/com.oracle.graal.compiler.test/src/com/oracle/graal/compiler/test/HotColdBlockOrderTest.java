@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.alloc.ComputeBlockOrder;
+import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.UnwindNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ColdBlockMarker;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+
+public class HotColdBlockOrderTest extends GraalCompilerTest {
+
+    public static int throwingSnippet(int a) {
+        if (a < 0) {
+            throw new IllegalArgumentException();
+        }
+        int result = 0;
+        for (int i = 0; i < a; i++) {
+            result += i;
+        }
+        return result;
+    }
+
+    @Test
+    public void testThrowingPathIsCold() {
+        StructuredGraph graph = parseEager("throwingSnippet", AllowAssumptions.YES);
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, true);
+        Assert.assertTrue(ColdBlockMarker.markColdBlocks(cfg, 0.001) > 0);
+
+        for (UnwindNode unwind : graph.getNodes().filter(UnwindNode.class)) {
+            Assert.assertTrue(cfg.blockFor(unwind).isCold());
+        }
+        Assert.assertFalse(cfg.getStartBlock().isCold());
+        for (Block block : cfg.getBlocks()) {
+            if (block.isLoopHeader()) {
+                Assert.assertFalse(block.isCold());
+            }
+        }
+
+        AbstractBlockBase<?>[] order = ComputeBlockOrder.computeCodeEmittingOrder(cfg.getBlocks().length, cfg.getStartBlock());
+        boolean seenCold = false;
+        for (AbstractBlockBase<?> block : order) {
+            if (block.isCold()) {
+                seenCold = true;
+                Assert.assertFalse("cold blocks are not aligned", block.isAligned());
+            } else {
+                Assert.assertFalse("hot block " + block + " emitted after a cold block", seenCold);
+            }
+        }
+        Assert.assertTrue(seenCold);
+    }
+}
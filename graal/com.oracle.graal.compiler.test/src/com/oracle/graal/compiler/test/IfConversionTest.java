@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.IfConversionPhase;
+
+public class IfConversionTest extends GraalCompilerTest {
+
+    public static int minSnippet(int a, int b) {
+        int result;
+        if (a < b) {
+            result = a;
+        } else {
+            result = b;
+        }
+        return result * 31;
+    }
+
+    public static int arithmeticSnippet(int a, int b) {
+        int result;
+        if (a < b) {
+            result = a + 1;
+        } else {
+            result = b << 2;
+        }
+        return result * 31;
+    }
+
+    public static Object selectSnippet(Object a, Object b, int c) {
+        Object result;
+        if (c > 0) {
+            result = a;
+        } else {
+            result = b;
+        }
+        return result.hashCode() == 0 ? null : result;
+    }
+
+    public static int sideEffectSnippet(int[] array, int a, int b) {
+        int result;
+        if (a < b) {
+            result = a;
+        } else {
+            array[0] = b;
+            result = b;
+        }
+        return result * 31;
+    }
+
+    private StructuredGraph convert(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        for (IfNode ifNode : graph.getNodes(IfNode.TYPE)) {
+            ifNode.setTrueSuccessorProbability(0.5);
+        }
+        new IfConversionPhase(new CanonicalizerPhase()).apply(graph, getDefaultHighTierContext());
+        return graph;
+    }
+
+    private void testConverted(String snippet, int expectedIfs) {
+        StructuredGraph graph = convert(snippet);
+        Assert.assertEquals(expectedIfs, graph.getNodes(IfNode.TYPE).count());
+        Assert.assertTrue(graph.getNodes().filter(ConditionalNode.class).isNotEmpty());
+    }
+
+    @Test
+    public void testMin() {
+        testConverted("minSnippet", 0);
+        test("minSnippet", 3, 5);
+        test("minSnippet", 5, 3);
+    }
+
+    @Test
+    public void testArithmetic() {
+        testConverted("arithmeticSnippet", 0);
+        test("arithmeticSnippet", 3, 5);
+        test("arithmeticSnippet", 5, 3);
+    }
+
+    @Test
+    public void testObject() {
+        test("selectSnippet", "a", "b", 1);
+        test("selectSnippet", "a", "b", -1);
+    }
+
+    @Test
+    public void testSideEffect() {
+        StructuredGraph graph = convert("sideEffectSnippet");
+        Assert.assertEquals(1, graph.getNodes(IfNode.TYPE).count());
+    }
+
+    @Test
+    public void testPredictable() {
+        StructuredGraph graph = parseEager("minSnippet", AllowAssumptions.YES);
+        for (IfNode ifNode : graph.getNodes(IfNode.TYPE)) {
+            ifNode.setTrueSuccessorProbability(0.99);
+        }
+        new IfConversionPhase(new CanonicalizerPhase()).apply(graph, getDefaultHighTierContext());
+        Assert.assertEquals(1, graph.getNodes(IfNode.TYPE).count());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
+
+public class LoopStrengthReductionTest extends GraalCompilerTest {
+
+    private boolean expectReducedAddress;
+
+    public static int sumSnippet(int[] array, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    public static long mixedSnippet(int[] ints, long[] longs, int n) {
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += ints[i] * longs[i];
+        }
+        return sum;
+    }
+
+    public static int stridedSnippet(byte[] array, int start) {
+        int sum = 0;
+        for (int i = start; i < array.length; i += 3) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Override
+    protected boolean checkMidTierGraph(StructuredGraph graph) {
+        if (expectReducedAddress) {
+            boolean reduced = false;
+            for (OffsetAddressNode address : graph.getNodes().filter(OffsetAddressNode.class)) {
+                if (address.getOffset() instanceof ValuePhiNode) {
+                    reduced = true;
+                }
+            }
+            Assert.assertTrue("expected an address computed from a strength reduced phi", reduced);
+        }
+        return true;
+    }
+
+    @Test
+    public void testSum() {
+        expectReducedAddress = true;
+        test("sumSnippet", new int[]{1, 2, 3, 4, 5}, 5);
+        test("sumSnippet", new int[]{1, 2, 3, 4, 5}, 6);
+        test("sumSnippet", new int[0], 0);
+    }
+
+    @Test
+    public void testMixed() {
+        expectReducedAddress = false;
+        test("mixedSnippet", new int[]{1, 2, 3}, new long[]{4, 5, 6}, 3);
+        test("mixedSnippet", new int[]{1, 2, 3}, new long[]{4, 5, 6}, 4);
+    }
+
+    @Test
+    public void testStrided() {
+        expectReducedAddress = false;
+        test("stridedSnippet", new byte[]{1, 2, 3, 4, 5, 6, 7}, 1);
+        test("stridedSnippet", new byte[]{1, 2, 3, 4, 5, 6, 7}, -2);
+    }
+}
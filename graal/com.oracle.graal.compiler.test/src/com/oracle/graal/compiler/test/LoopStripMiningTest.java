@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.loop.phases.LoopStripMiningPhase;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.SafepointNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.phases.common.LockEliminationPhase;
+import com.oracle.graal.phases.tiers.Suites;
+
+public class LoopStripMiningTest extends GraalCompilerTest {
+
+    private static final int STRIP_LENGTH = 4;
+
+    private boolean expectStripMined;
+
+    public static int sumSnippet(int[] array, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    public static long countDownSnippet(int n) {
+        long sum = 0;
+        int i;
+        for (i = n; i >= 0; i -= 3) {
+            sum += i;
+        }
+        return sum * 31 + i;
+    }
+
+    public static long longSnippet(long start, long n) {
+        long sum = 0;
+        for (long i = start; i <= n; i += 2) {
+            sum += i ^ sum;
+        }
+        return sum;
+    }
+
+    @Override
+    protected Suites createSuites() {
+        Suites suites = super.createSuites();
+        suites.getMidTier().findPhase(LockEliminationPhase.class).add(new LoopStripMiningPhase(STRIP_LENGTH));
+        return suites;
+    }
+
+    @Override
+    protected boolean checkMidTierGraph(StructuredGraph graph) {
+        if (expectStripMined) {
+            Assert.assertEquals("expected an outer strip loop", 2, graph.getNodes(LoopBeginNode.TYPE).count());
+            int polls = 0;
+            for (LoopEndNode loopEnd : graph.getNodes(LoopEndNode.TYPE)) {
+                if (loopEnd.canSafepoint()) {
+                    polls++;
+                }
+            }
+            Assert.assertEquals("expected a poll in the outer loop only", 1, polls);
+            Assert.assertEquals(1, graph.getNodes().filter(SafepointNode.class).count());
+        }
+        return true;
+    }
+
+    @Test
+    public void testSum() {
+        expectStripMined = true;
+        int[] array = new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+        test("sumSnippet", array, 0);
+        test("sumSnippet", array, 3);
+        test("sumSnippet", array, 4);
+        test("sumSnippet", array, 5);
+        test("sumSnippet", array, 11);
+        test("sumSnippet", array, 12);
+    }
+
+    @Test
+    public void testCountDown() {
+        expectStripMined = true;
+        test("countDownSnippet", -1);
+        test("countDownSnippet", 0);
+        test("countDownSnippet", 11);
+        test("countDownSnippet", 12);
+        test("countDownSnippet", 100);
+    }
+
+    @Test
+    public void testLong() {
+        expectStripMined = true;
+        test("longSnippet", 0L, 7L);
+        test("longSnippet", 0L, 8L);
+        test("longSnippet", -100L, 100L);
+        test("longSnippet", Long.MIN_VALUE, Long.MIN_VALUE + 21);
+        test("longSnippet", 5L, 4L);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.loop.phases.SpeculativeLoopInvariantMotionPhase;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.extended.UnsafeLoadNode;
+import com.oracle.graal.nodes.memory.ReadNode;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FloatingReadPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.common.RemoveValueProxyPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class SpeculativeLoopInvariantMotionTest extends GraalCompilerTest {
+
+    static class Inner {
+        int value;
+
+        Inner(int value) {
+            this.value = value;
+        }
+    }
+
+    static class Holder {
+        Inner inner;
+
+        Holder(Inner inner) {
+            this.inner = inner;
+        }
+    }
+
+    public static int sumSnippet(Holder holder, int[] array) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            sum += holder.inner.value + array[i];
+        }
+        return sum;
+    }
+
+    public static int killedSnippet(Holder holder, int[] array) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            sum += holder.inner.value;
+            holder.inner = new Inner(array[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * The raw read is only executed if the flag is set, so it must not be hoisted: the address is
+     * not valid otherwise.
+     */
+    public static long conditionalRawReadSnippet(long address, boolean[] flags) {
+        long sum = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                sum += UNSAFE.getLong(address);
+            }
+        }
+        return sum;
+    }
+
+    private StructuredGraph hoist(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        PhaseContext context = new PhaseContext(getProviders());
+        CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
+        new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+        new FloatingReadPhase().apply(graph);
+        new RemoveValueProxyPhase().apply(graph);
+        canonicalizer.apply(graph, context);
+        new SpeculativeLoopInvariantMotionPhase().apply(graph, new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo()));
+        return graph;
+    }
+
+    private static int nullChecksInLoops(StructuredGraph graph) {
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+        int count = 0;
+        for (GuardNode guard : graph.getNodes().filter(GuardNode.class)) {
+            if (guard.getCondition() instanceof IsNullNode && cfg.blockFor(guard.getAnchor().asNode()).getLoop() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testSum() {
+        Assert.assertEquals(0, nullChecksInLoops(hoist("sumSnippet")));
+        test("sumSnippet", new Holder(new Inner(3)), new int[]{1, 2, 3});
+        test("sumSnippet", new Holder(new Inner(3)), new int[0]);
+        test("sumSnippet", new Holder(null), new int[0]);
+        test("sumSnippet", null, new int[0]);
+        test("sumSnippet", null, new int[]{1});
+    }
+
+    private static int rawReadsInLoops(StructuredGraph graph) {
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+        int count = 0;
+        for (FixedNode node : graph.getNodes().filter(FixedNode.class)) {
+            boolean rawRead = node instanceof UnsafeLoadNode || (node instanceof ReadNode && ((ReadNode) node).getGuard() == null && ((ReadNode) node).getLocationIdentity().isAny());
+            if (rawRead && cfg.blockFor(node).getLoop() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testConditionalRawRead() {
+        Assert.assertEquals(1, rawReadsInLoops(hoist("conditionalRawReadSnippet")));
+        long address = UNSAFE.allocateMemory(8);
+        try {
+            UNSAFE.putLong(address, 42);
+            test("conditionalRawReadSnippet", address, new boolean[]{true, false, true});
+            test("conditionalRawReadSnippet", address, new boolean[0]);
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+        test("conditionalRawReadSnippet", 0L, new boolean[]{false, false});
+        test("conditionalRawReadSnippet", 0L, new boolean[0]);
+    }
+
+    @Test
+    public void testKilled() {
+        Assert.assertNotEquals(0, nullChecksInLoops(hoist("killedSnippet")));
+        test("killedSnippet", new Holder(new Inner(3)), new int[]{1, 2, 3});
+        test("killedSnippet", null, new int[0]);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Test;
+
+/**
+ * Tests switches on strings, which javac translates to a switch on {@link String#hashCode()}
+ * followed by {@link String#equals(Object)} checks.
+ */
+public class StringSwitchTest extends GraalCompilerTest {
+
+    private static final String[] COMMANDS = {"get", "put", "delete", "list", "quit", "Aa", "BB", "help", "", "unknown", "ge"};
+
+    @Test
+    public void testStringSwitch() {
+        for (String command : COMMANDS) {
+            test("stringSwitch", command);
+        }
+    }
+
+    public static int stringSwitch(String command) {
+        switch (command) {
+            case "get":
+                return 1;
+            case "put":
+                return 2;
+            case "delete":
+                return 3;
+            case "list":
+                return 4;
+            case "quit":
+                return 5;
+            case "Aa":
+                // same hash code as "BB"
+                return 6;
+            case "BB":
+                return 7;
+            case "":
+                return 8;
+            default:
+                return -1;
+        }
+    }
+}
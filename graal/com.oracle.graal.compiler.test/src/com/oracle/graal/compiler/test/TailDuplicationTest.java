@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FrameStateAssignmentPhase;
+import com.oracle.graal.phases.common.GuardLoweringPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.common.TailDuplicationPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class TailDuplicationTest extends GraalCompilerTest {
+
+    static int sink;
+
+    public static int phiCheckSnippet(int a, int b) {
+        int v;
+        if (a > b) {
+            sink = a;
+            v = 0;
+        } else {
+            v = a;
+        }
+        if (v == 0) {
+            return b + v;
+        }
+        return v * b;
+    }
+
+    public static int rareTailSnippet(int a, int b) {
+        if (branchProbability(0.01, a < 0)) {
+            // the merge of this diamond is below TailDuplicationProbability
+            int v;
+            if (a > b) {
+                sink = a;
+                v = 0;
+            } else {
+                v = a;
+            }
+            if (v == 0) {
+                return b;
+            }
+            return v * b;
+        }
+        return b;
+    }
+
+    public static int mergedUseSnippet(int a, int b) {
+        int v;
+        if (a > b) {
+            sink = a;
+            v = 0;
+        } else {
+            v = a;
+        }
+        int r;
+        if (v == 0) {
+            r = b;
+        } else {
+            r = -b;
+        }
+        return r + v;
+    }
+
+    private StructuredGraph duplicate(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        PhaseContext context = new PhaseContext(getProviders());
+        CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
+        // injects the branch probabilities
+        canonicalizer.apply(graph, context);
+        new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+        new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.MID_TIER).apply(graph, context);
+        new GuardLoweringPhase().apply(graph, new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.getProfilingInfo()));
+        new FrameStateAssignmentPhase().apply(graph);
+        new TailDuplicationPhase(canonicalizer).apply(graph, context);
+        return graph;
+    }
+
+    private static boolean hasCheckOfPhi(StructuredGraph graph) {
+        for (IfNode ifNode : graph.getNodes(IfNode.TYPE)) {
+            if (ifNode.condition().inputs().filter(PhiNode.class).isNotEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testPhiCheck() {
+        Assert.assertFalse(hasCheckOfPhi(duplicate("phiCheckSnippet")));
+        test("phiCheckSnippet", 5, 3);
+        test("phiCheckSnippet", 3, 5);
+        test("phiCheckSnippet", 0, 5);
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void testSimulationLimit() {
+        try (OverrideScope s = OptionValue.override(TailDuplicationPhase.Options.TailDuplicationMaxSimulations, 0)) {
+            Assert.assertTrue(hasCheckOfPhi(duplicate("phiCheckSnippet")));
+        }
+    }
+
+    @Test
+    public void testTrivialTail() {
+        Assert.assertFalse(hasCheckOfPhi(duplicate("rareTailSnippet")));
+        test("rareTailSnippet", -1, -5);
+        test("rareTailSnippet", -5, -1);
+        test("rareTailSnippet", 3, 5);
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void testTrivialTailSize() {
+        try (OverrideScope s = OptionValue.override(GraalOptions.TailDuplicationTrivialSize, 3)) {
+            Assert.assertTrue(hasCheckOfPhi(duplicate("rareTailSnippet")));
+        }
+    }
+
+    @Test
+    public void testMergedUse() {
+        Assert.assertTrue(hasCheckOfPhi(duplicate("mergedUseSnippet")));
+        test("mergedUseSnippet", 5, 3);
+        test("mergedUseSnippet", 3, 5);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.backend;
+
+import static com.oracle.graal.lir.asm.CompilationResultBuilder.LoopHeaderAlignment;
+import static com.oracle.graal.lir.asm.CompilationResultBuilder.LoopHeaderAlignmentBudget;
+import static com.oracle.graal.lir.asm.CompilationResultBuilder.LoopHeaderAlignmentFrequency;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.compiler.GraalCompiler;
+import com.oracle.graal.compiler.GraalCompiler.Request;
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.asm.CompilationResultBuilderFactory;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.OptimisticOptimizations;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+public class LoopHeaderAlignmentTest extends GraalCompilerTest {
+
+    public static int nestedLoopSnippet(int[] array) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            for (int j = i; j < array.length; j++) {
+                sum += array[i] * array[j];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Compiles {@link #nestedLoopSnippet} and returns the {@link CompilationResultBuilder} that
+     * emitted its code.
+     */
+    @SuppressWarnings("try")
+    private CompilationResultBuilder compileWithAlignment(int alignment, int budget) {
+        Map<OptionValue<?>, Object> options = new HashMap<>();
+        options.put(LoopHeaderAlignment, alignment);
+        options.put(LoopHeaderAlignmentBudget, budget);
+        options.put(LoopHeaderAlignmentFrequency, 0.0);
+        CompilationResultBuilder[] builder = new CompilationResultBuilder[1];
+        CompilationResultBuilderFactory factory = (codeCache, foreignCalls, frameMap, asm, dataBuilder, frameContext, compilationResult) -> {
+            builder[0] = CompilationResultBuilderFactory.Default.createBuilder(codeCache, foreignCalls, frameMap, asm, dataBuilder, frameContext, compilationResult);
+            return builder[0];
+        };
+        try (OverrideScope s = OptionValue.override(options)) {
+            ResolvedJavaMethod method = getResolvedJavaMethod("nestedLoopSnippet");
+            StructuredGraph graph = parseEager(method, AllowAssumptions.YES);
+            try (Scope ds = Debug.scope("Compile", graph)) {
+                Request<CompilationResult> request = new Request<>(graph, method, getProviders(), getBackend(), getDefaultGraphBuilderSuite(), OptimisticOptimizations.ALL,
+                                graph.getProfilingInfo(), getSuites(), getLIRSuites(), new CompilationResult(), factory);
+                GraalCompiler.compile(request);
+            } catch (Throwable e) {
+                throw Debug.handle(e);
+            }
+        }
+        Assert.assertNotNull(builder[0]);
+        return builder[0];
+    }
+
+    private static void assertAligned(CompilationResultBuilder crb, int alignment, int budget) {
+        for (int position : crb.getAlignedLoopHeaders()) {
+            Assert.assertEquals("loop header at " + position, 0, position % alignment);
+        }
+        Assert.assertTrue(crb.getLoopHeaderPadding() + " > " + budget, crb.getLoopHeaderPadding() <= budget);
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testAlignedLoops() {
+        CompilationResultBuilder crb = compileWithAlignment(32, 1024);
+        Assert.assertFalse(crb.getAlignedLoopHeaders().isEmpty());
+        assertAligned(crb, 32, 1024);
+
+        Map<OptionValue<?>, Object> options = new HashMap<>();
+        options.put(LoopHeaderAlignment, 32);
+        options.put(LoopHeaderAlignmentFrequency, 0.0);
+        try (OverrideScope s = OptionValue.override(options)) {
+            test("nestedLoopSnippet", new int[]{1, 2, 3, 4, 5, 6, 7});
+        }
+    }
+
+    @Test
+    public void testBudget() {
+        // the worst case padding of 63 bytes only fits once into the budget
+        CompilationResultBuilder crb = compileWithAlignment(64, 100);
+        Assert.assertEquals(1, crb.getAlignedLoopHeaders().size());
+        assertAligned(crb, 64, 100);
+
+        crb = compileWithAlignment(64, 0);
+        Assert.assertTrue(crb.getAlignedLoopHeaders().isEmpty());
+        Assert.assertEquals(0, crb.getLoopHeaderPadding());
+    }
+}
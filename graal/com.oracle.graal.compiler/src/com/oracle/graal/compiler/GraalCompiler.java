@@ -23,6 +23,8 @@
 package com.oracle.graal.compiler;
 
 import static com.oracle.graal.compiler.GraalCompilerOptions.EmitLIRRepeatCount;
+import static com.oracle.graal.compiler.common.GraalOptions.ColdBlockProbability;
+import static com.oracle.graal.compiler.common.GraalOptions.OptHotColdSplitting;
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
 import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionality.Optional;
 
@@ -56,6 +58,7 @@ import com.oracle.graal.lir.phases.PreAllocationOptimizationPhase.PreAllocationO
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.ScheduleResult;
 import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ColdBlockMarker;
 import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
 import com.oracle.graal.options.OptionValue.OverrideScope;
 import com.oracle.graal.phases.OptimisticOptimizations;
@@ -276,6 +279,9 @@ public class GraalCompiler {
             AbstractBlockBase<?>[] codeEmittingOrder = null;
             AbstractBlockBase<?>[] linearScanOrder = null;
             try (Scope s = Debug.scope("ComputeLinearScanOrder", lir)) {
+                if (OptHotColdSplitting.getValue()) {
+                    ColdBlockMarker.markColdBlocks(schedule.getCFG(), ColdBlockProbability.getValue());
+                }
                 codeEmittingOrder = ComputeBlockOrder.computeCodeEmittingOrder(blocks.length, startBlock);
                 linearScanOrder = ComputeBlockOrder.computeLinearScanOrder(blocks.length, startBlock);
 
@@ -320,7 +326,7 @@ public class GraalCompiler {
 
     public static LIRGenerationResult emitLowLevel(TargetDescription target, LIRGenerationResult lirGenRes, LIRGeneratorTool lirGen, LIRSuites lirSuites,
                     RegisterAllocationConfig registerAllocationConfig) {
-        PreAllocationOptimizationContext preAllocOptContext = new PreAllocationOptimizationContext(lirGen);
+        PreAllocationOptimizationContext preAllocOptContext = new PreAllocationOptimizationContext(lirGen, registerAllocationConfig);
         lirSuites.getPreAllocationOptimizationStage().apply(target, lirGenRes, preAllocOptContext);
 
         AllocationContext allocContext = new AllocationContext(lirGen.getSpillMoveFactory(), registerAllocationConfig);
@@ -338,7 +344,8 @@ public class GraalCompiler {
         try (DebugCloseable a = EmitCode.start()) {
             FrameMap frameMap = lirGenRes.getFrameMap();
             CompilationResultBuilder crb = backend.newCompilationResultBuilder(lirGenRes, frameMap, compilationResult, factory);
-            backend.emitCode(crb, lirGenRes.getLIR(), installedCodeOwner);
+            LIR lir = lirGenRes.getLIR();
+            crb.emitWithBranchRelaxation(lir, () -> backend.emitCode(crb, lir, installedCodeOwner));
             if (assumptions != null && !assumptions.isEmpty()) {
                 compilationResult.setAssumptions(assumptions.toArray());
             }
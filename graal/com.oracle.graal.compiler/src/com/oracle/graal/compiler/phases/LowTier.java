@@ -36,6 +36,7 @@ import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
 import com.oracle.graal.phases.common.ExpandLogicPhase;
+import com.oracle.graal.phases.common.IfConversionPhase;
 import com.oracle.graal.phases.common.IterativeConditionalEliminationPhase;
 import com.oracle.graal.phases.common.LoweringPhase;
 import com.oracle.graal.phases.common.ProfileCompiledMethodsPhase;
@@ -82,6 +83,10 @@ public class LowTier extends PhaseSuite<LowTierContext> {
             appendPhase(new ExpandLogicPhase());
         }
 
+        if (IfConversionPhase.Options.OptIfConversion.getValue() && OptCanonicalizer.getValue()) {
+            appendPhase(new IfConversionPhase(canonicalizer));
+        }
+
         appendPhase(new UseTrappingNullChecksPhase());
 
         appendPhase(new DeadCodeEliminationPhase(Required));
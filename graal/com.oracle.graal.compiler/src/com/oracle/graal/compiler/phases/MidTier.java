@@ -24,6 +24,9 @@ package com.oracle.graal.compiler.phases;
 
 import static com.oracle.graal.compiler.common.GraalOptions.ConditionalElimination;
 import static com.oracle.graal.compiler.common.GraalOptions.ImmutableCode;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopStrengthReduction;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopStripMining;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopStripMiningIterations;
 import static com.oracle.graal.compiler.common.GraalOptions.OptCanonicalizer;
 import static com.oracle.graal.compiler.common.GraalOptions.OptDeoptimizationGrouping;
 import static com.oracle.graal.compiler.common.GraalOptions.OptEliminatePartiallyRedundantGuards;
@@ -31,17 +34,23 @@ import static com.oracle.graal.compiler.common.GraalOptions.OptFloatingReads;
 import static com.oracle.graal.compiler.common.GraalOptions.OptPushThroughPi;
 import static com.oracle.graal.compiler.common.GraalOptions.OptReadElimination;
 import static com.oracle.graal.compiler.common.GraalOptions.ReassociateInvariants;
+import static com.oracle.graal.compiler.common.GraalOptions.SpeculativeLoopInvariantMotion;
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
 import static com.oracle.graal.compiler.common.GraalOptions.VerifyHeapAtReturn;
 
 import com.oracle.graal.loop.phases.LoopSafepointEliminationPhase;
+import com.oracle.graal.loop.phases.LoopStrengthReductionPhase;
+import com.oracle.graal.loop.phases.LoopStripMiningPhase;
 import com.oracle.graal.loop.phases.ReassociateInvariantPhase;
+import com.oracle.graal.loop.phases.SpeculativeLoopInvariantMotionPhase;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.DeadStoreEliminationPhase;
 import com.oracle.graal.phases.common.DeoptimizationGroupingPhase;
 import com.oracle.graal.phases.common.FloatingReadPhase;
 import com.oracle.graal.phases.common.FrameStateAssignmentPhase;
+import com.oracle.graal.phases.common.GlobalValueNumberingPhase;
 import com.oracle.graal.phases.common.GuardLoweringPhase;
 import com.oracle.graal.phases.common.IncrementalCanonicalizerPhase;
 import com.oracle.graal.phases.common.IterativeConditionalEliminationPhase;
@@ -51,6 +60,7 @@ import com.oracle.graal.phases.common.LoweringPhase;
 import com.oracle.graal.phases.common.OptimizeGuardAnchorsPhase;
 import com.oracle.graal.phases.common.PushThroughPiPhase;
 import com.oracle.graal.phases.common.RemoveValueProxyPhase;
+import com.oracle.graal.phases.common.TailDuplicationPhase;
 import com.oracle.graal.phases.common.ValueAnchorCleanupPhase;
 import com.oracle.graal.phases.common.VerifyHeapAtReturnPhase;
 import com.oracle.graal.phases.common.instrumentation.MidTierReconcileInstrumentationPhase;
@@ -75,6 +85,10 @@ public class MidTier extends PhaseSuite<MidTierContext> {
         appendPhase(new ValueAnchorCleanupPhase());
         appendPhase(new LockEliminationPhase());
 
+        if (LoopStripMining.getValue() && LoopStripMiningIterations.getValue() > 0) {
+            appendPhase(new LoopStripMiningPhase(LoopStripMiningIterations.getValue()));
+        }
+
         if (OptReadElimination.getValue()) {
             appendPhase(new EarlyReadEliminationPhase(canonicalizer));
         }
@@ -88,6 +102,10 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(canonicalizer);
         }
 
+        if (SpeculativeLoopInvariantMotion.getValue()) {
+            appendPhase(new SpeculativeLoopInvariantMotionPhase());
+        }
+
         if (OptEliminatePartiallyRedundantGuards.getValue()) {
             appendPhase(new OptimizeGuardAnchorsPhase());
         }
@@ -100,6 +118,10 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(new OptimizeGuardAnchorsPhase());
         }
 
+        if (GlobalValueNumberingPhase.Options.OptGlobalValueNumbering.getValue()) {
+            appendPhase(new GlobalValueNumberingPhase());
+        }
+
         if (OptCanonicalizer.getValue()) {
             appendPhase(canonicalizer);
         }
@@ -121,10 +143,22 @@ public class MidTier extends PhaseSuite<MidTierContext> {
 
         appendPhase(new FrameStateAssignmentPhase());
 
+        if (DeadStoreEliminationPhase.Options.OptDeadStoreElimination.getValue()) {
+            appendPhase(new DeadStoreEliminationPhase());
+        }
+
+        if (TailDuplicationPhase.Options.OptTailDuplication.getValue() && OptCanonicalizer.getValue()) {
+            appendPhase(new TailDuplicationPhase(canonicalizer));
+        }
+
         if (ReassociateInvariants.getValue()) {
             appendPhase(new ReassociateInvariantPhase());
         }
 
+        if (LoopStrengthReduction.getValue() && OptCanonicalizer.getValue()) {
+            appendPhase(new LoopStrengthReductionPhase(canonicalizer));
+        }
+
         if (OptDeoptimizationGrouping.getValue()) {
             appendPhase(new DeoptimizationGroupingPhase());
         }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+
+/**
+ * Tests compiled Base64 encoding and decoding against the interpreter using random inputs.
+ */
+public class Base64SubstitutionsTest extends GraalCompilerTest {
+
+    private static final int[] LENGTHS = {0, 1, 2, 3, 4, 11, 12, 13, 15, 16, 17, 47, 48, 49, 57, 58, 76, 100, 1000};
+
+    private static final Base64.Encoder[] ENCODERS = {Base64.getEncoder(), Base64.getUrlEncoder(), Base64.getMimeEncoder(), Base64.getMimeEncoder(16, new byte[]{'!'}),
+                    Base64.getEncoder().withoutPadding(), Base64.getUrlEncoder().withoutPadding()};
+
+    public static byte[] encode(Base64.Encoder encoder, byte[] src) {
+        return encoder.encode(src);
+    }
+
+    public static byte[] decode(Base64.Decoder decoder, byte[] src) {
+        return decoder.decode(src);
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testEncode() {
+        Random random = new Random(47);
+        for (Base64.Encoder encoder : ENCODERS) {
+            for (int length : LENGTHS) {
+                test("encode", encoder, randomBytes(random, length));
+            }
+        }
+    }
+
+    @Test
+    public void testDecode() {
+        Random random = new Random(47);
+        for (int length : LENGTHS) {
+            byte[] bytes = randomBytes(random, length);
+            test("decode", Base64.getDecoder(), Base64.getEncoder().encode(bytes));
+            test("decode", Base64.getDecoder(), Base64.getEncoder().withoutPadding().encode(bytes));
+            test("decode", Base64.getUrlDecoder(), Base64.getUrlEncoder().encode(bytes));
+            test("decode", Base64.getMimeDecoder(), Base64.getMimeEncoder().encode(bytes));
+            test("decode", Base64.getMimeDecoder(), Base64.getMimeEncoder(16, new byte[]{'!'}).encode(bytes));
+        }
+    }
+
+    @Test
+    public void testDecodeIllegal() {
+        Random random = new Random(47);
+        for (int length : LENGTHS) {
+            byte[] encoded = Base64.getEncoder().encode(randomBytes(random, length));
+            if (encoded.length > 0) {
+                for (byte illegal : new byte[]{'-', '_', '*', '=', (byte) 0x80, (byte) 0xFF}) {
+                    byte[] src = encoded.clone();
+                    src[random.nextInt(src.length)] = illegal;
+                    test("decode", Base64.getDecoder(), src);
+                    test("decode", Base64.getMimeDecoder(), src);
+                }
+                byte[] url = encoded.clone();
+                url[random.nextInt(url.length)] = '+';
+                test("decode", Base64.getUrlDecoder(), url);
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.nodes.StructuredGraph.NO_PROFILING_INFO;
+import static com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.CompilationContext.ROOT_COMPILATION;
+
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.hotspot.meta.HotSpotProviders;
+import com.oracle.graal.hotspot.replacements.BigIntegerSubstitutions;
+import com.oracle.graal.java.GraphBuilderPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext;
+import com.oracle.graal.phases.OptimisticOptimizations;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Compares the results of {@link BigIntegerSubstitutions} with the results of the interpreter.
+ * The public {@link BigInteger} operations only reach the substituted methods above some size
+ * thresholds, so the substituted methods are also compiled and executed directly.
+ */
+public class BigIntegerSubstitutionTest extends HotSpotGraalCompilerTest {
+
+    public static BigInteger multiplySnippet(BigInteger a, BigInteger b) {
+        return a.multiply(b);
+    }
+
+    public static BigInteger squareSnippet(BigInteger a) {
+        return a.pow(2);
+    }
+
+    public static BigInteger modPowSnippet(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        return base.modPow(exponent, modulus);
+    }
+
+    private static BigInteger random(Random random, int bits) {
+        return new BigInteger(bits, random).setBit(bits - 1);
+    }
+
+    @Test
+    public void testMultiply() {
+        Random random = new Random(42);
+        for (int bits : new int[]{64, 512, 1024, 2048, 3000}) {
+            test("multiplySnippet", random(random, bits), random(random, bits / 2 + 1));
+            test("multiplySnippet", random(random, bits), random(random, bits).negate());
+        }
+    }
+
+    @Test
+    public void testSquare() {
+        Random random = new Random(43);
+        for (int bits : new int[]{64, 512, 1024, 2048, 3000}) {
+            test("squareSnippet", random(random, bits));
+        }
+    }
+
+    @Test
+    public void testModPow() {
+        Random random = new Random(44);
+        for (int bits : new int[]{512, 1024, 2048}) {
+            BigInteger modulus = random(random, bits).setBit(0);
+            test("modPowSnippet", random(random, bits - 1), random(random, bits), modulus);
+        }
+    }
+
+    private static final int[] LENGTHS = {1, 2, 3, 7, 8, 9, 16, 33, 100};
+
+    private static final int[] EVEN_LENGTHS = {2, 4, 8, 16, 34, 64};
+
+    /**
+     * Gets the first of {@code names} that is declared by {@link BigInteger}.
+     */
+    private ResolvedJavaMethod lookup(String... names) {
+        for (String name : names) {
+            for (Method m : BigInteger.class.getDeclaredMethods()) {
+                if (m.getName().equals(name)) {
+                    return getMetaAccess().lookupJavaMethod(m);
+                }
+            }
+        }
+        Assume.assumeTrue(names[0] + " does not exist in this JDK", false);
+        return null;
+    }
+
+    /**
+     * Compiles the substitution for {@code method} as the root of a compilation, like
+     * {@link HotSpotCryptoSubstitutionTest} does. The code is not installed as the default code of
+     * {@code method} so that the original method can still be executed for comparison.
+     */
+    private InstalledCode compileSubstitution(ResolvedJavaMethod method) {
+        StructuredGraph subst = getReplacements().getSubstitution(method, 0);
+        Assume.assumeTrue(method.getName() + " is not substituted on this VM", subst != null);
+        ResolvedJavaMethod substMethod = subst.method();
+        StructuredGraph graph = new StructuredGraph(substMethod, AllowAssumptions.YES, NO_PROFILING_INFO);
+        Plugins plugins = new Plugins(((HotSpotProviders) getProviders()).getGraphBuilderPlugins());
+        GraphBuilderConfiguration config = GraphBuilderConfiguration.getSnippetDefault(plugins);
+        IntrinsicContext initialReplacementContext = new IntrinsicContext(method, substMethod, ROOT_COMPILATION);
+        new GraphBuilderPhase.Instance(getMetaAccess(), getProviders().getStampProvider(), getConstantReflection(), getProviders().getConstantFieldProvider(), config,
+                        OptimisticOptimizations.NONE, initialReplacementContext).apply(graph);
+        InstalledCode code = getCode(method, graph, true);
+        Assert.assertNotNull(code);
+        return code;
+    }
+
+    private static Object execute(InstalledCode code, Object receiver, Object... args) throws Exception {
+        if (receiver == null) {
+            return code.executeVarargs(args);
+        }
+        Object[] argsWithReceiver = new Object[args.length + 1];
+        argsWithReceiver[0] = receiver;
+        System.arraycopy(args, 0, argsWithReceiver, 1, args.length);
+        return code.executeVarargs(argsWithReceiver);
+    }
+
+    /**
+     * Gets {@code len} random words of a magnitude, most significant word first.
+     */
+    private static int[] words(Random random, int len) {
+        int[] words = new int[len];
+        for (int i = 0; i < len; i++) {
+            words[i] = random.nextInt();
+        }
+        words[0] |= 1;
+        return words;
+    }
+
+    @Test
+    public void testMultiplyToLen() throws Exception {
+        ResolvedJavaMethod method = lookup("implMultiplyToLen", "multiplyToLen");
+        InstalledCode code = compileSubstitution(method);
+        // multiplyToLen is an instance method in some versions of JDK 8
+        Object receiver = method.isStatic() ? null : BigInteger.ONE;
+        Random random = new Random(45);
+        for (int xlen : LENGTHS) {
+            for (int ylen : new int[]{1, xlen, xlen + 3}) {
+                int[] x = words(random, xlen);
+                int[] y = words(random, ylen);
+                Object expected = invoke(method, receiver, x, xlen, y, ylen, null);
+                assertDeepEquals(expected, execute(code, receiver, x, xlen, y, ylen, null));
+                // an existing result array is reused
+                expected = invoke(method, receiver, x, xlen, y, ylen, new int[xlen + ylen]);
+                assertDeepEquals(expected, execute(code, receiver, x, xlen, y, ylen, new int[xlen + ylen]));
+            }
+        }
+    }
+
+    @Test
+    public void testSquareToLen() throws Exception {
+        ResolvedJavaMethod method = lookup("implSquareToLen");
+        InstalledCode code = compileSubstitution(method);
+        Random random = new Random(46);
+        for (int len : LENGTHS) {
+            int[] x = words(random, len);
+            Object expected = invoke(method, null, x, len, new int[2 * len], 2 * len);
+            assertDeepEquals(expected, execute(code, null, x, len, new int[2 * len], 2 * len));
+        }
+    }
+
+    @Test
+    public void testMulAdd() throws Exception {
+        ResolvedJavaMethod method = lookup("implMulAdd");
+        InstalledCode code = compileSubstitution(method);
+        Random random = new Random(47);
+        for (int len : LENGTHS) {
+            int[] in = words(random, len);
+            int[] out = words(random, 2 * len + 1);
+            for (int offset : new int[]{0, len / 2, out.length - len}) {
+                for (int k : new int[]{1, random.nextInt(), -1}) {
+                    int[] expectedOut = out.clone();
+                    int[] actualOut = out.clone();
+                    Object expected = invoke(method, null, expectedOut, in, offset, len, k);
+                    assertDeepEquals(expected, execute(code, null, actualOut, in, offset, len, k));
+                    Assert.assertArrayEquals(expectedOut, actualOut);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes {@code -n^-1 mod 2^64} for the odd modulus {@code n} as done by
+     * {@link BigInteger#modPow} before calling the Montgomery methods.
+     */
+    private static long montgomeryInverse(int[] n) {
+        int len = n.length;
+        long n0 = (n[len - 1] & 0xFFFFFFFFL) | ((long) n[len - 2] << 32);
+        long inv = n0;
+        // each Newton iteration doubles the number of correct low bits
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - n0 * inv;
+        }
+        return -inv;
+    }
+
+    private static int[] modulus(Random random, int len) {
+        int[] n = words(random, len);
+        n[0] |= 0x80000000;
+        n[len - 1] |= 1;
+        return n;
+    }
+
+    /**
+     * Gets {@code len} random words that are less than the modulus {@code n}.
+     */
+    private static int[] residue(Random random, int[] n) {
+        int[] a = words(random, n.length);
+        a[0] &= 0x3FFFFFFF;
+        return a;
+    }
+
+    @Test
+    public void testMontgomeryMultiply() throws Exception {
+        ResolvedJavaMethod method = lookup("implMontgomeryMultiply");
+        InstalledCode code = compileSubstitution(method);
+        Random random = new Random(48);
+        for (int len : EVEN_LENGTHS) {
+            int[] n = modulus(random, len);
+            long inv = montgomeryInverse(n);
+            int[] a = residue(random, n);
+            int[] b = residue(random, n);
+            int[] expected = (int[]) invoke(method, null, a, b, n, len, inv, new int[2 * len]);
+            int[] actual = (int[]) execute(code, null, a, b, n, len, inv, new int[2 * len]);
+            // only the first len words hold the reduced result
+            Assert.assertArrayEquals(Arrays.copyOf(expected, len), Arrays.copyOf(actual, len));
+        }
+    }
+
+    @Test
+    public void testMontgomerySquare() throws Exception {
+        ResolvedJavaMethod method = lookup("implMontgomerySquare");
+        InstalledCode code = compileSubstitution(method);
+        Random random = new Random(49);
+        for (int len : EVEN_LENGTHS) {
+            int[] n = modulus(random, len);
+            long inv = montgomeryInverse(n);
+            int[] a = residue(random, n);
+            int[] expected = (int[]) invoke(method, null, a, n, len, inv, new int[2 * len]);
+            int[] actual = (int[]) execute(code, null, a, n, len, inv, new int[2 * len]);
+            // only the first len words hold the reduced result
+            Assert.assertArrayEquals(Arrays.copyOf(expected, len), Arrays.copyOf(actual, len));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests compiled calls to {@code java.util.zip.CRC32C}, which was added in JDK 9. The checksum
+ * is accumulated in the receiver, so each compiled update is compared against an update of a
+ * separate interpreted instance.
+ */
+public class CRC32CSubstitutionsTest extends GraalCompilerTest {
+
+    private static final int[] OFFSETS = {0, 1, 3, 7, 8, 15, 16, 17, 100};
+
+    private Class<?> crc32c;
+
+    @Before
+    public void checkCRC32C() throws ClassNotFoundException {
+        Assume.assumeFalse(Java8OrEarlier);
+        crc32c = Class.forName("java.util.zip.CRC32C");
+    }
+
+    private Checksum newCRC32C() throws ReflectiveOperationException {
+        return (Checksum) crc32c.getConstructor().newInstance();
+    }
+
+    private static byte[] classfileBytes() throws Throwable {
+        String classfileName = CRC32CSubstitutionsTest.class.getSimpleName().replace('.', '/') + ".class";
+        InputStream s = CRC32CSubstitutionsTest.class.getResourceAsStream(classfileName);
+        byte[] buf = new byte[s.available()];
+        new DataInputStream(s).readFully(buf);
+        return buf;
+    }
+
+    @Test
+    public void testUpdateBytes() throws Throwable {
+        byte[] buf = classfileBytes();
+        ResolvedJavaMethod update = getMetaAccess().lookupJavaMethod(crc32c.getMethod("update", byte[].class, int.class, int.class));
+        InstalledCode code = getCode(update);
+        for (int offset : OFFSETS) {
+            for (int length : new int[]{0, 1, 31, buf.length - offset}) {
+                Checksum expected = newCRC32C();
+                expected.update(buf, offset, length);
+                Checksum actual = newCRC32C();
+                code.executeVarargs(actual, buf, offset, length);
+                Assert.assertEquals("offset " + offset + ", length " + length, expected.getValue(), actual.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateByteBuffer() throws Throwable {
+        byte[] buf = classfileBytes();
+        ByteBuffer directBuf = ByteBuffer.allocateDirect(buf.length);
+        directBuf.put(buf);
+        ByteBuffer heapBuf = ByteBuffer.wrap(buf);
+
+        Method updateMethod = crc32c.getMethod("update", ByteBuffer.class);
+        ResolvedJavaMethod update = getMetaAccess().lookupJavaMethod(updateMethod);
+        InstalledCode code = getCode(update);
+        for (ByteBuffer buffer : new ByteBuffer[]{directBuf, heapBuf}) {
+            for (int offset : OFFSETS) {
+                for (int limit : new int[]{offset, offset + 31, buf.length}) {
+                    buffer.limit(limit).position(offset);
+                    Checksum expected = newCRC32C();
+                    updateMethod.invoke(expected, buffer);
+                    buffer.position(offset);
+                    Checksum actual = newCRC32C();
+                    code.executeVarargs(actual, buffer);
+                    Assert.assertEquals(buffer + ", offset " + offset, expected.getValue(), actual.getValue());
+                }
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.security.AlgorithmParameters;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
 
 import javax.crypto.Cipher;
@@ -92,7 +93,7 @@ public class HotSpotCryptoSubstitutionTest extends HotSpotGraalCompilerTest {
 
     @Test
     public void testAESCryptIntrinsics() throws Exception {
-        if (compileAndInstall("com.sun.crypto.provider.AESCrypt", HotSpotGraphBuilderPlugins.aesEncryptName, HotSpotGraphBuilderPlugins.aesDecryptName)) {
+        if (compileAndInstall("com.sun.crypto.provider.AESCrypt", runtime().getVMConfig().useAESIntrinsics, HotSpotGraphBuilderPlugins.aesEncryptName, HotSpotGraphBuilderPlugins.aesDecryptName)) {
             ByteArrayOutputStream actual = new ByteArrayOutputStream();
             actual.write(runEncryptDecrypt(aesKey, "AES/CBC/NoPadding"));
             actual.write(runEncryptDecrypt(aesKey, "AES/CBC/PKCS5Padding"));
@@ -102,7 +103,7 @@ public class HotSpotCryptoSubstitutionTest extends HotSpotGraalCompilerTest {
 
     @Test
     public void testCipherBlockChainingIntrinsics() throws Exception {
-        if (compileAndInstall("com.sun.crypto.provider.CipherBlockChaining", HotSpotGraphBuilderPlugins.cbcEncryptName, HotSpotGraphBuilderPlugins.cbcDecryptName)) {
+        if (compileAndInstall("com.sun.crypto.provider.CipherBlockChaining", runtime().getVMConfig().useAESIntrinsics, HotSpotGraphBuilderPlugins.cbcEncryptName, HotSpotGraphBuilderPlugins.cbcDecryptName)) {
             ByteArrayOutputStream actual = new ByteArrayOutputStream();
             actual.write(runEncryptDecrypt(aesKey, "AES/CBC/NoPadding"));
             actual.write(runEncryptDecrypt(aesKey, "AES/CBC/PKCS5Padding"));
@@ -115,15 +116,28 @@ public class HotSpotCryptoSubstitutionTest extends HotSpotGraalCompilerTest {
         }
     }
 
+    @Test
+    public void testSHAIntrinsics() throws Exception {
+        String[][] digests = {{"sun.security.provider.SHA", "SHA-1"}, {"sun.security.provider.SHA2", "SHA-256"}, {"sun.security.provider.SHA5", "SHA-512"}};
+        boolean[] enabled = {runtime().getVMConfig().useSHA1Intrinsics(), runtime().getVMConfig().useSHA256Intrinsics(), runtime().getVMConfig().useSHA512Intrinsics()};
+        for (int i = 0; i < digests.length; i++) {
+            byte[] expected = MessageDigest.getInstance(digests[i][1]).digest(input);
+            if (compileAndInstall(digests[i][0], enabled[i], HotSpotGraphBuilderPlugins.shaImplCompressName)) {
+                Assert.assertArrayEquals(expected, MessageDigest.getInstance(digests[i][1]).digest(input));
+            }
+        }
+    }
+
     /**
      * Compiles and installs the substitution for some specified methods. Once installed, the next
      * execution of the methods will use the newly installed code.
      *
      * @param className the name of the class for which substitutions are available
+     * @param intrinsicsEnabled whether the VM flags enable the substitutions
      * @param methodNames the names of the substituted methods
      * @return true if at least one substitution was compiled and installed
      */
-    private boolean compileAndInstall(String className, String... methodNames) {
+    private boolean compileAndInstall(String className, boolean intrinsicsEnabled, String... methodNames) {
         boolean atLeastOneCompiled = false;
         for (String methodName : methodNames) {
             Method method = lookup(className, methodName);
@@ -141,7 +155,7 @@ public class HotSpotCryptoSubstitutionTest extends HotSpotGraalCompilerTest {
                     Assert.assertNotNull(getCode(installedCodeOwner, graph, true));
                     atLeastOneCompiled = true;
                 } else {
-                    Assert.assertFalse(runtime().getVMConfig().useAESIntrinsics);
+                    Assert.assertFalse(intrinsicsEnabled);
                 }
             }
         }
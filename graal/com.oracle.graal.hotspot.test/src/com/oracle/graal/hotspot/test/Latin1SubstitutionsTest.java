@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests compiled Latin-1 encoding and, on VMs with compact strings, inflation of Latin-1 strings.
+ */
+public class Latin1SubstitutionsTest extends GraalCompilerTest {
+
+    public static byte[] encode(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    public static char[] inflate(String s) {
+        return s.toCharArray();
+    }
+
+    private static String latin1String(int length, int nonLatin1Index) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(i == nonLatin1Index ? '\u20ac' : (char) (i * 7 & 0xFF));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testEncode() {
+        for (int length : new int[]{0, 1, 7, 15, 16, 17, 31, 32, 33, 100, 1000}) {
+            test("encode", latin1String(length, -1));
+            for (int nonLatin1Index : new int[]{0, length / 2, length - 1}) {
+                test("encode", latin1String(length, nonLatin1Index));
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeISOArrayBounds() throws ReflectiveOperationException {
+        Class<?> encoder = Class.forName("sun.nio.cs.ISO_8859_1$Encoder");
+        ResolvedJavaMethod method = getMetaAccess().lookupJavaMethod(encoder.getDeclaredMethod("encodeISOArray", char[].class, int.class, byte[].class, int.class, int.class));
+        char[] src = latin1String(16, -1).toCharArray();
+        // a negative length encodes nothing and does not throw
+        test(method, null, src, 0, new byte[16], 0, -1);
+        test(method, null, src, 4, new byte[16], 0, 16);
+        test(method, null, src, 0, new byte[8], 0, 16);
+        test(method, null, src, -1, new byte[16], 0, 8);
+    }
+
+    @Test
+    public void testInflate() {
+        for (int length : new int[]{0, 1, 7, 8, 9, 15, 16, 17, 100, 1000}) {
+            test("inflate", latin1String(length, -1));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.hotspot.phases.OptimizeStringConcatPhase;
+import com.oracle.graal.nodes.InvokeNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.java.MethodCallTargetNode;
+import com.oracle.graal.nodes.java.NewInstanceNode;
+
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+public class OptimizeStringConcatTest extends HotSpotGraalCompilerTest {
+
+    public static String concatSnippet(String a, String b) {
+        return new StringBuilder().append(a).append(", ").append(b).toString();
+    }
+
+    public static String concatCharSnippet(String a, char c) {
+        return new StringBuilder(a).append(c).append(a).toString();
+    }
+
+    public static String escapingSnippet(String a, StringBuilder[] out) {
+        StringBuilder sb = new StringBuilder();
+        out[0] = sb;
+        return sb.append(a).toString();
+    }
+
+    /**
+     * Appends a string 64 times, so the length of the result overflows to 0 for a string of
+     * 2<sup>26</sup> chars.
+     */
+    public static String overflowSnippet(String s) {
+        // @formatter:off
+        return new StringBuilder()
+                        .append(s).append(s).append(s).append(s).append(s).append(s).append(s).append(s)
+                        .append(s).append(s).append(s).append(s).append(s).append(s).append(s).append(s)
+                        .append(s).append(s).append(s).append(s).append(s).append(s).append(s).append(s)
+                        .append(s).append(s).append(s).append(s).append(s).append(s).append(s).append(s)
+                        .append(s).append(s).append(s).append(s).append(s).append(s).append(s).append(s)
+                        .append(s).append(s).append(s).append(s).append(s).append(s).append(s).append(s)
+                        .append(s).append(s).append(s).append(s).append(s).append(s).append(s).append(s)
+                        .append(s).append(s).append(s).append(s).append(s).append(s).append(s).append(s)
+                        .toString();
+        // @formatter:on
+    }
+
+    private int countBuilderNodes(StructuredGraph graph) {
+        ResolvedJavaType builderType = getMetaAccess().lookupJavaType(StringBuilder.class);
+        int count = 0;
+        for (InvokeNode invoke : graph.getNodes().filter(InvokeNode.class)) {
+            if (((MethodCallTargetNode) invoke.callTarget()).targetMethod().getDeclaringClass().equals(builderType)) {
+                count++;
+            }
+        }
+        for (NewInstanceNode allocation : graph.getNodes().filter(NewInstanceNode.class)) {
+            if (allocation.instanceClass().equals(builderType)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses {@code snippet} with the default plugins, which must leave the chain intact, and
+     * checks whether {@link OptimizeStringConcatPhase} removes the builder.
+     */
+    private void checkChain(String snippet, boolean fused) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        Assert.assertNotEquals("chain was inlined during parsing", 0, countBuilderNodes(graph));
+        new OptimizeStringConcatPhase(runtime()).apply(graph, getDefaultHighTierContext());
+        Assert.assertEquals(fused, countBuilderNodes(graph) == 0);
+    }
+
+    @Test
+    public void testConcat() {
+        checkChain("concatSnippet", true);
+        test("concatSnippet", "hello", "world");
+        test("concatSnippet", "", "world");
+        test("concatSnippet", null, "world");
+        test("concatSnippet", "hello", null);
+    }
+
+    @Test
+    public void testConcatChar() {
+        checkChain("concatCharSnippet", true);
+        test("concatCharSnippet", "abc", 'x');
+        test("concatCharSnippet", "", '\u20ac');
+        test("concatCharSnippet", null, 'x');
+    }
+
+    @Test
+    public void testLengthOverflow() {
+        Assume.assumeTrue("not enough memory", Runtime.getRuntime().maxMemory() >= (1L << 30));
+        checkChain("overflowSnippet", true);
+        char[] chars = new char[1 << 26];
+        Arrays.fill(chars, 'x');
+        // the interpreter throws an OutOfMemoryError, the compiled code must deoptimize
+        test("overflowSnippet", new String(chars));
+    }
+
+    @Test
+    public void testEscaping() {
+        checkChain("escapingSnippet", false);
+        test("escapingSnippet", "abc", new StringBuilder[1]);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the substitutions of {@code Unsafe.copyMemory} and {@code Unsafe.setMemory} for heap
+ * arrays and off-heap memory, covering the inline copy, the stub call and overlapping ranges.
+ */
+public class UnsafeMemorySubstitutionsTest extends GraalCompilerTest {
+
+    private static final long BYTE_BASE = UNSAFE.arrayBaseOffset(byte[].class);
+
+    private static final int[] LENGTHS = {0, 1, 7, 8, 16, 24, 63, 64, 65, 72, 100, 1000, 4096};
+
+    private static final int[] OFFSETS = {0, 1, 4, 8, 13};
+
+    public static byte[] copyArray(byte[] src, int srcPos, int destPos, int length) {
+        byte[] dest = new byte[src.length];
+        UNSAFE.copyMemory(src, BYTE_BASE + srcPos, dest, BYTE_BASE + destPos, length);
+        return dest;
+    }
+
+    public static byte[] copyWithinArray(byte[] array, int srcPos, int destPos, int length) {
+        byte[] copy = array.clone();
+        UNSAFE.copyMemory(copy, BYTE_BASE + srcPos, copy, BYTE_BASE + destPos, length);
+        return copy;
+    }
+
+    public static byte[] copyOffHeap(byte[] src, int srcPos, int destPos, int length) {
+        long address = UNSAFE.allocateMemory(src.length * 2);
+        try {
+            UNSAFE.copyMemory(src, BYTE_BASE, null, address, src.length);
+            UNSAFE.copyMemory(address + srcPos, address + src.length + destPos, length);
+            byte[] dest = new byte[src.length];
+            UNSAFE.copyMemory(null, address + src.length, dest, BYTE_BASE, src.length);
+            return dest;
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+    }
+
+    public static byte[] setArray(int size, int pos, int length, byte value) {
+        byte[] array = new byte[size];
+        UNSAFE.setMemory(array, BYTE_BASE + pos, length, value);
+        return array;
+    }
+
+    public static byte[] setOffHeap(int size, int pos, int length, byte value) {
+        long address = UNSAFE.allocateMemory(size);
+        try {
+            UNSAFE.setMemory(address, size, (byte) 0);
+            UNSAFE.setMemory(address + pos, length, value);
+            byte[] array = new byte[size];
+            UNSAFE.copyMemory(null, address, array, BYTE_BASE, size);
+            return array;
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+    }
+
+    static class Holder {
+        Object ref;
+        long value;
+    }
+
+    private static final long HOLDER_VALUE_OFFSET;
+
+    static {
+        try {
+            HOLDER_VALUE_OFFSET = UNSAFE.objectFieldOffset(Holder.class.getDeclaredField("value"));
+        } catch (NoSuchFieldException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Copying into an object that is not a primitive array is not supported and must throw.
+     */
+    public static Holder copyToObject(long value) {
+        Holder holder = new Holder();
+        long address = UNSAFE.allocateMemory(8);
+        try {
+            UNSAFE.putLong(address, value);
+            UNSAFE.copyMemory(null, address, holder, HOLDER_VALUE_OFFSET, 8);
+            return holder;
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+    }
+
+    public static long copyNegative(byte[] src) {
+        UNSAFE.copyMemory(src, BYTE_BASE, src, BYTE_BASE, -1);
+        return 0;
+    }
+
+    private static byte[] pattern(int length) {
+        byte[] array = new byte[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = (byte) (i * 31 + 7);
+        }
+        return array;
+    }
+
+    @Test
+    public void testCopy() {
+        for (int length : LENGTHS) {
+            byte[] src = pattern(length + 32);
+            for (int srcPos : OFFSETS) {
+                for (int destPos : OFFSETS) {
+                    test("copyArray", src, srcPos, destPos, length);
+                    test("copyWithinArray", src, srcPos, destPos, length);
+                    test("copyOffHeap", src, srcPos, destPos, length);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSet() {
+        for (int length : LENGTHS) {
+            for (int pos : OFFSETS) {
+                test("setArray", length + 32, pos, length, (byte) 0xA5);
+                test("setOffHeap", length + 32, pos, length, (byte) 0x5A);
+            }
+        }
+    }
+
+    @Test
+    public void testNegativeLength() {
+        test("copyNegative", new byte[8]);
+    }
+
+    @Test
+    public void testCopyToObject() {
+        ResolvedJavaMethod method = getResolvedJavaMethod("copyToObject");
+        Result expect = executeExpected(method, null, 42L);
+        Assert.assertTrue(String.valueOf(expect.exception), expect.exception instanceof IllegalArgumentException);
+        testAgainstExpected(method, expect, null, 42L);
+    }
+}
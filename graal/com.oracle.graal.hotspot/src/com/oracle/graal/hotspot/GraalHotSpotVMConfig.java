@@ -157,6 +157,19 @@ public class GraalHotSpotVMConfig extends HotSpotVMConfigAccess {
     public final boolean usePopCountInstruction = getFlag("UsePopCountInstruction", Boolean.class);
     public final boolean useAESIntrinsics = getFlag("UseAESIntrinsics", Boolean.class);
     public final boolean useCRC32Intrinsics = getFlag("UseCRC32Intrinsics", Boolean.class);
+    private final boolean useCRC32CIntrinsics = getFlag("UseCRC32CIntrinsics", Boolean.class, false);
+    private final boolean useAdler32Intrinsics = getFlag("UseAdler32Intrinsics", Boolean.class, false);
+    private final boolean useSHA1Intrinsics = getFlag("UseSHA1Intrinsics", Boolean.class);
+    private final boolean useSHA256Intrinsics = getFlag("UseSHA256Intrinsics", Boolean.class);
+    private final boolean useSHA512Intrinsics = getFlag("UseSHA512Intrinsics", Boolean.class);
+    private final boolean useMultiplyToLenIntrinsic = getFlag("UseMultiplyToLenIntrinsic", Boolean.class, false);
+    private final boolean useSquareToLenIntrinsic = getFlag("UseSquareToLenIntrinsic", Boolean.class, false);
+    private final boolean useMulAddIntrinsic = getFlag("UseMulAddIntrinsic", Boolean.class, false);
+    private final boolean useMontgomeryMultiplyIntrinsic = getFlag("UseMontgomeryMultiplyIntrinsic", Boolean.class, false);
+    private final boolean useMontgomerySquareIntrinsic = getFlag("UseMontgomerySquareIntrinsic", Boolean.class, false);
+    private final boolean specialEncodeISOArray = getFlag("SpecialEncodeISOArray", Boolean.class, true);
+    // JDK 8 has no flag for the Base64 intrinsics, so they are enabled unless a VM says otherwise.
+    private final boolean useBase64Intrinsics = getFlag("UseBASE64Intrinsics", Boolean.class, true);
     public final boolean useG1GC = getFlag("UseG1GC", Boolean.class);
     public final boolean useCMSGC = getFlag("UseConcMarkSweepGC", Boolean.class);
 
@@ -585,6 +598,91 @@ public class GraalHotSpotVMConfig extends HotSpotVMConfigAccess {
     public final long cipherBlockChainingDecryptAESCryptStub = getFieldValue("StubRoutines::_cipherBlockChaining_decryptAESCrypt", Long.class, "address");
     public final long updateBytesCRC32Stub = getFieldValue("StubRoutines::_updateBytesCRC32", Long.class, "address");
     public final long crcTableAddress = getFieldValue("StubRoutines::_crc_table_adr", Long.class, "address");
+    public final long updateBytesCRC32C = getFieldValue("StubRoutines::_updateBytesCRC32C", Long.class, "address", 0L);
+    public final long updateBytesAdler32 = getFieldValue("StubRoutines::_updateBytesAdler32", Long.class, "address", 0L);
+
+    /**
+     * These stubs are not generated on every platform and are not exported by JDK 8.
+     */
+    public boolean useCRC32CIntrinsics() {
+        return useCRC32CIntrinsics && updateBytesCRC32C != 0L;
+    }
+
+    public boolean useAdler32Intrinsics() {
+        return useAdler32Intrinsics && updateBytesAdler32 != 0L;
+    }
+
+    public final long sha1ImplCompress = getFieldValue("StubRoutines::_sha1_implCompress", Long.class, "address", 0L);
+    public final long sha256ImplCompress = getFieldValue("StubRoutines::_sha256_implCompress", Long.class, "address", 0L);
+    public final long sha512ImplCompress = getFieldValue("StubRoutines::_sha512_implCompress", Long.class, "address", 0L);
+
+    /**
+     * The SHA stubs are only generated on processors with the required instructions and are not
+     * exported by every VM, so the flags alone do not imply that a stub exists.
+     */
+    public boolean useSHA1Intrinsics() {
+        return useSHA1Intrinsics && sha1ImplCompress != 0L;
+    }
+
+    public boolean useSHA256Intrinsics() {
+        return useSHA256Intrinsics && sha256ImplCompress != 0L;
+    }
+
+    public boolean useSHA512Intrinsics() {
+        return useSHA512Intrinsics && sha512ImplCompress != 0L;
+    }
+
+    public final long multiplyToLen = getFieldValue("StubRoutines::_multiplyToLen", Long.class, "address", 0L);
+    public final long squareToLen = getFieldValue("StubRoutines::_squareToLen", Long.class, "address", 0L);
+    public final long mulAdd = getFieldValue("StubRoutines::_mulAdd", Long.class, "address", 0L);
+    public final long montgomeryMultiply = getFieldValue("StubRoutines::_montgomeryMultiply", Long.class, "address", 0L);
+    public final long montgomerySquare = getFieldValue("StubRoutines::_montgomerySquare", Long.class, "address", 0L);
+
+    /*
+     * The BigInteger flags are C2 flags, so the stubs may be missing even if a flag is set.
+     */
+
+    public boolean useMultiplyToLenIntrinsic() {
+        return useMultiplyToLenIntrinsic && multiplyToLen != 0L;
+    }
+
+    public boolean useSquareToLenIntrinsic() {
+        return useSquareToLenIntrinsic && squareToLen != 0L;
+    }
+
+    public boolean useMulAddIntrinsic() {
+        return useMulAddIntrinsic && mulAdd != 0L;
+    }
+
+    public boolean useMontgomeryMultiplyIntrinsic() {
+        return useMontgomeryMultiplyIntrinsic && montgomeryMultiply != 0L;
+    }
+
+    public boolean useMontgomerySquareIntrinsic() {
+        return useMontgomerySquareIntrinsic && montgomerySquare != 0L;
+    }
+
+    /**
+     * The Latin-1 compress and inflate intrinsics are only implemented by the AMD64 backend.
+     */
+    public boolean useLatin1Intrinsics() {
+        return specialEncodeISOArray && osArch.equals("amd64");
+    }
+
+    /**
+     * The Base64 encode and decode intrinsics are only implemented by the AMD64 backend.
+     */
+    public boolean useBase64Intrinsics() {
+        return useBase64Intrinsics && osArch.equals("amd64");
+    }
+
+    /**
+     * Large {@code Unsafe.copyMemory} calls use the {@code unsafe_arraycopy} stub and the fill used
+     * by {@code Unsafe.setMemory} is only implemented by the AMD64 backend.
+     */
+    public boolean useUnsafeMemoryIntrinsics() {
+        return unsafeArraycopy != 0L && osArch.equals("amd64");
+    }
 
     public final long throwDelayedStackOverflowErrorEntry = getFieldValue("StubRoutines::_throw_delayed_StackOverflowError_entry", Long.class, "address", longNotPresentInJDK8);
 
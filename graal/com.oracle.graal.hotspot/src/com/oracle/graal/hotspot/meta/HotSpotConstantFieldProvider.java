@@ -75,6 +75,9 @@ public class HotSpotConstantFieldProvider implements ConstantFieldProvider {
             if (hotspotField.isFinal()) {
                 JavaConstant value = tool.readValue();
                 if (isFinalInstanceFieldValueConstant(value, tool.getReceiver())) {
+                    if (isStableField(hotspotField) && !value.isDefaultForKind()) {
+                        return tool.foldStableArray(value, getArrayDimension(hotspotField.getType()), isDefaultStableField(hotspotField));
+                    }
                     return tool.foldConstant(value);
                 }
             } else if (hotspotField.isStable() && config.foldStableValues) {
@@ -158,6 +161,10 @@ public class HotSpotConstantFieldProvider implements ConstantFieldProvider {
         if (isSyntheticEnumSwitchMap(field)) {
             return true;
         }
+        if (Options.ImplicitStableValues.getValue() && isWellKnownImplicitStableField(field)) {
+            // the contents of a String never change, including default values
+            return true;
+        }
         return false;
     }
 
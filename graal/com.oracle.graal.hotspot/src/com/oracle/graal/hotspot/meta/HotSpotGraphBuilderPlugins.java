@@ -26,30 +26,47 @@ import static com.oracle.graal.compiler.common.util.Util.Java8OrEarlier;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.JAVA_THREAD_THREAD_OBJECT_LOCATION;
 import static com.oracle.graal.hotspot.replacements.SystemSubstitutions.JAVA_TIME_MILLIS;
 import static com.oracle.graal.hotspot.replacements.SystemSubstitutions.JAVA_TIME_NANOS;
+import static com.oracle.graal.hotspot.phases.OptimizeStringConcatPhase.Options.OptimizeStringConcat;
 import static com.oracle.graal.java.BytecodeParserOptions.InlineDuringParsing;
 
 import java.lang.invoke.ConstantCallSite;
 import java.lang.invoke.MutableCallSite;
 import java.lang.invoke.VolatileCallSite;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.util.zip.Adler32;
 import java.util.zip.CRC32;
 
 import com.oracle.graal.api.replacements.SnippetReflectionProvider;
 import com.oracle.graal.compiler.common.LocationIdentity;
 import com.oracle.graal.compiler.common.spi.ForeignCallsProvider;
+import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.hotspot.GraalHotSpotVMConfig;
 import com.oracle.graal.hotspot.nodes.CurrentJavaThreadNode;
+import com.oracle.graal.hotspot.phases.OptimizeStringConcatPhase;
 import com.oracle.graal.hotspot.replacements.AESCryptSubstitutions;
+import com.oracle.graal.hotspot.replacements.Adler32Substitutions;
+import com.oracle.graal.hotspot.replacements.Base64DecoderSubstitutions;
+import com.oracle.graal.hotspot.replacements.Base64EncoderSubstitutions;
+import com.oracle.graal.hotspot.replacements.BigIntegerSubstitutions;
+import com.oracle.graal.hotspot.replacements.CRC32CSubstitutions;
 import com.oracle.graal.hotspot.replacements.CRC32Substitutions;
 import com.oracle.graal.hotspot.replacements.CallSiteTargetNode;
 import com.oracle.graal.hotspot.replacements.CipherBlockChainingSubstitutions;
 import com.oracle.graal.hotspot.replacements.ClassGetHubNode;
 import com.oracle.graal.hotspot.replacements.HotSpotClassSubstitutions;
 import com.oracle.graal.hotspot.replacements.IdentityHashCodeNode;
+import com.oracle.graal.hotspot.replacements.Latin1EncoderSubstitutions;
 import com.oracle.graal.hotspot.replacements.ObjectCloneNode;
 import com.oracle.graal.hotspot.replacements.ObjectSubstitutions;
 import com.oracle.graal.hotspot.replacements.ReflectionGetCallerClassNode;
 import com.oracle.graal.hotspot.replacements.ReflectionSubstitutions;
+import com.oracle.graal.hotspot.replacements.SHASubstitutions;
+import com.oracle.graal.hotspot.replacements.StringLatin1Substitutions;
+import com.oracle.graal.hotspot.replacements.StringUTF16Substitutions;
 import com.oracle.graal.hotspot.replacements.ThreadSubstitutions;
+import com.oracle.graal.hotspot.replacements.UnsafeMemorySubstitutions;
 import com.oracle.graal.hotspot.replacements.arraycopy.ArrayCopyNode;
 import com.oracle.graal.hotspot.word.HotSpotWordTypes;
 import com.oracle.graal.nodes.ConstantNode;
@@ -64,6 +81,7 @@ import com.oracle.graal.nodes.calc.LeftShiftNode;
 import com.oracle.graal.nodes.graphbuilderconf.ForeignCallPlugin;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderContext;
+import com.oracle.graal.nodes.graphbuilderconf.InlineInvokePlugin;
 import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugin;
 import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugin.Receiver;
 import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugins;
@@ -122,6 +140,19 @@ public class HotSpotGraphBuilderPlugins {
 
         plugins.appendInlineInvokePlugin(replacements);
         if (InlineDuringParsing.getValue()) {
+            if (OptimizeStringConcat.getValue()) {
+                plugins.appendInlineInvokePlugin(new InlineInvokePlugin() {
+                    @Override
+                    public InlineInfo shouldInlineInvoke(GraphBuilderContext b, ResolvedJavaMethod method, ValueNode[] args) {
+                        // keep StringBuilder chains recognizable for OptimizeStringConcatPhase;
+                        // the matched methods can only throw an OutOfMemoryError
+                        if (OptimizeStringConcatPhase.isChainMethod(method)) {
+                            return InlineInfo.DO_NOT_INLINE_NO_EXCEPTION;
+                        }
+                        return null;
+                    }
+                });
+            }
             plugins.appendInlineInvokePlugin(new InlineDuringParsingPlugin());
         }
 
@@ -139,6 +170,11 @@ public class HotSpotGraphBuilderPlugins {
                 registerStableOptionPlugins(invocationPlugins, snippetReflection);
                 registerAESPlugins(invocationPlugins, config);
                 registerCRC32Plugins(invocationPlugins, config);
+                registerSHAPlugins(invocationPlugins, config);
+                registerBigIntegerPlugins(invocationPlugins, config);
+                registerLatin1Plugins(invocationPlugins, config);
+                registerBase64Plugins(invocationPlugins, config);
+                registerUnsafeMemoryPlugins(invocationPlugins, config);
                 StandardGraphBuilderPlugins.registerInvocationPlugins(metaAccess, invocationPlugins, true);
 
                 for (NodeIntrinsicPluginFactory factory : GraalServices.load(NodeIntrinsicPluginFactory.class)) {
@@ -389,6 +425,7 @@ public class HotSpotGraphBuilderPlugins {
     public static final String cbcDecryptName;
     public static final String aesEncryptName;
     public static final String aesDecryptName;
+    public static final String shaImplCompressName;
 
     public static final String reflectionClass;
     public static final String constantPoolClass;
@@ -399,6 +436,7 @@ public class HotSpotGraphBuilderPlugins {
             cbcDecryptName = "decrypt";
             aesEncryptName = "encryptBlock";
             aesDecryptName = "decryptBlock";
+            shaImplCompressName = "implCompress";
             reflectionClass = "sun.reflect.Reflection";
             constantPoolClass = "sun.reflect.ConstantPool";
         } else {
@@ -406,6 +444,7 @@ public class HotSpotGraphBuilderPlugins {
             cbcDecryptName = "implDecrypt";
             aesEncryptName = "implEncryptBlock";
             aesDecryptName = "implDecryptBlock";
+            shaImplCompressName = "implCompress0";
             reflectionClass = "jdk.internal.reflect.Reflection";
             constantPoolClass = "jdk.internal.reflect.ConstantPool";
         }
@@ -445,5 +484,102 @@ public class HotSpotGraphBuilderPlugins {
                 r.registerMethodSubstitution(CRC32Substitutions.class, "updateByteBuffer0", int.class, long.class, int.class, int.class);
             }
         }
+        if (config.useCRC32CIntrinsics()) {
+            Registration r = new Registration(plugins, "java.util.zip.CRC32C");
+            r.registerMethodSubstitution(CRC32CSubstitutions.class, "updateBytes", int.class, byte[].class, int.class, int.class);
+            r.registerMethodSubstitution(CRC32CSubstitutions.class, "updateDirectByteBuffer", int.class, long.class, int.class, int.class);
+        }
+        if (config.useAdler32Intrinsics()) {
+            Registration r = new Registration(plugins, Adler32.class);
+            r.registerMethodSubstitution(Adler32Substitutions.class, "updateBytes", int.class, byte[].class, int.class, int.class);
+            r.registerMethodSubstitution(Adler32Substitutions.class, "updateByteBuffer", int.class, long.class, int.class, int.class);
+        }
+    }
+
+    private static void registerSHAPlugins(InvocationPlugins plugins, GraalHotSpotVMConfig config) {
+        if (config.useSHA1Intrinsics()) {
+            Registration r = new Registration(plugins, "sun.security.provider.SHA");
+            r.registerMethodSubstitution(SHASubstitutions.class, shaImplCompressName, "shaImplCompress0", Receiver.class, byte[].class, int.class);
+        }
+        if (config.useSHA256Intrinsics()) {
+            Registration r = new Registration(plugins, "sun.security.provider.SHA2");
+            r.registerMethodSubstitution(SHASubstitutions.class, shaImplCompressName, "sha2ImplCompress0", Receiver.class, byte[].class, int.class);
+        }
+        if (config.useSHA512Intrinsics()) {
+            Registration r = new Registration(plugins, "sun.security.provider.SHA5");
+            r.registerMethodSubstitution(SHASubstitutions.class, shaImplCompressName, "sha5ImplCompress0", Receiver.class, byte[].class, int.class);
+        }
+    }
+
+    private static void registerBigIntegerPlugins(InvocationPlugins plugins, GraalHotSpotVMConfig config) {
+        Registration r = new Registration(plugins, BigInteger.class);
+        if (config.useMultiplyToLenIntrinsic()) {
+            if (Java8OrEarlier) {
+                try {
+                    Method m = BigInteger.class.getDeclaredMethod("multiplyToLen", int[].class, int.class, int[].class, int.class, int[].class);
+                    if (Modifier.isStatic(m.getModifiers())) {
+                        r.registerMethodSubstitution(BigIntegerSubstitutions.class, "multiplyToLen", "multiplyToLenStatic", int[].class, int.class, int[].class, int.class, int[].class);
+                    } else {
+                        r.registerMethodSubstitution(BigIntegerSubstitutions.class, "multiplyToLen", Receiver.class, int[].class, int.class, int[].class, int.class, int[].class);
+                    }
+                } catch (NoSuchMethodException e) {
+                    throw new GraalError(e);
+                }
+            } else {
+                r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implMultiplyToLen", "multiplyToLenStatic", int[].class, int.class, int[].class, int.class, int[].class);
+            }
+        }
+        if (config.useSquareToLenIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implSquareToLen", int[].class, int.class, int[].class, int.class);
+        }
+        if (config.useMulAddIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implMulAdd", int[].class, int[].class, int.class, int.class, int.class);
+        }
+        if (config.useMontgomeryMultiplyIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implMontgomeryMultiply", int[].class, int[].class, int[].class, int.class, long.class, int[].class);
+        }
+        if (config.useMontgomerySquareIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implMontgomerySquare", int[].class, int[].class, int.class, long.class, int[].class);
+        }
+    }
+
+    private static void registerLatin1Plugins(InvocationPlugins plugins, GraalHotSpotVMConfig config) {
+        if (config.useLatin1Intrinsics()) {
+            Registration r = new Registration(plugins, "sun.nio.cs.ISO_8859_1$Encoder");
+            r.registerMethodSubstitution(Latin1EncoderSubstitutions.class, "encodeISOArray", char[].class, int.class, byte[].class, int.class, int.class);
+            if (!Java8OrEarlier) {
+                r = new Registration(plugins, "java.lang.StringUTF16");
+                r.registerMethodSubstitution(StringUTF16Substitutions.class, "compress", char[].class, int.class, byte[].class, int.class, int.class);
+                r = new Registration(plugins, "java.lang.StringLatin1");
+                r.registerMethodSubstitution(StringLatin1Substitutions.class, "inflate", byte[].class, int.class, char[].class, int.class, int.class);
+            }
+        }
+    }
+
+    private static void registerBase64Plugins(InvocationPlugins plugins, GraalHotSpotVMConfig config) {
+        if (config.useBase64Intrinsics()) {
+            Registration r = new Registration(plugins, "java.util.Base64$Encoder");
+            if (Java8OrEarlier) {
+                r.registerMethodSubstitution(Base64EncoderSubstitutions.class, "encode0", Receiver.class, byte[].class, int.class, int.class, byte[].class);
+            } else {
+                r.registerMethodSubstitution(Base64EncoderSubstitutions.class, "encodeBlock", Receiver.class, byte[].class, int.class, int.class, byte[].class, int.class, boolean.class);
+            }
+            r = new Registration(plugins, "java.util.Base64$Decoder");
+            r.registerMethodSubstitution(Base64DecoderSubstitutions.class, "decode0", Receiver.class, byte[].class, int.class, int.class, byte[].class);
+        }
+    }
+
+    private static void registerUnsafeMemoryPlugins(InvocationPlugins plugins, GraalHotSpotVMConfig config) {
+        if (config.useUnsafeMemoryIntrinsics()) {
+            if (Java8OrEarlier) {
+                Registration r = new Registration(plugins, "sun.misc.Unsafe");
+                r.registerMethodSubstitution(UnsafeMemorySubstitutions.class, "copyMemory", Receiver.class, Object.class, long.class, Object.class, long.class, long.class);
+                r.registerMethodSubstitution(UnsafeMemorySubstitutions.class, "setMemory", Receiver.class, Object.class, long.class, long.class, byte.class);
+            } else {
+                Registration r = new Registration(plugins, "jdk.internal.misc.Unsafe");
+                r.registerMethodSubstitution(UnsafeMemorySubstitutions.class, "copyMemory0", Receiver.class, Object.class, long.class, Object.class, long.class, long.class);
+                r.registerMethodSubstitution(UnsafeMemorySubstitutions.class, "setMemory0", Receiver.class, Object.class, long.class, long.class, byte.class);
+            }
+        }
     }
 }
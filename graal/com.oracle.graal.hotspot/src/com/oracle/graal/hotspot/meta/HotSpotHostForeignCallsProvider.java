@@ -33,10 +33,18 @@ import static com.oracle.graal.hotspot.HotSpotBackend.ENCRYPT_BLOCK;
 import static com.oracle.graal.hotspot.HotSpotBackend.EXCEPTION_HANDLER;
 import static com.oracle.graal.hotspot.HotSpotBackend.FETCH_UNROLL_INFO;
 import static com.oracle.graal.hotspot.HotSpotBackend.IC_MISS_HANDLER;
+import static com.oracle.graal.hotspot.HotSpotBackend.MONTGOMERY_MULTIPLY;
+import static com.oracle.graal.hotspot.HotSpotBackend.MONTGOMERY_SQUARE;
+import static com.oracle.graal.hotspot.HotSpotBackend.MULTIPLY_TO_LEN;
+import static com.oracle.graal.hotspot.HotSpotBackend.MUL_ADD;
 import static com.oracle.graal.hotspot.HotSpotBackend.NEW_ARRAY;
 import static com.oracle.graal.hotspot.HotSpotBackend.NEW_INSTANCE;
 import static com.oracle.graal.hotspot.HotSpotBackend.NEW_MULTI_ARRAY;
 import static com.oracle.graal.hotspot.HotSpotBackend.UNCOMMON_TRAP;
+import static com.oracle.graal.hotspot.HotSpotBackend.SHA2_IMPL_COMPRESS;
+import static com.oracle.graal.hotspot.HotSpotBackend.SHA5_IMPL_COMPRESS;
+import static com.oracle.graal.hotspot.HotSpotBackend.SHA_IMPL_COMPRESS;
+import static com.oracle.graal.hotspot.HotSpotBackend.SQUARE_TO_LEN;
 import static com.oracle.graal.hotspot.HotSpotBackend.UNPACK_FRAMES;
 import static com.oracle.graal.hotspot.HotSpotBackend.UNWIND_EXCEPTION_TO_CALLER;
 import static com.oracle.graal.hotspot.HotSpotBackend.VM_ERROR;
@@ -53,7 +61,9 @@ import static com.oracle.graal.hotspot.meta.DefaultHotSpotLoweringProvider.Runti
 import static com.oracle.graal.hotspot.meta.DefaultHotSpotLoweringProvider.RuntimeCalls.CREATE_CLASS_CAST_EXCEPTION;
 import static com.oracle.graal.hotspot.meta.DefaultHotSpotLoweringProvider.RuntimeCalls.CREATE_NULL_POINTER_EXCEPTION;
 import static com.oracle.graal.hotspot.meta.DefaultHotSpotLoweringProvider.RuntimeCalls.CREATE_OUT_OF_BOUNDS_EXCEPTION;
+import static com.oracle.graal.hotspot.replacements.Adler32Substitutions.UPDATE_BYTES_ADLER32;
 import static com.oracle.graal.hotspot.replacements.AssertionSnippets.ASSERTION_VM_MESSAGE_C;
+import static com.oracle.graal.hotspot.replacements.CRC32CSubstitutions.UPDATE_BYTES_CRC32C;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.MARK_WORD_LOCATION;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.TLAB_END_LOCATION;
 import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.TLAB_TOP_LOCATION;
@@ -65,6 +75,7 @@ import static com.oracle.graal.hotspot.replacements.NewObjectSnippets.INIT_LOCAT
 import static com.oracle.graal.hotspot.replacements.SystemSubstitutions.JAVA_TIME_MILLIS;
 import static com.oracle.graal.hotspot.replacements.SystemSubstitutions.JAVA_TIME_NANOS;
 import static com.oracle.graal.hotspot.replacements.ThreadSubstitutions.THREAD_IS_INTERRUPTED;
+import static com.oracle.graal.hotspot.replacements.UnsafeMemorySubstitutions.UNSAFE_ARRAYCOPY;
 import static com.oracle.graal.hotspot.replacements.WriteBarrierSnippets.G1WBPOSTCALL;
 import static com.oracle.graal.hotspot.replacements.WriteBarrierSnippets.G1WBPRECALL;
 import static com.oracle.graal.hotspot.replacements.WriteBarrierSnippets.VALIDATE_OBJECT;
@@ -315,6 +326,9 @@ public abstract class HotSpotHostForeignCallsProvider extends HotSpotForeignCall
 
         registerCheckcastArraycopyDescriptor(true, c.checkcastArraycopyUninit);
         registerCheckcastArraycopyDescriptor(false, c.checkcastArraycopy);
+        if (c.useUnsafeMemoryIntrinsics()) {
+            registerForeignCall(UNSAFE_ARRAYCOPY, c.unsafeArraycopy, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, any());
+        }
 
         if (c.useAESIntrinsics) {
             /*
@@ -347,6 +361,36 @@ public abstract class HotSpotHostForeignCallsProvider extends HotSpotForeignCall
                 }
             }
         }
+        if (c.useCRC32CIntrinsics()) {
+            registerForeignCall(UPDATE_BYTES_CRC32C, c.updateBytesCRC32C, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, any());
+        }
+        if (c.useAdler32Intrinsics()) {
+            registerForeignCall(UPDATE_BYTES_ADLER32, c.updateBytesAdler32, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, any());
+        }
+        if (c.useSHA1Intrinsics()) {
+            registerForeignCall(SHA_IMPL_COMPRESS, c.sha1ImplCompress, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, NamedLocationIdentity.getArrayLocation(JavaKind.Int));
+        }
+        if (c.useSHA256Intrinsics()) {
+            registerForeignCall(SHA2_IMPL_COMPRESS, c.sha256ImplCompress, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, NamedLocationIdentity.getArrayLocation(JavaKind.Int));
+        }
+        if (c.useSHA512Intrinsics()) {
+            registerForeignCall(SHA5_IMPL_COMPRESS, c.sha512ImplCompress, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, NamedLocationIdentity.getArrayLocation(JavaKind.Long));
+        }
+        if (c.useMultiplyToLenIntrinsic()) {
+            registerForeignCall(MULTIPLY_TO_LEN, c.multiplyToLen, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, NamedLocationIdentity.getArrayLocation(JavaKind.Int));
+        }
+        if (c.useSquareToLenIntrinsic()) {
+            registerForeignCall(SQUARE_TO_LEN, c.squareToLen, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, NamedLocationIdentity.getArrayLocation(JavaKind.Int));
+        }
+        if (c.useMulAddIntrinsic()) {
+            registerForeignCall(MUL_ADD, c.mulAdd, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, NamedLocationIdentity.getArrayLocation(JavaKind.Int));
+        }
+        if (c.useMontgomeryMultiplyIntrinsic()) {
+            registerForeignCall(MONTGOMERY_MULTIPLY, c.montgomeryMultiply, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, NamedLocationIdentity.getArrayLocation(JavaKind.Int));
+        }
+        if (c.useMontgomerySquareIntrinsic()) {
+            registerForeignCall(MONTGOMERY_SQUARE, c.montgomerySquare, NativeCall, DESTROYS_REGISTERS, LEAF_NOFP, NOT_REEXECUTABLE, NamedLocationIdentity.getArrayLocation(JavaKind.Int));
+        }
     }
 
     public HotSpotForeignCallLinkage getForeignCall(ForeignCallDescriptor descriptor) {
@@ -25,12 +25,15 @@ package com.oracle.graal.hotspot.meta;
 import static com.oracle.graal.compiler.common.GraalOptions.ImmutableCode;
 import static com.oracle.graal.compiler.common.GraalOptions.VerifyPhases;
 
+import java.util.ListIterator;
+
 import com.oracle.graal.hotspot.HotSpotBackend;
 import com.oracle.graal.hotspot.HotSpotGraalRuntimeProvider;
 import com.oracle.graal.hotspot.HotSpotInstructionProfiling;
 import com.oracle.graal.hotspot.GraalHotSpotVMConfig;
 import com.oracle.graal.hotspot.phases.AheadOfTimeVerificationPhase;
 import com.oracle.graal.hotspot.phases.LoadJavaMirrorWithKlassPhase;
+import com.oracle.graal.hotspot.phases.OptimizeStringConcatPhase;
 import com.oracle.graal.hotspot.phases.WriteBarrierAdditionPhase;
 import com.oracle.graal.hotspot.phases.WriteBarrierVerificationPhase;
 import com.oracle.graal.java.GraphBuilderPhase;
@@ -47,6 +50,7 @@ import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.AddressLoweringPhase;
 import com.oracle.graal.phases.common.AddressLoweringPhase.AddressLowering;
 import com.oracle.graal.phases.common.ExpandLogicPhase;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
 import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.tiers.Suites;
 import com.oracle.graal.phases.tiers.SuitesCreator;
@@ -74,6 +78,17 @@ public class HotSpotSuitesProvider extends SuitesProviderBase {
     public Suites createSuites() {
         Suites ret = defaultSuitesCreator.createSuites();
 
+        if (OptimizeStringConcatPhase.Options.OptimizeStringConcat.getValue()) {
+            // string concatenations are recognized by their calls, so this must precede inlining
+            ListIterator<BasePhase<? super HighTierContext>> position = ret.getHighTier().findPhase(InliningPhase.class);
+            if (position != null) {
+                position.previous();
+                position.add(new OptimizeStringConcatPhase(runtime));
+            } else {
+                ret.getHighTier().prependPhase(new OptimizeStringConcatPhase(runtime));
+            }
+        }
+
         if (ImmutableCode.getValue()) {
             // lowering introduces class constants, therefore it must be after lowering
             ret.getHighTier().appendPhase(new LoadJavaMirrorWithKlassPhase(config.classMirrorOffset, config.useCompressedOops ? config.getOopEncoding() : null));
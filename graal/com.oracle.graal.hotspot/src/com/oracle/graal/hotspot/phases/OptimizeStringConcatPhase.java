@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.compiler.common.type.TypeReference;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.hotspot.HotSpotGraalRuntimeProvider;
+import com.oracle.graal.hotspot.replacements.arraycopy.ArrayCopyCallNode;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.InvokeNode;
+import com.oracle.graal.nodes.LogicConstantNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.nodes.StateSplit;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.nodes.calc.NarrowNode;
+import com.oracle.graal.nodes.calc.ZeroExtendNode;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.nodes.java.MethodCallTargetNode;
+import com.oracle.graal.nodes.java.NewArrayNode;
+import com.oracle.graal.nodes.java.NewInstanceNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
+import com.oracle.graal.nodes.java.StoreIndexedNode;
+import com.oracle.graal.nodes.type.StampTool;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaField;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Replaces complete {@code new StringBuilder().append(a).append(b)...toString()} chains by code
+ * that computes the length of the result up front, allocates the {@code char[]} of the result
+ * string exactly once and copies every part directly into it. This avoids the capacity checks, the
+ * growth copies and the final copy in {@link StringBuilder#toString()}.
+ *
+ * The phase runs before inlining, while the chain is still a sequence of calls. A chain is only
+ * replaced if the builder does not escape, only {@link String} and {@code char} values are
+ * appended and nothing between the allocation of the builder and the call to
+ * {@link StringBuilder#toString()} has a side effect. Any deoptimization in the replacement code
+ * therefore resumes in the interpreter in front of the allocation of the builder and simply
+ * re-executes the whole chain.
+ */
+public class OptimizeStringConcatPhase extends BasePhase<HighTierContext> {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Fuse StringBuilder append chains into a single allocation of the result.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> OptimizeStringConcat = new OptionValue<>(true);
+        // @formatter:on
+    }
+
+    private static final DebugCounter counterChains = Debug.counter("OptimizeStringConcat[chains]");
+    private static final DebugCounter counterParts = Debug.counter("OptimizeStringConcat[parts]");
+
+    /**
+     * Maximum number of fixed nodes between the allocation of the builder and the call to
+     * {@link StringBuilder#toString()}.
+     */
+    private static final int MAX_CHAIN_NODES = 256;
+
+    private static final String INIT = "<init>()V";
+    private static final String INIT_STRING = "<init>(Ljava/lang/String;)V";
+    private static final String APPEND_STRING = "append(Ljava/lang/String;)Ljava/lang/StringBuilder;";
+    private static final String APPEND_CHAR = "append(C)Ljava/lang/StringBuilder;";
+    private static final String TO_STRING = "toString()Ljava/lang/String;";
+
+    private final HotSpotGraalRuntimeProvider runtime;
+
+    public OptimizeStringConcatPhase(HotSpotGraalRuntimeProvider runtime) {
+        this.runtime = runtime;
+    }
+
+    /**
+     * Determines if {@code method} is one of the {@link StringBuilder} methods whose calls are
+     * replaced by this phase. These calls must not be inlined while parsing, otherwise the phase
+     * cannot recognize the chain anymore.
+     */
+    public static boolean isChainMethod(ResolvedJavaMethod method) {
+        if (!method.getDeclaringClass().getName().equals("Ljava/lang/StringBuilder;")) {
+            return false;
+        }
+        switch (method.getName() + method.getSignature().toMethodDescriptor()) {
+            case INIT:
+            case INIT_STRING:
+            case APPEND_STRING:
+            case APPEND_CHAR:
+            case TO_STRING:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, HighTierContext context) {
+        MetaAccessProvider metaAccess = context.getMetaAccess();
+        ResolvedJavaType builderType = metaAccess.lookupJavaType(StringBuilder.class);
+        ResolvedJavaType stringType = metaAccess.lookupJavaType(String.class);
+        ResolvedJavaField valueField = null;
+        for (ResolvedJavaField field : stringType.getInstanceFields(false)) {
+            if (field.getName().equals("value")) {
+                valueField = field;
+            }
+        }
+        if (valueField == null || !valueField.getType().equals(metaAccess.lookupJavaType(char[].class))) {
+            // Strings are not backed by a char[] on this platform.
+            return;
+        }
+        for (NewInstanceNode allocation : graph.getNodes().filter(NewInstanceNode.class).snapshot()) {
+            if (allocation.isAlive() && allocation.instanceClass().equals(builderType)) {
+                Chain chain = Chain.match(allocation, builderType, stringType);
+                if (chain != null) {
+                    chain.replace(graph, context, runtime, stringType, valueField);
+                    counterChains.increment();
+                    counterParts.add(chain.parts.size());
+                }
+            }
+        }
+    }
+
+    private static final class Chain {
+        private final NewInstanceNode allocation;
+        private final FrameState stateBefore;
+        private final List<InvokeNode> invokes = new ArrayList<>();
+        private final List<ValueNode> parts = new ArrayList<>();
+        private final NodeBitMap aliases;
+        private ValueNode checkedFirstPart;
+        private InvokeNode toString;
+
+        private Chain(NewInstanceNode allocation, FrameState stateBefore) {
+            this.allocation = allocation;
+            this.stateBefore = stateBefore;
+            this.aliases = allocation.graph().createNodeBitMap();
+            aliases.mark(allocation);
+        }
+
+        static Chain match(NewInstanceNode allocation, ResolvedJavaType builderType, ResolvedJavaType stringType) {
+            FrameState stateBefore = findStateBefore(allocation);
+            if (stateBefore == null) {
+                return null;
+            }
+            Chain chain = new Chain(allocation, stateBefore);
+            boolean initialized = false;
+            FixedNode current = allocation.next();
+            for (int count = 0; count < MAX_CHAIN_NODES; count++) {
+                if (current instanceof InvokeNode) {
+                    InvokeNode invoke = (InvokeNode) current;
+                    if (!(invoke.callTarget() instanceof MethodCallTargetNode)) {
+                        return null;
+                    }
+                    MethodCallTargetNode callTarget = (MethodCallTargetNode) invoke.callTarget();
+                    ResolvedJavaMethod method = callTarget.targetMethod();
+                    if (!callTarget.invokeKind().hasReceiver() || !chain.aliases.isMarked(GraphUtil.unproxify(callTarget.receiver())) || !method.getDeclaringClass().equals(builderType)) {
+                        return null;
+                    }
+                    String signature = method.getName() + method.getSignature().toMethodDescriptor();
+                    if (!initialized) {
+                        if (signature.equals(INIT_STRING)) {
+                            chain.checkedFirstPart = callTarget.arguments().get(1);
+                            chain.parts.add(chain.checkedFirstPart);
+                        } else if (!signature.equals(INIT)) {
+                            return null;
+                        }
+                        initialized = true;
+                    } else if (signature.equals(APPEND_STRING) || signature.equals(APPEND_CHAR)) {
+                        chain.parts.add(callTarget.arguments().get(1));
+                        chain.aliases.mark(invoke);
+                    } else if (signature.equals(TO_STRING)) {
+                        chain.invokes.add(invoke);
+                        chain.toString = invoke;
+                        break;
+                    } else {
+                        return null;
+                    }
+                    chain.invokes.add(invoke);
+                } else if (!(current instanceof FixedWithNextNode) || current instanceof AbstractBeginNode || (current instanceof StateSplit && ((StateSplit) current).hasSideEffect())) {
+                    return null;
+                }
+                current = ((FixedWithNextNode) current).next();
+            }
+            if (chain.toString == null || chain.parts.isEmpty() || !chain.hasOnlyChainUsages()) {
+                return null;
+            }
+            return chain;
+        }
+
+        /**
+         * Finds the frame state in front of the allocation of the builder. Nothing between the
+         * owner of this state and the allocation has side effects.
+         */
+        private static FrameState findStateBefore(FixedNode allocation) {
+            for (Node current = allocation.predecessor(); current instanceof FixedNode; current = current.predecessor()) {
+                if (current instanceof StateSplit && ((StateSplit) current).stateAfter() != null) {
+                    return ((StateSplit) current).stateAfter();
+                }
+                if (current instanceof AbstractBeginNode) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Checks that the builder is only used as the receiver of the calls in the chain, by the
+         * frame states of these calls and by null checks.
+         */
+        private boolean hasOnlyChainUsages() {
+            List<ValueNode> worklist = new ArrayList<>();
+            for (Node alias : aliases) {
+                worklist.add((ValueNode) alias);
+            }
+            while (!worklist.isEmpty()) {
+                ValueNode value = worklist.remove(worklist.size() - 1);
+                for (Node usage : value.usages()) {
+                    if (usage instanceof PiNode) {
+                        worklist.add((PiNode) usage);
+                    } else if (usage instanceof MethodCallTargetNode) {
+                        MethodCallTargetNode callTarget = (MethodCallTargetNode) usage;
+                        if (!invokes.contains(callTarget.invoke()) || callTarget.arguments().indexOf(value) != 0) {
+                            return false;
+                        }
+                    } else if (usage instanceof FrameState) {
+                        if (!isChainState((FrameState) usage)) {
+                            return false;
+                        }
+                    } else if (!(usage instanceof IsNullNode)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The builder is never null, so null checks of the results of the appends fold away.
+         */
+        private static void removeNullChecks(ValueNode value) {
+            for (Node usage : value.usages().snapshot()) {
+                if (usage instanceof IsNullNode) {
+                    usage.replaceAndDelete(LogicConstantNode.contradiction(value.graph()));
+                } else if (usage instanceof PiNode) {
+                    removeNullChecks((PiNode) usage);
+                }
+            }
+        }
+
+        private boolean isChainState(FrameState state) {
+            for (InvokeNode invoke : invokes) {
+                if (invoke.stateAfter() == state || invoke.stateDuring() == state) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void replace(StructuredGraph graph, HighTierContext context, HotSpotGraalRuntimeProvider runtime, ResolvedJavaType stringType, ResolvedJavaField valueField) {
+            MetaAccessProvider metaAccess = context.getMetaAccess();
+            ConstantNode nullString = ConstantNode.forConstant(context.getConstantReflection().forString("null"), metaAccess, graph);
+
+            if (checkedFirstPart != null) {
+                // new StringBuilder(null) throws a NullPointerException.
+                FixedGuardNode nullCheck = graph.add(new FixedGuardNode(graph.unique(new IsNullNode(checkedFirstPart)), DeoptimizationReason.NullCheckException,
+                                DeoptimizationAction.InvalidateReprofile, true));
+                graph.addBeforeFixed(toString, nullCheck);
+            }
+
+            List<ValueNode> values = new ArrayList<>();
+            List<ValueNode> lengths = new ArrayList<>();
+            // The length is summed in 64 bits, which cannot overflow for MAX_CHAIN_NODES parts.
+            ValueNode length = ConstantNode.forLong(0, graph);
+            for (ValueNode part : parts) {
+                ValueNode partLength;
+                if (part.getStackKind() == JavaKind.Object) {
+                    ValueNode string = part;
+                    if (!StampTool.isPointerNonNull(part)) {
+                        string = graph.unique(new ConditionalNode(graph.unique(new IsNullNode(part)), nullString, part));
+                        string = graph.unique(new PiNode(string, StampFactory.objectNonNull(TypeReference.createExactTrusted(stringType))));
+                    }
+                    LoadFieldNode value = graph.add(LoadFieldNode.create(graph.getAssumptions(), string, valueField));
+                    graph.addBeforeFixed(toString, value);
+                    ArrayLengthNode valueLength = graph.add(new ArrayLengthNode(value));
+                    graph.addBeforeFixed(toString, valueLength);
+                    values.add(value);
+                    partLength = valueLength;
+                } else {
+                    values.add(null);
+                    partLength = ConstantNode.forInt(1, graph);
+                }
+                lengths.add(partLength);
+                length = graph.unique(new AddNode(length, graph.unique(new ZeroExtendNode(partLength, 64))));
+            }
+
+            // A length above Integer.MAX_VALUE is left to the interpreter, which throws an
+            // OutOfMemoryError.
+            LogicNode tooLong = graph.unique(new IntegerLessThanNode(ConstantNode.forLong(Integer.MAX_VALUE, graph), length));
+            FixedGuardNode lengthCheck = graph.add(new FixedGuardNode(tooLong, DeoptimizationReason.RuntimeConstraint, DeoptimizationAction.InvalidateReprofile, true));
+            graph.addBeforeFixed(toString, lengthCheck);
+            ValueNode checkedLength = graph.unique(new PiNode(graph.unique(new NarrowNode(length, 32)), StampFactory.positiveInt(), lengthCheck));
+
+            ResolvedJavaType charType = metaAccess.lookupJavaType(char.class);
+            NewArrayNode array = graph.add(new NewArrayNode(charType, checkedLength, false));
+            graph.addBeforeFixed(toString, array);
+            ValueNode position = ConstantNode.forInt(0, graph);
+            for (int i = 0; i < parts.size(); i++) {
+                ValueNode value = values.get(i);
+                FixedWithNextNode copy;
+                if (value != null) {
+                    copy = graph.add(new ArrayCopyCallNode(runtime, value, ConstantNode.forInt(0, graph), array, position, lengths.get(i), JavaKind.Char, false, true, false));
+                } else {
+                    copy = graph.add(new StoreIndexedNode(array, position, JavaKind.Char, parts.get(i)));
+                }
+                ((StateSplit) copy).setStateAfter(stateBefore);
+                graph.addBeforeFixed(toString, copy);
+                position = graph.unique(new AddNode(position, lengths.get(i)));
+            }
+
+            NewInstanceNode string = graph.add(new NewInstanceNode(stringType, true));
+            graph.addBeforeFixed(toString, string);
+            StoreFieldNode storeValue = graph.add(new StoreFieldNode(string, valueField, array, stateBefore));
+            graph.addBeforeFixed(toString, storeValue);
+
+            for (InvokeNode invoke : invokes) {
+                invoke.replaceAtUsages(invoke == toString ? string : allocation);
+            }
+            removeNullChecks(allocation);
+            for (InvokeNode invoke : invokes) {
+                GraphUtil.removeFixedWithUnusedInputs(invoke);
+            }
+            if (allocation.hasNoUsages()) {
+                GraphUtil.removeFixedWithUnusedInputs(allocation);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.replacements;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.replacements.nodes.Base64DecodeBlockNode;
+import com.oracle.graal.word.Pointer;
+import com.oracle.graal.word.Word;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@code java.util.Base64.Decoder}.
+ */
+@ClassSubstitution(className = "java.util.Base64$Decoder", optional = true)
+public class Base64DecoderSubstitutions {
+
+    static final Class<?> decoderClass;
+    static final int isURLOffset;
+    static final int isMIMEOffset;
+
+    static {
+        try {
+            decoderClass = Class.forName("java.util.Base64$Decoder");
+            isURLOffset = (int) UnsafeAccess.UNSAFE.objectFieldOffset(decoderClass.getDeclaredField("isURL"));
+            isMIMEOffset = (int) UnsafeAccess.UNSAFE.objectFieldOffset(decoderClass.getDeclaredField("isMIME"));
+        } catch (Exception ex) {
+            throw new GraalError(ex);
+        }
+    }
+
+    /**
+     * Decodes the complete groups of four characters with {@link Base64DecodeBlockNode}, skipping
+     * the line separators of MIME input between groups. The original method starts in the state
+     * of a group boundary, so everything from the first group the node cannot decode on, such as
+     * the padding or an illegal character, is left to it, including the error handling.
+     */
+    @MethodSubstitution(isStatic = false)
+    static int decode0(Object receiver, byte[] src, int sp, int sl, byte[] dst) {
+        Object realReceiver = PiNode.piCastNonNull(receiver, decoderClass);
+        Pointer decoder = Word.objectToTrackedPointer(realReceiver);
+        boolean isURL = decoder.readByte(isURLOffset, LocationIdentity.any()) != 0;
+        boolean isMIME = decoder.readByte(isMIMEOffset, LocationIdentity.any()) != 0;
+        if (sp < 0 || sl > src.length) {
+            // let the original method throw the appropriate exception
+            return decode0(receiver, src, sp, sl, dst);
+        }
+        int off = sp;
+        int dp = 0;
+        int groups = Math.min((sl - sp) / 4, (dst.length - dp) / 3);
+        while (groups > 0) {
+            int n = Base64DecodeBlockNode.decodeBlock(src, sp, sp + groups * 4, dst, dp, isURL);
+            sp += n / 3 * 4;
+            dp += n;
+            if (n == groups * 3 || !isMIME || (src[sp] != '\r' && src[sp] != '\n')) {
+                break;
+            }
+            // skip the line separators of MIME input
+            sp++;
+            groups = Math.min((sl - sp) / 4, (dst.length - dp) / 3);
+        }
+        if (sp >= sl) {
+            return dp;
+        }
+        byte[] tail = new byte[(sl - sp) / 4 * 3 + 3];
+        int n = decode0(receiver, src, sp, sl, tail);
+        if (n > dst.length - dp) {
+            return decode0(receiver, src, off, sl, dst);
+        }
+        System.arraycopy(tail, 0, dst, dp, n);
+        return dp + n;
+    }
+}
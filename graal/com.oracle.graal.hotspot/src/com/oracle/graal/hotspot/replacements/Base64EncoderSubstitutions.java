@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.replacements;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.nodes.extended.UnsafeLoadNode;
+import com.oracle.graal.replacements.nodes.Base64EncodeBlockNode;
+import com.oracle.graal.word.Pointer;
+import com.oracle.graal.word.Word;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@code java.util.Base64.Encoder}. JDK 8 encodes in {@code encode0}, which is
+ * replaced by a copy that hands the encoding of each line to {@link Base64EncodeBlockNode}. Later
+ * JDKs factor that loop out into {@code encodeBlock}.
+ */
+@ClassSubstitution(className = "java.util.Base64$Encoder", optional = true)
+public class Base64EncoderSubstitutions {
+
+    static final Class<?> encoderClass;
+    static final long newlineOffset;
+    static final int linemaxOffset;
+    static final int isURLOffset;
+
+    static {
+        try {
+            encoderClass = Class.forName("java.util.Base64$Encoder");
+            newlineOffset = UnsafeAccess.UNSAFE.objectFieldOffset(encoderClass.getDeclaredField("newline"));
+            linemaxOffset = (int) UnsafeAccess.UNSAFE.objectFieldOffset(encoderClass.getDeclaredField("linemax"));
+            isURLOffset = (int) UnsafeAccess.UNSAFE.objectFieldOffset(encoderClass.getDeclaredField("isURL"));
+        } catch (Exception ex) {
+            throw new GraalError(ex);
+        }
+    }
+
+    @MethodSubstitution(isStatic = false)
+    static int encode0(Object receiver, byte[] src, int off, int end, byte[] dst) {
+        Object realReceiver = PiNode.piCastNonNull(receiver, encoderClass);
+        Pointer encoder = Word.objectToTrackedPointer(realReceiver);
+        boolean isURL = encoder.readByte(isURLOffset, LocationIdentity.any()) != 0;
+        int linemax = encoder.readInt(linemaxOffset, LocationIdentity.any());
+        if (off < 0 || off > end || end > src.length) {
+            // let the original method throw the appropriate exception
+            return encode0(receiver, src, off, end, dst);
+        }
+        int sp = off;
+        int slen = (end - off) / 3 * 3;
+        int sl = off + slen;
+        if (linemax > 0 && slen > linemax / 4 * 3) {
+            slen = linemax / 4 * 3;
+        }
+        int dp = 0;
+        while (sp < sl) {
+            int sl0 = Math.min(sp + slen, sl);
+            int dlen = (sl0 - sp) / 3 * 4;
+            if (dlen > dst.length - dp) {
+                return encode0(receiver, src, off, end, dst);
+            }
+            Base64EncodeBlockNode.encodeBlock(src, sp, sl0, dst, dp, isURL);
+            dp += dlen;
+            sp = sl0;
+            if (dlen == linemax && sp < end) {
+                byte[] newline = (byte[]) UnsafeLoadNode.load(realReceiver, newlineOffset, JavaKind.Object, LocationIdentity.any());
+                for (byte b : newline) {
+                    dst[dp++] = b;
+                }
+            }
+        }
+        if (sp < end) {
+            // the original method encodes the 1 or 2 leftover bytes and the padding
+            byte[] tail = new byte[4];
+            int n = encode0(receiver, src, sp, end, tail);
+            if (n > dst.length - dp) {
+                return encode0(receiver, src, off, end, dst);
+            }
+            System.arraycopy(tail, 0, dst, dp, n);
+            dp += n;
+        }
+        return dp;
+    }
+
+    @MethodSubstitution(isStatic = false, optional = true)
+    static void encodeBlock(Object receiver, byte[] src, int sp, int sl, byte[] dst, int dp, boolean isURL) {
+        if (sp < 0 || sp > sl || sl > src.length || dp < 0 || dp > dst.length - (sl - sp) / 3 * 4) {
+            // let the original method throw the appropriate exception
+            encodeBlock(receiver, src, sp, sl, dst, dp, isURL);
+            return;
+        }
+        Base64EncodeBlockNode.encodeBlock(src, sp, sl, dst, dp, isURL);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.replacements;
+
+import static com.oracle.graal.hotspot.HotSpotBackend.MONTGOMERY_MULTIPLY;
+import static com.oracle.graal.hotspot.HotSpotBackend.MONTGOMERY_SQUARE;
+import static com.oracle.graal.hotspot.HotSpotBackend.MULTIPLY_TO_LEN;
+import static com.oracle.graal.hotspot.HotSpotBackend.MUL_ADD;
+import static com.oracle.graal.hotspot.HotSpotBackend.SQUARE_TO_LEN;
+import static jdk.vm.ci.hotspot.HotSpotJVMCIRuntimeProvider.getArrayBaseOffset;
+
+import java.math.BigInteger;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.compiler.common.spi.ForeignCallDescriptor;
+import com.oracle.graal.graph.Node.ConstantNodeParameter;
+import com.oracle.graal.graph.Node.NodeIntrinsic;
+import com.oracle.graal.hotspot.nodes.ComputeObjectAddressNode;
+import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.word.Word;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@link BigInteger} methods that call the multi-precision arithmetic stubs of
+ * the VM. Most of the substituted methods only exist in some versions of the JDK.
+ */
+@ClassSubstitution(BigInteger.class)
+public class BigIntegerSubstitutions {
+
+    /**
+     * Substitution for {@code multiplyToLen}, which is an instance method in some versions of JDK
+     * 8 although it does not use the receiver.
+     */
+    @MethodSubstitution(isStatic = false, optional = true)
+    static int[] multiplyToLen(@SuppressWarnings("unused") Object receiver, int[] x, int xlen, int[] y, int ylen, int[] z) {
+        return multiplyToLenStatic(x, xlen, y, ylen, z);
+    }
+
+    /**
+     * Substitution for the static {@code multiplyToLen} of JDK 8 and {@code implMultiplyToLen} of
+     * later versions.
+     */
+    @MethodSubstitution(value = "multiplyToLen", optional = true)
+    static int[] multiplyToLenStatic(int[] x, int xlen, int[] y, int ylen, int[] z) {
+        int[] result = z;
+        int zlen;
+        if (result == null || result.length < xlen + ylen) {
+            zlen = xlen + ylen;
+            result = new int[zlen];
+        } else {
+            zlen = result.length;
+        }
+        multiplyToLenStub(MULTIPLY_TO_LEN, arrayStart(x), xlen, arrayStart(y), ylen, arrayStart(result), zlen);
+        return result;
+    }
+
+    @MethodSubstitution(optional = true)
+    static int[] implSquareToLen(int[] x, int len, int[] z, int zlen) {
+        squareToLenStub(SQUARE_TO_LEN, arrayStart(x), len, arrayStart(z), zlen);
+        return z;
+    }
+
+    @MethodSubstitution(optional = true)
+    static int implMulAdd(int[] out, int[] in, int offset, int len, int k) {
+        // the stub expects the offset to be relative to the end of out
+        return mulAddStub(MUL_ADD, arrayStart(out), arrayStart(in), out.length - offset, len, k);
+    }
+
+    @MethodSubstitution(optional = true)
+    static int[] implMontgomeryMultiply(int[] a, int[] b, int[] n, int len, long inv, int[] product) {
+        montgomeryMultiplyStub(MONTGOMERY_MULTIPLY, arrayStart(a), arrayStart(b), arrayStart(n), len, inv, arrayStart(product));
+        return product;
+    }
+
+    @MethodSubstitution(optional = true)
+    static int[] implMontgomerySquare(int[] a, int[] n, int len, long inv, int[] product) {
+        montgomerySquareStub(MONTGOMERY_SQUARE, arrayStart(a), arrayStart(n), len, inv, arrayStart(product));
+        return product;
+    }
+
+    private static Word arrayStart(int[] array) {
+        return Word.unsigned(ComputeObjectAddressNode.get(array, getArrayBaseOffset(JavaKind.Int)));
+    }
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    public static native void multiplyToLenStub(@ConstantNodeParameter ForeignCallDescriptor descriptor, Word x, int xlen, Word y, int ylen, Word z, int zlen);
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    public static native void squareToLenStub(@ConstantNodeParameter ForeignCallDescriptor descriptor, Word x, int len, Word z, int zlen);
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    public static native int mulAddStub(@ConstantNodeParameter ForeignCallDescriptor descriptor, Word out, Word in, int newOffset, int len, int k);
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    public static native void montgomeryMultiplyStub(@ConstantNodeParameter ForeignCallDescriptor descriptor, Word a, Word b, Word n, int len, long inv, Word product);
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    public static native void montgomerySquareStub(@ConstantNodeParameter ForeignCallDescriptor descriptor, Word a, Word n, int len, long inv, Word product);
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.replacements;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.replacements.nodes.ArrayCompressNode;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@code sun.nio.cs.ISO_8859_1.Encoder}.
+ */
+@ClassSubstitution(className = "sun.nio.cs.ISO_8859_1$Encoder", optional = true)
+public class Latin1EncoderSubstitutions {
+
+    @MethodSubstitution
+    static int encodeISOArray(char[] sa, int sp, byte[] da, int dp, int len) {
+        if (len < 0 || sp < 0 || dp < 0 || sp > sa.length - len || dp > da.length - len) {
+            // the original method returns 0 for a negative length and throws for bad offsets
+            return encodeISOArray(sa, sp, da, dp, len);
+        }
+        return ArrayCompressNode.compress(sa, sp, da, dp, len);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.replacements;
+
+import static com.oracle.graal.hotspot.HotSpotBackend.SHA2_IMPL_COMPRESS;
+import static com.oracle.graal.hotspot.HotSpotBackend.SHA5_IMPL_COMPRESS;
+import static com.oracle.graal.hotspot.HotSpotBackend.SHA_IMPL_COMPRESS;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.arrayBaseOffset;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.spi.ForeignCallDescriptor;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.graph.Node.ConstantNodeParameter;
+import com.oracle.graal.graph.Node.NodeIntrinsic;
+import com.oracle.graal.hotspot.nodes.ComputeObjectAddressNode;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.nodes.extended.UnsafeLoadNode;
+import com.oracle.graal.word.Pointer;
+import com.oracle.graal.word.Word;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for the {@code implCompress} methods of {@code sun.security.provider.SHA} (SHA-1),
+ * {@code sun.security.provider.SHA2} (SHA-224 and SHA-256) and {@code sun.security.provider.SHA5}
+ * (SHA-384 and SHA-512). The digests only differ in the element kind of their {@code state} array
+ * and in the stub compressing a block.
+ */
+@ClassSubstitution(className = {"sun.security.provider.SHA", "sun.security.provider.SHA2", "sun.security.provider.SHA5"}, optional = true)
+public class SHASubstitutions {
+
+    static final Class<?> shaClass;
+    static final long shaStateOffset;
+    static final Class<?> sha2Class;
+    static final long sha2StateOffset;
+    static final Class<?> sha5Class;
+    static final long sha5StateOffset;
+
+    static {
+        try {
+            // Need to use the system class loader as the class loader of the JVMCI classes does
+            // not delegate to the loader of the security providers.
+            ClassLoader cl = ClassLoader.getSystemClassLoader();
+            shaClass = Class.forName("sun.security.provider.SHA", true, cl);
+            shaStateOffset = UnsafeAccess.UNSAFE.objectFieldOffset(shaClass.getDeclaredField("state"));
+            sha2Class = Class.forName("sun.security.provider.SHA2", true, cl);
+            sha2StateOffset = UnsafeAccess.UNSAFE.objectFieldOffset(sha2Class.getDeclaredField("state"));
+            sha5Class = Class.forName("sun.security.provider.SHA5", true, cl);
+            sha5StateOffset = UnsafeAccess.UNSAFE.objectFieldOffset(sha5Class.getDeclaredField("state"));
+        } catch (Exception ex) {
+            throw new GraalError(ex);
+        }
+    }
+
+    @MethodSubstitution(isStatic = false, value = "implCompress0")
+    static void shaImplCompress0(Object receiver, byte[] buf, int ofs) {
+        implCompress(PiNode.piCastNonNull(receiver, shaClass), shaStateOffset, JavaKind.Int, SHA_IMPL_COMPRESS, buf, ofs);
+    }
+
+    @MethodSubstitution(isStatic = false, value = "implCompress0")
+    static void sha2ImplCompress0(Object receiver, byte[] buf, int ofs) {
+        implCompress(PiNode.piCastNonNull(receiver, sha2Class), sha2StateOffset, JavaKind.Int, SHA2_IMPL_COMPRESS, buf, ofs);
+    }
+
+    @MethodSubstitution(isStatic = false, value = "implCompress0")
+    static void sha5ImplCompress0(Object receiver, byte[] buf, int ofs) {
+        implCompress(PiNode.piCastNonNull(receiver, sha5Class), sha5StateOffset, JavaKind.Long, SHA5_IMPL_COMPRESS, buf, ofs);
+    }
+
+    /**
+     * Compresses the block at {@code buf[ofs]} into the {@code state} array of the digest. The
+     * callers of {@code implCompress} guarantee that a whole block is available.
+     *
+     * @param stateKind the element kind of the {@code state} array
+     * @param descriptor the stub compressing one block
+     */
+    private static void implCompress(Object receiver, long stateOffset, JavaKind stateKind, ForeignCallDescriptor descriptor, byte[] buf, int ofs) {
+        Object state = UnsafeLoadNode.load(receiver, stateOffset, JavaKind.Object, LocationIdentity.any());
+        Word bufAddr = Word.unsigned(ComputeObjectAddressNode.get(buf, arrayBaseOffset(JavaKind.Byte) + ofs));
+        Pointer stateAddr = Word.objectToTrackedPointer(state).add(arrayBaseOffset(stateKind));
+        implCompressStub(descriptor, bufAddr, stateAddr);
+    }
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    public static native void implCompressStub(@ConstantNodeParameter ForeignCallDescriptor descriptor, Word buf, Pointer state);
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.replacements;
+
+import static com.oracle.graal.hotspot.GraalHotSpotVMConfig.INJECTED_VMCONFIG;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.klassIsArray;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.layoutHelperElementTypePrimitiveInPlace;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.loadHub;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.readLayoutHelper;
+
+import com.oracle.graal.api.directives.GraalDirectives;
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.spi.ForeignCallDescriptor;
+import com.oracle.graal.graph.Node.ConstantNodeParameter;
+import com.oracle.graal.graph.Node.NodeIntrinsic;
+import com.oracle.graal.hotspot.nodes.ComputeObjectAddressNode;
+import com.oracle.graal.hotspot.word.KlassPointer;
+import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.nodes.extended.UnsafeCopyNode;
+import com.oracle.graal.replacements.nodes.MemoryFillNode;
+import com.oracle.graal.word.Word;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for the bulk memory operations of {@code sun.misc.Unsafe} and, from JDK 9 on,
+ * {@code jdk.internal.misc.Unsafe}. They avoid the native method transition: small word aligned
+ * copies are done inline and all other copies call the {@code unsafe_arraycopy} stub, while fills
+ * are done by {@link MemoryFillNode}. A {@code null} base object makes the offset an absolute
+ * address, in which case {@link ComputeObjectAddressNode} yields the offset unchanged.
+ */
+@ClassSubstitution(className = {"jdk.internal.misc.Unsafe", "sun.misc.Unsafe"}, optional = true)
+public class UnsafeMemorySubstitutions {
+
+    /**
+     * Number of bytes up to which word aligned copies are done with inline loads and stores
+     * instead of calling the stub.
+     */
+    static final long INLINE_COPY_LIMIT = 64;
+
+    /**
+     * The JDK 8 native method rejects a destination that is neither {@code null} nor a primitive
+     * array, since copying into other objects would need card marks.
+     */
+    @MethodSubstitution(isStatic = false)
+    static void copyMemory(Object receiver, Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes) {
+        if (bytes < 0 || !isNullOrPrimitiveArray(destBase)) {
+            // let the original method throw the IllegalArgumentException
+            copyMemory(receiver, srcBase, srcOffset, destBase, destOffset, bytes);
+            return;
+        }
+        copy(srcBase, srcOffset, destBase, destOffset, bytes);
+    }
+
+    /**
+     * The size has already been checked by the caller.
+     */
+    @MethodSubstitution(isStatic = false)
+    static void copyMemory0(@SuppressWarnings("unused") Object receiver, Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes) {
+        copy(srcBase, srcOffset, destBase, destOffset, bytes);
+    }
+
+    @MethodSubstitution(isStatic = false)
+    static void setMemory(Object receiver, Object o, long offset, long bytes, byte value) {
+        if (bytes < 0) {
+            // let the original method throw the IllegalArgumentException
+            setMemory(receiver, o, offset, bytes, value);
+            return;
+        }
+        MemoryFillNode.fill(ComputeObjectAddressNode.get(o, offset), bytes, value);
+    }
+
+    /**
+     * The size has already been checked by the caller.
+     */
+    @MethodSubstitution(isStatic = false)
+    static void setMemory0(@SuppressWarnings("unused") Object receiver, Object o, long offset, long bytes, byte value) {
+        MemoryFillNode.fill(ComputeObjectAddressNode.get(o, offset), bytes, value);
+    }
+
+    private static boolean isNullOrPrimitiveArray(Object object) {
+        if (object == null) {
+            return true;
+        }
+        KlassPointer hub = loadHub(GraalDirectives.guardingNonNull(object));
+        return klassIsArray(hub) && (readLayoutHelper(hub) & layoutHelperElementTypePrimitiveInPlace(INJECTED_VMCONFIG)) != 0;
+    }
+
+    /**
+     * Copies {@code bytes} bytes like {@code memmove}. Objects are 8-byte aligned, so the offsets
+     * determine the alignment of the addresses. The native method copies aligned memory in units
+     * of words, which the inline copy preserves.
+     */
+    private static void copy(Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes) {
+        if (bytes <= INLINE_COPY_LIMIT && ((srcOffset | destOffset | bytes) & 7) == 0) {
+            if (srcBase == destBase && destOffset > srcOffset) {
+                // the ranges may overlap, copy backwards
+                for (long i = bytes - 8; i >= 0; i -= 8) {
+                    UnsafeCopyNode.copy(srcBase, srcOffset + i, destBase, destOffset + i, JavaKind.Long, LocationIdentity.any());
+                }
+            } else {
+                for (long i = 0; i < bytes; i += 8) {
+                    UnsafeCopyNode.copy(srcBase, srcOffset + i, destBase, destOffset + i, JavaKind.Long, LocationIdentity.any());
+                }
+            }
+        } else {
+            Word src = Word.unsigned(ComputeObjectAddressNode.get(srcBase, srcOffset));
+            Word dest = Word.unsigned(ComputeObjectAddressNode.get(destBase, destOffset));
+            unsafeArraycopy(UNSAFE_ARRAYCOPY, src, dest, Word.unsigned(bytes));
+        }
+    }
+
+    public static final ForeignCallDescriptor UNSAFE_ARRAYCOPY = new ForeignCallDescriptor("unsafe_arraycopy", void.class, Word.class, Word.class, Word.class);
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    public static native void unsafeArraycopy(@ConstantNodeParameter ForeignCallDescriptor descriptor, Word src, Word dest, Word bytes);
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import java.lang.reflect.Array;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64RMOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which lexicographically compares two {@code char} arrays, as done by
+ * {@link String#compareTo(String)}. The common prefix is compared eight characters at a time with
+ * SSE2 instructions, the remaining characters are compared one by one.
+ */
+@Opcode("ARRAY_COMPARE_TO")
+public final class AMD64ArrayCompareToOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayCompareToOp> TYPE = LIRInstructionClass.create(AMD64ArrayCompareToOp.class);
+
+    /**
+     * Vector size used in {@link #emitCode}.
+     */
+    private static final int VECTOR_SIZE = 16;
+
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value array1Value;
+    @Alive({REG}) protected Value array2Value;
+    @Alive({REG}) protected Value length1Value;
+    @Alive({REG}) protected Value length2Value;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayCompareToOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array1, Value array2, Value length1, Value length2) {
+        super(TYPE);
+        assert kind == JavaKind.Char : "only char arrays are supported: " + kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = UNSAFE.arrayIndexScale(arrayClass);
+        assert arrayIndexScale == 2;
+
+        this.resultValue = result;
+        this.array1Value = array1;
+        this.array2Value = array2;
+        this.length1Value = length1;
+        this.length2Value = length2;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register length1 = asRegister(length1Value);
+        Register length2 = asRegister(length2Value);
+        Register array1 = asRegister(temp1);
+        Register array2 = asRegister(temp2);
+        Register count = asRegister(temp3);
+        Register tail = asRegister(temp4);
+        Register temp = asRegister(temp5);
+        Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label vectorMismatch = new Label();
+        Label compareTail = new Label();
+        Label tailLoop = new Label();
+        Label tailMismatch = new Label();
+        Label done = new Label();
+
+        // If the common prefix is equal the result is the difference of the lengths.
+        masm.movl(count, length1);
+        masm.movl(result, length1);
+        masm.subl(result, length2);
+        masm.cmovl(ConditionFlag.Greater, count, length2);
+
+        // Load array base addresses.
+        masm.leaq(array1, new AMD64Address(asRegister(array1Value), arrayBaseOffset));
+        masm.leaq(array2, new AMD64Address(asRegister(array2Value), arrayBaseOffset));
+
+        // Compare 16-byte vectors
+        int charsPerVector = VECTOR_SIZE / arrayIndexScale;
+        masm.movl(tail, count);
+        masm.andl(tail, charsPerVector - 1); // tail count (in chars)
+        masm.andl(count, ~(charsPerVector - 1)); // vector count (in chars)
+        masm.jcc(ConditionFlag.Zero, compareTail);
+
+        masm.leaq(array1, new AMD64Address(array1, count, Scale.Times2, 0));
+        masm.leaq(array2, new AMD64Address(array2, count, Scale.Times2, 0));
+        masm.negq(count);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.movdqu(vector1, new AMD64Address(array1, count, Scale.Times2, 0));
+        masm.movdqu(vector2, new AMD64Address(array2, count, Scale.Times2, 0));
+        masm.pcmpeqw(vector1, vector2);
+        masm.pmovmskb(temp, vector1);
+        masm.cmpl(temp, 0xFFFF);
+        masm.jcc(ConditionFlag.NotEqual, vectorMismatch);
+        masm.addq(count, charsPerVector);
+        masm.jcc(ConditionFlag.NotZero, loop);
+        masm.jmpb(compareTail);
+
+        // The lowest clear bit in the mask identifies the first differing character.
+        masm.bind(vectorMismatch);
+        masm.notl(temp);
+        AMD64RMOp.BSF.emit(masm, OperandSize.DWORD, temp, temp);
+        masm.shrl(temp, 1);
+        masm.addq(count, temp);
+        masm.movzwl(result, new AMD64Address(array1, count, Scale.Times2, 0));
+        masm.movzwl(temp, new AMD64Address(array2, count, Scale.Times2, 0));
+        masm.subl(result, temp);
+        masm.jmp(done);
+
+        // Compare the remaining chars one by one.
+        masm.bind(compareTail);
+        masm.testl(tail, tail);
+        masm.jcc(ConditionFlag.Zero, done);
+        masm.leaq(array1, new AMD64Address(array1, tail, Scale.Times2, 0));
+        masm.leaq(array2, new AMD64Address(array2, tail, Scale.Times2, 0));
+        masm.movl(count, tail);
+        masm.negq(count);
+
+        masm.bind(tailLoop);
+        masm.movzwl(temp, new AMD64Address(array1, count, Scale.Times2, 0));
+        masm.movzwl(tail, new AMD64Address(array2, count, Scale.Times2, 0));
+        masm.cmpl(temp, tail);
+        masm.jccb(ConditionFlag.NotEqual, tailMismatch);
+        masm.incq(count);
+        masm.jccb(ConditionFlag.NotZero, tailLoop);
+        masm.jmpb(done);
+
+        masm.bind(tailMismatch);
+        masm.movl(result, temp);
+        masm.subl(result, tail);
+
+        // That's it
+        masm.bind(done);
+    }
+}
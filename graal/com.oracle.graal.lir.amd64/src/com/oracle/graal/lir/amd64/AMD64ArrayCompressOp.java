@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which copies {@code char}s into a {@code byte} array as long as they are Latin-1
+ * characters, i.e., not greater than {@code 0xFF}. Sixteen characters are checked at a time and
+ * narrowed with {@code packuswb}; a vector containing a non Latin-1 character is finished by the
+ * scalar loop so that the copy stops exactly at that character. The result is the number of
+ * characters copied.
+ */
+@Opcode("ARRAY_COMPRESS")
+public final class AMD64ArrayCompressOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayCompressOp> TYPE = LIRInstructionClass.create(AMD64ArrayCompressOp.class);
+
+    /**
+     * Number of chars processed by one iteration of the vector loop.
+     */
+    private static final int CHARS_PER_ITERATION = 16;
+
+    private static final int CHAR_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(char[].class);
+    private static final int BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value srcValue;
+    @Alive({REG}) protected Value srcIndexValue;
+    @Alive({REG}) protected Value dstValue;
+    @Alive({REG}) protected Value dstIndexValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+    @Temp({REG}) protected Value vectorTemp3;
+    @Temp({REG}) protected Value vectorTemp4;
+    @Temp({REG}) protected Value vectorTemp5;
+
+    public AMD64ArrayCompressOp(LIRGeneratorTool tool, Value result, Value src, Value srcIndex, Value dst, Value dstIndex, Value length) {
+        super(TYPE);
+        this.resultValue = result;
+        this.srcValue = src;
+        this.srcIndexValue = srcIndex;
+        this.dstValue = dst;
+        this.dstIndexValue = dstIndex;
+        this.lengthValue = length;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp3 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp4 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp5 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register index = asRegister(resultValue);
+        Register src = asRegister(temp1);
+        Register dst = asRegister(temp2);
+        Register length = asRegister(temp3);
+        Register temp = asRegister(temp4);
+        Register mask = asRegister(temp5);
+        Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+        Register vector3 = asRegister(vectorTemp3, AMD64Kind.DOUBLE);
+        Register highBytes = asRegister(vectorTemp4, AMD64Kind.DOUBLE);
+        Register zero = asRegister(vectorTemp5, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label scalar = new Label();
+        Label scalarLoop = new Label();
+        Label done = new Label();
+
+        // Load the addresses of the first char and byte.
+        masm.movl(temp, asRegister(srcIndexValue));
+        masm.leaq(src, new AMD64Address(asRegister(srcValue), temp, Scale.Times2, CHAR_ARRAY_BASE_OFFSET));
+        masm.movl(temp, asRegister(dstIndexValue));
+        masm.leaq(dst, new AMD64Address(asRegister(dstValue), temp, Scale.Times1, BYTE_ARRAY_BASE_OFFSET));
+        masm.movl(length, asRegister(lengthValue));
+        masm.xorl(index, index);
+
+        // Number of chars handled by the vector loop.
+        masm.movl(temp, length);
+        masm.andl(temp, ~(CHARS_PER_ITERATION - 1));
+        masm.jcc(ConditionFlag.Zero, scalar);
+
+        // A mask selecting the high byte of every char.
+        masm.movl(mask, 0xFF00FF00);
+        masm.movdl(highBytes, mask);
+        masm.pshufd(highBytes, highBytes, 0);
+        masm.pxor(zero, zero);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.movdqu(vector1, new AMD64Address(src, index, Scale.Times2, 0));
+        masm.movdqu(vector2, new AMD64Address(src, index, Scale.Times2, 16));
+        masm.movdqu(vector3, vector1);
+        masm.por(vector3, vector2);
+        masm.pand(vector3, highBytes);
+        masm.pcmpeqb(vector3, zero);
+        masm.pmovmskb(mask, vector3);
+        masm.cmpl(mask, 0xFFFF);
+        masm.jcc(ConditionFlag.NotEqual, scalar);
+        masm.packuswb(vector1, vector2);
+        masm.movdqu(new AMD64Address(dst, index, Scale.Times1, 0), vector1);
+        masm.addq(index, CHARS_PER_ITERATION);
+        masm.cmpq(index, temp);
+        masm.jcc(ConditionFlag.Less, loop);
+
+        // Copy the remaining chars one by one up to the first non Latin-1 char.
+        masm.bind(scalar);
+        masm.cmpq(index, length);
+        masm.jccb(ConditionFlag.GreaterEqual, done);
+        masm.bind(scalarLoop);
+        masm.movzwl(temp, new AMD64Address(src, index, Scale.Times2, 0));
+        masm.testl(temp, 0xFF00);
+        masm.jccb(ConditionFlag.NotZero, done);
+        masm.movb(new AMD64Address(dst, index, Scale.Times1, 0), temp);
+        masm.incq(index);
+        masm.cmpq(index, length);
+        masm.jccb(ConditionFlag.Less, scalarLoop);
+
+        // That's it
+        masm.bind(done);
+    }
+}
@@ -372,7 +372,7 @@ public final class AMD64ArrayEqualsOp extends AMD64LIRInstruction {
         }
     }
 
-    private static final Unsafe UNSAFE = initUnsafe();
+    static final Unsafe UNSAFE = initUnsafe();
 
     private static Unsafe initUnsafe() {
         try {
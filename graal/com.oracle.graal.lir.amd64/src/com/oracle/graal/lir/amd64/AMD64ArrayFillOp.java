@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static jdk.vm.ci.code.ValueUtil.isIllegal;
+
+import java.lang.reflect.Array;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which stores a value into the elements {@code [fromIndex, toIndex)} of a primitive
+ * array, or into {@code length} bytes of memory starting at a raw address. The value is replicated
+ * into a 64-bit pattern which is stored with 16-byte SSE2 stores once the destination is 8-byte
+ * aligned. Large ranges are filled with {@code rep stosq}.
+ */
+@Opcode("ARRAY_FILL")
+public final class AMD64ArrayFillOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayFillOp> TYPE = LIRInstructionClass.create(AMD64ArrayFillOp.class);
+
+    /**
+     * Vector size used in {@link #emitCode}.
+     */
+    private static final int VECTOR_SIZE = 16;
+
+    /**
+     * Number of bytes from which on {@code rep stosq} is faster than a loop of vector stores.
+     */
+    private static final int REP_STOS_THRESHOLD = 2048;
+
+    private final int arrayBaseOffset;
+    private final Scale arrayIndexScale;
+
+    @Alive({REG, ILLEGAL}) protected Value arrayValue;
+    @Alive({REG, ILLEGAL}) protected Value fromIndexValue;
+    @Alive({REG, ILLEGAL}) protected Value toIndexValue;
+    @Alive({REG, ILLEGAL}) protected Value addressValue;
+    @Alive({REG, ILLEGAL}) protected Value lengthValue;
+    @Alive({REG}) protected Value fillValue;
+    @Temp({REG}) protected Value rdiTemp;
+    @Temp({REG}) protected Value rcxTemp;
+    @Temp({REG}) protected Value raxTemp;
+    @Temp({REG}) protected Value temp;
+    @Temp({REG}) protected Value vectorTemp;
+
+    public AMD64ArrayFillOp(LIRGeneratorTool tool, JavaKind kind, Value array, Value fromIndex, Value toIndex, Value value) {
+        this(tool, kind, array, fromIndex, toIndex, Value.ILLEGAL, Value.ILLEGAL, value);
+    }
+
+    /**
+     * Creates an operation which stores the byte {@code value} into {@code length} bytes of memory
+     * starting at {@code address}. A length that is not positive leaves the memory untouched.
+     */
+    public AMD64ArrayFillOp(LIRGeneratorTool tool, Value address, Value length, Value value) {
+        this(tool, JavaKind.Byte, Value.ILLEGAL, Value.ILLEGAL, Value.ILLEGAL, address, length, value);
+    }
+
+    private AMD64ArrayFillOp(LIRGeneratorTool tool, JavaKind kind, Value array, Value fromIndex, Value toIndex, Value address, Value length, Value value) {
+        super(TYPE);
+        assert kind.isPrimitive() && kind != JavaKind.Float && kind != JavaKind.Double : "unsupported kind: " + kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = Scale.fromInt(UNSAFE.arrayIndexScale(arrayClass));
+
+        this.arrayValue = array;
+        this.fromIndexValue = fromIndex;
+        this.toIndexValue = toIndex;
+        this.addressValue = address;
+        this.lengthValue = length;
+        this.fillValue = value;
+
+        // rep stosq uses fixed registers for the destination, the count and the value
+        this.rdiTemp = AMD64.rdi.asValue(LIRKind.unknownReference(AMD64Kind.QWORD));
+        this.rcxTemp = AMD64.rcx.asValue(LIRKind.value(AMD64Kind.QWORD));
+        this.raxTemp = AMD64.rax.asValue(LIRKind.value(AMD64Kind.QWORD));
+        this.temp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register value = asRegister(fillValue);
+        Register dst = asRegister(rdiTemp);
+        Register count = asRegister(rcxTemp);
+        Register pattern = asRegister(raxTemp);
+        Register tmp = asRegister(temp);
+        Register vector = asRegister(vectorTemp, AMD64Kind.DOUBLE);
+        int scale = arrayIndexScale.value;
+
+        Label vectorFill = new Label();
+        Label loop = new Label();
+        Label tailStores = new Label();
+        Label done = new Label();
+
+        if (isIllegal(addressValue)) {
+            // Get the number of bytes to fill.
+            masm.movl(count, asRegister(toIndexValue));
+            masm.subl(count, asRegister(fromIndexValue));
+            masm.jcc(ConditionFlag.LessEqual, done);
+            if (arrayIndexScale.log2 != 0) {
+                masm.shlq(count, arrayIndexScale.log2);
+            }
+
+            // Load the address of the first element.
+            masm.movl(tmp, asRegister(fromIndexValue));
+            masm.leaq(dst, new AMD64Address(asRegister(arrayValue), tmp, arrayIndexScale, arrayBaseOffset));
+        } else {
+            masm.movq(count, asRegister(lengthValue));
+            masm.testq(count, count);
+            masm.jcc(ConditionFlag.LessEqual, done);
+            masm.movq(dst, asRegister(addressValue));
+        }
+
+        // Replicate the value into all bytes of the pattern.
+        if (scale == 8) {
+            masm.movq(pattern, value);
+        } else {
+            masm.movl(pattern, value);
+            if (scale < 4) {
+                masm.andl(pattern, (1 << (scale * Byte.SIZE)) - 1);
+            }
+            for (int bits = scale * Byte.SIZE; bits < Long.SIZE; bits *= 2) {
+                masm.movq(tmp, pattern);
+                masm.shlq(tmp, bits);
+                masm.orq(pattern, tmp);
+            }
+        }
+
+        // Store single elements until the destination is 8-byte aligned.
+        for (int size = scale; size < 8; size *= 2) {
+            Label aligned = new Label();
+            masm.testl(dst, size);
+            masm.jccb(ConditionFlag.Zero, aligned);
+            masm.cmpq(count, size);
+            masm.jcc(ConditionFlag.Less, tailStores);
+            emitStore(masm, size, dst, pattern);
+            masm.addq(dst, size);
+            masm.subq(count, size);
+            masm.bind(aligned);
+        }
+
+        masm.cmpq(count, REP_STOS_THRESHOLD);
+        masm.jccb(ConditionFlag.Less, vectorFill);
+        masm.movq(tmp, count);
+        masm.shrq(count, 3);
+        masm.repStosq();
+        masm.movq(count, tmp);
+        masm.andl(count, 7);
+        masm.jmpb(tailStores);
+
+        // Fill 16-byte vectors
+        masm.bind(vectorFill);
+        masm.movdq(vector, pattern);
+        masm.pshufd(vector, vector, 0x44);
+        masm.cmpq(count, VECTOR_SIZE);
+        masm.jccb(ConditionFlag.Less, tailStores);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.movdqu(new AMD64Address(dst, 0), vector);
+        masm.addq(dst, VECTOR_SIZE);
+        masm.subq(count, VECTOR_SIZE);
+        masm.cmpq(count, VECTOR_SIZE);
+        masm.jccb(ConditionFlag.GreaterEqual, loop);
+
+        // Less than 16 bytes are left, store them based on the bits of the count.
+        masm.bind(tailStores);
+        for (int size = 8; size >= scale; size /= 2) {
+            Label skip = new Label();
+            masm.testl(count, size);
+            masm.jccb(ConditionFlag.Zero, skip);
+            emitStore(masm, size, dst, pattern);
+            masm.addq(dst, size);
+            masm.bind(skip);
+        }
+
+        // That's it
+        masm.bind(done);
+    }
+
+    private static void emitStore(AMD64MacroAssembler masm, int size, Register dst, Register pattern) {
+        AMD64Address address = new AMD64Address(dst, 0);
+        switch (size) {
+            case 1:
+                masm.movb(address, pattern);
+                break;
+            case 2:
+                masm.movw(address, pattern);
+                break;
+            case 4:
+                masm.movl(address, pattern);
+                break;
+            case 8:
+                masm.movq(address, pattern);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which computes {@code h = 31 * h + c} over the elements of a {@code char} array, as
+ * done by {@link String#hashCode()}. Eight chars are added per iteration to two vectors of four
+ * partial sums, which are multiplied by 31<sup>8</sup> first. In the end, the lanes are scaled by
+ * the powers of 31 of their positions and added up, the remaining chars are hashed one by one.
+ * Requires SSE4.1 for {@code pmulld} and {@code pmovzxwd}.
+ */
+@Opcode("ARRAY_HASH_CODE")
+public final class AMD64ArrayHashCodeOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayHashCodeOp> TYPE = LIRInstructionClass.create(AMD64ArrayHashCodeOp.class);
+
+    private static final int VECTOR_SIZE = 16;
+
+    private static final int CHARS_PER_ITERATION = 8;
+
+    /**
+     * 31<sup>8</sup> in every lane, followed by the factors of the lanes of the first and the
+     * second vector of partial sums.
+     */
+    private static final byte[] POWERS_OF_31 = powersOf31();
+
+    private static byte[] powersOf31() {
+        int[] powers = new int[9];
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; i++) {
+            powers[i] = powers[i - 1] * 31;
+        }
+        ByteBuffer table = ByteBuffer.allocate(3 * VECTOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 4; i++) {
+            table.putInt(powers[8]);
+        }
+        for (int i = 7; i >= 0; i--) {
+            table.putInt(powers[i]);
+        }
+        return table.array();
+    }
+
+    private final int arrayBaseOffset;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value indexTemp;
+    @Temp({REG}) protected Value countTemp;
+    @Temp({REG}) protected Value hashTemp;
+    @Temp({REG}) protected Value charTemp;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+    @Temp({REG}) protected Value vectorTemp3;
+    @Temp({REG}) protected Value vectorTemp4;
+
+    public AMD64ArrayHashCodeOp(LIRGeneratorTool tool, Value result, Value array, Value length) {
+        super(TYPE);
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(char[].class);
+        assert UNSAFE.arrayIndexScale(char[].class) == 2;
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.lengthValue = length;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.countTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.hashTemp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.charTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp3 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp4 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register array = asRegister(arrayValue);
+        Register index = asRegister(indexTemp);
+        Register count = asRegister(countTemp);
+        Register hash = asRegister(hashTemp);
+        Register c = asRegister(charTemp);
+        Register sum1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register sum2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+        Register factor = asRegister(vectorTemp3, AMD64Kind.DOUBLE);
+        Register vector = asRegister(vectorTemp4, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label tail = new Label();
+        Label tailLoop = new Label();
+        Label done = new Label();
+
+        masm.xorl(hash, hash);
+        masm.xorl(index, index);
+        masm.movl(count, asRegister(lengthValue));
+        masm.andl(count, ~(CHARS_PER_ITERATION - 1));
+        masm.jcc(ConditionFlag.Zero, tail);
+
+        // Vectorized part.
+        masm.leaq(c, (AMD64Address) crb.recordDataReferenceInCode(POWERS_OF_31, VECTOR_SIZE));
+        masm.movdqu(factor, new AMD64Address(c, 0));
+        masm.pxor(sum1, sum1);
+        masm.pxor(sum2, sum2);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.pmulld(sum1, factor);
+        masm.pmulld(sum2, factor);
+        masm.pmovzxwd(vector, new AMD64Address(array, index, Scale.Times2, arrayBaseOffset));
+        masm.paddd(sum1, vector);
+        masm.pmovzxwd(vector, new AMD64Address(array, index, Scale.Times2, arrayBaseOffset + 8));
+        masm.paddd(sum2, vector);
+        masm.addl(index, CHARS_PER_ITERATION);
+        masm.cmpl(index, count);
+        masm.jccb(ConditionFlag.Less, loop);
+
+        // Scale the lanes by the powers of 31 of their positions and add them up.
+        masm.movdqu(factor, new AMD64Address(c, VECTOR_SIZE));
+        masm.pmulld(sum1, factor);
+        masm.movdqu(factor, new AMD64Address(c, 2 * VECTOR_SIZE));
+        masm.pmulld(sum2, factor);
+        masm.paddd(sum1, sum2);
+        masm.pshufd(vector, sum1, 0x4E);
+        masm.paddd(sum1, vector);
+        masm.pshufd(vector, sum1, 0xB1);
+        masm.paddd(sum1, vector);
+        masm.movdl(hash, sum1);
+
+        // Hash the remaining chars one by one.
+        masm.bind(tail);
+        masm.cmpl(index, asRegister(lengthValue));
+        masm.jccb(ConditionFlag.GreaterEqual, done);
+        masm.bind(tailLoop);
+        masm.imull(hash, hash, 31);
+        masm.movzwl(c, new AMD64Address(array, index, Scale.Times2, arrayBaseOffset));
+        masm.addl(hash, c);
+        masm.incrementl(index, 1);
+        masm.cmpl(index, asRegister(lengthValue));
+        masm.jccb(ConditionFlag.Less, tailLoop);
+
+        masm.bind(done);
+        masm.movl(asRegister(resultValue), hash);
+    }
+}
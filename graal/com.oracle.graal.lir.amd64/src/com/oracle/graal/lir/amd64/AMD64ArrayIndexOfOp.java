@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import java.lang.reflect.Array;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64RMOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which searches a {@code char} array for the first occurrence of a character, as done
+ * by {@link String#indexOf(int, int)}. The character is broadcast into a vector register and
+ * compared against eight characters at a time with SSE2 instructions, the remaining characters are
+ * compared one by one. The result is the index of the character or -1 if it does not occur in the
+ * searched range.
+ */
+@Opcode("ARRAY_INDEX_OF")
+public final class AMD64ArrayIndexOfOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayIndexOfOp> TYPE = LIRInstructionClass.create(AMD64ArrayIndexOfOp.class);
+
+    /**
+     * Vector size used in {@link #emitCode}.
+     */
+    private static final int VECTOR_SIZE = 16;
+
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value fromIndexValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Alive({REG}) protected Value searchValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayIndexOfOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array, Value fromIndex, Value length, Value value) {
+        super(TYPE);
+        assert kind == JavaKind.Char : "only char arrays are supported: " + kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = UNSAFE.arrayIndexScale(arrayClass);
+        assert arrayIndexScale == 2;
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.fromIndexValue = fromIndex;
+        this.lengthValue = length;
+        this.searchValue = value;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register value = asRegister(searchValue);
+        Register base = asRegister(temp1);
+        Register pointer = asRegister(temp2);
+        Register count = asRegister(temp3);
+        Register tail = asRegister(temp4);
+        Register temp = asRegister(temp5);
+        Register vector = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register pattern = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label vectorFound = new Label();
+        Label searchTail = new Label();
+        Label tailLoop = new Label();
+        Label tailFound = new Label();
+        Label found = new Label();
+        Label notFound = new Label();
+        Label done = new Label();
+
+        // Number of chars to search.
+        masm.movl(count, asRegister(lengthValue));
+        masm.subl(count, asRegister(fromIndexValue));
+        masm.jcc(ConditionFlag.LessEqual, notFound);
+
+        // Load array base address and the address of the first char to search.
+        masm.leaq(base, new AMD64Address(asRegister(arrayValue), arrayBaseOffset));
+        masm.movl(temp, asRegister(fromIndexValue));
+        masm.leaq(pointer, new AMD64Address(base, temp, Scale.Times2, 0));
+
+        // Broadcast the char into all lanes of the pattern vector.
+        masm.movl(temp, value);
+        masm.imull(temp, temp, 0x00010001);
+        masm.movdl(pattern, temp);
+        masm.pshufd(pattern, pattern, 0);
+
+        // Search 16-byte vectors
+        int charsPerVector = VECTOR_SIZE / arrayIndexScale;
+        masm.movl(tail, count);
+        masm.andl(tail, charsPerVector - 1); // tail count (in chars)
+        masm.andl(count, ~(charsPerVector - 1)); // vector count (in chars)
+        masm.jcc(ConditionFlag.Zero, searchTail);
+
+        masm.leaq(pointer, new AMD64Address(pointer, count, Scale.Times2, 0));
+        masm.negq(count);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.movdqu(vector, new AMD64Address(pointer, count, Scale.Times2, 0));
+        masm.pcmpeqw(vector, pattern);
+        masm.pmovmskb(temp, vector);
+        masm.testl(temp, temp);
+        masm.jcc(ConditionFlag.NotZero, vectorFound);
+        masm.addq(count, charsPerVector);
+        masm.jcc(ConditionFlag.NotZero, loop);
+        masm.jmpb(searchTail);
+
+        // The lowest set bit in the mask identifies the first matching character.
+        masm.bind(vectorFound);
+        AMD64RMOp.BSF.emit(masm, OperandSize.DWORD, temp, temp);
+        masm.shrl(temp, 1);
+        masm.addq(count, temp);
+        masm.leaq(pointer, new AMD64Address(pointer, count, Scale.Times2, 0));
+        masm.jmpb(found);
+
+        // Search the remaining chars one by one.
+        masm.bind(searchTail);
+        masm.testl(tail, tail);
+        masm.jccb(ConditionFlag.Zero, notFound);
+        masm.leaq(pointer, new AMD64Address(pointer, tail, Scale.Times2, 0));
+        masm.movl(count, tail);
+        masm.negq(count);
+
+        masm.bind(tailLoop);
+        masm.movzwl(temp, new AMD64Address(pointer, count, Scale.Times2, 0));
+        masm.cmpl(temp, value);
+        masm.jccb(ConditionFlag.Equal, tailFound);
+        masm.incq(count);
+        masm.jccb(ConditionFlag.NotZero, tailLoop);
+        masm.jmpb(notFound);
+
+        masm.bind(tailFound);
+        masm.leaq(pointer, new AMD64Address(pointer, count, Scale.Times2, 0));
+
+        // Convert the address of the match into an index.
+        masm.bind(found);
+        masm.subq(pointer, base);
+        masm.shrq(pointer, 1);
+        masm.movl(result, pointer);
+        masm.jmpb(done);
+
+        // Return -1
+        masm.bind(notFound);
+        masm.movl(result, -1);
+
+        // That's it
+        masm.bind(done);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which zero extends the Latin-1 characters of a {@code byte} array into a {@code char}
+ * array. Eight bytes at a time are widened with {@code punpcklbw}, the remaining bytes are copied
+ * one by one.
+ */
+@Opcode("ARRAY_INFLATE")
+public final class AMD64ArrayInflateOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayInflateOp> TYPE = LIRInstructionClass.create(AMD64ArrayInflateOp.class);
+
+    /**
+     * Number of bytes processed by one iteration of the vector loop.
+     */
+    private static final int BYTES_PER_ITERATION = 8;
+
+    private static final int BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+    private static final int CHAR_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(char[].class);
+
+    @Alive({REG}) protected Value srcValue;
+    @Alive({REG}) protected Value srcIndexValue;
+    @Alive({REG}) protected Value dstValue;
+    @Alive({REG}) protected Value dstIndexValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayInflateOp(LIRGeneratorTool tool, Value src, Value srcIndex, Value dst, Value dstIndex, Value length) {
+        super(TYPE);
+        this.srcValue = src;
+        this.srcIndexValue = srcIndex;
+        this.dstValue = dst;
+        this.dstIndexValue = dstIndex;
+        this.lengthValue = length;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register src = asRegister(temp1);
+        Register dst = asRegister(temp2);
+        Register count = asRegister(temp3);
+        Register tail = asRegister(temp4);
+        Register temp = asRegister(temp5);
+        Register vector = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register zero = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label copyTail = new Label();
+        Label tailLoop = new Label();
+        Label done = new Label();
+
+        // Load the addresses of the first byte and char.
+        masm.movl(temp, asRegister(srcIndexValue));
+        masm.leaq(src, new AMD64Address(asRegister(srcValue), temp, Scale.Times1, BYTE_ARRAY_BASE_OFFSET));
+        masm.movl(temp, asRegister(dstIndexValue));
+        masm.leaq(dst, new AMD64Address(asRegister(dstValue), temp, Scale.Times2, CHAR_ARRAY_BASE_OFFSET));
+
+        // Widen 8-byte vectors
+        masm.movl(count, asRegister(lengthValue));
+        masm.movl(tail, count);
+        masm.andl(tail, BYTES_PER_ITERATION - 1); // tail count (in bytes)
+        masm.andl(count, ~(BYTES_PER_ITERATION - 1)); // vector count (in bytes)
+        masm.jccb(ConditionFlag.Zero, copyTail);
+
+        masm.leaq(src, new AMD64Address(src, count, Scale.Times1, 0));
+        masm.leaq(dst, new AMD64Address(dst, count, Scale.Times2, 0));
+        masm.negq(count);
+        masm.pxor(zero, zero);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.movdq(vector, new AMD64Address(src, count, Scale.Times1, 0));
+        masm.punpcklbw(vector, zero);
+        masm.movdqu(new AMD64Address(dst, count, Scale.Times2, 0), vector);
+        masm.addq(count, BYTES_PER_ITERATION);
+        masm.jccb(ConditionFlag.NotZero, loop);
+
+        // Copy the remaining bytes one by one.
+        masm.bind(copyTail);
+        masm.testl(tail, tail);
+        masm.jccb(ConditionFlag.Zero, done);
+        masm.leaq(src, new AMD64Address(src, tail, Scale.Times1, 0));
+        masm.leaq(dst, new AMD64Address(dst, tail, Scale.Times2, 0));
+        masm.movl(count, tail);
+        masm.negq(count);
+
+        masm.bind(tailLoop);
+        masm.movzbl(temp, new AMD64Address(src, count, Scale.Times1, 0));
+        masm.movw(new AMD64Address(dst, count, Scale.Times2, 0), temp);
+        masm.incq(count);
+        masm.jccb(ConditionFlag.NotZero, tailLoop);
+
+        // That's it
+        masm.bind(done);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import java.lang.reflect.Array;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64RMOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which finds the index of the first element that differs between two arrays. Like
+ * {@link AMD64ArrayEqualsOp} the arrays are compared as raw bytes, 16 bytes at a time with SSE2
+ * instructions, so this is only correct for kinds whose equality is bitwise equality. The result is
+ * the index of the first mismatch or -1 if the first {@code length} elements are equal.
+ */
+@Opcode("ARRAY_MISMATCH")
+public final class AMD64ArrayMismatchOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayMismatchOp> TYPE = LIRInstructionClass.create(AMD64ArrayMismatchOp.class);
+
+    /**
+     * Vector size used in {@link #emitCode}.
+     */
+    private static final int VECTOR_SIZE = 16;
+
+    private final int arrayBaseOffset;
+    private final Scale arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value array1Value;
+    @Alive({REG}) protected Value array2Value;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayMismatchOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array1, Value array2, Value length) {
+        super(TYPE);
+        assert kind.isPrimitive() && kind != JavaKind.Float && kind != JavaKind.Double : "unsupported kind: " + kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = Scale.fromInt(UNSAFE.arrayIndexScale(arrayClass));
+
+        this.resultValue = result;
+        this.array1Value = array1;
+        this.array2Value = array2;
+        this.lengthValue = length;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array1 = asRegister(temp1);
+        Register array2 = asRegister(temp2);
+        Register count = asRegister(temp3);
+        Register tail = asRegister(temp4);
+        Register temp = asRegister(temp5);
+        Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label vectorMismatch = new Label();
+        Label compareTail = new Label();
+        Label tailLoop = new Label();
+        Label tailMismatch = new Label();
+        Label found = new Label();
+        Label notFound = new Label();
+        Label done = new Label();
+
+        // Load array base addresses.
+        masm.leaq(array1, new AMD64Address(asRegister(array1Value), arrayBaseOffset));
+        masm.leaq(array2, new AMD64Address(asRegister(array2Value), arrayBaseOffset));
+
+        // Get array length in bytes.
+        masm.movl(count, asRegister(lengthValue));
+        if (arrayIndexScale.log2 != 0) {
+            masm.shlq(count, arrayIndexScale.log2);
+        }
+
+        // Compare 16-byte vectors
+        masm.movl(tail, count);
+        masm.andl(tail, VECTOR_SIZE - 1); // tail count (in bytes)
+        masm.andq(count, ~(VECTOR_SIZE - 1)); // vector count (in bytes)
+        masm.jcc(ConditionFlag.Zero, compareTail);
+
+        masm.leaq(array1, new AMD64Address(array1, count, Scale.Times1, 0));
+        masm.leaq(array2, new AMD64Address(array2, count, Scale.Times1, 0));
+        masm.negq(count);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.movdqu(vector1, new AMD64Address(array1, count, Scale.Times1, 0));
+        masm.movdqu(vector2, new AMD64Address(array2, count, Scale.Times1, 0));
+        masm.pcmpeqb(vector1, vector2);
+        masm.pmovmskb(temp, vector1);
+        masm.cmpl(temp, 0xFFFF);
+        masm.jcc(ConditionFlag.NotEqual, vectorMismatch);
+        masm.addq(count, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.NotZero, loop);
+        masm.jmpb(compareTail);
+
+        // The lowest clear bit in the mask identifies the first differing byte.
+        masm.bind(vectorMismatch);
+        masm.notl(temp);
+        AMD64RMOp.BSF.emit(masm, OperandSize.DWORD, temp, temp);
+        masm.addq(count, temp);
+        masm.leaq(array1, new AMD64Address(array1, count, Scale.Times1, 0));
+        masm.jmpb(found);
+
+        // Compare the remaining bytes one by one.
+        masm.bind(compareTail);
+        masm.testl(tail, tail);
+        masm.jccb(ConditionFlag.Zero, notFound);
+        masm.leaq(array1, new AMD64Address(array1, tail, Scale.Times1, 0));
+        masm.leaq(array2, new AMD64Address(array2, tail, Scale.Times1, 0));
+        masm.movl(count, tail);
+        masm.negq(count);
+
+        masm.bind(tailLoop);
+        masm.movzbl(temp, new AMD64Address(array1, count, Scale.Times1, 0));
+        masm.movzbl(tail, new AMD64Address(array2, count, Scale.Times1, 0));
+        masm.cmpl(temp, tail);
+        masm.jccb(ConditionFlag.NotEqual, tailMismatch);
+        masm.incq(count);
+        masm.jccb(ConditionFlag.NotZero, tailLoop);
+        masm.jmpb(notFound);
+
+        masm.bind(tailMismatch);
+        masm.leaq(array1, new AMD64Address(array1, count, Scale.Times1, 0));
+
+        // Convert the address of the differing byte into an element index.
+        masm.bind(found);
+        masm.subq(array1, asRegister(array1Value));
+        masm.subq(array1, arrayBaseOffset);
+        if (arrayIndexScale.log2 != 0) {
+            masm.shrq(array1, arrayIndexScale.log2);
+        }
+        masm.movl(result, array1);
+        masm.jmpb(done);
+
+        // Return -1
+        masm.bind(notFound);
+        masm.movl(result, -1);
+
+        // That's it
+        masm.bind(done);
+    }
+}
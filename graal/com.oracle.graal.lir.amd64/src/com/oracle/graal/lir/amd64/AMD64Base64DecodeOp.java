@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import java.util.Arrays;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which decodes groups of four characters of the Base64 alphabet of RFC 4648, or of
+ * its URL and filename safe variant, into three bytes. Decoding stops in front of the first group
+ * that contains a character outside of the alphabet, including the padding character, and the
+ * number of bytes written is returned. With SSSE3, 16 characters are decoded per iteration: they
+ * are validated with {@code pshufb} lookups of their low and high nibbles, translated to 6-bit
+ * values with a {@code pshufb} lookup of the offset of their range, and merged with
+ * {@code pmaddubsw} and {@code pmaddwd}. The remaining groups are decoded one by one using a
+ * decoding table.
+ */
+@Opcode("BASE64_DECODE")
+public final class AMD64Base64DecodeOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64Base64DecodeOp> TYPE = LIRInstructionClass.create(AMD64Base64DecodeOp.class);
+
+    private static final int BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+    /**
+     * Number of bytes written by one iteration of the vector loop.
+     */
+    private static final int BYTES_PER_ITERATION = 12;
+    private static final int VECTOR_SIZE = 16;
+
+    /**
+     * Number of 16-byte constants at the start of the table, see {@link #decodeTable}.
+     */
+    private static final int VECTOR_CONSTANTS = 9;
+    private static final int DECODING_OFFSET = VECTOR_CONSTANTS * VECTOR_SIZE;
+
+    /*
+     * A character is valid if the classes of its low and high nibble have no bit in common. Bit 0
+     * marks the high nibbles without any valid character; the other bits mark a set of high
+     * nibbles that share the same valid low nibbles.
+     */
+    private static final byte[] BASE64_TABLE = decodeTable("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/",
+                    new int[]{0x0b, 0x03, 0x03, 0x03, 0x03, 0x03, 0x03, 0x03, 0x03, 0x03, 0x07, 0x15, 0x17, 0x17, 0x17, 0x15},
+                    new int[]{0x01, 0x01, 0x02, 0x04, 0x08, 0x10, 0x08, 0x10, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01},
+                    new int[]{0, 16, 19, 4, -65, -65, -71, -71, 0, 0, 0, 0, 0, 0, 0, 0}, '/', -1);
+    private static final byte[] BASE64_URL_TABLE = decodeTable("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_",
+                    new int[]{0x0b, 0x03, 0x03, 0x03, 0x03, 0x03, 0x03, 0x03, 0x03, 0x03, 0x07, 0x37, 0x37, 0x35, 0x37, 0x27},
+                    new int[]{0x01, 0x01, 0x02, 0x04, 0x08, 0x10, 0x08, 0x20, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01},
+                    new int[]{0, 0, 17, 4, -65, -65, -71, -71, 0, 0, 0, 0, 0, 0, 0, -32}, '_', 10);
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value srcValue;
+    @Alive({REG}) protected Value spValue;
+    @Alive({REG}) protected Value slValue;
+    @Alive({REG}) protected Value dstValue;
+    @Alive({REG}) protected Value dpValue;
+    @Alive({REG}) protected Value isURLValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+    @Temp({REG}) protected Value temp6;
+    @Temp({REG}) protected Value[] vectorTemps;
+
+    public AMD64Base64DecodeOp(LIRGeneratorTool tool, Value result, Value src, Value sp, Value sl, Value dst, Value dp, Value isURL) {
+        super(TYPE);
+        this.resultValue = result;
+        this.srcValue = src;
+        this.spValue = sp;
+        this.slValue = sl;
+        this.dstValue = dst;
+        this.dpValue = dp;
+        this.isURLValue = isURL;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp6 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+
+        // We only need the vector temporaries if we generate SSSE3 code: the constants of the
+        // table plus four working registers.
+        this.vectorTemps = new Value[supportsSSSE3(tool.target()) ? VECTOR_CONSTANTS + 4 : 0];
+        for (int i = 0; i < vectorTemps.length; i++) {
+            vectorTemps[i] = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        }
+    }
+
+    private static boolean supportsSSSE3(TargetDescription target) {
+        AMD64 arch = (AMD64) target.arch;
+        return arch.getFeatures().contains(CPUFeature.SSSE3);
+    }
+
+    /**
+     * Builds the table used for one alphabet. It starts with the vector constants:
+     *
+     * <pre>
+     *   0: classes of the low nibbles, 16: classes of the high nibbles
+     *  32: offset from a character to its 6-bit value, indexed by the high nibble
+     *  48: the special character in every byte, 64: the index adjustment of the special character
+     *  80: 0x0f in every byte
+     *  96: multipliers merging two 6-bit values into 12 bits
+     * 112: multipliers merging two 12-bit values into 24 bits
+     * 128: shuffle mask packing the high three bytes of each lane
+     * </pre>
+     *
+     * The special character is the only character whose offset differs from the other characters
+     * with the same high nibble; its offset is found at its high nibble plus the adjustment. The
+     * vector constants are followed by the 6-bit values of all bytes, -1 for bytes outside of the
+     * alphabet, for the scalar loop.
+     */
+    private static byte[] decodeTable(String alphabet, int[] lowNibbles, int[] highNibbles, int[] offsets, char special, int adjustment) {
+        assert alphabet.length() == 64;
+        byte[] table = new byte[DECODING_OFFSET + 256];
+        int[][] vectors = {lowNibbles, highNibbles, offsets};
+        for (int i = 0; i < vectors.length; i++) {
+            for (int j = 0; j < VECTOR_SIZE; j++) {
+                table[i * VECTOR_SIZE + j] = (byte) vectors[i][j];
+            }
+        }
+        int[] bytes = {special, adjustment, 0x0f};
+        for (int i = 0; i < bytes.length; i++) {
+            Arrays.fill(table, (i + 3) * VECTOR_SIZE, (i + 4) * VECTOR_SIZE, (byte) bytes[i]);
+        }
+        int[] lanes = {0x01400140, 0x00011000};
+        for (int i = 0; i < lanes.length; i++) {
+            for (int j = 0; j < VECTOR_SIZE; j++) {
+                table[(i + 6) * VECTOR_SIZE + j] = (byte) (lanes[i] >>> ((j & 3) * 8));
+            }
+        }
+        byte[] pack = {2, 1, 0, 6, 5, 4, 10, 9, 8, 14, 13, 12, -1, -1, -1, -1};
+        System.arraycopy(pack, 0, table, 8 * VECTOR_SIZE, VECTOR_SIZE);
+        Arrays.fill(table, DECODING_OFFSET, DECODING_OFFSET + 256, (byte) -1);
+        for (int i = 0; i < 64; i++) {
+            table[DECODING_OFFSET + alphabet.charAt(i)] = (byte) i;
+        }
+        return table;
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register src = asRegister(temp1);
+        Register dst = asRegister(temp2);
+        Register length = asRegister(temp3);
+        Register table = asRegister(temp4);
+        Register bits = asRegister(temp5);
+        Register temp = asRegister(temp6);
+
+        Label urlTable = new Label();
+        Label tableSelected = new Label();
+        Label scalarLoop = new Label();
+        Label done = new Label();
+
+        // Load the addresses of the first source character and destination byte.
+        masm.movl(temp, asRegister(spValue));
+        masm.leaq(src, new AMD64Address(asRegister(srcValue), temp, Scale.Times1, BYTE_ARRAY_BASE_OFFSET));
+        masm.movl(temp, asRegister(dpValue));
+        masm.leaq(dst, new AMD64Address(asRegister(dstValue), temp, Scale.Times1, BYTE_ARRAY_BASE_OFFSET));
+        masm.movl(length, asRegister(slValue));
+        masm.subl(length, asRegister(spValue));
+
+        // Select the table of the alphabet.
+        masm.testl(asRegister(isURLValue), asRegister(isURLValue));
+        masm.jccb(ConditionFlag.NotZero, urlTable);
+        masm.leaq(table, (AMD64Address) crb.recordDataReferenceInCode(BASE64_TABLE, VECTOR_SIZE));
+        masm.jmpb(tableSelected);
+        masm.bind(urlTable);
+        masm.leaq(table, (AMD64Address) crb.recordDataReferenceInCode(BASE64_URL_TABLE, VECTOR_SIZE));
+        masm.bind(tableSelected);
+
+        if (vectorTemps.length > 0) {
+            emitSSSE3Decode(crb, masm, src, dst, length, table, temp);
+        }
+
+        // Decode the remaining groups of four characters one by one.
+        masm.cmpl(length, 4);
+        masm.jcc(ConditionFlag.Less, done);
+
+        masm.bind(scalarLoop);
+        for (int i = 0; i < 4; i++) {
+            masm.movzbl(temp, new AMD64Address(src, i));
+            masm.movsbl(temp, new AMD64Address(table, temp, Scale.Times1, DECODING_OFFSET));
+            masm.testl(temp, temp);
+            masm.jcc(ConditionFlag.Negative, done);
+            if (i == 0) {
+                masm.movl(bits, temp);
+                masm.shll(bits, 18);
+            } else {
+                if (i < 3) {
+                    masm.shll(temp, 18 - 6 * i);
+                }
+                masm.orl(bits, temp);
+            }
+        }
+        masm.movl(temp, bits);
+        masm.shrl(temp, 16);
+        masm.movb(new AMD64Address(dst, 0), temp);
+        masm.movl(temp, bits);
+        masm.shrl(temp, 8);
+        masm.movb(new AMD64Address(dst, 1), temp);
+        masm.movb(new AMD64Address(dst, 2), bits);
+        masm.addq(src, 4);
+        masm.addq(dst, 3);
+        masm.subl(length, 4);
+        masm.cmpl(length, 4);
+        masm.jcc(ConditionFlag.GreaterEqual, scalarLoop);
+
+        // Return the number of bytes written.
+        masm.bind(done);
+        masm.movl(temp, asRegister(dpValue));
+        masm.leaq(temp, new AMD64Address(asRegister(dstValue), temp, Scale.Times1, BYTE_ARRAY_BASE_OFFSET));
+        masm.subq(dst, temp);
+        masm.movl(result, dst);
+    }
+
+    private void emitSSSE3Decode(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register src, Register dst, Register length, Register table, Register temp) {
+        Register lowNibbles = asRegister(vectorTemps[0], AMD64Kind.DOUBLE);
+        Register highNibbles = asRegister(vectorTemps[1], AMD64Kind.DOUBLE);
+        Register offsets = asRegister(vectorTemps[2], AMD64Kind.DOUBLE);
+        Register special = asRegister(vectorTemps[3], AMD64Kind.DOUBLE);
+        Register adjustment = asRegister(vectorTemps[4], AMD64Kind.DOUBLE);
+        Register nibbleMask = asRegister(vectorTemps[5], AMD64Kind.DOUBLE);
+        Register merge1 = asRegister(vectorTemps[6], AMD64Kind.DOUBLE);
+        Register merge2 = asRegister(vectorTemps[7], AMD64Kind.DOUBLE);
+        Register pack = asRegister(vectorTemps[8], AMD64Kind.DOUBLE);
+        Register vector = asRegister(vectorTemps[9], AMD64Kind.DOUBLE);
+        Register high = asRegister(vectorTemps[10], AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemps[11], AMD64Kind.DOUBLE);
+        Register vector3 = asRegister(vectorTemps[12], AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label done = new Label();
+
+        masm.cmpl(length, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.Less, done);
+
+        Register[] constants = {lowNibbles, highNibbles, offsets, special, adjustment, nibbleMask, merge1, merge2, pack};
+        for (int i = 0; i < constants.length; i++) {
+            masm.movdqu(constants[i], new AMD64Address(table, i * VECTOR_SIZE));
+        }
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.movdqu(vector, new AMD64Address(src, 0));
+        masm.movdqu(high, vector);
+        masm.psrld(high, 4);
+        masm.pand(high, nibbleMask);
+        masm.movdqu(vector2, vector);
+        masm.pand(vector2, nibbleMask);
+
+        // Leave the loop if any character is outside of the alphabet.
+        masm.movdqu(vector3, lowNibbles);
+        masm.pshufb(vector3, vector2);
+        masm.movdqu(vector2, highNibbles);
+        masm.pshufb(vector2, high);
+        masm.pand(vector3, vector2);
+        masm.pxor(vector2, vector2);
+        masm.pcmpeqb(vector3, vector2);
+        masm.pmovmskb(temp, vector3);
+        masm.cmpl(temp, 0xFFFF);
+        masm.jcc(ConditionFlag.NotEqual, done);
+
+        // Translate the characters into 6-bit values ...
+        masm.movdqu(vector2, vector);
+        masm.pcmpeqb(vector2, special);
+        masm.pand(vector2, adjustment);
+        masm.paddb(vector2, high);
+        masm.movdqu(vector3, offsets);
+        masm.pshufb(vector3, vector2);
+        masm.paddb(vector, vector3);
+        // ... merge them into 24 bits per lane ...
+        masm.pmaddubsw(vector, merge1);
+        masm.pmaddwd(vector, merge2);
+        // ... and store the 12 bytes in big endian order.
+        masm.pshufb(vector, pack);
+        masm.movdq(new AMD64Address(dst, 0), vector);
+        masm.pshufd(vector, vector, 0x02);
+        masm.movdl(temp, vector);
+        masm.movl(new AMD64Address(dst, 8), temp);
+
+        masm.addq(src, VECTOR_SIZE);
+        masm.addq(dst, BYTES_PER_ITERATION);
+        masm.subl(length, VECTOR_SIZE);
+        masm.cmpl(length, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.GreaterEqual, loop);
+
+        masm.bind(done);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which encodes groups of three bytes into four characters of the Base64 alphabet of
+ * RFC 4648, or of its URL and filename safe variant. With SSSE3, 12 bytes are encoded per
+ * iteration: the bytes are spread into 32-bit lanes with {@code pshufb}, the 6-bit values are
+ * isolated with multiplies and translated into characters with a {@code pshufb} lookup of the
+ * offset of their alphabet range. The remaining groups are encoded one by one using the alphabet
+ * table.
+ */
+@Opcode("BASE64_ENCODE")
+public final class AMD64Base64EncodeOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64Base64EncodeOp> TYPE = LIRInstructionClass.create(AMD64Base64EncodeOp.class);
+
+    private static final int BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+    /**
+     * Number of bytes consumed by one iteration of the vector loop. The loop loads 16 bytes, so it
+     * is only entered if at least that many bytes are left.
+     */
+    private static final int BYTES_PER_ITERATION = 12;
+    private static final int VECTOR_SIZE = 16;
+
+    /**
+     * Number of 16-byte constants at the start of the table, see {@link #encodeTable}.
+     */
+    private static final int VECTOR_CONSTANTS = 9;
+    private static final int ALPHABET_OFFSET = VECTOR_CONSTANTS * VECTOR_SIZE;
+
+    private static final byte[] BASE64_TABLE = encodeTable("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/");
+    private static final byte[] BASE64_URL_TABLE = encodeTable("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_");
+
+    @Alive({REG}) protected Value srcValue;
+    @Alive({REG}) protected Value spValue;
+    @Alive({REG}) protected Value slValue;
+    @Alive({REG}) protected Value dstValue;
+    @Alive({REG}) protected Value dpValue;
+    @Alive({REG}) protected Value isURLValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+    @Temp({REG}) protected Value temp6;
+    @Temp({REG}) protected Value[] vectorTemps;
+
+    public AMD64Base64EncodeOp(LIRGeneratorTool tool, Value src, Value sp, Value sl, Value dst, Value dp, Value isURL) {
+        super(TYPE);
+        this.srcValue = src;
+        this.spValue = sp;
+        this.slValue = sl;
+        this.dstValue = dst;
+        this.dpValue = dp;
+        this.isURLValue = isURL;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.temp3 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp6 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+
+        // We only need the vector temporaries if we generate SSSE3 code: the constants of the
+        // table plus four working registers.
+        this.vectorTemps = new Value[supportsSSSE3(tool.target()) ? VECTOR_CONSTANTS + 4 : 0];
+        for (int i = 0; i < vectorTemps.length; i++) {
+            vectorTemps[i] = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        }
+    }
+
+    private static boolean supportsSSSE3(TargetDescription target) {
+        AMD64 arch = (AMD64) target.arch;
+        return arch.getFeatures().contains(CPUFeature.SSSE3);
+    }
+
+    /**
+     * Builds the table used for one alphabet. It starts with the vector constants:
+     *
+     * <pre>
+     *   0: shuffle mask spreading bytes s0 s1 s2 into a lane [s1 s0 s2 s1]
+     *  16: mask of the 1st and 3rd 6-bit value, 32: multiplier moving them to bytes 0 and 2
+     *  48: mask of the 2nd and 4th 6-bit value, 64: multiplier moving them to bytes 1 and 3
+     *  80: 51 in every byte, 96: 26 in every byte, 112: 13 in every byte
+     * 128: offset from a 6-bit value to its character, indexed by the range of the value
+     * </pre>
+     *
+     * followed by the 64 characters of the alphabet for the scalar loop.
+     */
+    private static byte[] encodeTable(String alphabet) {
+        assert alphabet.length() == 64;
+        byte[] table = new byte[ALPHABET_OFFSET + 64];
+        byte[] shuffle = {1, 0, 2, 1, 4, 3, 5, 4, 7, 6, 8, 7, 10, 9, 11, 10};
+        System.arraycopy(shuffle, 0, table, 0, VECTOR_SIZE);
+        int[] lanes = {0x0fc0fc00, 0x04000040, 0x003f03f0, 0x01000010};
+        for (int i = 0; i < lanes.length; i++) {
+            for (int j = 0; j < VECTOR_SIZE; j++) {
+                table[(i + 1) * VECTOR_SIZE + j] = (byte) (lanes[i] >>> ((j & 3) * 8));
+            }
+        }
+        int[] bytes = {51, 26, 13};
+        for (int i = 0; i < bytes.length; i++) {
+            for (int j = 0; j < VECTOR_SIZE; j++) {
+                table[(i + 5) * VECTOR_SIZE + j] = (byte) bytes[i];
+            }
+        }
+        /*
+         * Values 0..25 are mapped to index 13, 26..51 to index 0, 52..61 to indices 1..10, 62 to
+         * index 11 and 63 to index 12.
+         */
+        int offsets = 8 * VECTOR_SIZE;
+        table[offsets] = (byte) ('a' - 26);
+        for (int i = 1; i <= 10; i++) {
+            table[offsets + i] = (byte) ('0' - 52);
+        }
+        table[offsets + 11] = (byte) (alphabet.charAt(62) - 62);
+        table[offsets + 12] = (byte) (alphabet.charAt(63) - 63);
+        table[offsets + 13] = (byte) 'A';
+        for (int i = 0; i < 64; i++) {
+            table[ALPHABET_OFFSET + i] = (byte) alphabet.charAt(i);
+        }
+        return table;
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register src = asRegister(temp1);
+        Register dst = asRegister(temp2);
+        Register length = asRegister(temp3);
+        Register table = asRegister(temp4);
+        Register bits = asRegister(temp5);
+        Register temp = asRegister(temp6);
+
+        Label urlTable = new Label();
+        Label tableSelected = new Label();
+        Label scalarLoop = new Label();
+        Label done = new Label();
+
+        // Load the addresses of the first source byte and destination character.
+        masm.movl(temp, asRegister(spValue));
+        masm.leaq(src, new AMD64Address(asRegister(srcValue), temp, Scale.Times1, BYTE_ARRAY_BASE_OFFSET));
+        masm.movl(temp, asRegister(dpValue));
+        masm.leaq(dst, new AMD64Address(asRegister(dstValue), temp, Scale.Times1, BYTE_ARRAY_BASE_OFFSET));
+        masm.movl(length, asRegister(slValue));
+        masm.subl(length, asRegister(spValue));
+
+        // Select the table of the alphabet.
+        masm.testl(asRegister(isURLValue), asRegister(isURLValue));
+        masm.jccb(ConditionFlag.NotZero, urlTable);
+        masm.leaq(table, (AMD64Address) crb.recordDataReferenceInCode(BASE64_TABLE, VECTOR_SIZE));
+        masm.jmpb(tableSelected);
+        masm.bind(urlTable);
+        masm.leaq(table, (AMD64Address) crb.recordDataReferenceInCode(BASE64_URL_TABLE, VECTOR_SIZE));
+        masm.bind(tableSelected);
+
+        if (vectorTemps.length > 0) {
+            emitSSSE3Encode(crb, masm, src, dst, length, table);
+        }
+
+        // Encode the remaining groups of three bytes one by one.
+        masm.cmpl(length, 3);
+        masm.jcc(ConditionFlag.Less, done);
+
+        masm.bind(scalarLoop);
+        masm.movzbl(bits, new AMD64Address(src, 0));
+        masm.shll(bits, 16);
+        masm.movzbl(temp, new AMD64Address(src, 1));
+        masm.shll(temp, 8);
+        masm.orl(bits, temp);
+        masm.movzbl(temp, new AMD64Address(src, 2));
+        masm.orl(bits, temp);
+        for (int i = 0; i < 4; i++) {
+            masm.movl(temp, bits);
+            if (i < 3) {
+                masm.shrl(temp, 18 - 6 * i);
+            }
+            masm.andl(temp, 0x3f);
+            masm.movzbl(temp, new AMD64Address(table, temp, Scale.Times1, ALPHABET_OFFSET));
+            masm.movb(new AMD64Address(dst, i), temp);
+        }
+        masm.addq(src, 3);
+        masm.addq(dst, 4);
+        masm.subl(length, 3);
+        masm.cmpl(length, 3);
+        masm.jcc(ConditionFlag.GreaterEqual, scalarLoop);
+
+        // That's it
+        masm.bind(done);
+    }
+
+    private void emitSSSE3Encode(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register src, Register dst, Register length, Register table) {
+        Register shuffle = asRegister(vectorTemps[0], AMD64Kind.DOUBLE);
+        Register mask1 = asRegister(vectorTemps[1], AMD64Kind.DOUBLE);
+        Register mul1 = asRegister(vectorTemps[2], AMD64Kind.DOUBLE);
+        Register mask2 = asRegister(vectorTemps[3], AMD64Kind.DOUBLE);
+        Register mul2 = asRegister(vectorTemps[4], AMD64Kind.DOUBLE);
+        Register const51 = asRegister(vectorTemps[5], AMD64Kind.DOUBLE);
+        Register const26 = asRegister(vectorTemps[6], AMD64Kind.DOUBLE);
+        Register const13 = asRegister(vectorTemps[7], AMD64Kind.DOUBLE);
+        Register offsets = asRegister(vectorTemps[8], AMD64Kind.DOUBLE);
+        Register vector = asRegister(vectorTemps[9], AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemps[10], AMD64Kind.DOUBLE);
+        Register range = asRegister(vectorTemps[11], AMD64Kind.DOUBLE);
+        Register less = asRegister(vectorTemps[12], AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label done = new Label();
+
+        masm.cmpl(length, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.Less, done);
+
+        Register[] constants = {shuffle, mask1, mul1, mask2, mul2, const51, const26, const13, offsets};
+        for (int i = 0; i < constants.length; i++) {
+            masm.movdqu(constants[i], new AMD64Address(table, i * VECTOR_SIZE));
+        }
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.movdqu(vector, new AMD64Address(src, 0));
+        masm.pshufb(vector, shuffle);
+        // Move the 1st and 3rd 6-bit value of each lane into bytes 0 and 2 ...
+        masm.movdqu(vector2, vector);
+        masm.pand(vector2, mask1);
+        masm.pmulhuw(vector2, mul1);
+        // ... and the 2nd and 4th into bytes 1 and 3.
+        masm.pand(vector, mask2);
+        masm.pmullw(vector, mul2);
+        masm.por(vector, vector2);
+
+        // Compute the index of the offset table: 1..12 for values above 51, 13 below 26.
+        masm.movdqu(range, vector);
+        masm.psubusb(range, const51);
+        masm.movdqu(less, const26);
+        masm.pcmpgtb(less, vector);
+        masm.pand(less, const13);
+        masm.por(range, less);
+        masm.movdqu(vector2, offsets);
+        masm.pshufb(vector2, range);
+        masm.paddb(vector, vector2);
+        masm.movdqu(new AMD64Address(dst, 0), vector);
+
+        masm.addq(src, BYTES_PER_ITERATION);
+        masm.addq(dst, VECTOR_SIZE);
+        masm.subl(length, BYTES_PER_ITERATION);
+        masm.cmpl(length, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.GreaterEqual, loop);
+
+        masm.bind(done);
+    }
+}
@@ -218,15 +218,28 @@ public class AMD64ControlFlow {
         private final int lowKey;
         private final LabelRef defaultTarget;
         private final LabelRef[] targets;
+        private final int[] hotKeys;
+        private final LabelRef[] hotTargets;
         @Use protected Value index;
         @Temp({REG, HINT}) protected Value idxScratch;
         @Temp protected Value scratch;
 
         public TableSwitchOp(final int lowKey, final LabelRef defaultTarget, final LabelRef[] targets, Value index, Variable scratch, Variable idxScratch) {
+            this(lowKey, defaultTarget, targets, index, scratch, idxScratch, new int[0], new LabelRef[0]);
+        }
+
+        /**
+         * Creates a table switch that tests the index for equality with each of the hot keys before
+         * it goes through the jump table.
+         */
+        public TableSwitchOp(final int lowKey, final LabelRef defaultTarget, final LabelRef[] targets, Value index, Variable scratch, Variable idxScratch, int[] hotKeys, LabelRef[] hotTargets) {
             super(TYPE);
+            assert hotKeys.length == hotTargets.length;
             this.lowKey = lowKey;
             this.defaultTarget = defaultTarget;
             this.targets = targets;
+            this.hotKeys = hotKeys;
+            this.hotTargets = hotTargets;
             this.index = index;
             this.scratch = scratch;
             this.idxScratch = idxScratch;
@@ -238,6 +251,12 @@ public class AMD64ControlFlow {
             Register idxScratchReg = asRegister(idxScratch, AMD64Kind.DWORD);
             Register scratchReg = asRegister(scratch, AMD64Kind.QWORD);
 
+            // Dispatch the hot keys without going through the indirect jump
+            for (int i = 0; i < hotKeys.length; i++) {
+                masm.cmpl(indexReg, hotKeys[i]);
+                masm.jcc(ConditionFlag.Equal, hotTargets[i].label());
+            }
+
             if (!indexReg.equals(idxScratchReg)) {
                 masm.movl(idxScratchReg, indexReg);
             }
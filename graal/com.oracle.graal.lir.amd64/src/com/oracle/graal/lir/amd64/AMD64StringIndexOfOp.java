@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp.UNSAFE;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which searches the elements {@code [fromIndex, length)} of a {@code char} array for
+ * the first occurrence of the first {@code targetCount} chars of another array, as done by
+ * {@link String#indexOf(String, int)}. The SSE4.2 {@code pcmpestri} instruction finds the
+ * candidate positions of the first (up to) eight chars of the target in eight source chars at a
+ * time, each candidate is then verified char by char. The last source chars that do not fill a
+ * vector are searched one position at a time. The result is the index of the match or -1.
+ *
+ * The target must not be empty and {@code fromIndex} must not be negative.
+ */
+@Opcode("STRING_INDEX_OF")
+public final class AMD64StringIndexOfOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64StringIndexOfOp> TYPE = LIRInstructionClass.create(AMD64StringIndexOfOp.class);
+
+    /**
+     * Number of chars compared by one {@code pcmpestri}.
+     */
+    private static final int CHARS_PER_VECTOR = 8;
+
+    /**
+     * Unsigned words, equal ordered (substring) comparison, index of the least significant match.
+     */
+    private static final int EQUAL_ORDERED_WORDS = 0x0d;
+
+    private final int arrayBaseOffset;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value sourceValue;
+    @Alive({REG}) protected Value fromIndexValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Alive({REG}) protected Value targetValue;
+    @Alive({REG}) protected Value targetCountValue;
+    @Temp({REG}) protected Value raxTemp;
+    @Temp({REG}) protected Value rcxTemp;
+    @Temp({REG}) protected Value rdxTemp;
+    @Temp({REG}) protected Value positionTemp;
+    @Temp({REG}) protected Value lastTemp;
+    @Temp({REG}) protected Value indexTemp;
+    @Temp({REG}) protected Value charTemp;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64StringIndexOfOp(LIRGeneratorTool tool, Value result, Value source, Value fromIndex, Value length, Value target, Value targetCount) {
+        super(TYPE);
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(char[].class);
+        assert UNSAFE.arrayIndexScale(char[].class) == 2;
+
+        this.resultValue = result;
+        this.sourceValue = source;
+        this.fromIndexValue = fromIndex;
+        this.lengthValue = length;
+        this.targetValue = target;
+        this.targetCountValue = targetCount;
+
+        // pcmpestri takes the lengths of its operands in rax and rdx and returns the index in rcx
+        this.raxTemp = AMD64.rax.asValue(LIRKind.value(AMD64Kind.QWORD));
+        this.rcxTemp = AMD64.rcx.asValue(LIRKind.value(AMD64Kind.QWORD));
+        this.rdxTemp = AMD64.rdx.asValue(LIRKind.value(AMD64Kind.QWORD));
+        this.positionTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.lastTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.charTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register source = asRegister(sourceValue);
+        Register length = asRegister(lengthValue);
+        Register target = asRegister(targetValue);
+        Register targetCount = asRegister(targetCountValue);
+        Register needleLength = asRegister(raxTemp);
+        Register matchIndex = asRegister(rcxTemp);
+        Register sourceLength = asRegister(rdxTemp);
+        Register position = asRegister(positionTemp);
+        Register last = asRegister(lastTemp);
+        Register index = asRegister(indexTemp);
+        Register c = asRegister(charTemp);
+        Register needle = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        Label shortNeedle = new Label();
+        Label needleLoaded = new Label();
+        Label vectorLoop = new Label();
+        Label candidate = new Label();
+        Label verifyLoop = new Label();
+        Label mismatch = new Label();
+        Label scalarLoop = new Label();
+        Label scalarVerifyLoop = new Label();
+        Label scalarMismatch = new Label();
+        Label found = new Label();
+        Label notFound = new Label();
+        Label done = new Label();
+
+        // The last index at which the target can start.
+        masm.movl(last, length);
+        masm.subl(last, targetCount);
+        masm.movl(position, asRegister(fromIndexValue));
+        masm.cmpl(position, last);
+        masm.jcc(ConditionFlag.Greater, notFound);
+
+        // Load the first (up to) eight chars of the target without reading past its end.
+        masm.movl(needleLength, targetCount);
+        masm.cmpl(needleLength, CHARS_PER_VECTOR);
+        masm.jccb(ConditionFlag.Less, shortNeedle);
+        masm.movl(needleLength, CHARS_PER_VECTOR);
+        masm.movdqu(needle, new AMD64Address(target, arrayBaseOffset));
+        masm.jmp(needleLoaded);
+        masm.bind(shortNeedle);
+        masm.pxor(needle, needle);
+        for (int i = 0; i < CHARS_PER_VECTOR - 1; i++) {
+            masm.cmpl(needleLength, i);
+            masm.jcc(ConditionFlag.LessEqual, needleLoaded);
+            masm.movzwl(c, new AMD64Address(target, arrayBaseOffset + i * 2));
+            masm.pinsrw(needle, c, i);
+        }
+        masm.bind(needleLoaded);
+
+        // Find candidates while eight source chars can be loaded.
+        masm.bind(vectorLoop);
+        masm.movl(c, length);
+        masm.subl(c, position);
+        masm.cmpl(c, CHARS_PER_VECTOR);
+        masm.jcc(ConditionFlag.Less, scalarLoop);
+        masm.movdqu(vector, new AMD64Address(source, position, Scale.Times2, arrayBaseOffset));
+        masm.movl(sourceLength, CHARS_PER_VECTOR);
+        masm.pcmpestri(needle, vector, EQUAL_ORDERED_WORDS);
+        // The carry flag is set if a (partial) match starts in the vector.
+        masm.jccb(ConditionFlag.Below, candidate);
+        masm.addl(position, CHARS_PER_VECTOR);
+        masm.jmpb(vectorLoop);
+
+        masm.bind(candidate);
+        masm.addl(position, matchIndex);
+        masm.cmpl(position, last);
+        masm.jcc(ConditionFlag.Greater, notFound);
+        masm.leaq(matchIndex, new AMD64Address(source, position, Scale.Times2, arrayBaseOffset));
+        masm.xorl(index, index);
+        masm.bind(verifyLoop);
+        masm.movzwl(c, new AMD64Address(matchIndex, index, Scale.Times2, 0));
+        masm.movzwl(sourceLength, new AMD64Address(target, index, Scale.Times2, arrayBaseOffset));
+        masm.cmpl(c, sourceLength);
+        masm.jccb(ConditionFlag.NotEqual, mismatch);
+        masm.incrementl(index, 1);
+        masm.cmpl(index, targetCount);
+        masm.jccb(ConditionFlag.Less, verifyLoop);
+        masm.jmp(found);
+        masm.bind(mismatch);
+        masm.incrementl(position, 1);
+        masm.jmp(vectorLoop);
+
+        // Try the remaining positions one by one.
+        masm.bind(scalarLoop);
+        masm.cmpl(position, last);
+        masm.jccb(ConditionFlag.Greater, notFound);
+        masm.leaq(matchIndex, new AMD64Address(source, position, Scale.Times2, arrayBaseOffset));
+        masm.xorl(index, index);
+        masm.bind(scalarVerifyLoop);
+        masm.movzwl(c, new AMD64Address(matchIndex, index, Scale.Times2, 0));
+        masm.movzwl(sourceLength, new AMD64Address(target, index, Scale.Times2, arrayBaseOffset));
+        masm.cmpl(c, sourceLength);
+        masm.jccb(ConditionFlag.NotEqual, scalarMismatch);
+        masm.incrementl(index, 1);
+        masm.cmpl(index, targetCount);
+        masm.jccb(ConditionFlag.Less, scalarVerifyLoop);
+        masm.jmpb(found);
+        masm.bind(scalarMismatch);
+        masm.incrementl(position, 1);
+        masm.jmpb(scalarLoop);
+
+        masm.bind(found);
+        masm.movl(result, position);
+        masm.jmpb(done);
+
+        masm.bind(notFound);
+        masm.movl(result, -1);
+
+        masm.bind(done);
+    }
+}
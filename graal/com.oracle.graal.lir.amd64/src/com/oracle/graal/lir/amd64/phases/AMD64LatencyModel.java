@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64.phases;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.oracle.graal.lir.LIRInstruction;
+import com.oracle.graal.lir.amd64.AMD64Binary;
+import com.oracle.graal.lir.amd64.AMD64ByteSwapOp;
+import com.oracle.graal.lir.amd64.AMD64ClearRegisterOp;
+import com.oracle.graal.lir.amd64.AMD64Move;
+import com.oracle.graal.lir.amd64.AMD64MulDivOp;
+import com.oracle.graal.lir.amd64.AMD64ShiftOp;
+import com.oracle.graal.lir.amd64.AMD64SignExtendOp;
+import com.oracle.graal.lir.amd64.AMD64Unary;
+import com.oracle.graal.lir.sched.LIRLatencyModel;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.meta.PlatformKind;
+
+/**
+ * Approximate instruction latencies of recent Intel cores (Haswell, Skylake).
+ *
+ * Only instructions whose effects are completely described by their operands are reordered. All
+ * instructions that read or write the condition flags as part of a compare-and-branch or
+ * conditional move sequence, write memory or carry a frame state are barriers.
+ */
+public class AMD64LatencyModel implements LIRLatencyModel {
+
+    private static final int LOAD_LATENCY = 5;
+
+    private static final Set<Class<? extends LIRInstruction>> PURE_OPS = new HashSet<>(Arrays.asList(
+                    AMD64Binary.Op.class,
+                    AMD64Binary.CommutativeOp.class,
+                    AMD64Binary.ConstOp.class,
+                    AMD64Binary.DataOp.class,
+                    AMD64Binary.RMIOp.class,
+                    AMD64Unary.MOp.class,
+                    AMD64Unary.RMOp.class,
+                    AMD64Unary.MROp.class,
+                    AMD64ShiftOp.class,
+                    AMD64SignExtendOp.class,
+                    AMD64MulDivOp.class,
+                    AMD64ByteSwapOp.class,
+                    AMD64ClearRegisterOp.class,
+                    AMD64Move.MoveToRegOp.class,
+                    AMD64Move.MoveFromRegOp.class,
+                    AMD64Move.MoveFromConstOp.class,
+                    AMD64Move.LeaOp.class,
+                    AMD64Move.LeaDataOp.class));
+
+    @Override
+    public SchedulingClass getSchedulingClass(LIRInstruction op) {
+        if (op.hasState() || op.destroysCallerSavedRegisters()) {
+            return SchedulingClass.BARRIER;
+        }
+        if (op.getClass() == AMD64Unary.MemoryOp.class || op.getClass() == AMD64Binary.MemoryOp.class) {
+            return SchedulingClass.LOAD;
+        }
+        if (PURE_OPS.contains(op.getClass())) {
+            return SchedulingClass.PURE;
+        }
+        return SchedulingClass.BARRIER;
+    }
+
+    @Override
+    public int getLatency(LIRInstruction op) {
+        if (op.getClass() == AMD64Unary.MemoryOp.class) {
+            return LOAD_LATENCY;
+        }
+        int latency = arithmeticLatency(op.name(), resultKind(op));
+        if (op.getClass() == AMD64Binary.MemoryOp.class) {
+            return LOAD_LATENCY + latency;
+        }
+        return latency;
+    }
+
+    private static AMD64Kind resultKind(LIRInstruction op) {
+        AMD64Kind[] result = new AMD64Kind[1];
+        op.visitEachOutput((value, mode, flags) -> {
+            PlatformKind kind = value.getPlatformKind();
+            if (result[0] == null && kind instanceof AMD64Kind) {
+                result[0] = (AMD64Kind) kind;
+            }
+        });
+        return result[0];
+    }
+
+    private static int arithmeticLatency(String opcode, AMD64Kind kind) {
+        if (kind != null && kind.isXMM()) {
+            switch (opcode) {
+                case "ADD":
+                case "SUB":
+                case "MUL":
+                case "MIN":
+                case "MAX":
+                    return 4;
+                case "DIV":
+                    return kind == AMD64Kind.SINGLE ? 11 : 14;
+                case "SQRT":
+                    return kind == AMD64Kind.SINGLE ? 12 : 18;
+                case "CVTSS2SD":
+                case "CVTSD2SS":
+                case "CVTSI2SS":
+                case "CVTSI2SD":
+                    return 5;
+                default:
+                    return 1;
+            }
+        }
+        switch (opcode) {
+            case "IMUL":
+            case "MUL":
+            case "POPCNT":
+            case "LZCNT":
+            case "TZCNT":
+            case "BSF":
+            case "BSR":
+                return 3;
+            case "IDIV":
+            case "DIV":
+                return kind == AMD64Kind.QWORD ? 42 : 26;
+            case "CVTTSS2SI":
+            case "CVTTSD2SI":
+                return 6;
+            default:
+                return 1;
+        }
+    }
+}
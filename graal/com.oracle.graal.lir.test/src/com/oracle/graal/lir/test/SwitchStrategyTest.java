@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.oracle.graal.lir.LabelRef;
+import com.oracle.graal.lir.SwitchStrategy;
+import com.oracle.graal.lir.SwitchStrategy.HotKeysStrategy;
+
+import jdk.vm.ci.meta.JavaConstant;
+
+public class SwitchStrategyTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static JavaConstant[] keys(int count) {
+        JavaConstant[] keys = new JavaConstant[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = JavaConstant.forInt(i);
+        }
+        return keys;
+    }
+
+    private static LabelRef[] targets(int count) {
+        LabelRef[] targets = new LabelRef[count];
+        for (int i = 0; i < count; i++) {
+            targets[i] = LabelRef.forSuccessor(null, null, i);
+        }
+        return targets;
+    }
+
+    @Test
+    public void testHotKeyIndexes() {
+        assertArrayEquals(new int[]{2, 0}, SwitchStrategy.getHotKeyIndexes(new double[]{0.3, 0.05, 0.6, 0.05}));
+        assertArrayEquals(new int[0], SwitchStrategy.getHotKeyIndexes(new double[]{0.2, 0.2, 0.2, 0.2, 0.2}));
+        // at least one key is left for the dispatch of the remaining keys
+        assertArrayEquals(new int[]{0}, SwitchStrategy.getHotKeyIndexes(new double[]{0.5, 0.5}));
+    }
+
+    /**
+     * Key 0 is taken 90% of the time, keys 1 to 9 share one target and are taken 1% of the time
+     * each, and the default is taken 1% of the time. The hot key is reached after 1 comparison.
+     * The binary search then checks {@code key < 0} for the default, {@code key <= 0} for the
+     * already tested hot key and {@code key <= 9} for the range of cold keys, so the cold keys are
+     * reached after 1 + 3 comparisons and the default after 1 + 1 or 1 + 3 comparisons.
+     */
+    @Test
+    public void testSkewedProfile() {
+        double[] probabilities = new double[10];
+        LabelRef[] targets = new LabelRef[10];
+        LabelRef coldTarget = LabelRef.forSuccessor(null, null, 1);
+        probabilities[0] = 0.9;
+        targets[0] = LabelRef.forSuccessor(null, null, 0);
+        for (int i = 1; i < 10; i++) {
+            probabilities[i] = 0.01;
+            targets[i] = coldTarget;
+        }
+        SwitchStrategy strategy = SwitchStrategy.getBestStrategy(probabilities, keys(10), targets);
+        assertTrue(strategy.toString(), strategy instanceof HotKeysStrategy);
+        assertEquals(0.9 * 1 + 0.09 * 4 + 0.01 * (2 + 4) / 2, strategy.getAverageEffort(), DELTA);
+    }
+
+    @Test
+    public void testUniformProfile() {
+        double[] probabilities = new double[10];
+        for (int i = 0; i < 10; i++) {
+            probabilities[i] = 0.1;
+        }
+        SwitchStrategy strategy = SwitchStrategy.getBestStrategy(probabilities, keys(10), targets(10));
+        assertFalse(strategy.toString(), strategy instanceof HotKeysStrategy);
+    }
+}
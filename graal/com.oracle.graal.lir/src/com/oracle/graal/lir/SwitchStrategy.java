@@ -394,11 +394,20 @@ public abstract class SwitchStrategy {
         private final double[] probabilitySums;
 
         public BinaryStrategy(double[] keyProbabilities, JavaConstant[] keyConstants) {
+            this(keyProbabilities, keyConstants, keyProbabilities);
+        }
+
+        /**
+         * @param searchProbabilities the probabilities used to find the middle of a range of keys,
+         *            which may differ from the probabilities used to evaluate the effort
+         */
+        protected BinaryStrategy(double[] keyProbabilities, JavaConstant[] keyConstants, double[] searchProbabilities) {
             super(keyProbabilities, keyConstants);
+            assert searchProbabilities.length == keyProbabilities.length;
             probabilitySums = new double[keyProbabilities.length + 1];
             double sum = 0;
             for (int i = 0; i < keyConstants.length; i++) {
-                sum += Math.max(keyProbabilities[i], MIN_PROBABILITY);
+                sum += Math.max(searchProbabilities[i], MIN_PROBABILITY);
                 probabilitySums[i + 1] = sum;
             }
         }
@@ -495,11 +504,112 @@ public abstract class SwitchStrategy {
         }
     }
 
+    /**
+     * This strategy first tests the hot keys (see {@link #getHotKeyIndexes(double[])}) for equality
+     * in the order of their probability and then dispatches the remaining keys with a binary
+     * search. The binary search ignores the probabilities of the hot keys when subdividing the
+     * keys.
+     */
+    public static class HotKeysStrategy extends BinaryStrategy {
+
+        private final int[] hotKeys;
+        private final boolean[] isHot;
+
+        public HotKeysStrategy(double[] keyProbabilities, JavaConstant[] keyConstants, int[] hotKeys) {
+            super(keyProbabilities, keyConstants, coldProbabilities(keyProbabilities, hotKeys));
+            assert hotKeys.length > 0 && hotKeys.length < keyConstants.length;
+            this.hotKeys = hotKeys;
+            this.isHot = new boolean[keyConstants.length];
+            for (int index : hotKeys) {
+                isHot[index] = true;
+            }
+        }
+
+        private static double[] coldProbabilities(double[] keyProbabilities, int[] hotKeys) {
+            double[] result = keyProbabilities.clone();
+            for (int index : hotKeys) {
+                result[index] = 0;
+            }
+            return result;
+        }
+
+        @Override
+        public void run(SwitchClosure closure) {
+            for (int i = 0; i < hotKeys.length; i++) {
+                closure.conditionalJump(hotKeys[i], Condition.EQ, false);
+                super.registerEffort(hotKeys[i], hotKeys[i], i + 1);
+            }
+            super.run(closure);
+        }
+
+        /**
+         * The hot keys never reach the binary search, so only the cold keys are accounted for,
+         * after the comparisons for the hot keys.
+         */
+        @Override
+        protected void registerEffort(int rangeStart, int rangeEnd, int depth) {
+            for (int i = rangeStart; i <= rangeEnd; i++) {
+                if (!isHot[i]) {
+                    super.registerEffort(i, i, depth + hotKeys.length);
+                }
+            }
+        }
+
+        @Override
+        protected void registerDefaultEffort(int depth) {
+            super.registerDefaultEffort(depth + hotKeys.length);
+        }
+    }
+
+    /**
+     * Keys with at least this probability are tested before any other dispatch.
+     */
+    private static final double HOT_KEY_PROBABILITY = 0.25;
+
+    private static final int MAX_HOT_KEYS = 3;
+
+    /**
+     * Gets the indexes of the keys that are taken so often that they should be tested for equality
+     * before the remaining keys are dispatched, ordered by descending probability. At least one
+     * key is never considered hot.
+     */
+    public static int[] getHotKeyIndexes(double[] keyProbabilities) {
+        int hotCount = 0;
+        int[] hotKeys = new int[Math.min(MAX_HOT_KEYS, keyProbabilities.length - 1)];
+        while (hotCount < hotKeys.length) {
+            int best = -1;
+            for (int i = 0; i < keyProbabilities.length; i++) {
+                if (keyProbabilities[i] >= HOT_KEY_PROBABILITY && (best == -1 || keyProbabilities[i] > keyProbabilities[best]) && !contains(hotKeys, hotCount, i)) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            hotKeys[hotCount++] = best;
+        }
+        return Arrays.copyOf(hotKeys, hotCount);
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public abstract void run(SwitchClosure closure);
 
     private static SwitchStrategy[] getStrategies(double[] keyProbabilities, JavaConstant[] keyConstants, LabelRef[] keyTargets) {
         SwitchStrategy[] strategies = new SwitchStrategy[]{new SequentialStrategy(keyProbabilities, keyConstants), new RangesStrategy(keyProbabilities, keyConstants),
                         new BinaryStrategy(keyProbabilities, keyConstants)};
+        int[] hotKeys = getHotKeyIndexes(keyProbabilities);
+        if (hotKeys.length > 0) {
+            strategies = Arrays.copyOf(strategies, strategies.length + 1);
+            strategies[strategies.length - 1] = new HotKeysStrategy(keyProbabilities, keyConstants, hotKeys);
+        }
         for (SwitchStrategy strategy : strategies) {
             strategy.effortClosure = strategy.new EffortClosure(keyTargets);
             strategy.run(strategy.effortClosure);
@@ -29,6 +29,8 @@ import static jdk.vm.ci.code.ValueUtil.isStackSlot;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +46,7 @@ import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
 import com.oracle.graal.compiler.common.spi.ForeignCallsProvider;
 import com.oracle.graal.compiler.common.type.DataPointerConstant;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.graph.NodeSourcePosition;
 import com.oracle.graal.lir.LIR;
@@ -80,8 +83,31 @@ public class CompilationResultBuilder {
     // @formatter:off
     @Option(help = "Include the LIR as comments with the final assembly.", type = OptionType.Debug)
     public static final OptionValue<Boolean> PrintLIRWithAssembly = new OptionValue<>(false);
+    @Option(help = "Emit forward branches with the shortest encoding and widen only the branches whose displacement overflows.", type = OptionType.Expert)
+    public static final OptionValue<Boolean> BranchRelaxation = new OptionValue<>(true);
+    @Option(help = "Alignment in bytes of loop headers that are the target of a backward jump (a power of 2).", type = OptionType.Expert)
+    public static final OptionValue<Integer> LoopHeaderAlignment = new OptionValue<>(16);
+    @Option(help = "Minimum execution frequency of a loop header relative to the method entry for it to be aligned.", type = OptionType.Expert)
+    public static final OptionValue<Double> LoopHeaderAlignmentFrequency = new OptionValue<>(1.0);
+    @Option(help = "Maximum number of padding bytes per method that may be spent on aligning loop headers.", type = OptionType.Expert)
+    public static final OptionValue<Integer> LoopHeaderAlignmentBudget = new OptionValue<>(256);
     // @formatter:on
 
+    /**
+     * Upper bound for the number of times the code is emitted by
+     * {@link #emitWithBranchRelaxation}. Each emission widens at least one branch, so this is only
+     * reached for methods with many long forward branches that are widened one after the other.
+     */
+    private static final int MAX_BRANCH_RELAXATION_PASSES = 8;
+
+    private static final DebugCounter BRANCH_RELAXATION_PASSES = Debug.counter("BranchRelaxation[passes]");
+    private static final DebugCounter BRANCH_RELAXATION_FALLBACKS = Debug.counter("BranchRelaxation[fallbacks]");
+    private static final DebugCounter BRANCH_RELAXATION_BYTES_SAVED = Debug.counter("BranchRelaxation[bytesSaved]");
+
+    private static final DebugCounter LOOP_HEADERS_ALIGNED = Debug.counter("LoopHeaderAlignment[aligned]");
+    private static final DebugCounter LOOP_HEADERS_NOT_ALIGNED = Debug.counter("LoopHeaderAlignment[notAligned]");
+    private static final DebugCounter LOOP_HEADER_PADDING = Debug.counter("LoopHeaderAlignment[paddingBytes]");
+
     private static class ExceptionInfo {
 
         public final int codeOffset;
@@ -111,6 +137,27 @@ public class CompilationResultBuilder {
      */
     private int currentBlockIndex;
 
+    /**
+     * The ids of the {@linkplain AbstractBlockBase#isAligned() aligned} blocks whose alignment is
+     * within the {@link #LoopHeaderAlignmentBudget}.
+     */
+    private BitSet alignedBlocks;
+
+    /**
+     * The positions of the loop headers aligned by the last emission of the code.
+     */
+    private final List<Integer> alignedLoopHeaders = new ArrayList<>();
+
+    /**
+     * The number of padding bytes emitted for {@link #alignedLoopHeaders}.
+     */
+    private int loopHeaderPadding;
+
+    /**
+     * The number of alignment candidates not aligned by the last emission of the code.
+     */
+    private int unalignedLoopHeaders;
+
     /**
      * The object that emits code for managing a method's frame.
      */
@@ -165,6 +212,10 @@ public class CompilationResultBuilder {
      * the compilation result and then {@linkplain #closeCompilationResult() closes} it.
      */
     public void finish() {
+        LOOP_HEADERS_ALIGNED.add(alignedLoopHeaders.size());
+        LOOP_HEADERS_NOT_ALIGNED.add(unalignedLoopHeaders);
+        LOOP_HEADER_PADDING.add(loopHeaderPadding);
+
         int position = asm.position();
         compilationResult.setTargetCode(asm.close(false), position);
 
@@ -402,6 +453,7 @@ public class CompilationResultBuilder {
         assert currentBlockIndex == 0;
         this.lir = lir;
         this.currentBlockIndex = 0;
+        this.alignedBlocks = selectAlignedBlocks(lir);
         frameContext.enter(this);
         for (AbstractBlockBase<?> b : lir.codeEmittingOrder()) {
             assert (b == null && lir.codeEmittingOrder()[currentBlockIndex] == null) || lir.codeEmittingOrder()[currentBlockIndex].equals(b);
@@ -410,6 +462,73 @@ public class CompilationResultBuilder {
         }
         this.lir = null;
         this.currentBlockIndex = 0;
+        this.alignedBlocks = null;
+    }
+
+    /**
+     * Selects the {@linkplain AbstractBlockBase#isAligned() alignment candidates} that are
+     * executed at least {@link #LoopHeaderAlignmentFrequency} times per method invocation. The
+     * most frequently executed candidates are selected first until the worst case padding exceeds
+     * the {@link #LoopHeaderAlignmentBudget}.
+     */
+    private BitSet selectAlignedBlocks(@SuppressWarnings("hiding") LIR lir) {
+        List<AbstractBlockBase<?>> candidates = new ArrayList<>();
+        for (AbstractBlockBase<?> block : lir.codeEmittingOrder()) {
+            if (block != null && block.isAligned()) {
+                candidates.add(block);
+            }
+        }
+        BitSet result = new BitSet();
+        unalignedLoopHeaders = 0;
+        if (candidates.isEmpty()) {
+            return result;
+        }
+        candidates.sort((a, b) -> Double.compare(b.probability(), a.probability()));
+        int worstCasePadding = LoopHeaderAlignment.getValue() - 1;
+        int budget = LoopHeaderAlignmentBudget.getValue();
+        double minFrequency = LoopHeaderAlignmentFrequency.getValue();
+        for (AbstractBlockBase<?> block : candidates) {
+            if (block.probability() < minFrequency || budget < worstCasePadding) {
+                unalignedLoopHeaders++;
+            } else {
+                budget -= worstCasePadding;
+                result.set(block.getId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Aligns the start of the block currently being emitted if it is a frequently executed loop
+     * header. Outside of {@link #emit(LIR)}, the code is aligned to twice the word size.
+     */
+    public void alignBlockStart() {
+        if (lir == null) {
+            asm.align(target.wordSize * 2);
+            return;
+        }
+        AbstractBlockBase<?> block = lir.codeEmittingOrder()[currentBlockIndex];
+        if (alignedBlocks.get(block.getId())) {
+            int start = asm.position();
+            asm.align(LoopHeaderAlignment.getValue());
+            alignedLoopHeaders.add(asm.position());
+            loopHeaderPadding += asm.position() - start;
+        }
+    }
+
+    /**
+     * Gets the code positions of the loop headers aligned by the last emission of the code.
+     */
+    public List<Integer> getAlignedLoopHeaders() {
+        return Collections.unmodifiableList(alignedLoopHeaders);
+    }
+
+    /**
+     * Gets the number of padding bytes emitted for the {@linkplain #getAlignedLoopHeaders()
+     * aligned loop headers} by the last emission of the code.
+     */
+    public int getLoopHeaderPadding() {
+        return loopHeaderPadding;
     }
 
     private void emitBlock(AbstractBlockBase<?> block) {
@@ -453,9 +572,43 @@ public class CompilationResultBuilder {
         }
     }
 
+    /**
+     * Emits the code of a compilation unit by calling {@code emitter}, which is expected to emit
+     * the complete code including prologue and epilogue. If {@link #BranchRelaxation} is enabled
+     * and supported by the {@linkplain Assembler#supportsBranchRelaxation() assembler}, forward
+     * branches are first emitted with short displacements. As long as some of them overflow, the
+     * code is discarded and emitted again with the overflowing branches widened.
+     */
+    public void emitWithBranchRelaxation(@SuppressWarnings("hiding") LIR lir, Runnable emitter) {
+        boolean relax = BranchRelaxation.getValue() && asm.supportsBranchRelaxation();
+        if (relax) {
+            asm.setBranchRelaxation(true);
+        }
+        emitter.run();
+        int passes = 1;
+        while (relax && asm.hasBranchDisplacementOverflow()) {
+            if (passes == MAX_BRANCH_RELAXATION_PASSES) {
+                // give up and use long displacements for all forward branches
+                asm.setBranchRelaxation(false);
+                relax = false;
+                BRANCH_RELAXATION_FALLBACKS.increment();
+            }
+            resetForEmittingCode();
+            lir.resetLabels();
+            emitter.run();
+            passes++;
+        }
+        BRANCH_RELAXATION_PASSES.add(passes);
+        if (relax) {
+            BRANCH_RELAXATION_BYTES_SAVED.add(asm.getBranchRelaxationSavings());
+        }
+    }
+
     public void resetForEmittingCode() {
         asm.reset();
         compilationResult.resetForEmittingCode();
+        alignedLoopHeaders.clear();
+        loopHeaderPadding = 0;
         if (exceptionInfoList != null) {
             exceptionInfoList.clear();
         }
@@ -452,7 +452,18 @@ public abstract class LIRGenerator implements LIRGeneratorTool {
             for (int i = 0; i < keyCount; i++) {
                 targets[keyConstants[i].asInt() - minValue] = keyTargets[i];
             }
-            emitTableSwitch(minValue, defaultTarget, targets, value);
+            int[] hotKeyIndexes = SwitchStrategy.getHotKeyIndexes(keyProbabilities);
+            if (hotKeyIndexes.length > 0) {
+                int[] hotKeys = new int[hotKeyIndexes.length];
+                LabelRef[] hotTargets = new LabelRef[hotKeyIndexes.length];
+                for (int i = 0; i < hotKeyIndexes.length; i++) {
+                    hotKeys[i] = keyConstants[hotKeyIndexes[i]].asInt();
+                    hotTargets[i] = keyTargets[hotKeyIndexes[i]];
+                }
+                emitTableSwitch(minValue, defaultTarget, targets, value, hotKeys, hotTargets);
+            } else {
+                emitTableSwitch(minValue, defaultTarget, targets, value);
+            }
         }
     }
 
@@ -461,6 +472,14 @@ public abstract class LIRGenerator implements LIRGeneratorTool {
 
     protected abstract void emitTableSwitch(int lowKey, LabelRef defaultTarget, LabelRef[] targets, Value key);
 
+    /**
+     * Emits a table switch that compares the key against the given hot keys before it goes through
+     * the jump table. Backends that do not support this ignore the hot keys.
+     */
+    protected void emitTableSwitch(int lowKey, LabelRef defaultTarget, LabelRef[] targets, Value key, int[] hotKeys, LabelRef[] hotTargets) {
+        emitTableSwitch(lowKey, defaultTarget, targets, key);
+    }
+
     @Override
     public void beforeRegisterAllocation() {
     }
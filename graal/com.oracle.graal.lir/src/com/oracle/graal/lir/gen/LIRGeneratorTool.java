@@ -246,6 +246,105 @@ public interface LIRGeneratorTool extends BenchmarkCounterFactory, ValueKindFact
 
     Variable emitArrayEquals(JavaKind kind, Value array1, Value array2, Value length);
 
+    /**
+     * Lexicographically compares two arrays, as done by {@link String#compareTo(String)}.
+     *
+     * @return a negative value, zero or a positive value if the first array is less than, equal to
+     *         or greater than the second array
+     */
+    default Variable emitArrayCompareTo(JavaKind kind, Value array1, Value array2, Value length1, Value length2) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Searches the elements {@code [fromIndex, length)} of an array for {@code value}.
+     *
+     * @return the index of the first occurrence of {@code value} or -1 if there is none
+     */
+    default Variable emitArrayIndexOf(JavaKind kind, Value array, Value fromIndex, Value length, Value value) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Searches the elements {@code [fromIndex, length)} of a {@code char} array for the first
+     * {@code targetCount} elements of {@code target}, as done by {@link String#indexOf(String, int)}.
+     * {@code targetCount} must be positive and {@code fromIndex} must not be negative.
+     *
+     * @return the index of the first occurrence of the target or -1 if there is none
+     */
+    default Variable emitStringIndexOf(Value source, Value fromIndex, Value length, Value target, Value targetCount) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Computes {@code h = 31 * h + array[i]} over the first {@code length} elements of an array,
+     * starting with {@code h = 0}, as done by {@link String#hashCode()}.
+     */
+    default Variable emitArrayHashCode(JavaKind kind, Value array, Value length) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Finds the first element that differs between the first {@code length} elements of two
+     * arrays.
+     *
+     * @return the index of the first differing element or -1 if there is none
+     */
+    default Variable emitArrayMismatch(JavaKind kind, Value array1, Value array2, Value length) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Stores {@code value} into the elements {@code [fromIndex, toIndex)} of an array.
+     */
+    default void emitArrayFill(JavaKind kind, Value array, Value fromIndex, Value toIndex, Value value) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Stores the byte {@code value} into {@code length} bytes of memory starting at the raw
+     * {@code address}.
+     */
+    default void emitMemoryFill(Value address, Value length, Value value) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Copies {@code length} chars from a {@code char} array into a {@code byte} array, stopping at
+     * the first char that is not a Latin-1 character.
+     *
+     * @return the number of chars copied
+     */
+    default Variable emitArrayCompress(Value src, Value srcIndex, Value dst, Value dstIndex, Value length) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Zero extends {@code length} bytes from a {@code byte} array into a {@code char} array.
+     */
+    default void emitArrayInflate(Value src, Value srcIndex, Value dst, Value dstIndex, Value length) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Encodes the bytes {@code src[sp..sl)}, a multiple of three, into Base64 characters stored
+     * at {@code dst[dp]}.
+     */
+    default void emitBase64EncodeBlock(Value src, Value sp, Value sl, Value dst, Value dp, Value isURL) {
+        throw GraalError.unimplemented();
+    }
+
+    /**
+     * Decodes the groups of four Base64 characters in {@code src[sp..sl)} into bytes stored at
+     * {@code dst[dp]}, stopping in front of the first group that contains a character outside of
+     * the alphabet.
+     *
+     * @return the number of bytes written
+     */
+    default Variable emitBase64DecodeBlock(Value src, Value sp, Value sl, Value dst, Value dp, Value isURL) {
+        throw GraalError.unimplemented();
+    }
+
     void emitBlackhole(Value operand);
 
     LIRKind getLIRKind(Stamp stamp);
@@ -22,15 +22,18 @@
  */
 package com.oracle.graal.lir.phases;
 
+import com.oracle.graal.compiler.common.alloc.RegisterAllocationConfig;
 import com.oracle.graal.lir.gen.LIRGeneratorTool;
 
 public abstract class PreAllocationOptimizationPhase extends LIRPhase<PreAllocationOptimizationPhase.PreAllocationOptimizationContext> {
 
     public static final class PreAllocationOptimizationContext {
         public final LIRGeneratorTool lirGen;
+        public final RegisterAllocationConfig registerAllocationConfig;
 
-        public PreAllocationOptimizationContext(LIRGeneratorTool lirGen) {
+        public PreAllocationOptimizationContext(LIRGeneratorTool lirGen, RegisterAllocationConfig registerAllocationConfig) {
             this.lirGen = lirGen;
+            this.registerAllocationConfig = registerAllocationConfig;
         }
 
     }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.sched;
+
+import com.oracle.graal.lir.LIRInstruction;
+
+/**
+ * Target specific information used by the {@link LIRListSchedulingPhase} to reorder
+ * {@link LIRInstruction instructions} within a block.
+ */
+public interface LIRLatencyModel {
+
+    enum SchedulingClass {
+        /**
+         * The instruction only reads and writes its operands and can be freely reordered with
+         * respect to other {@link #PURE} and {@link #LOAD} instructions.
+         */
+        PURE,
+
+        /**
+         * The instruction reads memory but does not write it and cannot trap.
+         */
+        LOAD,
+
+        /**
+         * The instruction has effects that are not expressed by its operands (stores, calls,
+         * condition flags, frame states, ...) and must not be reordered with respect to any other
+         * instruction.
+         */
+        BARRIER
+    }
+
+    SchedulingClass getSchedulingClass(LIRInstruction op);
+
+    /**
+     * Gets the number of cycles until the results of {@code op} are available to other
+     * instructions.
+     */
+    int getLatency(LIRInstruction op);
+}
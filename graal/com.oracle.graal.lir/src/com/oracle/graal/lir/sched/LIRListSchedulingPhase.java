@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.sched;
+
+import static com.oracle.graal.lir.LIRValueUtil.asVariable;
+import static com.oracle.graal.lir.LIRValueUtil.isVariable;
+import static com.oracle.graal.lir.phases.LIRPhase.Options.LIROptimization;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static jdk.vm.ci.code.ValueUtil.isRegister;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.compiler.common.alloc.RegisterAllocationConfig;
+import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.debug.Indent;
+import com.oracle.graal.lir.LIR;
+import com.oracle.graal.lir.LIRInstruction;
+import com.oracle.graal.lir.LIRInstruction.OperandMode;
+import com.oracle.graal.lir.StandardOp.NullCheck;
+import com.oracle.graal.lir.gen.LIRGenerationResult;
+import com.oracle.graal.lir.phases.PreAllocationOptimizationPhase;
+import com.oracle.graal.lir.sched.LIRLatencyModel.SchedulingClass;
+import com.oracle.graal.options.NestedBooleanOptionValue;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.Register.RegisterCategory;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.AllocatableValue;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Reorders the instructions of a block before register allocation so that the results of long
+ * latency instructions (loads, divisions, floating point arithmetic) are not used immediately after
+ * they are issued.
+ *
+ * The block is split into regions of instructions that the {@link LIRLatencyModel} considers
+ * reorderable. Each region is scheduled with a cycle driven list scheduler that prefers the
+ * instruction with the longest latency weighted path to the end of the region. Instructions that
+ * would push the number of values live in the region above the number of allocatable registers of
+ * their {@link RegisterCategory} are deferred as long as other candidates are available.
+ */
+public final class LIRListSchedulingPhase extends PreAllocationOptimizationPhase {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Reorder LIR instructions within a block to hide instruction latencies.", type = OptionType.Debug)
+        public static final NestedBooleanOptionValue LIROptListScheduling = new NestedBooleanOptionValue(LIROptimization, false);
+        @Option(help = "Maximum number of instructions in a region reordered by the LIR list scheduler.", type = OptionType.Debug)
+        public static final OptionValue<Integer> LIRListSchedulingMaxRegionSize = new OptionValue<>(256);
+        // @formatter:on
+    }
+
+    private static final DebugCounter regionsScheduled = Debug.counter("LIRListScheduling[regions]");
+    private static final DebugCounter regionsTooLarge = Debug.counter("LIRListScheduling[regionsTooLarge]");
+    private static final DebugCounter instructionsMoved = Debug.counter("LIRListScheduling[moved]");
+    private static final DebugCounter pressureDeferred = Debug.counter("LIRListScheduling[pressureDeferred]");
+
+    private final LIRLatencyModel latencyModel;
+
+    public LIRListSchedulingPhase(LIRLatencyModel latencyModel) {
+        this.latencyModel = latencyModel;
+    }
+
+    @Override
+    protected void run(TargetDescription target, LIRGenerationResult lirGenRes, PreAllocationOptimizationContext context) {
+        LIR lir = lirGenRes.getLIR();
+        int maxRegionSize = Options.LIRListSchedulingMaxRegionSize.getValue();
+        for (AbstractBlockBase<?> block : lir.getControlFlowGraph().getBlocks()) {
+            scheduleBlock(lir.getLIRforBlock(block), context.registerAllocationConfig, maxRegionSize);
+        }
+    }
+
+    private void scheduleBlock(List<LIRInstruction> instructions, RegisterAllocationConfig registerAllocationConfig, int maxRegionSize) {
+        // the label and the block end are never moved
+        int last = instructions.size() - 1;
+        int start = 1;
+        for (int i = 1; i <= last; i++) {
+            if (i == last || isBarrier(instructions, i)) {
+                int size = i - start;
+                if (size > maxRegionSize) {
+                    regionsTooLarge.increment();
+                } else if (size > 1) {
+                    new RegionScheduler(instructions, start, i, registerAllocationConfig).schedule();
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    private boolean isBarrier(List<LIRInstruction> instructions, int index) {
+        if (instructions.get(index - 1) instanceof NullCheck) {
+            // keep the candidate for an implicit null check in place
+            return true;
+        }
+        return latencyModel.getSchedulingClass(instructions.get(index)) == SchedulingClass.BARRIER;
+    }
+
+    /**
+     * Gets the object identifying the storage of {@code value} for dependency purposes.
+     */
+    private static Object key(Value value) {
+        if (isRegister(value)) {
+            return asRegister(value);
+        }
+        if (isVariable(value)) {
+            return asVariable(value).index;
+        }
+        return value;
+    }
+
+    private static final class Edge {
+        private final Node target;
+        private final int latency;
+        private final boolean fixedRegister;
+
+        Edge(Node target, int latency, boolean fixedRegister) {
+            this.target = target;
+            this.latency = latency;
+            this.fixedRegister = fixedRegister;
+        }
+    }
+
+    private static final class Node {
+        private final LIRInstruction op;
+        private final int index;
+        private final int latency;
+        private final List<Edge> successors = new ArrayList<>(2);
+        private final List<LiveValue> usedVariables = new ArrayList<>(2);
+        private final List<LiveValue> definedVariables = new ArrayList<>(1);
+
+        private int unscheduledPredecessors;
+        private int height;
+        private int earliest;
+        private boolean definesFixedRegister;
+        private boolean readsIncomingFixedRegister;
+        /**
+         * The last predecessor that defines a fixed register read by this node.
+         */
+        private Node fixedRegisterPredecessor;
+
+        Node(LIRInstruction op, int index, int latency) {
+            this.op = op;
+            this.index = index;
+            this.latency = latency;
+        }
+
+        boolean isFixedRegisterSink() {
+            if (!definesFixedRegister) {
+                return false;
+            }
+            for (Edge edge : successors) {
+                if (edge.fixedRegister) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Register pressure information about a {@link com.oracle.graal.lir.Variable variable} that is
+     * used or defined in the region.
+     */
+    private static final class LiveValue {
+        private final RegisterCategory category;
+        private int unscheduledUses;
+        private boolean definedInRegion;
+
+        LiveValue(RegisterCategory category) {
+            this.category = category;
+        }
+    }
+
+    private final class RegionScheduler {
+        private final List<LIRInstruction> instructions;
+        private final int start;
+        private final int end;
+        private final RegisterAllocationConfig registerAllocationConfig;
+        private final Node[] nodes;
+        private final Map<Integer, LiveValue> variables = new HashMap<>();
+        private final Map<RegisterCategory, Integer> pressure = new HashMap<>();
+        private final Map<RegisterCategory, Integer> limits = new HashMap<>();
+
+        RegionScheduler(List<LIRInstruction> instructions, int start, int end, RegisterAllocationConfig registerAllocationConfig) {
+            this.instructions = instructions;
+            this.start = start;
+            this.end = end;
+            this.registerAllocationConfig = registerAllocationConfig;
+            this.nodes = new Node[end - start];
+        }
+
+        @SuppressWarnings("try")
+        void schedule() {
+            try (Indent indent = Debug.logAndIndent("schedule region [%d, %d)", start, end)) {
+                buildDependencies();
+                computeHeights();
+                Node[] order = listSchedule();
+                int moved = 0;
+                for (int i = 0; i < order.length; i++) {
+                    if (order[i].index != i) {
+                        moved++;
+                    }
+                    instructions.set(start + i, order[i].op);
+                }
+                regionsScheduled.increment();
+                instructionsMoved.add(moved);
+                Debug.log("moved %d of %d instructions", moved, order.length);
+            }
+        }
+
+        private LiveValue liveValue(Value value) {
+            int index = asVariable(value).index;
+            LiveValue liveValue = variables.get(index);
+            if (liveValue == null) {
+                Register[] allocatable = registerAllocationConfig.getAllocatableRegisters(value.getPlatformKind()).allocatableRegisters;
+                RegisterCategory category = allocatable[0].getRegisterCategory();
+                liveValue = new LiveValue(category);
+                variables.put(index, liveValue);
+                limits.putIfAbsent(category, allocatable.length);
+            }
+            return liveValue;
+        }
+
+        private void buildDependencies() {
+            Map<Object, Node> lastDef = new HashMap<>();
+            Map<Object, List<Node>> usesSinceDef = new HashMap<>();
+            for (int i = 0; i < nodes.length; i++) {
+                LIRInstruction op = instructions.get(start + i);
+                Node node = new Node(op, i, latencyModel.getLatency(op));
+                nodes[i] = node;
+                List<Object> useKeys = new ArrayList<>(4);
+                List<Object> defKeys = new ArrayList<>(2);
+                op.visitEachInput((value, mode, flags) -> collect(node, value, mode, useKeys));
+                op.visitEachAlive((value, mode, flags) -> collect(node, value, mode, useKeys));
+                op.visitEachTemp((value, mode, flags) -> collect(node, value, mode, defKeys));
+                op.visitEachOutput((value, mode, flags) -> collect(node, value, mode, defKeys));
+
+                for (Object key : useKeys) {
+                    Node def = lastDef.get(key);
+                    if (def != null) {
+                        boolean fixedRegister = key instanceof Register;
+                        addEdge(def, node, def.latency, fixedRegister);
+                        if (fixedRegister) {
+                            node.fixedRegisterPredecessor = def;
+                        }
+                    } else if (key instanceof Register) {
+                        node.readsIncomingFixedRegister = true;
+                    }
+                    usesSinceDef.computeIfAbsent(key, k -> new ArrayList<>(2)).add(node);
+                }
+                for (Object key : defKeys) {
+                    Node def = lastDef.get(key);
+                    if (def != null && def != node) {
+                        addEdge(def, node, 0, false);
+                    }
+                    List<Node> uses = usesSinceDef.remove(key);
+                    if (uses != null) {
+                        for (Node use : uses) {
+                            if (use != node) {
+                                addEdge(use, node, 0, false);
+                            }
+                        }
+                    }
+                    lastDef.put(key, node);
+                }
+            }
+            for (LiveValue liveValue : variables.values()) {
+                if (!liveValue.definedInRegion) {
+                    // live-in value that is used in this region
+                    pressure.merge(liveValue.category, 1, Integer::sum);
+                }
+            }
+        }
+
+        private void collect(Node node, Value value, OperandMode mode, List<Object> keys) {
+            if (!(value instanceof AllocatableValue)) {
+                return;
+            }
+            Object key = key(value);
+            if (keys.contains(key)) {
+                return;
+            }
+            keys.add(key);
+            if (isVariable(value)) {
+                if (mode == OperandMode.DEF) {
+                    LiveValue liveValue = liveValue(value);
+                    node.definedVariables.add(liveValue);
+                    liveValue.definedInRegion = true;
+                } else if (mode != OperandMode.TEMP) {
+                    LiveValue liveValue = liveValue(value);
+                    node.usedVariables.add(liveValue);
+                    liveValue.unscheduledUses++;
+                }
+            } else if (mode == OperandMode.DEF && isRegister(value)) {
+                node.definesFixedRegister = true;
+            }
+        }
+
+        private void addEdge(Node from, Node to, int latency, boolean fixedRegister) {
+            assert from.index < to.index;
+            from.successors.add(new Edge(to, latency, fixedRegister));
+            to.unscheduledPredecessors++;
+        }
+
+        private void computeHeights() {
+            for (int i = nodes.length - 1; i >= 0; i--) {
+                Node node = nodes[i];
+                int height = node.latency;
+                for (Edge edge : node.successors) {
+                    height = Math.max(height, edge.latency + edge.target.height);
+                }
+                node.height = height;
+            }
+        }
+
+        private Node[] listSchedule() {
+            Node[] order = new Node[nodes.length];
+            List<Node> ready = new ArrayList<>();
+            for (Node node : nodes) {
+                if (node.unscheduledPredecessors == 0) {
+                    ready.add(node);
+                }
+            }
+            int cycle = 0;
+            Node previous = null;
+            for (int i = 0; i < order.length; i++) {
+                Node best = select(ready, cycle, previous);
+                ready.remove(best);
+                order[i] = best;
+
+                int issue = Math.max(cycle, best.earliest);
+                boolean glued = previous != null && best.fixedRegisterPredecessor == previous;
+                cycle = glued ? cycle + 1 : issue + 1;
+                updatePressure(best);
+                for (Edge edge : best.successors) {
+                    Node target = edge.target;
+                    target.earliest = Math.max(target.earliest, issue + edge.latency);
+                    if (--target.unscheduledPredecessors == 0) {
+                        ready.add(target);
+                    }
+                }
+                previous = best;
+            }
+            assert ready.isEmpty();
+            return order;
+        }
+
+        private Node select(List<Node> ready, int cycle, Node previous) {
+            Node best = null;
+            boolean bestExceedsLimit = false;
+            boolean deferred = false;
+            for (Node candidate : ready) {
+                if (previous != null && candidate.fixedRegisterPredecessor == previous || candidate.readsIncomingFixedRegister) {
+                    // do not extend the live range of fixed registers
+                    return candidate;
+                }
+                boolean exceedsLimit = exceedsLimit(candidate);
+                deferred |= exceedsLimit;
+                if (best == null || isBetter(candidate, exceedsLimit, best, bestExceedsLimit, cycle)) {
+                    best = candidate;
+                    bestExceedsLimit = exceedsLimit;
+                }
+            }
+            if (deferred && !bestExceedsLimit) {
+                pressureDeferred.increment();
+            }
+            return best;
+        }
+
+        private boolean isBetter(Node candidate, boolean candidateExceedsLimit, Node best, boolean bestExceedsLimit, int cycle) {
+            if (candidate.isFixedRegisterSink() != best.isFixedRegisterSink()) {
+                return best.isFixedRegisterSink();
+            }
+            if (candidateExceedsLimit != bestExceedsLimit) {
+                return bestExceedsLimit;
+            }
+            if (candidateExceedsLimit) {
+                int candidateDelta = pressureDelta(candidate);
+                int bestDelta = pressureDelta(best);
+                if (candidateDelta != bestDelta) {
+                    return candidateDelta < bestDelta;
+                }
+            }
+            boolean candidateReady = candidate.earliest <= cycle;
+            boolean bestReady = best.earliest <= cycle;
+            if (candidateReady != bestReady) {
+                return candidateReady;
+            }
+            if (!candidateReady && candidate.earliest != best.earliest) {
+                return candidate.earliest < best.earliest;
+            }
+            if (candidate.height != best.height) {
+                return candidate.height > best.height;
+            }
+            return candidate.index < best.index;
+        }
+
+        private boolean exceedsLimit(Node node) {
+            for (LiveValue defined : node.definedVariables) {
+                RegisterCategory category = defined.category;
+                int delta = 0;
+                for (LiveValue liveValue : node.definedVariables) {
+                    if (liveValue.category.equals(category)) {
+                        delta++;
+                    }
+                }
+                for (LiveValue liveValue : node.usedVariables) {
+                    if (liveValue.unscheduledUses == 1 && liveValue.category.equals(category)) {
+                        delta--;
+                    }
+                }
+                if (pressure.getOrDefault(category, 0) + delta > limits.get(category)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int pressureDelta(Node node) {
+            int delta = node.definedVariables.size();
+            for (LiveValue liveValue : node.usedVariables) {
+                if (liveValue.unscheduledUses == 1) {
+                    delta--;
+                }
+            }
+            return delta;
+        }
+
+        private void updatePressure(Node node) {
+            for (LiveValue liveValue : node.usedVariables) {
+                if (--liveValue.unscheduledUses == 0) {
+                    pressure.merge(liveValue.category, -1, Integer::sum);
+                }
+            }
+            for (LiveValue liveValue : node.definedVariables) {
+                pressure.merge(liveValue.category, 1, Integer::sum);
+            }
+        }
+    }
+}
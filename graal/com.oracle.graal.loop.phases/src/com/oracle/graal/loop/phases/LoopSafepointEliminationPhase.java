@@ -35,13 +35,19 @@ import com.oracle.graal.phases.tiers.MidTierContext;
 
 public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
 
+    /**
+     * The maximum trip count of a loop with a 32-bit induction variable. Loops with wider induction
+     * variables only lose their safepoints if their trip count is bounded by the same value.
+     */
+    private static final long MAX_TRIP_COUNT_WITHOUT_SAFEPOINT = 1L << 32;
+
     @Override
     protected void run(StructuredGraph graph, MidTierContext context) {
         LoopsData loops = new LoopsData(graph);
         if (context.getOptimisticOptimizations().useLoopLimitChecks() && graph.getGuardsStage().allowsFloatingGuards()) {
             loops.detectedCountedLoops();
             for (LoopEx loop : loops.countedLoops()) {
-                if (loop.loop().getChildren().isEmpty() && loop.counted().getStamp().getBits() <= 32) {
+                if (loop.loop().getChildren().isEmpty() && (loop.counted().getStamp().getBits() <= 32 || loop.counted().maxTripCountUpperBound() <= MAX_TRIP_COUNT_WITHOUT_SAFEPOINT)) {
                     boolean hasSafepoint = false;
                     for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
                         hasSafepoint |= loopEnd.canSafepoint();
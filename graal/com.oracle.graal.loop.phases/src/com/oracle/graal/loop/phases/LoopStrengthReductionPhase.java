@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.compiler.common.GraalOptions.LoopStrengthReductionMaxExtraPhis;
+import static com.oracle.graal.loop.MathUtil.add;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Graph.Mark;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.DerivedConvertedInductionVariable;
+import com.oracle.graal.loop.DerivedInductionVariable;
+import com.oracle.graal.loop.DerivedOffsetInductionVariable;
+import com.oracle.graal.loop.DerivedScaledInductionVariable;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.calc.CompareNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
+import com.oracle.graal.nodes.calc.SignExtendNode;
+import com.oracle.graal.nodes.calc.SubNode;
+import com.oracle.graal.nodes.memory.address.AddressNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+import jdk.vm.ci.code.CodeUtil;
+
+/**
+ * Replaces derived induction variables that are used in address computations, such as the
+ * {@code (i << 2) + 16} offset of an {@code int} array element, by loop phis of their own that are
+ * incremented by the scaled stride on each iteration. This removes the conversion, shift and add
+ * from the loop body.
+ *
+ * Each new phi occupies a register across the back edge. For every basic induction variable, the
+ * phase therefore estimates the number of values that are live across the back edge after the
+ * transformation, and only reduces as many derived induction variables as
+ * {@link com.oracle.graal.compiler.common.GraalOptions#LoopStrengthReductionMaxExtraPhis} allows,
+ * preferring the ones with the most address usages. If the basic induction variable is only used
+ * by the exit test of a counted loop afterwards, the exit test is rewritten to compare one of the
+ * new phis against the correspondingly transformed limit, which makes the basic induction variable
+ * dead. Only innermost loops are transformed.
+ */
+public class LoopStrengthReductionPhase extends BasePhase<PhaseContext> {
+
+    private static final DebugCounter counterReduced = Debug.counter("LoopStrengthReduction[reduced]");
+    private static final DebugCounter counterExitTestsRewritten = Debug.counter("LoopStrengthReduction[exitTestsRewritten]");
+    private static final DebugCounter counterTooManyPhis = Debug.counter("LoopStrengthReduction[tooManyPhis]");
+
+    private final CanonicalizerPhase canonicalizer;
+
+    public LoopStrengthReductionPhase(CanonicalizerPhase canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, PhaseContext context) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        Mark mark = graph.getMark();
+        List<Node> touched = new ArrayList<>();
+        LoopsData data = new LoopsData(graph);
+        data.detectedCountedLoops();
+        for (LoopEx loop : data.loops()) {
+            if (!loop.loop().getChildren().isEmpty()) {
+                /*
+                 * Only innermost loops are transformed, so that the new nodes never have to be
+                 * classified with respect to a loop whose data was computed before.
+                 */
+                continue;
+            }
+            Map<Node, InductionVariable> ivs = loop.getInductionVariables();
+            for (InductionVariable iv : ivs.values()) {
+                if (iv instanceof BasicInductionVariable) {
+                    reduce(loop, (BasicInductionVariable) iv, ivs, touched);
+                }
+            }
+        }
+        data.deleteUnusedNodes();
+        if (!touched.isEmpty()) {
+            canonicalizer.applyIncremental(graph, context, touched, mark);
+        }
+    }
+
+    private static void reduce(LoopEx loop, BasicInductionVariable biv, Map<Node, InductionVariable> ivs, List<Node> touched) {
+        List<DerivedInductionVariable> candidates = new ArrayList<>();
+        for (InductionVariable iv : ivs.values()) {
+            if (iv instanceof DerivedInductionVariable && iv.valueNode().isAlive() && isAddressComputation(loop, iv.valueNode()) && rootOf(iv) == biv && isLinear(loop, (DerivedInductionVariable) iv)) {
+                candidates.add((DerivedInductionVariable) iv);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        // the induction variables with the most address usages save the most work
+        candidates.sort((a, b) -> addressUsages(b.valueNode()) - addressUsages(a.valueNode()));
+
+        ValuePhiNode phi = biv.valueNode();
+        CompareNode exitTest = exitTest(loop, biv);
+        DerivedInductionVariable exitCandidate = null;
+        if (exitTest != null) {
+            for (DerivedInductionVariable candidate : candidates) {
+                if (isMonotonic(candidate)) {
+                    exitCandidate = candidate;
+                    break;
+                }
+            }
+        }
+
+        NodeBitMap chains = phi.graph().createNodeBitMap();
+        for (DerivedInductionVariable candidate : candidates) {
+            for (InductionVariable iv = candidate; iv != biv; iv = ((DerivedInductionVariable) iv).getBase()) {
+                chains.mark(iv.valueNode());
+            }
+        }
+        boolean bivLive = isUsedOutside(phi, chains, candidates, biv.getOp(), exitCandidate == null ? null : exitTest) || isUsedOutside(biv.getOp(), chains, candidates, phi, null);
+
+        /*
+         * Before the transformation, the basic induction variable is the only value live across the
+         * back edge. Afterwards, every reduced induction variable is live, plus the basic induction
+         * variable if it has other uses.
+         */
+        int allowed = 1 + LoopStrengthReductionMaxExtraPhis.getValue() - (bivLive ? 1 : 0);
+        if (candidates.size() > allowed) {
+            counterTooManyPhis.increment();
+            if (!bivLive) {
+                // reducing only some of them keeps the basic induction variable alive
+                allowed--;
+                bivLive = true;
+            }
+            if (allowed <= 0) {
+                return;
+            }
+            candidates = candidates.subList(0, allowed);
+        }
+
+        for (DerivedInductionVariable candidate : candidates) {
+            ValuePhiNode newPhi = createPhi(loop, candidate);
+            if (candidate == exitCandidate && !bivLive) {
+                rewriteExitTest(loop, biv, exitTest, candidate, newPhi);
+                counterExitTestsRewritten.increment();
+            }
+            ValueNode value = candidate.valueNode();
+            Debug.log("strength reduced %s to %s", value, newPhi);
+            value.replaceAtUsages(newPhi);
+            GraphUtil.killWithUnusedFloatingInputs(value);
+            touched.add(newPhi);
+            counterReduced.increment();
+        }
+        if (phi.isAlive() && !bivLive) {
+            killInductionVariable(phi, biv.getOp());
+            touched.add(phi);
+        }
+    }
+
+    private static boolean isAddressComputation(LoopEx loop, ValueNode value) {
+        return !loop.isOutsideLoop(value) && addressUsages(value) > 0;
+    }
+
+    private static int addressUsages(ValueNode value) {
+        return value.usages().filter(AddressNode.class).count();
+    }
+
+    private static InductionVariable rootOf(InductionVariable iv) {
+        InductionVariable current = iv;
+        while (current instanceof DerivedInductionVariable) {
+            current = ((DerivedInductionVariable) current).getBase();
+        }
+        return current;
+    }
+
+    /**
+     * Determines whether the value of {@code iv} can be computed by adding its stride in each
+     * iteration. This holds for additions and multiplications in two's complement arithmetic, but
+     * an integer conversion requires that the basic induction variable never wraps around.
+     */
+    private static boolean isLinear(LoopEx loop, DerivedInductionVariable iv) {
+        for (InductionVariable current = iv; current instanceof DerivedInductionVariable; current = ((DerivedInductionVariable) current).getBase()) {
+            if (current instanceof DerivedConvertedInductionVariable && current.valueNode() instanceof IntegerConvertNode) {
+                return !wrapsAround(loop, (BasicInductionVariable) rootOf(iv));
+            }
+        }
+        return true;
+    }
+
+    private static boolean wrapsAround(LoopEx loop, BasicInductionVariable biv) {
+        if (!biv.isConstantStride()) {
+            return true;
+        }
+        long stride = biv.constantStride();
+        IntegerStamp stamp = (IntegerStamp) biv.valueNode().stamp();
+        long max = CodeUtil.maxValue(stamp.getBits());
+        long min = CodeUtil.minValue(stamp.getBits());
+        long last;
+        if (loop.isCounted() && loop.counted().getCounter() == biv) {
+            // the value of the counter in the loop body is bounded by the limit
+            CountedLoopInfo counted = loop.counted();
+            IntegerStamp limitStamp = (IntegerStamp) counted.getLimit().stamp();
+            long off = counted.isLimitIncluded() ? 0 : 1;
+            last = stride > 0 ? limitStamp.upperBound() - off : limitStamp.lowerBound() + off;
+        } else {
+            last = stride > 0 ? stamp.upperBound() : stamp.lowerBound();
+        }
+        return stride > 0 ? last > max - stride : last < min - stride;
+    }
+
+    /**
+     * Determines whether {@code iv} is a strictly increasing function of its basic induction
+     * variable that cannot overflow, so that the exit test can be evaluated on it instead. This is
+     * the case for the sign extended, positively scaled and offset indexes of array accesses.
+     */
+    private static boolean isMonotonic(DerivedInductionVariable iv) {
+        boolean widened = false;
+        for (InductionVariable current = iv; current instanceof DerivedInductionVariable; current = ((DerivedInductionVariable) current).getBase()) {
+            if (current instanceof DerivedConvertedInductionVariable) {
+                if (current.valueNode() instanceof SignExtendNode) {
+                    SignExtendNode convert = (SignExtendNode) current.valueNode();
+                    if (convert.getInputBits() > 32 || convert.getResultBits() != 64) {
+                        return false;
+                    }
+                    widened = true;
+                } else if (current.valueNode() instanceof IntegerConvertNode) {
+                    return false;
+                }
+            } else if (current instanceof DerivedScaledInductionVariable) {
+                ValueNode scale = ((DerivedScaledInductionVariable) current).getScale();
+                if (!scale.isConstant() || scale.asJavaConstant().asLong() <= 0 || scale.asJavaConstant().asLong() > (1 << 16) || !isWide(current)) {
+                    return false;
+                }
+            } else if (current instanceof DerivedOffsetInductionVariable) {
+                ValueNode offset = ((DerivedOffsetInductionVariable) current).getOffset();
+                if (!offset.isConstant() || Math.abs(offset.asJavaConstant().asLong()) > Integer.MAX_VALUE || !isWide(current) || current.valueNode() instanceof SubNode &&
+                                ((SubNode) current.valueNode()).getY() != offset) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return widened;
+    }
+
+    private static boolean isWide(InductionVariable iv) {
+        return ((IntegerStamp) iv.valueNode().stamp()).getBits() == 64;
+    }
+
+    /**
+     * @return the exit test of {@code loop} if it is a counted loop that compares {@code biv}
+     *         against its limit, otherwise null
+     */
+    private static CompareNode exitTest(LoopEx loop, BasicInductionVariable biv) {
+        if (!loop.isCounted() || loop.counted().getCounter() != biv || !(loop.counted().getBody().predecessor() instanceof IfNode)) {
+            return null;
+        }
+        IfNode ifNode = (IfNode) loop.counted().getBody().predecessor();
+        CompareNode compare = (CompareNode) ifNode.condition();
+        if (compare.getUsageCount() != 1 || (compare.getX() != biv.valueNode() && compare.getY() != biv.valueNode())) {
+            return null;
+        }
+        return compare;
+    }
+
+    /**
+     * Determines whether {@code node} has usages other than the nodes of the reduced induction
+     * variables, {@code ignored} and {@code exitTest}.
+     */
+    private static boolean isUsedOutside(ValueNode node, NodeBitMap chains, List<DerivedInductionVariable> candidates, Node ignored, CompareNode exitTest) {
+        for (Node usage : node.usages()) {
+            if (usage != ignored && usage != exitTest && !(chains.isMarked(usage) && isReplaced((ValueNode) usage, chains, candidates))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether {@code node} becomes dead when the candidates are replaced.
+     */
+    private static boolean isReplaced(ValueNode node, NodeBitMap chains, List<DerivedInductionVariable> candidates) {
+        for (DerivedInductionVariable candidate : candidates) {
+            if (candidate.valueNode() == node) {
+                return true;
+            }
+        }
+        for (Node usage : node.usages()) {
+            if (!chains.isMarked(usage) || !isReplaced((ValueNode) usage, chains, candidates)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ValuePhiNode createPhi(LoopEx loop, DerivedInductionVariable iv) {
+        StructuredGraph graph = iv.graph();
+        LoopBeginNode loopBegin = loop.loopBegin();
+        ValuePhiNode newPhi = graph.addWithoutUnique(new ValuePhiNode(iv.valueNode().stamp().unrestricted(), loopBegin));
+        newPhi.addInput(iv.initNode());
+        ValueNode increment = add(graph, newPhi, iv.strideNode());
+        for (int i = 0; i < loopBegin.loopEnds().count(); i++) {
+            newPhi.addInput(increment);
+        }
+        return newPhi;
+    }
+
+    /**
+     * Replaces the comparison of {@code biv} against the limit by a comparison of {@code newPhi}
+     * against the limit transformed like {@code iv}.
+     */
+    private static void rewriteExitTest(LoopEx loop, BasicInductionVariable biv, CompareNode exitTest, DerivedInductionVariable iv, ValuePhiNode newPhi) {
+        ValueNode limit = loop.counted().getLimit();
+        ValueNode transformedLimit = transform(iv, biv, limit);
+        CompareNode newTest = (CompareNode) exitTest.copyWithInputs();
+        newTest.replaceFirstInput(biv.valueNode(), newPhi);
+        newTest.replaceFirstInput(limit, transformedLimit);
+        exitTest.replaceAtUsages(newTest);
+        GraphUtil.killWithUnusedFloatingInputs(exitTest);
+    }
+
+    /**
+     * Computes the value {@code iv} would have if its basic induction variable had the value
+     * {@code value}.
+     */
+    private static ValueNode transform(InductionVariable iv, BasicInductionVariable biv, ValueNode value) {
+        if (iv == biv) {
+            return value;
+        }
+        InductionVariable base = ((DerivedInductionVariable) iv).getBase();
+        ValueNode transformedBase = transform(base, biv, value);
+        ValueNode copy = (ValueNode) iv.valueNode().copyWithInputs();
+        copy.replaceFirstInput(base.valueNode(), transformedBase);
+        return copy;
+    }
+
+    /**
+     * Removes a basic induction variable that is only used by its own increment.
+     */
+    private static void killInductionVariable(ValuePhiNode phi, ValueNode increment) {
+        for (int i = 1; i < phi.valueCount(); i++) {
+            phi.setValueAt(i, phi);
+        }
+        if (increment.hasNoUsages()) {
+            GraphUtil.killWithUnusedFloatingInputs(increment);
+        }
+    }
+}
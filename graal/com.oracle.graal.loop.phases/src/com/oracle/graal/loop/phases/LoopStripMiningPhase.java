@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.loop.MathUtil.add;
+import static com.oracle.graal.loop.MathUtil.sub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.oracle.graal.compiler.common.cfg.Loop;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.LoopExitNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.ProxyNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.ValueProxyNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.code.CodeUtil;
+
+/**
+ * Nests long running counted loops into an outer loop that executes at most a fixed number of
+ * iterations of the original loop per outer iteration:
+ *
+ * <pre>
+ * for (i = init; i &lt; limit; i += stride) {
+ *     body;
+ * }
+ * </pre>
+ *
+ * becomes
+ *
+ * <pre>
+ * for (i = init; i &lt; limit;) {
+ *     stripLimit = limit - i |&gt;| chunk ? i + chunk : limit;
+ *     for (; i &lt; stripLimit; i += stride) {
+ *         body;
+ *     }
+ * }
+ * </pre>
+ *
+ * where {@code chunk} is the strip length multiplied by the stride. The inner loop runs without a
+ * safepoint poll and the outer loop keeps the poll, so that the time to safepoint is bounded by
+ * the time of one strip instead of the time of the whole loop. The distance to the limit is
+ * compared unsigned because it cannot be negative once the outer loop test has passed, which also
+ * makes the computation of {@code i + chunk} overflow free.
+ *
+ * The phase works on graphs that still have value proxies and floating guards. Only innermost
+ * counted loops whose exit test is the only loop exit and compares a basic induction variable with
+ * a constant stride are transformed.
+ */
+public class LoopStripMiningPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugCounter STRIP_MINED = Debug.counter("LoopStripMining[mined]");
+    private static final DebugCounter TOO_SHORT = Debug.counter("LoopStripMining[tooShort]");
+    private static final DebugCounter UNSUPPORTED = Debug.counter("LoopStripMining[unsupported]");
+
+    private final int stripLength;
+
+    /**
+     * @param stripLength the maximum number of iterations of the original loop that are executed
+     *            between two safepoint polls
+     */
+    public LoopStripMiningPhase(int stripLength) {
+        assert stripLength > 0;
+        this.stripLength = stripLength;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (!context.getOptimisticOptimizations().useLoopLimitChecks() || !graph.getGuardsStage().allowsFloatingGuards() || !graph.hasValueProxies()) {
+            return;
+        }
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        List<LoopEx> candidates = new ArrayList<>();
+        for (LoopEx loop : loops.countedLoops()) {
+            if (loop.loop().getChildren().isEmpty() && !containsSafepoint(loop.loop())) {
+                candidates.add(loop);
+            }
+        }
+        for (LoopEx loop : candidates) {
+            CountedLoopInfo counted = loop.counted();
+            if (counted.maxTripCountUpperBound() <= stripLength) {
+                TOO_SHORT.increment();
+                continue;
+            }
+            long chunk = chunk(counted.getCounter());
+            if (chunk <= 0 || !isSupported(loop)) {
+                UNSUPPORTED.increment();
+                continue;
+            }
+            counted.createOverFlowGuard();
+            stripMine(loop, chunk);
+            STRIP_MINED.increment();
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    /**
+     * Loops containing calls are left alone since the calls poll themselves or keep the loop end
+     * poll (see {@link LoopSafepointEliminationPhase}).
+     */
+    private static boolean containsSafepoint(Loop<Block> loop) {
+        for (Block block : loop.getBlocks()) {
+            for (FixedNode node : block.getNodes()) {
+                if (node instanceof Invoke || node instanceof ForeignCallNode) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the distance the induction variable travels in one strip, or 0 if it does not fit
+     * into the induction variable's type.
+     */
+    private long chunk(InductionVariable counter) {
+        if (!(counter instanceof BasicInductionVariable) || !counter.isConstantStride()) {
+            return 0;
+        }
+        long stride = Math.abs(counter.constantStride());
+        IntegerStamp stamp = (IntegerStamp) counter.valueNode().stamp();
+        if (stride == 0 || stride > CodeUtil.maxValue(stamp.getBits()) / stripLength) {
+            return 0;
+        }
+        return stride * stripLength;
+    }
+
+    private static boolean isSupported(LoopEx loop) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        if (!(loopBegin.next() instanceof IfNode) || loopBegin.loopExits().count() != 1 || loopBegin.stateAfter() == null) {
+            return false;
+        }
+        for (PhiNode phi : loopBegin.phis()) {
+            if (!(phi instanceof ValuePhiNode)) {
+                return false;
+            }
+        }
+        LoopExitNode exit = loopBegin.loopExits().first();
+        for (ProxyNode proxy : exit.proxies()) {
+            if (!(proxy instanceof ValueProxyNode) || !(proxy.value() instanceof PhiNode) || ((PhiNode) proxy.value()).merge() != loopBegin) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void stripMine(LoopEx loop, long chunkValue) {
+        StructuredGraph graph = loop.loopBegin().graph();
+        CountedLoopInfo counted = loop.counted();
+        LoopBeginNode loopBegin = loop.loopBegin();
+        IfNode exitTest = (IfNode) loopBegin.next();
+        LoopExitNode exit = loopBegin.loopExits().first();
+        boolean exitIsTrueSuccessor = exitTest.trueSuccessor() == exit;
+        ValuePhiNode counter = (ValuePhiNode) counted.getCounter().valueNode();
+        ValueNode limit = counted.getLimit();
+
+        /* The outer loop carries the values of all inner loop phis. */
+        LoopBeginNode outerBegin = graph.add(new LoopBeginNode());
+        outerBegin.setLoopFrequency(Math.max(1, loopBegin.loopFrequency() / stripLength));
+        EndNode forwardEnd = (EndNode) loopBegin.forwardEnd();
+        EndNode innerForwardEnd = graph.add(new EndNode());
+        loopBegin.replaceFirstInput(forwardEnd, innerForwardEnd);
+        outerBegin.addForwardEnd(forwardEnd);
+
+        LoopEndNode outerEnd = graph.add(new LoopEndNode(outerBegin));
+        Map<Node, Node> outerPhis = new HashMap<>();
+        Map<ValueNode, ValueProxyNode> innerProxies = new HashMap<>();
+        for (ValueProxyNode proxy : exit.proxies().filter(ValueProxyNode.class)) {
+            innerProxies.put(proxy.value(), proxy);
+        }
+        for (PhiNode phi : loopBegin.phis().snapshot()) {
+            ValuePhiNode outerPhi = graph.addWithoutUnique(new ValuePhiNode(phi.stamp(), outerBegin));
+            outerPhi.addInput(phi.valueAt(0));
+            ValueProxyNode proxy = innerProxies.get(phi);
+            if (proxy == null) {
+                proxy = ProxyNode.forValue(phi, exit, graph);
+                innerProxies.put(phi, proxy);
+            }
+            outerPhi.addInput(proxy);
+            phi.setValueAt(0, outerPhi);
+            outerPhis.put(phi, outerPhi);
+        }
+        Set<Node> outerBeginState = new HashSet<>();
+        outerBegin.setStateAfter(duplicateState(loopBegin.stateAfter(), outerBeginState));
+        for (Map.Entry<Node, Node> entry : outerPhis.entrySet()) {
+            entry.getKey().replaceAtUsages(entry.getValue(), outerBeginState::contains);
+        }
+
+        /* The outer loop test is the original exit test on the outer phis. */
+        ValuePhiNode outerCounter = (ValuePhiNode) outerPhis.get(counter);
+        LogicNode outerCondition = duplicate(exitTest.condition(), counter, outerCounter);
+        LoopExitNode outerExit = graph.add(new LoopExitNode(outerBegin));
+        AbstractBeginNode outerBody = graph.add(new BeginNode());
+        double exitProbability = exitTest.probability(exit);
+        IfNode outerTest;
+        if (exitIsTrueSuccessor) {
+            outerTest = graph.add(new IfNode(outerCondition, outerExit, outerBody, exitProbability));
+        } else {
+            outerTest = graph.add(new IfNode(outerCondition, outerBody, outerExit, 1 - exitProbability));
+        }
+        outerBegin.setNext(outerTest);
+        outerBody.setNext(innerForwardEnd);
+
+        FixedNode continuation = exit.next();
+        exit.setNext(null);
+        outerExit.setNext(continuation);
+        exit.setNext(outerEnd);
+
+        /* Everything after the loop now hangs off the outer loop exit. */
+        exit.replaceAtUsages(outerExit, usage -> !(usage instanceof ProxyNode && ((ProxyNode) usage).proxyPoint() == exit));
+        FrameState exitState = exit.stateAfter();
+        Set<Node> innerExitState = new HashSet<>();
+        if (exitState != null) {
+            exit.setStateAfter(duplicateState(exitState, innerExitState));
+        }
+        for (Map.Entry<ValueNode, ValueProxyNode> entry : innerProxies.entrySet()) {
+            ValuePhiNode outerPhi = (ValuePhiNode) outerPhis.get(entry.getKey());
+            ValueProxyNode proxy = entry.getValue();
+            ValueProxyNode outerProxy = ProxyNode.forValue(outerPhi, outerExit, graph);
+            proxy.replaceAtUsages(outerProxy, usage -> usage != outerPhi && !innerExitState.contains(usage));
+        }
+        outerExit.setStateAfter(exitState);
+
+        /* The inner loop runs up to the strip limit without polling. */
+        ConstantNode chunk = ConstantNode.forIntegerStamp(counter.stamp(), chunkValue, graph);
+        ValueNode distance;
+        ValueNode stripEnd;
+        if (counted.getCounter().direction() == Direction.Up) {
+            distance = sub(graph, limit, outerCounter);
+            stripEnd = add(graph, outerCounter, chunk);
+        } else {
+            distance = sub(graph, outerCounter, limit);
+            stripEnd = sub(graph, outerCounter, chunk);
+        }
+        LogicNode fullStrip = graph.unique(new IntegerBelowNode(chunk, distance));
+        ValueNode stripLimit = graph.unique(new ConditionalNode(fullStrip, stripEnd, limit));
+        exitTest.setCondition(duplicate(exitTest.condition(), limit, stripLimit));
+        loopBegin.disableSafepoint();
+        Debug.dump(Debug.VERBOSE_LOG_LEVEL, graph, "after strip mining %s", loopBegin);
+    }
+
+    private static LogicNode duplicate(LogicNode condition, ValueNode original, ValueNode replacement) {
+        Map<Node, Node> replacements = new HashMap<>();
+        replacements.put(original, replacement);
+        Map<Node, Node> duplicates = condition.graph().addDuplicates(Collections.singletonList(condition), condition.graph(), 1, replacements);
+        return (LogicNode) duplicates.get(condition);
+    }
+
+    /**
+     * Creates a deep copy of {@code state} and adds the copied nodes to {@code copies}.
+     */
+    private static FrameState duplicateState(FrameState state, Set<Node> copies) {
+        FrameState copy = state.duplicateWithVirtualState();
+        for (FrameState current = copy; current != null; current = current.outerFrameState()) {
+            copies.add(current);
+            copies.addAll(current.virtualObjectMappings());
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.compiler.common.GraalOptions.DeoptsToDisableOptimisticOptimization;
+import static com.oracle.graal.compiler.common.GraalOptions.SpeculativeLoopInvariantMotionMinFrequency;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.LoopExitNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.memory.ReadNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
+import jdk.vm.ci.meta.SpeculationLog.SpeculationReason;
+
+/**
+ * Hoists loop invariant guards and fixed reads out of loops.
+ *
+ * A guard whose condition does not depend on the loop is moved to the loop pre-header. This is
+ * speculative since the loop may run zero times, or the guard may be anchored in a branch of the
+ * loop body that is not taken: the hoisted guard can fail where the original one would never have
+ * been evaluated. Guards are therefore only hoisted if their block is expected to execute at least
+ * {@link com.oracle.graal.compiler.common.GraalOptions#SpeculativeLoopInvariantMotionMinFrequency}
+ * times per loop entry and if the profile does not show frequent deoptimizations for their reason.
+ * Hoisted guards invalidate the code when they fail. If the graph has a speculation log, they also
+ * carry a speculation for the loop, so that the recompiled code leaves the guards of that loop
+ * where they are.
+ *
+ * Once their guards are hoisted, fixed reads whose inputs are all defined outside the loop and
+ * whose location is not killed inside the loop are moved to the pre-header as well. This is not
+ * speculative for a read with a guard, since a read that is guarded outside the loop can be
+ * executed anywhere below the guard. Raw and unsafe reads have no guard and may fault if executed
+ * where the original program would not have executed them, so they are only hoisted if they run
+ * whenever the loop is entered: their block must dominate all loop exits and the loop must be
+ * known to run at least once.
+ *
+ * Loops are processed inner loops first, so that guards and reads can move out of a whole loop
+ * nest.
+ */
+public class SpeculativeLoopInvariantMotionPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugCounter GUARDS_HOISTED = Debug.counter("SpeculativeLoopInvariantMotion[guardsHoisted]");
+    private static final DebugCounter READS_HOISTED = Debug.counter("SpeculativeLoopInvariantMotion[readsHoisted]");
+    private static final DebugCounter UNGUARDED_READS_KEPT = Debug.counter("SpeculativeLoopInvariantMotion[unguardedReadsKept]");
+    private static final DebugCounter INFREQUENT = Debug.counter("SpeculativeLoopInvariantMotion[infrequent]");
+    private static final DebugCounter SPECULATION_FAILED = Debug.counter("SpeculativeLoopInvariantMotion[speculationFailed]");
+
+    /**
+     * Identifies the guards hoisted out of one loop for the speculation log.
+     */
+    static final class HoistedGuardSpeculationReason implements SpeculationReason {
+
+        private final ResolvedJavaMethod method;
+        private final int bci;
+        private final DeoptimizationReason reason;
+
+        HoistedGuardSpeculationReason(ResolvedJavaMethod method, int bci, DeoptimizationReason reason) {
+            this.method = method;
+            this.bci = bci;
+            this.reason = reason;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof HoistedGuardSpeculationReason) {
+                HoistedGuardSpeculationReason other = (HoistedGuardSpeculationReason) obj;
+                return method.equals(other.method) && bci == other.bci && reason == other.reason;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return method.hashCode() * 31 + bci * 7 + reason.ordinal();
+        }
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (!graph.getGuardsStage().allowsFloatingGuards()) {
+            return;
+        }
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        for (LoopEx loop : loops.innerFirst()) {
+            FrameState loopState = loop.loopBegin().stateAfter();
+            if (loopState == null) {
+                continue;
+            }
+            AbstractBeginNode preHeader = AbstractBeginNode.prevBegin(loop.entryPoint());
+            Block preHeaderBlock = loops.getCFG().blockFor(preHeader);
+            boolean progress;
+            do {
+                progress = false;
+                for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class).snapshot()) {
+                    if (hoistGuard(graph, loops, loop, loopState, preHeader, preHeaderBlock, guard)) {
+                        progress = true;
+                    }
+                }
+                if (progress) {
+                    /* Values guarded by the hoisted guards may have become invariant. */
+                    loop.invalidateFragments();
+                }
+            } while (progress);
+            for (ReadNode read : loop.whole().nodes().filter(ReadNode.class).snapshot()) {
+                if (!read.getNullCheck() && isInvariant(loop, read) && !isKilledInLoop(loop, read.getLocationIdentity())) {
+                    if (read.getGuard() == null && !executesOnLoopEntry(loops, loop, read)) {
+                        UNGUARDED_READS_KEPT.increment();
+                        continue;
+                    }
+                    GraphUtil.unlinkFixedNode(read);
+                    graph.addBeforeFixed(loop.entryPoint(), read);
+                    READS_HOISTED.increment();
+                }
+            }
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    private static boolean hoistGuard(StructuredGraph graph, LoopsData loops, LoopEx loop, FrameState loopState, AbstractBeginNode preHeader, Block preHeaderBlock, GuardNode guard) {
+        if (!(guard.getAnchor() instanceof AbstractBeginNode) || !loop.isOutsideLoop(guard.getCondition())) {
+            return false;
+        }
+        Block anchorBlock = loops.getCFG().blockFor((AbstractBeginNode) guard.getAnchor());
+        if (anchorBlock == null || !loop.loop().getBlocks().contains(anchorBlock)) {
+            return false;
+        }
+        if (anchorBlock.probability() < preHeaderBlock.probability() * SpeculativeLoopInvariantMotionMinFrequency.getValue()) {
+            INFREQUENT.increment();
+            return false;
+        }
+        JavaConstant speculation = speculate(graph, loopState, guard.getReason());
+        if (speculation == null) {
+            return false;
+        }
+        GuardNode hoisted = graph.unique(new GuardNode(guard.getCondition(), preHeader, guard.getReason(), DeoptimizationAction.InvalidateRecompile, guard.isNegated(), speculation));
+        guard.replaceAndDelete(hoisted);
+        GUARDS_HOISTED.increment();
+        return true;
+    }
+
+    /**
+     * Returns the speculation for hoisting a guard with the given reason out of the loop with the
+     * given state, or {@code null} if hoisting such guards failed too often before.
+     */
+    private static JavaConstant speculate(StructuredGraph graph, FrameState loopState, DeoptimizationReason reason) {
+        if (graph.getProfilingInfo(loopState.method()).getDeoptimizationCount(reason) >= DeoptsToDisableOptimisticOptimization.getValue()) {
+            SPECULATION_FAILED.increment();
+            return null;
+        }
+        SpeculationLog speculationLog = graph.getSpeculationLog();
+        if (speculationLog == null) {
+            return JavaConstant.NULL_POINTER;
+        }
+        SpeculationReason speculationReason = new HoistedGuardSpeculationReason(loopState.method(), loopState.bci, reason);
+        if (!speculationLog.maySpeculate(speculationReason)) {
+            SPECULATION_FAILED.increment();
+            return null;
+        }
+        return speculationLog.speculate(speculationReason);
+    }
+
+    private static boolean isInvariant(LoopEx loop, ReadNode read) {
+        for (Node input : read.inputs()) {
+            if (!loop.isOutsideLoop(input)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if the given read is executed whenever the loop is entered, that is if the loop
+     * runs at least once and the block of the read dominates all exits of the loop.
+     */
+    private static boolean executesOnLoopEntry(LoopsData loops, LoopEx loop, ReadNode read) {
+        if (!loop.isCounted() || !loop.counted().isExactTripCount() || !loop.counted().isConstantExactTripCount() || loop.counted().constantExactTripCount() < 1) {
+            return false;
+        }
+        Block readBlock = loops.getCFG().blockFor(read);
+        if (readBlock == null) {
+            return false;
+        }
+        for (LoopExitNode exit : loop.loopBegin().loopExits()) {
+            Block exitBlock = loops.getCFG().blockFor(exit);
+            if (exitBlock == null || !AbstractControlFlowGraph.dominates(readBlock, exitBlock)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isKilledInLoop(LoopEx loop, LocationIdentity location) {
+        for (Block block : loop.loop().getBlocks()) {
+            for (FixedNode node : block.getNodes()) {
+                if (node instanceof MemoryCheckpoint.Single) {
+                    if (location.overlaps(((MemoryCheckpoint.Single) node).getLocationIdentity())) {
+                        return true;
+                    }
+                } else if (node instanceof MemoryCheckpoint.Multi) {
+                    for (LocationIdentity killed : ((MemoryCheckpoint.Multi) node).getLocationIdentities()) {
+                        if (location.overlaps(killed)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
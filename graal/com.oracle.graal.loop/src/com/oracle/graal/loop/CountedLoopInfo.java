@@ -91,14 +91,49 @@ public class CountedLoopInfo {
     }
 
     public boolean isConstantMaxTripCount() {
-        return end instanceof ConstantNode && iv.isConstantInit() && iv.isConstantStride();
+        return end instanceof ConstantNode && iv.isConstantInit() && iv.isConstantStride() && constantTripCount(iv.constantInit(), end.asJavaConstant().asLong(), iv.constantStride()) >= 0;
     }
 
     public long constantMaxTripCount() {
         assert iv.direction() != null;
+        long max = constantTripCount(iv.constantInit(), ((ConstantNode) end).asJavaConstant().asLong(), iv.constantStride());
+        assert max >= 0 : "trip count overflow";
+        return max;
+    }
+
+    /**
+     * Returns an upper bound of the trip count that is derived from the stamps of the start and
+     * the limit of the loop, or {@link Long#MAX_VALUE} if the range of the induction variable is
+     * not bounded by the stamps.
+     */
+    public long maxTripCountUpperBound() {
+        IntegerStamp initStamp = (IntegerStamp) iv.initNode().stamp();
+        IntegerStamp limitStamp = (IntegerStamp) end.stamp();
+        long stride = iv.isConstantStride() ? iv.constantStride() : 1;
+        long bound;
+        if (iv.direction() == Direction.Up) {
+            bound = constantTripCount(initStamp.lowerBound(), limitStamp.upperBound(), Math.max(stride, 1));
+        } else {
+            assert iv.direction() == Direction.Down;
+            bound = constantTripCount(initStamp.upperBound(), limitStamp.lowerBound(), Math.min(stride, -1));
+        }
+        return bound < 0 ? Long.MAX_VALUE : bound;
+    }
+
+    /**
+     * Computes the trip count for constant bounds. The computation uses exact arithmetic since the
+     * range of a 64-bit induction variable does not necessarily fit into a {@code long}.
+     *
+     * @return the trip count or -1 if it cannot be represented
+     */
+    private long constantTripCount(long init, long limit, long stride) {
         long off = oneOff ? iv.direction() == Direction.Up ? 1 : -1 : 0;
-        long max = (((ConstantNode) end).asJavaConstant().asLong() + off - iv.constantInit()) / iv.constantStride();
-        return Math.max(0, max);
+        try {
+            long max = Math.subtractExact(Math.addExact(limit, off), init) / stride;
+            return Math.max(0, max);
+        } catch (ArithmeticException e) {
+            return -1;
+        }
     }
 
     public boolean isExactTripCount() {
@@ -417,7 +417,9 @@ public class LoopEx {
         if (op instanceof LeftShiftNode) {
             LeftShiftNode shift = (LeftShiftNode) op;
             if (shift.getX() == base && shift.getY().isConstant()) {
-                return ConstantNode.forIntegerStamp(base.stamp(), 1 << shift.getY().asJavaConstant().asInt(), base.graph());
+                int amount = shift.getY().asJavaConstant().asInt() & shift.getShiftAmountMask();
+                long scale = ((IntegerStamp) base.stamp()).getBits() > 32 ? 1L << amount : 1 << amount;
+                return ConstantNode.forIntegerStamp(base.stamp(), scale, base.graph());
             }
         }
         return null;
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the intrinsified checksums over heap and direct buffers of different sizes. The
+ * {@code crc32c} benchmarks measure {@link CRC32} on VMs without {@code java.util.zip.CRC32C}.
+ */
+@State(Scope.Thread)
+public class ChecksumBenchmark extends GraalBenchmark {
+
+    @Param({"64", "1024", "16384", "262144", "1048576"}) private int size;
+
+    private byte[] bytes;
+    private ByteBuffer direct;
+    private final CRC32 crc32 = new CRC32();
+    private final Adler32 adler32 = new Adler32();
+    private Checksum crc32c;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        bytes = new byte[size];
+        new Random(17).nextBytes(bytes);
+        direct = ByteBuffer.allocateDirect(size);
+        direct.put(bytes);
+        try {
+            crc32c = (Checksum) Class.forName("java.util.zip.CRC32C").newInstance();
+        } catch (ClassNotFoundException e) {
+            crc32c = new CRC32();
+        }
+    }
+
+    @Benchmark
+    public long crc32() {
+        crc32.reset();
+        crc32.update(bytes, 0, bytes.length);
+        return crc32.getValue();
+    }
+
+    @Benchmark
+    public long crc32Direct() {
+        crc32.reset();
+        direct.rewind();
+        crc32.update(direct);
+        return crc32.getValue();
+    }
+
+    @Benchmark
+    public long adler32() {
+        adler32.reset();
+        adler32.update(bytes, 0, bytes.length);
+        return adler32.getValue();
+    }
+
+    @Benchmark
+    public long adler32Direct() {
+        adler32.reset();
+        direct.rewind();
+        adler32.update(direct);
+        return adler32.getValue();
+    }
+
+    @Benchmark
+    public long crc32c() {
+        crc32c.reset();
+        crc32c.update(bytes, 0, bytes.length);
+        return crc32c.getValue();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks kernels with data dependent branches that are taken with a probability close to 50%,
+ * which benefit from if-conversion to conditional moves.
+ */
+public class ConditionalMoveBenchmark extends GraalBenchmark {
+
+    private static final int LENGTH = 4096;
+
+    @State(Scope.Benchmark)
+    public static class ThreadState {
+        final int[] data = randomInts(LENGTH, 1);
+        final int[] left = sortedRandomInts(LENGTH / 2, 2);
+        final int[] right = sortedRandomInts(LENGTH / 2, 3);
+        final int[] result = new int[LENGTH];
+
+        static int[] randomInts(int length, long seed) {
+            Random r = new Random(seed);
+            int[] array = new int[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = r.nextInt();
+            }
+            return array;
+        }
+
+        static int[] sortedRandomInts(int length, long seed) {
+            int[] array = randomInts(length, seed);
+            Arrays.sort(array);
+            return array;
+        }
+    }
+
+    @Benchmark
+    public int minMax(ThreadState state) {
+        int[] data = state.data;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < data.length; i++) {
+            int value = data[i];
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+        return max - min;
+    }
+
+    /**
+     * Sorting network for blocks of four elements, built from compare-exchange operations.
+     */
+    @Benchmark
+    public int[] sortBlocks(ThreadState state) {
+        int[] data = state.data;
+        int[] result = state.result;
+        for (int i = 0; i + 3 < data.length; i += 4) {
+            int a = data[i];
+            int b = data[i + 1];
+            int c = data[i + 2];
+            int d = data[i + 3];
+            int t;
+            if (a > b) {
+                t = a;
+                a = b;
+                b = t;
+            }
+            if (c > d) {
+                t = c;
+                c = d;
+                d = t;
+            }
+            if (a > c) {
+                t = a;
+                a = c;
+                c = t;
+            }
+            if (b > d) {
+                t = b;
+                b = d;
+                d = t;
+            }
+            if (b > c) {
+                t = b;
+                b = c;
+                c = t;
+            }
+            result[i] = a;
+            result[i + 1] = b;
+            result[i + 2] = c;
+            result[i + 3] = d;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int[] merge(ThreadState state) {
+        int[] left = state.left;
+        int[] right = state.right;
+        int[] result = state.result;
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < left.length && j < right.length) {
+            int l = left[i];
+            int r = right[j];
+            boolean takeLeft = l <= r;
+            result[k++] = takeLeft ? l : r;
+            i += takeLeft ? 1 : 0;
+            j += takeLeft ? 0 : 1;
+        }
+        while (i < left.length) {
+            result[k++] = left[i++];
+        }
+        while (j < right.length) {
+            result[k++] = right[j++];
+        }
+        return result;
+    }
+}
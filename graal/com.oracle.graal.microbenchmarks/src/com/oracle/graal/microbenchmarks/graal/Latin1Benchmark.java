@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the intrinsified Latin-1 encoding and inflation against the equivalent scalar loops.
+ * The {@code inflate} benchmark only reaches the intrinsic on VMs with compact strings.
+ */
+@State(Scope.Thread)
+public class Latin1Benchmark extends GraalBenchmark {
+
+    @Param({"16", "256", "4096", "65536"}) private int size;
+
+    private char[] chars;
+    private byte[] bytes;
+    private String latin1;
+    private CharBuffer charBuffer;
+    private ByteBuffer byteBuffer;
+    private final CharsetEncoder encoder = StandardCharsets.ISO_8859_1.newEncoder();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(17);
+        chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) (' ' + random.nextInt(0xFF - ' '));
+        }
+        bytes = new byte[size];
+        latin1 = new String(chars);
+        charBuffer = CharBuffer.wrap(chars);
+        byteBuffer = ByteBuffer.allocate(size);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        charBuffer.rewind();
+        byteBuffer.clear();
+        encoder.reset();
+        encoder.encode(charBuffer, byteBuffer, true);
+        return byteBuffer;
+    }
+
+    @Benchmark
+    public int encodeScalar() {
+        char[] src = chars;
+        byte[] dst = bytes;
+        int i = 0;
+        for (; i < src.length; i++) {
+            char c = src[i];
+            if (c > 0xFF) {
+                break;
+            }
+            dst[i] = (byte) c;
+        }
+        return i;
+    }
+
+    @Benchmark
+    public char[] inflate() {
+        return latin1.toCharArray();
+    }
+
+    @Benchmark
+    public char[] inflateScalar() {
+        byte[] src = bytes;
+        char[] dst = new char[src.length];
+        for (int i = 0; i < src.length; i++) {
+            dst[i] = (char) (src[i] & 0xFF);
+        }
+        return dst;
+    }
+}
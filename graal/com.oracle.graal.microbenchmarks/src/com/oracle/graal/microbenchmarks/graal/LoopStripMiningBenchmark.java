@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks long running counted loops with and without strip mining. Run with
+ * {@code -Dgraal.LoopStripMining=true} and different {@code -Dgraal.LoopStripMiningIterations}
+ * values to compare against the default configuration.
+ *
+ * The {@code sum*} benchmarks measure the throughput cost of the outer loop. The
+ * {@code timeToSafepoint} group measures the latency of a VM operation that needs a global
+ * safepoint while another thread is executing a long running loop, which is dominated by the time
+ * it takes the looping thread to reach a poll. Adding {@code -XX:+PrintSafepointStatistics} or
+ * {@code -Xlog:safepoint} shows the time to safepoint directly.
+ */
+public class LoopStripMiningBenchmark extends GraalBenchmark {
+
+    private static final int LENGTH = 1 << 22;
+
+    @State(Scope.Benchmark)
+    public static class ThreadState {
+        final int[] data = randomInts(LENGTH, 1);
+
+        static int[] randomInts(int length, long seed) {
+            Random r = new Random(seed);
+            int[] array = new int[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = r.nextInt();
+            }
+            return array;
+        }
+    }
+
+    @Benchmark
+    public int sumInt(ThreadState state) {
+        int[] data = state.data;
+        int sum = 0;
+        for (int i = 0; i < data.length; i++) {
+            sum += data[i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumLong(ThreadState state) {
+        int[] data = state.data;
+        long sum = 0;
+        for (long i = 0; i < data.length; i++) {
+            sum += data[(int) i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Group("timeToSafepoint")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int spin(ThreadState state) {
+        int sum = 0;
+        for (int i = 0; i < 16; i++) {
+            sum += sumInt(state);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Group("timeToSafepoint")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int safepoint() {
+        return Thread.getAllStackTraces().size();
+    }
+}
@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.microbenchmarks.lir;
 
+import static com.oracle.graal.compiler.common.GraalOptions.ColdBlockProbability;
+import static com.oracle.graal.compiler.common.GraalOptions.OptHotColdSplitting;
 import static com.oracle.graal.microbenchmarks.graal.util.GraalUtil.getGraph;
 import static com.oracle.graal.microbenchmarks.graal.util.GraalUtil.getMethodFromMethodSpec;
 
@@ -69,6 +71,7 @@ import com.oracle.graal.microbenchmarks.graal.util.MethodSpec;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.ScheduleResult;
 import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ColdBlockMarker;
 import com.oracle.graal.nodes.cfg.ControlFlowGraph;
 import com.oracle.graal.nodes.spi.LoweringProvider;
 import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
@@ -379,6 +382,9 @@ public abstract class GraalCompilerState {
         assert startBlock != null;
         assert startBlock.getPredecessorCount() == 0;
 
+        if (OptHotColdSplitting.getValue()) {
+            ColdBlockMarker.markColdBlocks(cfg, ColdBlockProbability.getValue());
+        }
         codeEmittingOrder = ComputeBlockOrder.computeCodeEmittingOrder(blocks.length, startBlock);
         linearScanOrder = ComputeBlockOrder.computeLinearScanOrder(blocks.length, startBlock);
 
@@ -428,7 +434,7 @@ public abstract class GraalCompilerState {
     }
 
     protected PreAllocationOptimizationContext createPreAllocationOptimizationContext() {
-        return new PreAllocationOptimizationContext(lirGenTool);
+        return new PreAllocationOptimizationContext(lirGenTool, request.backend.newRegisterAllocationConfig(registerConfig));
     }
 
     /**
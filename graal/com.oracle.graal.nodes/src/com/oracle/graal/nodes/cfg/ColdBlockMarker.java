@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.cfg;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.nodes.AbstractDeoptimizeNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.UnwindNode;
+
+/**
+ * Marks the {@linkplain Block#isCold() cold} blocks of a {@link ControlFlowGraph} so that the code
+ * emission order can move them out of line.
+ *
+ * A block is cold if its {@linkplain Block#probability() probability} relative to the method entry
+ * is below a given threshold, or if all paths leaving it end in a deoptimization or an exception
+ * unwind. The latter catches slow paths whose probability is not known to be small, such as
+ * exception handlers and the failure paths of snippets. The loop end blocks of a hot loop and a path
+ * from the loop header to each of them are kept hot, which keeps the backward jump of a hot loop
+ * next to the loop body.
+ */
+public final class ColdBlockMarker {
+
+    private static final DebugCounter COLD_BLOCKS = Debug.counter("ColdBlocks");
+
+    private ColdBlockMarker() {
+    }
+
+    /**
+     * Computes the {@linkplain Block#isCold() cold} flag of all blocks in {@code cfg}.
+     *
+     * @return the number of cold blocks
+     */
+    public static int markColdBlocks(ControlFlowGraph cfg, double coldProbability) {
+        Block[] blocks = cfg.getBlocks();
+        /*
+         * Visiting the blocks in postorder means that all forward successors of a block are already
+         * classified. Loop headers are not, so they conservatively keep their loop ends hot.
+         */
+        for (int i = blocks.length - 1; i >= 0; i--) {
+            Block block = blocks[i];
+            block.setCold(block != cfg.getStartBlock() && (block.probability() < coldProbability || endsInSlowPath(block)));
+        }
+        for (Block block : blocks) {
+            if (block.isCold() && block.isLoopEnd() && !block.getLoop().getHeader().isCold()) {
+                keepHot(block);
+            }
+        }
+        int count = 0;
+        for (Block block : blocks) {
+            if (block.isCold()) {
+                count++;
+            }
+        }
+        COLD_BLOCKS.add(count);
+        return count;
+    }
+
+    /**
+     * Clears the cold flag of {@code loopEnd} and of its most likely predecessors until a hot
+     * block is reached. This terminates at the latest at the hot loop header.
+     */
+    private static void keepHot(Block loopEnd) {
+        Block block = loopEnd;
+        while (block != null && block.isCold()) {
+            block.setCold(false);
+            Block hottest = null;
+            for (Block predecessor : block.getPredecessors()) {
+                if (!predecessor.isCold()) {
+                    return;
+                }
+                if (hottest == null || predecessor.probability() > hottest.probability()) {
+                    hottest = predecessor;
+                }
+            }
+            block = hottest;
+        }
+    }
+
+    private static boolean endsInSlowPath(Block block) {
+        if (block.getSuccessorCount() == 0) {
+            FixedNode end = block.getEndNode();
+            return end instanceof AbstractDeoptimizeNode || end instanceof UnwindNode;
+        }
+        for (Block successor : block.getSuccessors()) {
+            if (!successor.isCold() || successor.isLoopHeader()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
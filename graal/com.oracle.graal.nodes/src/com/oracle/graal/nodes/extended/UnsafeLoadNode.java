@@ -38,6 +38,7 @@ import com.oracle.graal.nodes.spi.Lowerable;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.nodes.spi.Virtualizable;
 import com.oracle.graal.nodes.spi.VirtualizerTool;
+import com.oracle.graal.nodes.virtual.VirtualArrayNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 
 /**
@@ -80,7 +81,9 @@ public final class UnsafeLoadNode extends UnsafeAccessNode implements Lowerable,
                 if (entryIndex != -1) {
                     ValueNode entry = tool.getEntry(virtual, entryIndex);
                     JavaKind entryKind = virtual.entryKind(entryIndex);
-                    if (entry.getStackKind() == getStackKind() || entryKind == accessKind()) {
+                    // all sub-word array elements have stack kind int, so they must match exactly
+                    boolean subWordArray = virtual instanceof VirtualArrayNode && getStackKind() == JavaKind.Int;
+                    if (entryKind == accessKind() || (entry.getStackKind() == getStackKind() && !subWordArray)) {
                         tool.replaceWith(entry);
                     }
                 }
@@ -42,6 +42,7 @@ import com.oracle.graal.nodes.spi.Lowerable;
 import com.oracle.graal.nodes.spi.LoweringTool;
 import com.oracle.graal.nodes.spi.Virtualizable;
 import com.oracle.graal.nodes.spi.VirtualizerTool;
+import com.oracle.graal.nodes.virtual.VirtualArrayNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 
 /**
@@ -104,7 +105,9 @@ public final class UnsafeStoreNode extends UnsafeAccessNode implements StateSpli
                 if (entryIndex != -1) {
                     JavaKind entryKind = virtual.entryKind(entryIndex);
                     ValueNode entry = tool.getEntry(virtual, entryIndex);
-                    if (entry.getStackKind() == value.getStackKind() || entryKind == accessKind()) {
+                    // all sub-word array elements have stack kind int, so they must match exactly
+                    boolean subWordArray = virtual instanceof VirtualArrayNode && value.getStackKind() == JavaKind.Int;
+                    if (entryKind == accessKind() || (entry.getStackKind() == value.getStackKind() && !subWordArray)) {
                         tool.setVirtualEntry(virtual, entryIndex, value(), true);
                         tool.delete();
                     } else {
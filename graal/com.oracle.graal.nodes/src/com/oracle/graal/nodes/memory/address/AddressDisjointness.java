@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.memory.address;
+
+import com.oracle.graal.compiler.common.type.AbstractObjectStamp;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.compiler.common.type.PrimitiveStamp;
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.LeftShiftNode;
+import com.oracle.graal.nodes.calc.MulNode;
+import com.oracle.graal.nodes.calc.SignExtendNode;
+import com.oracle.graal.nodes.calc.SubNode;
+import com.oracle.graal.nodes.java.AbstractNewObjectNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+
+import jdk.vm.ci.code.CodeUtil;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Decides whether two memory accesses provably touch disjoint memory. Two {@link OffsetAddressNode
+ * addresses} are disjoint if either their bases are provably different objects, or they share a
+ * base and their offsets are {@code scale * x + c1} and {@code scale * x + c2} for the same value
+ * {@code x} with non-overlapping {@code [c, c + size)} ranges.
+ *
+ * The answer is only meaningful if both addresses are evaluated in the same straight-line piece of
+ * code, i.e., every floating value they depend on has the same value for both of them.
+ */
+public final class AddressDisjointness {
+
+    private AddressDisjointness() {
+    }
+
+    /**
+     * @param xStamp the stamp of the value read from or written to {@code x}, which determines the
+     *            size of the access
+     * @param yStamp the stamp of the value read from or written to {@code y}
+     */
+    public static boolean isDisjoint(AddressNode x, Stamp xStamp, AddressNode y, Stamp yStamp) {
+        if (!(x instanceof OffsetAddressNode) || !(y instanceof OffsetAddressNode)) {
+            return false;
+        }
+        OffsetAddressNode a = (OffsetAddressNode) x;
+        OffsetAddressNode b = (OffsetAddressNode) y;
+        ValueNode aBase = GraphUtil.unproxify(a.getBase());
+        ValueNode bBase = GraphUtil.unproxify(b.getBase());
+        if (aBase != bBase) {
+            return isDistinctObject(aBase, bBase);
+        }
+
+        Offset aOffset = Offset.decompose(a.getOffset());
+        Offset bOffset = Offset.decompose(b.getOffset());
+        if (aOffset.index != bOffset.index || aOffset.scale != bOffset.scale) {
+            return false;
+        }
+        long aSize = accessSize(xStamp);
+        long bSize = accessSize(yStamp);
+        return aOffset.displacement + aSize <= bOffset.displacement || bOffset.displacement + bSize <= aOffset.displacement;
+    }
+
+    private static long accessSize(Stamp stamp) {
+        if (stamp instanceof PrimitiveStamp) {
+            return Math.max(1, ((PrimitiveStamp) stamp).getBits() / 8);
+        }
+        /* References and anything else: assume the widest possible access. */
+        return JavaKind.Long.getByteCount();
+    }
+
+    private static boolean isDistinctObject(ValueNode a, ValueNode b) {
+        if (a instanceof AbstractNewObjectNode && b instanceof AbstractNewObjectNode) {
+            return true;
+        }
+        if (!(a.stamp() instanceof AbstractObjectStamp) || !(b.stamp() instanceof AbstractObjectStamp)) {
+            return false;
+        }
+        AbstractObjectStamp aStamp = (AbstractObjectStamp) a.stamp();
+        AbstractObjectStamp bStamp = (AbstractObjectStamp) b.stamp();
+        return excludes(aStamp, bStamp) || excludes(bStamp, aStamp);
+    }
+
+    /**
+     * Returns true if no object of the exact type of {@code exact} can have the type of
+     * {@code other}.
+     */
+    private static boolean excludes(AbstractObjectStamp exact, AbstractObjectStamp other) {
+        ResolvedJavaType exactType = exact.type();
+        ResolvedJavaType otherType = other.type();
+        return exact.isExactType() && exactType != null && otherType != null && !otherType.isAssignableFrom(exactType);
+    }
+
+    /**
+     * An offset of the form {@code scale * index + displacement}.
+     */
+    private static final class Offset {
+
+        private ValueNode index;
+        private long scale;
+        private long displacement;
+
+        private Offset(ValueNode index, long scale, long displacement) {
+            this.index = index;
+            this.scale = scale;
+            this.displacement = displacement;
+        }
+
+        static Offset decompose(ValueNode value) {
+            if (isIntegerConstant(value)) {
+                return new Offset(null, 0, value.asJavaConstant().asLong());
+            }
+            if (value instanceof AddNode) {
+                AddNode add = (AddNode) value;
+                if (isIntegerConstant(add.getY())) {
+                    Offset result = decompose(add.getX());
+                    result.displacement += add.getY().asJavaConstant().asLong();
+                    return result;
+                }
+            } else if (value instanceof SubNode) {
+                SubNode sub = (SubNode) value;
+                if (isIntegerConstant(sub.getY())) {
+                    Offset result = decompose(sub.getX());
+                    result.displacement -= sub.getY().asJavaConstant().asLong();
+                    return result;
+                }
+            } else if (value instanceof LeftShiftNode) {
+                LeftShiftNode shift = (LeftShiftNode) value;
+                if (isIntegerConstant(shift.getY())) {
+                    int amount = shift.getY().asJavaConstant().asInt() & shift.getShiftAmountMask();
+                    Offset result = decompose(shift.getX());
+                    result.scale <<= amount;
+                    result.displacement <<= amount;
+                    return result;
+                }
+            } else if (value instanceof MulNode) {
+                MulNode mul = (MulNode) value;
+                if (isIntegerConstant(mul.getY())) {
+                    long factor = mul.getY().asJavaConstant().asLong();
+                    Offset result = decompose(mul.getX());
+                    result.scale *= factor;
+                    result.displacement *= factor;
+                    return result;
+                }
+            } else if (value instanceof SignExtendNode) {
+                return decomposeNarrow(((SignExtendNode) value).getValue(), null);
+            }
+            return new Offset(GraphUtil.unproxify(value), 1, 0);
+        }
+
+        private static boolean isIntegerConstant(ValueNode value) {
+            return value.isConstant() && value.asJavaConstant() != null && value.asJavaConstant().getJavaKind().isNumericInteger();
+        }
+
+        /**
+         * Decomposes a narrow integer that is sign extended. A constant can only be pulled out of
+         * the extension if the addition provably does not wrap around, which is established from
+         * the stamp of the addition or from the stamp of a surrounding {@link PiNode}.
+         */
+        private static Offset decomposeNarrow(ValueNode value, IntegerStamp bound) {
+            if (value instanceof PiNode && value.stamp() instanceof IntegerStamp) {
+                return decomposeNarrow(((PiNode) value).getOriginalNode(), (IntegerStamp) value.stamp());
+            }
+            if (value instanceof AddNode && value.stamp() instanceof IntegerStamp) {
+                AddNode add = (AddNode) value;
+                if (isIntegerConstant(add.getY())) {
+                    long c = add.getY().asJavaConstant().asLong();
+                    if (cannotWrap((IntegerStamp) add.stamp(), c) || (bound != null && cannotWrap(bound, c))) {
+                        Offset result = decomposeNarrow(add.getX(), null);
+                        result.displacement += c;
+                        return result;
+                    }
+                }
+            }
+            return new Offset(GraphUtil.unproxify(value), 1, 0);
+        }
+
+        /**
+         * A wrapped around {@code x + c} lies in {@code [MIN, MIN + c)} for positive and in
+         * {@code (MAX + c, MAX]} for negative {@code c}.
+         */
+        private static boolean cannotWrap(IntegerStamp result, long c) {
+            int bits = result.getBits();
+            if (c > 0) {
+                return c <= CodeUtil.maxValue(bits) && result.lowerBound() >= CodeUtil.minValue(bits) + c;
+            } else {
+                return c >= -CodeUtil.maxValue(bits) && result.upperBound() <= CodeUtil.maxValue(bits) + c;
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.DeoptimizingNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StateSplit;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.memory.WriteNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.Phase;
+
+/**
+ * Removes {@link WriteNode writes} that are overwritten by a later write to the same address
+ * before the written value can be observed.
+ *
+ * For every write, the phase walks backwards along the straight-line code that precedes it and
+ * looks for an earlier write to the same address and {@link LocationIdentity}. The earlier write is
+ * dead if nothing in between can observe memory of that location: no read of an overlapping
+ * location, no other memory checkpoint except writes of disjoint locations, no call or other side
+ * effect, and no node that can deoptimize, since the interpreter would continue with the memory
+ * state after the earlier write. The earlier write must also not have any usage other than the
+ * later write, which rules out floating reads that were scheduled against it and writes that serve
+ * as implicit null checks.
+ *
+ * The phase relies on frame states being attached only to deoptimizing nodes and therefore runs
+ * after the {@link FrameStateAssignmentPhase}. Writes to {@linkplain LocationIdentity#isImmutable()
+ * immutable} locations, such as final fields, are left alone because reads of those locations are
+ * not ordered by the memory graph. Volatile writes are surrounded by memory barriers, which are
+ * memory checkpoints of all locations and end the search.
+ */
+public class DeadStoreEliminationPhase extends Phase {
+
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Remove writes that are overwritten before they can be observed.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> OptDeadStoreElimination = new OptionValue<>(true);
+        // @formatter:on
+    }
+
+    /**
+     * Maximum number of fixed nodes between two writes to the same address.
+     */
+    private static final int MAX_DISTANCE = 64;
+
+    private static final DebugCounter counterCandidates = Debug.counter("DeadStoreElimination[candidates]");
+    private static final DebugCounter counterRemoved = Debug.counter("DeadStoreElimination[removed]");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        if (!graph.getGuardsStage().areFrameStatesAtDeopts()) {
+            return;
+        }
+        for (WriteNode write : graph.getNodes().filter(WriteNode.class)) {
+            if (!isCandidate(write)) {
+                continue;
+            }
+            counterCandidates.increment();
+            WriteNode dead = findDeadWrite(write);
+            while (dead != null) {
+                if (write.getLastLocationAccess() == dead) {
+                    write.setLastLocationAccess(dead.getLastLocationAccess());
+                }
+                assert dead.hasNoUsages();
+                GraphUtil.unlinkFixedNode(dead);
+                GraphUtil.killWithUnusedFloatingInputs(dead);
+                counterRemoved.increment();
+                dead = findDeadWrite(write);
+            }
+        }
+    }
+
+    private static boolean isCandidate(WriteNode write) {
+        LocationIdentity location = write.getLocationIdentity();
+        return write.isAlive() && location.isSingle() && !location.isImmutable() && !write.canDeoptimize();
+    }
+
+    /**
+     * Finds an earlier write that is overwritten by {@code write} before it can be observed.
+     */
+    private static WriteNode findDeadWrite(WriteNode write) {
+        LocationIdentity location = write.getLocationIdentity();
+        FixedNode current = (FixedNode) write.predecessor();
+        for (int distance = 0; distance < MAX_DISTANCE && current instanceof FixedWithNextNode && !(current instanceof AbstractBeginNode); distance++) {
+            if (current instanceof WriteNode) {
+                WriteNode other = (WriteNode) current;
+                if (other.getLocationIdentity().equals(location) && other.getAddress() == write.getAddress()) {
+                    if (isCandidate(other) && other.value().stamp().isCompatible(write.value().stamp()) && onlyUsedBy(other, write)) {
+                        return other;
+                    }
+                    return null;
+                }
+                if (other.canDeoptimize() || other.getLocationIdentity().overlaps(location)) {
+                    return null;
+                }
+            } else if (mayObserve(current, location)) {
+                return null;
+            }
+            current = (FixedNode) current.predecessor();
+        }
+        return null;
+    }
+
+    private static boolean mayObserve(FixedNode node, LocationIdentity location) {
+        if (node instanceof DeoptimizingNode && ((DeoptimizingNode) node).canDeoptimize()) {
+            return true;
+        }
+        if (node instanceof Invoke || node instanceof ForeignCallNode || node instanceof MemoryCheckpoint) {
+            return true;
+        }
+        if (node instanceof StateSplit && ((StateSplit) node).hasSideEffect()) {
+            return true;
+        }
+        return node instanceof MemoryAccess && ((MemoryAccess) node).getLocationIdentity().overlaps(location);
+    }
+
+    private static boolean onlyUsedBy(WriteNode write, WriteNode user) {
+        for (Node usage : write.usages()) {
+            if (usage != user) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -66,7 +66,9 @@ import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.calc.AndNode;
 import com.oracle.graal.nodes.calc.BinaryArithmeticNode;
 import com.oracle.graal.nodes.calc.BinaryNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
 import com.oracle.graal.nodes.calc.IntegerEqualsNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
 import com.oracle.graal.nodes.calc.UnaryNode;
 import com.oracle.graal.nodes.cfg.Block;
 import com.oracle.graal.nodes.cfg.ControlFlowGraph;
@@ -88,6 +90,14 @@ public class DominatorConditionalEliminationPhase extends Phase {
 
     private static final DebugCounter counterStampsRegistered = Debug.counter("StampsRegistered");
     private static final DebugCounter counterStampsFound = Debug.counter("StampsFound");
+    private static final DebugCounter counterRelationsRegistered = Debug.counter("RelationsRegistered");
+    private static final DebugCounter counterRelationsFound = Debug.counter("RelationsFound");
+
+    /**
+     * Maximum number of relations visited when searching for a chain of relations that proves a
+     * condition.
+     */
+    private static final int RELATION_SEARCH_BUDGET = 32;
     private final boolean fullSchedule;
 
     public DominatorConditionalEliminationPhase(boolean fullSchedule) {
@@ -322,6 +332,7 @@ public class DominatorConditionalEliminationPhase extends Phase {
                             }
                         }
                     }
+                    registerNewRelation(binaryOpLogicNode, negated, guard);
                 }
                 if (guard instanceof DeoptimizingGuard) {
                     pendingTests.push(new PendingTest(condition, (DeoptimizingGuard) guard));
@@ -608,6 +619,9 @@ public class DominatorConditionalEliminationPhase extends Phase {
                             }
                         }
                     }
+                    if (tryProveRelation(binaryOpLogicNode, rewireGuardFunction)) {
+                        return true;
+                    }
                     if (thisGuard != null && binaryOpLogicNode instanceof IntegerEqualsNode && !thisGuard.isNegated()) {
                         if (y.isConstant() && x instanceof AndNode) {
                             AndNode and = (AndNode) x;
@@ -678,6 +692,212 @@ public class DominatorConditionalEliminationPhase extends Phase {
                 }
             }
 
+            /**
+             * Records the difference constraint {@code x - y <= c} implied by an integer comparison
+             * of two non-constant values. Comparisons against constants are already covered by the
+             * stamps.
+             */
+            protected void registerNewRelation(BinaryOpLogicNode condition, boolean negated, ValueNode guard) {
+                ValueNode x = GraphUtil.unproxify(condition.getX());
+                ValueNode y = GraphUtil.unproxify(condition.getY());
+                if (!isRelationOperand(x) || !isRelationOperand(y) || x == y) {
+                    return;
+                }
+                if (condition instanceof IntegerLessThanNode) {
+                    if (negated) {
+                        registerRelation(y, x, 0, guard);
+                    } else {
+                        registerRelation(x, y, -1, guard);
+                    }
+                } else if (condition instanceof IntegerBelowNode) {
+                    // An unsigned comparison only orders the values if they are non-negative.
+                    if (!negated && isNonNegative(y)) {
+                        registerRelation(x, y, -1, guard);
+                    } else if (negated && isNonNegative(x) && isNonNegative(y)) {
+                        registerRelation(y, x, 0, guard);
+                    }
+                } else if (condition instanceof IntegerEqualsNode && !negated) {
+                    registerRelation(x, y, 0, guard);
+                    registerRelation(y, x, 0, guard);
+                }
+            }
+
+            protected void registerRelation(ValueNode x, ValueNode y, long bound, ValueNode guard) {
+                Info info = map.get(x);
+                if (info == null) {
+                    info = new Info();
+                    map.set(x, info);
+                }
+                counterRelationsRegistered.increment();
+                final Info finalInfo = info;
+                Debug.log("\t Saving relation %s - %s <= %d guarded by %s", x, y, bound, guard);
+                finalInfo.pushRelation(new Relation(y, bound, guard));
+                undoOperations.add(() -> finalInfo.popRelation());
+            }
+
+            private boolean isRelationOperand(ValueNode value) {
+                return !value.isConstant() && value.stamp() instanceof IntegerStamp;
+            }
+
+            private boolean isNonNegative(ValueNode value) {
+                return value.stamp() instanceof IntegerStamp && ((IntegerStamp) value.stamp()).lowerBound() >= 0;
+            }
+
+            /**
+             * Tries to decide {@code node} by combining the difference constraints registered for
+             * its inputs.
+             */
+            protected boolean tryProveRelation(BinaryOpLogicNode node, GuardRewirer rewireGuardFunction) {
+                ValueNode x = GraphUtil.unproxify(node.getX());
+                ValueNode y = GraphUtil.unproxify(node.getY());
+                if (!isRelationOperand(x) || !isRelationOperand(y) || x == y) {
+                    return false;
+                }
+                if (node instanceof IntegerLessThanNode) {
+                    ValueNode guard = findRelation(x, y, -1, null);
+                    if (guard != null) {
+                        return rewireRelation(guard, true, rewireGuardFunction);
+                    }
+                    guard = findRelation(y, x, 0, null);
+                    if (guard != null) {
+                        return rewireRelation(guard, false, rewireGuardFunction);
+                    }
+                } else if (node instanceof IntegerBelowNode) {
+                    InfoElement xNonNegative = findNonNegative(x);
+                    if (xNonNegative != null) {
+                        ValueNode guard = findRelation(x, y, -1, xNonNegative.getGuard());
+                        if (guard != null) {
+                            return rewireRelation(guard, true, rewireGuardFunction);
+                        }
+                    }
+                    InfoElement yNonNegative = findNonNegative(y);
+                    if (yNonNegative != null) {
+                        ValueNode guard = findRelation(y, x, 0, yNonNegative.getGuard());
+                        if (guard != null) {
+                            return rewireRelation(guard, false, rewireGuardFunction);
+                        }
+                    }
+                } else if (node instanceof IntegerEqualsNode) {
+                    ValueNode guard = findRelation(x, y, -1, null);
+                    if (guard == null) {
+                        guard = findRelation(y, x, -1, null);
+                    }
+                    if (guard != null) {
+                        return rewireRelation(guard, false, rewireGuardFunction);
+                    }
+                }
+                return false;
+            }
+
+            private boolean rewireRelation(ValueNode guard, boolean result, GuardRewirer rewireGuardFunction) {
+                counterRelationsFound.increment();
+                return rewireGuards(guard, result, rewireGuardFunction);
+            }
+
+            /**
+             * Returns an {@link InfoElement} proving that {@code value} is non-negative. If the
+             * stamp of {@code value} already proves it, the element has no guard.
+             */
+            private InfoElement findNonNegative(ValueNode value) {
+                if (isNonNegative(value)) {
+                    return new InfoElement(value.stamp(), null);
+                }
+                for (InfoElement infoElement : getInfoElements(value)) {
+                    if (infoElement.getStamp() instanceof IntegerStamp && ((IntegerStamp) infoElement.getStamp()).lowerBound() >= 0) {
+                        return infoElement;
+                    }
+                }
+                return null;
+            }
+
+            /**
+             * Searches for a chain of relations proving {@code from - to <= bound}. The relations
+             * of a chain are usually established by different guards. The chain can only be used
+             * if one of these guards is dominated by all others, and this guard is returned.
+             *
+             * @param extraGuard an additional guard the result has to depend on, or null
+             * @return the guard to depend on or null if the relation cannot be proven
+             */
+            protected ValueNode findRelation(ValueNode from, ValueNode to, long bound, ValueNode extraGuard) {
+                return findRelation(from, to, bound, 0, extraGuard, new ArrayList<>(), new int[]{RELATION_SEARCH_BUDGET});
+            }
+
+            private ValueNode findRelation(ValueNode from, ValueNode to, long bound, long sum, ValueNode extraGuard, List<ValueNode> visited, int[] budget) {
+                Info info = map.get(from);
+                if (info == null) {
+                    return null;
+                }
+                visited.add(from);
+                try {
+                    for (Relation relation : info.getRelations()) {
+                        if (budget[0]-- <= 0) {
+                            return null;
+                        }
+                        if (visited.contains(relation.getTarget())) {
+                            continue;
+                        }
+                        ValueNode guard = extraGuard == null ? relation.getGuard() : dominatedGuard(extraGuard, relation.getGuard());
+                        if (guard == null) {
+                            continue;
+                        }
+                        long newSum = sum + relation.getBound();
+                        if (relation.getTarget() == to) {
+                            if (newSum <= bound) {
+                                return guard;
+                            }
+                        } else {
+                            ValueNode result = findRelation(relation.getTarget(), to, bound, newSum, guard, visited, budget);
+                            if (result != null) {
+                                return result;
+                            }
+                        }
+                    }
+                    return null;
+                } finally {
+                    visited.remove(visited.size() - 1);
+                }
+            }
+
+            /**
+             * Returns the guard among {@code a} and {@code b} that is dominated by the other one.
+             * Both guards dominate the current block, so fixed guards are totally ordered. Floating
+             * guards cannot be ordered.
+             */
+            private ValueNode dominatedGuard(ValueNode a, ValueNode b) {
+                if (a == b) {
+                    return a;
+                }
+                if (!(a instanceof FixedNode) || !(b instanceof FixedNode)) {
+                    return null;
+                }
+                Block aBlock = nodeToBlock.apply(a);
+                Block bBlock = nodeToBlock.apply(b);
+                if (aBlock == null || bBlock == null) {
+                    return null;
+                }
+                if (aBlock != bBlock) {
+                    return aBlock.getDominatorDepth() > bBlock.getDominatorDepth() ? a : b;
+                }
+                if (isBefore((FixedNode) a, (FixedNode) b)) {
+                    return b;
+                } else if (isBefore((FixedNode) b, (FixedNode) a)) {
+                    return a;
+                }
+                return null;
+            }
+
+            private boolean isBefore(FixedNode a, FixedNode b) {
+                for (Node current = b; current instanceof FixedNode; current = current.predecessor()) {
+                    if (current == a) {
+                        return true;
+                    }
+                    if (current instanceof AbstractBeginNode) {
+                        break;
+                    }
+                }
+                return false;
+            }
+
             protected void processAbstractBegin(AbstractBeginNode beginNode) {
                 Node predecessor = beginNode.predecessor();
                 if (predecessor instanceof IfNode) {
@@ -837,11 +1057,58 @@ public class DominatorConditionalEliminationPhase extends Phase {
         }
     }
 
+    /**
+     * The difference constraint {@code value - target <= bound} for the value the containing
+     * {@link Info} belongs to.
+     */
+    protected static final class Relation {
+        private final ValueNode target;
+        private final long bound;
+        private final ValueNode guard;
+
+        public Relation(ValueNode target, long bound, ValueNode guard) {
+            this.target = target;
+            this.bound = bound;
+            this.guard = guard;
+        }
+
+        public ValueNode getTarget() {
+            return target;
+        }
+
+        public long getBound() {
+            return bound;
+        }
+
+        public ValueNode getGuard() {
+            return guard;
+        }
+
+        @Override
+        public String toString() {
+            return "- " + target + " <= " + bound + " -> " + guard;
+        }
+    }
+
     protected static final class Info {
         private final ArrayList<InfoElement> infos;
+        private final ArrayList<Relation> relations;
 
         public Info() {
             infos = new ArrayList<>();
+            relations = new ArrayList<>();
+        }
+
+        public Iterable<Relation> getRelations() {
+            return relations;
+        }
+
+        public void pushRelation(Relation relation) {
+            relations.add(relation);
+        }
+
+        public void popRelation() {
+            relations.remove(relations.size() - 1);
         }
 
         public Iterable<InfoElement> getElements() {
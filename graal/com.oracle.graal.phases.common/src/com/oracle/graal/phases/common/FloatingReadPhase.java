@@ -26,7 +26,10 @@ import static com.oracle.graal.compiler.common.LocationIdentity.any;
 import static com.oracle.graal.graph.Graph.NodeEvent.NODE_ADDED;
 import static com.oracle.graal.graph.Graph.NodeEvent.ZERO_USAGES;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -37,12 +40,16 @@ import java.util.Set;
 import com.oracle.graal.compiler.common.CollectionsFactory;
 import com.oracle.graal.compiler.common.LocationIdentity;
 import com.oracle.graal.compiler.common.cfg.Loop;
+import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugCloseable;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.graph.Graph.NodeEventScope;
 import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.AbstractMergeNode;
 import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
 import com.oracle.graal.nodes.InvokeWithExceptionNode;
 import com.oracle.graal.nodes.LoopBeginNode;
 import com.oracle.graal.nodes.LoopEndNode;
@@ -69,6 +76,8 @@ import com.oracle.graal.nodes.memory.MemoryMapNode;
 import com.oracle.graal.nodes.memory.MemoryNode;
 import com.oracle.graal.nodes.memory.MemoryPhiNode;
 import com.oracle.graal.nodes.memory.ReadNode;
+import com.oracle.graal.nodes.memory.WriteNode;
+import com.oracle.graal.nodes.memory.address.AddressDisjointness;
 import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.phases.Phase;
 import com.oracle.graal.phases.common.util.HashSetNodeEventListener;
@@ -78,6 +87,13 @@ import com.oracle.graal.phases.graph.ReentrantNodeIterator.NodeIteratorClosure;
 
 public class FloatingReadPhase extends Phase {
 
+    /**
+     * Maximum number of fixed nodes searched for writes that a read can be moved across.
+     */
+    private static final int MAX_SKIP_DISTANCE = 64;
+
+    private static final DebugCounter counterDisjointWritesSkipped = Debug.counter("FloatingRead[disjointWritesSkipped]");
+
     private boolean createFloatingReads;
     private boolean createMemoryMapNodes;
 
@@ -365,7 +381,7 @@ public class FloatingReadPhase extends Phase {
             LocationIdentity locationIdentity = accessNode.getLocationIdentity();
             if (accessNode.canFloat()) {
                 assert accessNode.getNullCheck() == false;
-                MemoryNode lastLocationAccess = state.getLastLocationAccess(locationIdentity);
+                MemoryNode lastLocationAccess = skipDisjointWrites(accessNode, state.getLastLocationAccess(locationIdentity));
                 try (DebugCloseable position = accessNode.withNodeSourcePosition()) {
                     FloatingAccessNode floatingNode = accessNode.asFloatingNode(lastLocationAccess);
                     ValueAnchorNode anchor = null;
@@ -379,6 +395,60 @@ public class FloatingReadPhase extends Phase {
             }
         }
 
+        /**
+         * Walks the memory chain of {@code access} back past writes to the same location that
+         * precede it in the same block and provably write {@linkplain AddressDisjointness
+         * disjoint} memory. A write is only skipped if none of the inputs of the access are
+         * computed after it, so the scheduler can always place the floating read in front of the
+         * skipped writes.
+         */
+        private static MemoryNode skipDisjointWrites(FloatableAccessNode access, MemoryNode lastLocationAccess) {
+            MemoryNode current = lastLocationAccess;
+            List<FixedNode> crossed = new ArrayList<>();
+            int skippedCrossed = 0;
+            int skipped = 0;
+            Node node = access.predecessor();
+            while (current instanceof WriteNode && node instanceof FixedWithNextNode && !(node instanceof AbstractBeginNode) && crossed.size() < MAX_SKIP_DISTANCE) {
+                crossed.add((FixedNode) node);
+                if (node == current) {
+                    WriteNode write = (WriteNode) node;
+                    if (!write.getLocationIdentity().equals(access.getLocationIdentity()) ||
+                                    !AddressDisjointness.isDisjoint(access.getAddress(), access.stamp(), write.getAddress(), write.value().stamp())) {
+                        break;
+                    }
+                    current = write.getLastLocationAccess();
+                    skippedCrossed = crossed.size();
+                    skipped++;
+                }
+                node = node.predecessor();
+            }
+            if (skipped == 0 || dependsOn(access, crossed.subList(0, skippedCrossed))) {
+                return lastLocationAccess;
+            }
+            counterDisjointWritesSkipped.add(skipped);
+            return current;
+        }
+
+        private static boolean dependsOn(FixedNode access, List<FixedNode> fixedNodes) {
+            NodeBitMap visited = access.graph().createNodeBitMap();
+            Deque<Node> worklist = new ArrayDeque<>();
+            worklist.push(access);
+            visited.mark(access);
+            /* Phis are available at their merge, which dominates the whole block. */
+            while (!worklist.isEmpty()) {
+                for (Node input : worklist.pop().inputs()) {
+                    if (fixedNodes.contains(input)) {
+                        return true;
+                    }
+                    if (!(input instanceof FixedNode) && !(input instanceof PhiNode) && !visited.isMarked(input)) {
+                        visited.mark(input);
+                        worklist.push(input);
+                    }
+                }
+            }
+            return false;
+        }
+
         @Override
         protected MemoryMapImpl merge(AbstractMergeNode merge, List<MemoryMapImpl> states) {
             return mergeMemoryMaps(merge, states);
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.Position;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.calc.FixedBinaryNode;
+import com.oracle.graal.nodes.calc.FloatingNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.memory.FixedAccessNode;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.memory.ReadNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.Phase;
+import com.oracle.graal.phases.common.LoweringPhase.Frame;
+
+/**
+ * Global value numbering over the whole graph.
+ *
+ * {@linkplain Node.ValueNumberable Value numberable} floating nodes are not bound to a block, so
+ * two of them with equal data and equal inputs are interchangeable anywhere in the graph. They are
+ * numbered in a single table, visiting the inputs of a node before the node itself so that
+ * replacing an input makes its usages equal as well.
+ *
+ * Fixed nodes are only interchangeable if one of them dominates the other. They are numbered by a
+ * walk of the dominator tree with a scoped table that only contains the nodes of the dominating
+ * blocks. A fixed node is only considered if it has no side effect and its result does not depend
+ * on its position: integer divisions and remainders, fixed guards, array lengths and reads from
+ * immutable locations. Frame states are ignored when comparing fixed nodes since a dominated node
+ * can only deoptimize if its dominating duplicate already did.
+ */
+public class GlobalValueNumberingPhase extends Phase {
+
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Remove redundant computations by dominator based global value numbering.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> OptGlobalValueNumbering = new OptionValue<>(true);
+        // @formatter:on
+    }
+
+    private static final DebugCounter counterFloatingNodesRemoved = Debug.counter("GVN[floatingNodesRemoved]");
+    private static final DebugCounter counterFixedNodesRemoved = Debug.counter("GVN[fixedNodesRemoved]");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        numberFloatingNodes(graph);
+
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, true);
+        LoweringPhase.processBlock(new NumberingFrame(cfg.getStartBlock(), null, new HashMap<>()));
+    }
+
+    private static void numberFloatingNodes(StructuredGraph graph) {
+        Map<ValueKey, Node> table = new HashMap<>();
+        NodeBitMap visited = graph.createNodeBitMap();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node root : graph.getNodes()) {
+            if (!isFloatingCandidate(root) || visited.isMarked(root)) {
+                continue;
+            }
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node current = stack.peek();
+                if (current.isDeleted()) {
+                    stack.pop();
+                } else if (!visited.isMarked(current)) {
+                    visited.mark(current);
+                    for (Node input : current.inputs()) {
+                        if (isFloatingCandidate(input) && !visited.isMarked(input)) {
+                            stack.push(input);
+                        }
+                    }
+                } else {
+                    stack.pop();
+                    ValueKey key = new ValueKey(current, false);
+                    Node existing = table.get(key);
+                    if (existing == null || existing.isDeleted()) {
+                        table.put(key, current);
+                    } else if (existing != current) {
+                        Debug.log("Replacing %s with %s", current, existing);
+                        current.replaceAtUsages(existing);
+                        GraphUtil.killWithUnusedFloatingInputs(current);
+                        counterFloatingNodesRemoved.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isFloatingCandidate(Node node) {
+        return node instanceof FloatingNode && !(node instanceof PhiNode) && node.getNodeClass().valueNumberable();
+    }
+
+    private static boolean isFixedCandidate(FixedNode node) {
+        if (node instanceof FixedBinaryNode || node instanceof FixedGuardNode || node instanceof ArrayLengthNode) {
+            return true;
+        }
+        if (node instanceof ReadNode && !(node instanceof MemoryCheckpoint)) {
+            return ((FixedAccessNode) node).getLocationIdentity().isImmutable();
+        }
+        return false;
+    }
+
+    private static final class NumberingFrame extends Frame<NumberingFrame> {
+
+        private final Map<ValueKey, Node> table;
+        private final List<ValueKey> added = new ArrayList<>();
+
+        NumberingFrame(Block block, NumberingFrame parent, Map<ValueKey, Node> table) {
+            super(block, parent);
+            this.table = table;
+        }
+
+        @Override
+        public Frame<?> enter(Block b) {
+            return new NumberingFrame(b, this, table);
+        }
+
+        @Override
+        public void preprocess() {
+            List<FixedNode> nodes = new ArrayList<>();
+            for (FixedNode node : block.getNodes()) {
+                if (isFixedCandidate(node)) {
+                    nodes.add(node);
+                }
+            }
+            for (FixedNode node : nodes) {
+                ValueKey key = new ValueKey(node, true);
+                Node existing = table.get(key);
+                if (existing == null) {
+                    table.put(key, node);
+                    added.add(key);
+                } else {
+                    Debug.log("Replacing %s with dominating %s", node, existing);
+                    node.replaceAtUsages(existing);
+                    node.graph().removeFixed((FixedWithNextNode) node);
+                    counterFixedNodesRemoved.increment();
+                }
+            }
+        }
+
+        @Override
+        public void postprocess() {
+            for (ValueKey key : added) {
+                table.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Wraps a node so that it is equal to every node of the same class with equal data and equal
+     * inputs, optionally ignoring {@linkplain InputType#State state} inputs.
+     */
+    private static final class ValueKey {
+
+        private final Node node;
+        private final boolean ignoreState;
+        private final int hash;
+
+        ValueKey(Node node, boolean ignoreState) {
+            this.node = node;
+            this.ignoreState = ignoreState;
+            NodeClass<?> nodeClass = node.getNodeClass();
+            int h = nodeClass.hashCode() * 31 + nodeClass.valueNumber(node);
+            for (Position position : node.inputPositions()) {
+                if (!ignore(position)) {
+                    h = h * 31 + System.identityHashCode(position.get(node));
+                }
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ValueKey)) {
+                return false;
+            }
+            Node other = ((ValueKey) obj).node;
+            if (other == node) {
+                return true;
+            }
+            if (other.getNodeClass() != node.getNodeClass() || !node.valueEquals(other)) {
+                return false;
+            }
+            Iterator<Position> positions = node.inputPositions().iterator();
+            Iterator<Position> otherPositions = other.inputPositions().iterator();
+            while (positions.hasNext() && otherPositions.hasNext()) {
+                Position position = positions.next();
+                Position otherPosition = otherPositions.next();
+                if (!position.equals(otherPosition)) {
+                    return false;
+                }
+                if (!ignore(position) && position.get(node) != otherPosition.get(other)) {
+                    return false;
+                }
+            }
+            return !positions.hasNext() && !otherPositions.hasNext();
+        }
+
+        private boolean ignore(Position position) {
+            return ignoreState && position.getInputType() == InputType.State;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Graph.Mark;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.AbstractMergeNode;
+import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.MergeNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.calc.CompareNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.FloatingNode;
+import com.oracle.graal.nodes.calc.IntegerTestNode;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Replaces small diamonds whose branch is hard to predict by {@link ConditionalNode}s, which the
+ * backend emits as conditional moves. A diamond is an {@link IfNode} whose successors both lead
+ * directly to the same {@link MergeNode} without any fixed nodes in between. It is converted if
+ * the less likely successor is taken with a probability of at least
+ * {@link Options#IfConversionMinProbability} and the estimated cost of computing the values of
+ * both sides unconditionally is at most {@link Options#IfConversionMaxCost}.
+ *
+ * Since the successors have no usages, no floating node depends on the branch being taken, so all
+ * inputs of the merged values can be computed before the {@link IfNode}.
+ */
+public class IfConversionPhase extends BasePhase<PhaseContext> {
+
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Replace small diamonds with unpredictable branches by conditional moves.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> OptIfConversion = new OptionValue<>(true);
+        @Option(help = "Minimum probability of the less likely successor of an if for the if to be converted to a conditional move.", type = OptionType.Expert)
+        public static final OptionValue<Double> IfConversionMinProbability = new OptionValue<>(0.2);
+        @Option(help = "Maximum number of nodes that are computed unconditionally when converting an if to conditional moves.", type = OptionType.Expert)
+        public static final OptionValue<Integer> IfConversionMaxCost = new OptionValue<>(6);
+        // @formatter:on
+    }
+
+    private static final DebugCounter counterConverted = Debug.counter("IfConversion[converted]");
+    private static final DebugCounter counterPredictable = Debug.counter("IfConversion[predictable]");
+    private static final DebugCounter counterTooExpensive = Debug.counter("IfConversion[tooExpensive]");
+
+    private final CanonicalizerPhase canonicalizer;
+
+    public IfConversionPhase(CanonicalizerPhase canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, PhaseContext context) {
+        Mark mark = graph.getMark();
+        List<AbstractMergeNode> merges = new ArrayList<>();
+        for (IfNode ifNode : graph.getNodes(IfNode.TYPE).snapshot()) {
+            if (ifNode.isAlive()) {
+                AbstractMergeNode merge = tryConvert(graph, ifNode);
+                if (merge != null) {
+                    merges.add(merge);
+                }
+            }
+        }
+        if (!merges.isEmpty()) {
+            canonicalizer.applyIncremental(graph, context, merges, mark);
+        }
+    }
+
+    /**
+     * @return the merge of the converted diamond or null if {@code ifNode} was not converted
+     */
+    private static AbstractMergeNode tryConvert(StructuredGraph graph, IfNode ifNode) {
+        LogicNode condition = ifNode.condition();
+        if (!(condition instanceof CompareNode || condition instanceof IntegerTestNode || condition instanceof IsNullNode)) {
+            // only these conditions can be used for conditional moves
+            return null;
+        }
+        AbstractBeginNode trueSuccessor = ifNode.trueSuccessor();
+        AbstractBeginNode falseSuccessor = ifNode.falseSuccessor();
+        if (!isEmptyBranch(trueSuccessor) || !isEmptyBranch(falseSuccessor)) {
+            return null;
+        }
+        EndNode trueEnd = (EndNode) trueSuccessor.next();
+        EndNode falseEnd = (EndNode) falseSuccessor.next();
+        AbstractMergeNode merge = trueEnd.merge();
+        if (merge != falseEnd.merge() || !(merge instanceof MergeNode)) {
+            return null;
+        }
+
+        List<PhiNode> phis = new ArrayList<>();
+        for (PhiNode phi : merge.phis()) {
+            if (!(phi instanceof ValuePhiNode)) {
+                // memory or guard phis mean that the branches are not side-effect free
+                return null;
+            }
+            if (phi.valueAt(trueEnd) != phi.valueAt(falseEnd)) {
+                JavaKind kind = phi.getStackKind();
+                if (kind != JavaKind.Int && kind != JavaKind.Long && kind != JavaKind.Object) {
+                    return null;
+                }
+                phis.add(phi);
+            }
+        }
+        if (phis.isEmpty()) {
+            // the canonicalizer removes such ifs
+            return null;
+        }
+
+        double trueProbability = ifNode.getTrueSuccessorProbability();
+        if (Math.min(trueProbability, 1 - trueProbability) < Options.IfConversionMinProbability.getValue()) {
+            counterPredictable.increment();
+            return null;
+        }
+
+        int cost = phis.size();
+        NodeBitMap exclusive = graph.createNodeBitMap();
+        for (PhiNode phi : phis) {
+            cost += exclusiveCost(phi.valueAt(trueEnd), merge, exclusive) + exclusiveCost(phi.valueAt(falseEnd), merge, exclusive);
+        }
+        if (cost > Options.IfConversionMaxCost.getValue()) {
+            counterTooExpensive.increment();
+            return null;
+        }
+
+        for (PhiNode phi : phis) {
+            ValueNode conditional = graph.unique(new ConditionalNode(condition, phi.valueAt(trueEnd), phi.valueAt(falseEnd)));
+            phi.setValueAt(trueEnd, conditional);
+            phi.setValueAt(falseEnd, conditional);
+        }
+        Debug.log("Converted %s with %d phis into conditional moves (cost %d)", ifNode, phis.size(), cost);
+        graph.removeSplitPropagate(ifNode, trueSuccessor);
+        counterConverted.increment();
+        return merge;
+    }
+
+    private static boolean isEmptyBranch(AbstractBeginNode begin) {
+        return begin instanceof BeginNode && begin.hasNoUsages() && begin.next() instanceof EndNode;
+    }
+
+    /**
+     * Estimates the cost of computing {@code value} unconditionally as the number of floating
+     * nodes that are only used to compute the values merged at {@code merge}. These nodes would
+     * otherwise be scheduled into one of the branches.
+     */
+    private static int exclusiveCost(ValueNode value, AbstractMergeNode merge, NodeBitMap exclusive) {
+        int cost = 0;
+        Deque<Node> worklist = new ArrayDeque<>();
+        worklist.push(value);
+        while (!worklist.isEmpty()) {
+            Node node = worklist.pop();
+            if (exclusive.isMarked(node) || !(node instanceof FloatingNode) || node instanceof PhiNode || node instanceof ConstantNode || !isOnlyUsedBy(node, merge, exclusive)) {
+                continue;
+            }
+            exclusive.mark(node);
+            cost++;
+            for (Node input : node.inputs()) {
+                worklist.push(input);
+            }
+        }
+        return cost;
+    }
+
+    private static boolean isOnlyUsedBy(Node node, AbstractMergeNode merge, NodeBitMap exclusive) {
+        for (Node usage : node.usages()) {
+            if (!exclusive.isMarked(usage) && !(usage instanceof PhiNode && ((PhiNode) usage).merge() == merge)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
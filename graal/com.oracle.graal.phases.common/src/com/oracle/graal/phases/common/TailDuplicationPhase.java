@@ -0,0 +1,528 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import static com.oracle.graal.compiler.common.GraalOptions.TailDuplicationProbability;
+import static com.oracle.graal.compiler.common.GraalOptions.TailDuplicationTrivialSize;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.compiler.common.type.VoidStamp;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Graph.Mark;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.AbstractMergeNode;
+import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.GuardPhiNode;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.MergeNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.ProxyNode;
+import com.oracle.graal.nodes.StateSplit;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.memory.MemoryPhiNode;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+/**
+ * Duplicates the code between a {@link MergeNode} and the {@link IfNode} that follows it into the
+ * predecessors of the merge. After the duplication, each copy of the {@link IfNode} sees the value
+ * a {@link PhiNode phi} of the merge has on one particular path, which often allows a type or null
+ * check of the phi to be folded. This is the typical situation after a diamond that produces a
+ * value of a known type on one side, e.g., in interpreter dispatch loops.
+ *
+ * Whether a duplication pays off is decided by applying it to a copy of the graph and running the
+ * {@link CanonicalizerPhase} on the result. The duplication is only performed on the real graph if
+ * the simulated graph is smaller than the original one or if at least one of the duplicated checks
+ * was folded. Only merges that are executed with a probability of at least
+ * {@link com.oracle.graal.compiler.common.GraalOptions#TailDuplicationProbability} (or whose
+ * duplicated code is trivially small) are considered, and the total growth of the graph is bounded
+ * by {@link Options#TailDuplicationMaxGrowth}. Since each simulation costs time proportional to the
+ * size of the graph, at most {@link Options#TailDuplicationMaxSimulations} candidates are
+ * simulated per graph.
+ *
+ * Values that are computed between the merge and the {@link IfNode} and used below it are merged
+ * again by new phis in front of the successors of the {@link IfNode}. The phase runs after frame
+ * state assignment, so that merges do not have frame states of their own.
+ */
+public class TailDuplicationPhase extends BasePhase<PhaseContext> {
+
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Duplicate the code between merges and the following if into the predecessors of the merge if this enables canonicalizations.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> OptTailDuplication = new OptionValue<>(true);
+        @Option(help = "Maximum number of nodes duplicated for a single predecessor of a merge.", type = OptionType.Expert)
+        public static final OptionValue<Integer> TailDuplicationMaxSize = new OptionValue<>(24);
+        @Option(help = "Maximum growth of the graph by tail duplication as a fraction of its original size.", type = OptionType.Expert)
+        public static final OptionValue<Double> TailDuplicationMaxGrowth = new OptionValue<>(0.2);
+        @Option(help = "Maximum number of candidate merges per graph for which tail duplication is simulated.", type = OptionType.Expert)
+        public static final OptionValue<Integer> TailDuplicationMaxSimulations = new OptionValue<>(8);
+        // @formatter:on
+    }
+
+    private static final DebugCounter counterCandidates = Debug.counter("TailDuplication[candidates]");
+    private static final DebugCounter counterDuplicated = Debug.counter("TailDuplication[duplicated]");
+    private static final DebugCounter counterUnprofitable = Debug.counter("TailDuplication[unprofitable]");
+    private static final DebugCounter counterOverBudget = Debug.counter("TailDuplication[overBudget]");
+    private static final DebugCounter counterSimulationLimit = Debug.counter("TailDuplication[simulationLimit]");
+
+    private final CanonicalizerPhase canonicalizer;
+
+    public TailDuplicationPhase(CanonicalizerPhase canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, PhaseContext context) {
+        if (!graph.getGuardsStage().areFrameStatesAtDeopts()) {
+            return;
+        }
+        int budget = (int) (graph.getNodeCount() * Options.TailDuplicationMaxGrowth.getValue());
+        int simulations = Options.TailDuplicationMaxSimulations.getValue();
+        ControlFlowGraph cfg = null;
+        int checks = -1;
+        for (MergeNode merge : graph.getNodes(MergeNode.TYPE).snapshot()) {
+            if (!merge.isAlive() || merge.stateAfter() != null) {
+                continue;
+            }
+            if (cfg == null) {
+                cfg = ControlFlowGraph.compute(graph, true, false, true, false);
+            }
+            DuplicationRegion region = DuplicationRegion.create(merge, cfg);
+            if (region == null) {
+                continue;
+            }
+            counterCandidates.increment();
+            int growth = region.duplicatedSize() * (merge.forwardEndCount() - 1);
+            if (growth > budget) {
+                counterOverBudget.increment();
+                continue;
+            }
+            if (simulations == 0) {
+                counterSimulationLimit.increment();
+                break;
+            }
+            simulations--;
+            if (checks < 0) {
+                checks = countChecks(graph);
+            }
+            if (!isProfitable(graph, region, checks, context)) {
+                counterUnprofitable.increment();
+                continue;
+            }
+            Debug.log("tail duplicating %s into %d predecessors", merge, merge.forwardEndCount());
+            Mark mark = graph.getMark();
+            List<Node> touched = region.apply(graph);
+            canonicalizer.applyIncremental(graph, context, touched, mark);
+            counterDuplicated.increment();
+            budget -= growth;
+            cfg = null;
+            checks = -1;
+        }
+    }
+
+    /**
+     * Performs the duplication of {@code region} on a copy of {@code graph} and checks whether the
+     * canonicalized result is an improvement.
+     *
+     * @param checksBefore the number of checks in {@code graph}
+     */
+    private boolean isProfitable(StructuredGraph graph, DuplicationRegion region, int checksBefore, PhaseContext context) {
+        List<Map<Node, Node>> duplicates = new ArrayList<>(1);
+        StructuredGraph simulation = (StructuredGraph) graph.copy(duplicates::add);
+        DuplicationRegion simulatedRegion = region.map(simulation, duplicates.get(0));
+
+        int nodesBefore = simulation.getNodeCount();
+        int duplicatedChecks = region.duplicatedChecks() * (region.merge.forwardEndCount() - 1);
+
+        Mark mark = simulation.getMark();
+        List<Node> touched = simulatedRegion.apply(simulation);
+        canonicalizer.applyIncremental(simulation, context, touched, mark);
+
+        return simulation.getNodeCount() < nodesBefore || countChecks(simulation) < checksBefore + duplicatedChecks;
+    }
+
+    private static int countChecks(StructuredGraph graph) {
+        int checks = 0;
+        for (Node node : graph.getNodes()) {
+            if (isCheck(node)) {
+                checks++;
+            }
+        }
+        return checks;
+    }
+
+    private static boolean isCheck(Node node) {
+        return node instanceof IfNode || node instanceof FixedGuardNode || node instanceof GuardNode;
+    }
+
+    /**
+     * The nodes that are duplicated for a merge: the fixed nodes from the merge up to and including
+     * the {@link IfNode} and its successors, and all floating nodes that depend on them or on the
+     * phis of the merge.
+     */
+    private static final class DuplicationRegion {
+
+        /**
+         * A use of a duplicated value by a node below the {@link IfNode} that has to be redirected
+         * to a value merged from all copies.
+         */
+        private static final class ExternalUse {
+
+            final Node user;
+            final Node value;
+            /**
+             * The index of the input if {@link #user} is a phi, -1 otherwise.
+             */
+            final int phiIndex;
+            final boolean trueSide;
+
+            ExternalUse(Node user, Node value, int phiIndex, boolean trueSide) {
+                this.user = user;
+                this.value = value;
+                this.phiIndex = phiIndex;
+                this.trueSide = trueSide;
+            }
+        }
+
+        final MergeNode merge;
+        final IfNode ifNode;
+        /**
+         * All nodes that are duplicated, i.e., the region except the merge and its phis.
+         */
+        final List<Node> duplicated;
+        final NodeBitMap region;
+        final List<ExternalUse> externalUses;
+
+        private DuplicationRegion(MergeNode merge, IfNode ifNode, List<Node> duplicated, NodeBitMap region, List<ExternalUse> externalUses) {
+            this.merge = merge;
+            this.ifNode = ifNode;
+            this.duplicated = duplicated;
+            this.region = region;
+            this.externalUses = externalUses;
+        }
+
+        int duplicatedSize() {
+            return duplicated.size();
+        }
+
+        int duplicatedChecks() {
+            int checks = 0;
+            for (Node node : duplicated) {
+                if (isCheck(node)) {
+                    checks++;
+                }
+            }
+            return checks;
+        }
+
+        /**
+         * @return the region that can be duplicated for {@code merge} or null if {@code merge} is
+         *         not a candidate for tail duplication
+         */
+        static DuplicationRegion create(MergeNode merge, ControlFlowGraph cfg) {
+            List<Node> duplicated = new ArrayList<>();
+            FixedNode current = merge.next();
+            while (current instanceof FixedWithNextNode) {
+                if (current instanceof AbstractBeginNode || current instanceof MemoryCheckpoint || (current instanceof StateSplit && ((StateSplit) current).hasSideEffect())) {
+                    return null;
+                }
+                duplicated.add(current);
+                current = ((FixedWithNextNode) current).next();
+            }
+            if (!(current instanceof IfNode)) {
+                return null;
+            }
+            IfNode ifNode = (IfNode) current;
+            if (!(ifNode.trueSuccessor() instanceof BeginNode) || !(ifNode.falseSuccessor() instanceof BeginNode)) {
+                return null;
+            }
+            duplicated.add(ifNode);
+            duplicated.add(ifNode.trueSuccessor());
+            duplicated.add(ifNode.falseSuccessor());
+
+            int maxSize = Options.TailDuplicationMaxSize.getValue();
+            if (cfg.blockFor(merge).probability() < TailDuplicationProbability.getValue()) {
+                maxSize = Math.min(maxSize, TailDuplicationTrivialSize.getValue());
+            }
+
+            NodeBitMap region = merge.graph().createNodeBitMap();
+            Deque<Node> worklist = new ArrayDeque<>();
+            region.mark(merge);
+            worklist.add(merge);
+            for (PhiNode phi : merge.phis()) {
+                region.mark(phi);
+                worklist.add(phi);
+            }
+            for (Node node : duplicated) {
+                region.mark(node);
+                worklist.add(node);
+            }
+
+            List<Node> externalUsers = new ArrayList<>();
+            List<Node> externalValues = new ArrayList<>();
+            while (!worklist.isEmpty()) {
+                Node node = worklist.remove();
+                for (Node usage : node.usages()) {
+                    if (region.isMarked(usage)) {
+                        continue;
+                    }
+                    if (usage instanceof FixedNode || usage instanceof PhiNode) {
+                        externalUsers.add(usage);
+                        externalValues.add(node);
+                    } else if (usage instanceof ProxyNode) {
+                        return null;
+                    } else {
+                        if (duplicated.size() >= maxSize) {
+                            return null;
+                        }
+                        region.mark(usage);
+                        duplicated.add(usage);
+                        worklist.add(usage);
+                    }
+                }
+            }
+            if (duplicated.size() > maxSize || !region.isMarked(ifNode.condition()) || !hasInformativePhiInput(merge)) {
+                return null;
+            }
+
+            Block trueBlock = cfg.blockFor(ifNode.trueSuccessor());
+            Block falseBlock = cfg.blockFor(ifNode.falseSuccessor());
+            List<ExternalUse> externalUses = new ArrayList<>();
+            NodeBitMap visitedPhis = merge.graph().createNodeBitMap();
+            for (int i = 0; i < externalUsers.size(); i++) {
+                Node user = externalUsers.get(i);
+                Node value = externalValues.get(i);
+                if (user instanceof PhiNode) {
+                    PhiNode phi = (PhiNode) user;
+                    if (visitedPhis.isMarked(phi)) {
+                        continue;
+                    }
+                    visitedPhis.mark(phi);
+                    for (int j = 0; j < phi.valueCount(); j++) {
+                        ValueNode input = phi.valueAt(j);
+                        if (region.isMarked(input)) {
+                            Block block = cfg.blockFor(phi.merge().phiPredecessorAt(j));
+                            if (!addExternalUse(externalUses, phi, input, j, block, trueBlock, falseBlock)) {
+                                return null;
+                            }
+                        }
+                    }
+                } else if (!addExternalUse(externalUses, user, value, -1, cfg.blockFor(user), trueBlock, falseBlock)) {
+                    return null;
+                }
+            }
+            return new DuplicationRegion(merge, ifNode, duplicated, region, externalUses);
+        }
+
+        private static boolean addExternalUse(List<ExternalUse> externalUses, Node user, Node value, int phiIndex, Block block, Block trueBlock, Block falseBlock) {
+            boolean trueSide;
+            if (AbstractControlFlowGraph.dominates(trueBlock, block)) {
+                trueSide = true;
+            } else if (AbstractControlFlowGraph.dominates(falseBlock, block)) {
+                trueSide = false;
+            } else {
+                // the value is needed after both sides have merged again
+                return false;
+            }
+            for (ExternalUse use : externalUses) {
+                if (use.user == user && use.value == value && use.phiIndex == phiIndex) {
+                    return true;
+                }
+            }
+            externalUses.add(new ExternalUse(user, value, phiIndex, trueSide));
+            return true;
+        }
+
+        /**
+         * Determines whether a phi of {@code merge} has an input that is more precise than the phi
+         * itself, which is a prerequisite for any check of the phi to become foldable.
+         */
+        private static boolean hasInformativePhiInput(MergeNode merge) {
+            for (PhiNode phi : merge.phis()) {
+                if (phi instanceof ValuePhiNode) {
+                    for (ValueNode input : phi.values()) {
+                        if (input != phi && (input.isConstant() || !input.stamp().equals(phi.stamp()))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Maps this region to the copy of its graph described by {@code duplicates}.
+         */
+        DuplicationRegion map(StructuredGraph copy, Map<Node, Node> duplicates) {
+            List<Node> mappedDuplicated = new ArrayList<>(duplicated.size());
+            NodeBitMap mappedRegion = copy.createNodeBitMap();
+            for (Node node : region) {
+                mappedRegion.mark(duplicates.get(node));
+            }
+            for (Node node : duplicated) {
+                mappedDuplicated.add(duplicates.get(node));
+            }
+            List<ExternalUse> mappedUses = new ArrayList<>(externalUses.size());
+            for (ExternalUse use : externalUses) {
+                mappedUses.add(new ExternalUse(duplicates.get(use.user), duplicates.get(use.value), use.phiIndex, use.trueSide));
+            }
+            return new DuplicationRegion((MergeNode) duplicates.get(merge), (IfNode) duplicates.get(ifNode), mappedDuplicated, mappedRegion, mappedUses);
+        }
+
+        /**
+         * Duplicates the region into all but the last predecessor of the merge.
+         *
+         * @return the nodes that should be canonicalized after the duplication in addition to the
+         *         new nodes
+         */
+        List<Node> apply(StructuredGraph graph) {
+            AbstractBeginNode trueSuccessor = ifNode.trueSuccessor();
+            AbstractBeginNode falseSuccessor = ifNode.falseSuccessor();
+            MergeNode trueMerge = insertMerge(graph, trueSuccessor);
+            MergeNode falseMerge = insertMerge(graph, falseSuccessor);
+
+            List<Map<Node, Node>> copies = new ArrayList<>();
+            List<EndNode> ends = merge.forwardEnds().snapshot();
+            for (EndNode end : ends.subList(0, ends.size() - 1)) {
+                BeginNode begin = graph.add(new BeginNode());
+                Map<Node, Node> replacements = Node.newMap();
+                replacements.put(merge, begin);
+                for (PhiNode phi : merge.phis()) {
+                    replacements.put(phi, phi.valueAt(end));
+                }
+                Map<Node, Node> duplicates = graph.addDuplicates(duplicated, graph, duplicated.size(), replacements);
+                begin.setNext((FixedNode) duplicates.get(merge.next()));
+                end.replaceAtPredecessor(begin);
+                merge.removeEnd(end);
+                end.safeDelete();
+
+                connect((AbstractBeginNode) duplicates.get(trueSuccessor), trueMerge, graph);
+                connect((AbstractBeginNode) duplicates.get(falseSuccessor), falseMerge, graph);
+
+                Map<Node, Node> copy = Node.newMap();
+                copy.putAll(duplicates);
+                copy.putAll(replacements);
+                copies.add(copy);
+            }
+
+            List<Node> touched = new ArrayList<>();
+            touched.add(merge);
+            touched.add(trueMerge);
+            touched.add(falseMerge);
+            Map<Node, Node> trueCache = Node.newMap();
+            Map<Node, Node> falseCache = Node.newMap();
+            for (ExternalUse use : externalUses) {
+                Node replacement = use.trueSide ? replacement(graph, use.value, trueMerge, copies, trueCache) : replacement(graph, use.value, falseMerge, copies, falseCache);
+                if (use.phiIndex >= 0) {
+                    ((PhiNode) use.user).setValueAt(use.phiIndex, (ValueNode) replacement);
+                } else {
+                    while (use.user.inputs().contains(use.value)) {
+                        use.user.replaceFirstInput(use.value, replacement);
+                    }
+                }
+                touched.add(use.user);
+            }
+            return touched;
+        }
+
+        /**
+         * Computes the node that replaces {@code value} for uses dominated by {@code target}.
+         */
+        private Node replacement(StructuredGraph graph, Node value, MergeNode target, List<Map<Node, Node>> copies, Map<Node, Node> cache) {
+            Node replacement = cache.get(value);
+            if (replacement != null) {
+                return replacement;
+            }
+            boolean isValue = value instanceof ValueNode && !(((ValueNode) value).stamp() instanceof VoidStamp);
+            if (value instanceof PhiNode || isValue) {
+                PhiNode phi;
+                if (value instanceof MemoryPhiNode) {
+                    phi = graph.addWithoutUnique(new MemoryPhiNode(target, ((MemoryPhiNode) value).getLocationIdentity()));
+                } else if (value instanceof GuardPhiNode) {
+                    phi = graph.addWithoutUnique(new GuardPhiNode(target));
+                } else {
+                    phi = graph.addWithoutUnique(new ValuePhiNode(((ValueNode) value).stamp(), target));
+                }
+                phi.addInput((ValueNode) value);
+                for (Map<Node, Node> copy : copies) {
+                    phi.addInput((ValueNode) copy.get(value));
+                }
+                replacement = phi;
+            } else if (value instanceof FixedNode) {
+                // guard or anchor usages
+                replacement = target;
+            } else {
+                // frame states and conditions are rebuilt from the merged inputs
+                replacement = value.copyWithInputs();
+                for (Node input : value.inputs()) {
+                    if (region.isMarked(input)) {
+                        replacement.replaceFirstInput(input, replacement(graph, input, target, copies, cache));
+                    }
+                }
+            }
+            cache.put(value, replacement);
+            return replacement;
+        }
+
+        /**
+         * Inserts a new merge between {@code begin} and its successor.
+         */
+        private static MergeNode insertMerge(StructuredGraph graph, AbstractBeginNode begin) {
+            MergeNode newMerge = graph.add(new MergeNode());
+            FixedNode next = begin.next();
+            next.replaceAtPredecessor(newMerge);
+            newMerge.setNext(next);
+            connect(begin, newMerge, graph);
+            return newMerge;
+        }
+
+        private static void connect(AbstractBeginNode begin, MergeNode target, StructuredGraph graph) {
+            EndNode end = graph.add(new EndNode());
+            begin.setNext(end);
+            target.addForwardEnd(end);
+        }
+    }
+}
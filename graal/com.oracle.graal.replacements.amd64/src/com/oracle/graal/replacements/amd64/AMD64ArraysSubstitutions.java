@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.amd64;
+
+import java.util.Arrays;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.replacements.nodes.ArrayFillNode;
+import com.oracle.graal.replacements.nodes.ArrayMismatchNode;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@link java.util.Arrays} methods that are backed by AMD64 specific vector code.
+ * The {@code mismatch} methods only exist since JDK 9.
+ */
+@ClassSubstitution(Arrays.class)
+public class AMD64ArraysSubstitutions {
+
+    @MethodSubstitution
+    public static void fill(boolean[] a, boolean val) {
+        ArrayFillNode.fill(a, 0, a.length, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(boolean[] a, int fromIndex, int toIndex, boolean val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // let the original method throw the appropriate exception
+            Arrays.fill(a, fromIndex, toIndex, val);
+            return;
+        }
+        ArrayFillNode.fill(a, fromIndex, toIndex, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(byte[] a, byte val) {
+        ArrayFillNode.fill(a, 0, a.length, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(byte[] a, int fromIndex, int toIndex, byte val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // let the original method throw the appropriate exception
+            Arrays.fill(a, fromIndex, toIndex, val);
+            return;
+        }
+        ArrayFillNode.fill(a, fromIndex, toIndex, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(char[] a, char val) {
+        ArrayFillNode.fill(a, 0, a.length, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(char[] a, int fromIndex, int toIndex, char val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // let the original method throw the appropriate exception
+            Arrays.fill(a, fromIndex, toIndex, val);
+            return;
+        }
+        ArrayFillNode.fill(a, fromIndex, toIndex, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(short[] a, short val) {
+        ArrayFillNode.fill(a, 0, a.length, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(short[] a, int fromIndex, int toIndex, short val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // let the original method throw the appropriate exception
+            Arrays.fill(a, fromIndex, toIndex, val);
+            return;
+        }
+        ArrayFillNode.fill(a, fromIndex, toIndex, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(int[] a, int val) {
+        ArrayFillNode.fill(a, 0, a.length, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(int[] a, int fromIndex, int toIndex, int val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // let the original method throw the appropriate exception
+            Arrays.fill(a, fromIndex, toIndex, val);
+            return;
+        }
+        ArrayFillNode.fill(a, fromIndex, toIndex, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(long[] a, long val) {
+        ArrayFillNode.fill(a, 0, a.length, val);
+    }
+
+    @MethodSubstitution
+    public static void fill(long[] a, int fromIndex, int toIndex, long val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // let the original method throw the appropriate exception
+            Arrays.fill(a, fromIndex, toIndex, val);
+            return;
+        }
+        ArrayFillNode.fill(a, fromIndex, toIndex, val);
+    }
+
+    @MethodSubstitution(optional = true)
+    public static int mismatch(boolean[] a, boolean[] b) {
+        int length = Math.min(a.length, b.length);
+        if (a == b) {
+            return -1;
+        }
+        int i = ArrayMismatchNode.mismatch(a, b, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    @MethodSubstitution(optional = true)
+    public static int mismatch(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        if (a == b) {
+            return -1;
+        }
+        int i = ArrayMismatchNode.mismatch(a, b, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    @MethodSubstitution(optional = true)
+    public static int mismatch(char[] a, char[] b) {
+        int length = Math.min(a.length, b.length);
+        if (a == b) {
+            return -1;
+        }
+        int i = ArrayMismatchNode.mismatch(a, b, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    @MethodSubstitution(optional = true)
+    public static int mismatch(short[] a, short[] b) {
+        int length = Math.min(a.length, b.length);
+        if (a == b) {
+            return -1;
+        }
+        int i = ArrayMismatchNode.mismatch(a, b, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    @MethodSubstitution(optional = true)
+    public static int mismatch(int[] a, int[] b) {
+        int length = Math.min(a.length, b.length);
+        if (a == b) {
+            return -1;
+        }
+        int i = ArrayMismatchNode.mismatch(a, b, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    @MethodSubstitution(optional = true)
+    public static int mismatch(long[] a, long[] b) {
+        int length = Math.min(a.length, b.length);
+        if (a == b) {
+            return -1;
+        }
+        int i = ArrayMismatchNode.mismatch(a, b, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.amd64;
+
+import static com.oracle.graal.compiler.common.GraalOptions.DeoptsToDisableOptimisticOptimization;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.IntegerEqualsNode;
+import com.oracle.graal.nodes.calc.ReinterpretNode;
+import com.oracle.graal.nodes.calc.RightShiftNode;
+import com.oracle.graal.nodes.calc.SignExtendNode;
+import com.oracle.graal.nodes.calc.UnsignedRightShiftNode;
+import com.oracle.graal.nodes.calc.ZeroExtendNode;
+import com.oracle.graal.nodes.extended.UnsafeLoadNode;
+import com.oracle.graal.nodes.extended.UnsafeStoreNode;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderContext;
+import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugin;
+import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.replacements.nodes.ReverseBytesNode;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import sun.misc.Unsafe;
+
+/**
+ * Implements the absolute get and put methods of {@code java.nio.DirectByteBuffer} and
+ * {@code java.nio.HeapByteBuffer} with a single unaligned memory access. The index check of the
+ * buffer is expressed as a single unsigned comparison guard that deoptimizes instead of throwing
+ * the exception, so that it can be moved and combined like the guard of an array access. The
+ * memory access is anchored on that comparison. The byte order of the buffer is
+ * applied by conditionally reversing the bytes of the accessed value.
+ *
+ * Once the guards of a method have deoptimized too often, the methods are no longer
+ * intrinsified for that method.
+ */
+public final class AMD64ByteBufferPlugin implements InvocationPlugin {
+
+    private static final Field LIMIT_FIELD;
+    private static final Field ADDRESS_FIELD;
+    private static final Field HB_FIELD;
+    private static final Field OFFSET_FIELD;
+    private static final Field NATIVE_BYTE_ORDER_FIELD;
+
+    static {
+        try {
+            LIMIT_FIELD = Buffer.class.getDeclaredField("limit");
+            ADDRESS_FIELD = Buffer.class.getDeclaredField("address");
+            HB_FIELD = ByteBuffer.class.getDeclaredField("hb");
+            OFFSET_FIELD = ByteBuffer.class.getDeclaredField("offset");
+            NATIVE_BYTE_ORDER_FIELD = ByteBuffer.class.getDeclaredField("nativeByteOrder");
+        } catch (NoSuchFieldException e) {
+            throw new GraalError(e);
+        }
+    }
+
+    private final JavaKind kind;
+    private final boolean direct;
+
+    /**
+     * @param kind the kind of the value read or written by the method
+     * @param direct specifies if the plugin is for a {@code DirectByteBuffer} or for a
+     *            {@code HeapByteBuffer}
+     */
+    public AMD64ByteBufferPlugin(JavaKind kind, boolean direct) {
+        this.kind = kind;
+        this.direct = direct;
+    }
+
+    @Override
+    public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index) {
+        if (!useGuards(b)) {
+            return false;
+        }
+        ValueNode buffer = receiver.get();
+        LogicNode inBounds = emitIndexCheck(b, buffer, index);
+        JavaKind accessKind = accessKind();
+        ValueNode value = b.add(new UnsafeLoadNode(base(b, buffer), offset(b, buffer, index), accessKind, locationIdentity(), inBounds));
+        if (kind != JavaKind.Byte) {
+            value = emitByteOrder(b, buffer, value, reverseBytes(b, value));
+        }
+        if (kind.isNumericFloat()) {
+            value = b.add(new ReinterpretNode(kind, value));
+        }
+        b.push(kind, value);
+        b.getGraph().markUnsafeAccess();
+        return true;
+    }
+
+    @Override
+    public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index, ValueNode newValue) {
+        if (!useGuards(b)) {
+            return false;
+        }
+        ValueNode buffer = receiver.get();
+        emitIndexCheck(b, buffer, index);
+        JavaKind accessKind = accessKind();
+        ValueNode value = newValue;
+        if (kind.isNumericFloat()) {
+            value = b.add(new ReinterpretNode(accessKind, value));
+        }
+        if (kind != JavaKind.Byte) {
+            value = emitByteOrder(b, buffer, value, reverseBytes(b, value));
+        }
+        ValueNode base = base(b, buffer);
+        ValueNode offset = offset(b, buffer, index);
+        // the put methods return the buffer, which must be on the stack in the state after the store
+        b.push(JavaKind.Object, buffer);
+        b.add(new UnsafeStoreNode(base, offset, value, accessKind, locationIdentity()));
+        b.getGraph().markUnsafeAccess();
+        return true;
+    }
+
+    private static boolean useGuards(GraphBuilderContext b) {
+        return b.getGraph().getProfilingInfo(b.getMethod()).getDeoptimizationCount(DeoptimizationReason.BoundsCheckException) < DeoptsToDisableOptimisticOptimization.getValue();
+    }
+
+    /**
+     * The kind of the memory access, which is the integer kind of the same size for floating
+     * point values.
+     */
+    private JavaKind accessKind() {
+        switch (kind) {
+            case Float:
+                return JavaKind.Int;
+            case Double:
+                return JavaKind.Long;
+            default:
+                return kind;
+        }
+    }
+
+    private LocationIdentity locationIdentity() {
+        return direct ? LocationIdentity.any() : NamedLocationIdentity.getArrayLocation(JavaKind.Byte);
+    }
+
+    /**
+     * Emits the guard for {@code index >= 0 && index <= limit - size}, which is what
+     * {@code Buffer.checkIndex} checks, as a single unsigned comparison. For single bytes this is
+     * {@code index |<| limit}, like an array bounds check. For larger values,
+     * {@code limit - size + 1} can be negative, so the comparison
+     * {@code index + size - 1 |<| limit} is done on the zero extended values instead, where a
+     * negative index is larger than any limit and the addition cannot overflow.
+     *
+     * @return the condition that holds after the guard
+     */
+    private LogicNode emitIndexCheck(GraphBuilderContext b, ValueNode buffer, ValueNode index) {
+        ValueNode limit = b.add(LoadFieldNode.create(b.getAssumptions(), buffer, b.getMetaAccess().lookupJavaField(LIMIT_FIELD)));
+        LogicNode inBounds;
+        if (kind.getByteCount() == 1) {
+            inBounds = b.add(IntegerBelowNode.create(index, limit, b.getConstantReflection()));
+        } else {
+            ValueNode last = b.add(new AddNode(b.add(new ZeroExtendNode(index, 64)), ConstantNode.forLong(kind.getByteCount() - 1, b.getGraph())));
+            inBounds = b.add(IntegerBelowNode.create(last, b.add(new ZeroExtendNode(limit, 64)), b.getConstantReflection()));
+        }
+        b.add(new FixedGuardNode(inBounds, DeoptimizationReason.BoundsCheckException, DeoptimizationAction.InvalidateReprofile));
+        return inBounds;
+    }
+
+    private ValueNode base(GraphBuilderContext b, ValueNode buffer) {
+        if (direct) {
+            return ConstantNode.forConstant(JavaConstant.NULL_POINTER, b.getMetaAccess(), b.getGraph());
+        }
+        return b.add(LoadFieldNode.create(b.getAssumptions(), buffer, b.getMetaAccess().lookupJavaField(HB_FIELD)));
+    }
+
+    /**
+     * Computes the address of the accessed bytes for a direct buffer, or their offset in the
+     * backing array for a heap buffer.
+     */
+    private ValueNode offset(GraphBuilderContext b, ValueNode buffer, ValueNode index) {
+        if (direct) {
+            ValueNode address = b.add(LoadFieldNode.create(b.getAssumptions(), buffer, b.getMetaAccess().lookupJavaField(ADDRESS_FIELD)));
+            return b.add(new AddNode(address, b.add(new SignExtendNode(index, 64))));
+        }
+        ValueNode arrayOffset = b.add(LoadFieldNode.create(b.getAssumptions(), buffer, b.getMetaAccess().lookupJavaField(OFFSET_FIELD)));
+        ValueNode arrayIndex = b.add(new SignExtendNode(b.add(new AddNode(arrayOffset, index)), 64));
+        return b.add(new AddNode(arrayIndex, ConstantNode.forLong(Unsafe.ARRAY_BYTE_BASE_OFFSET, b.getGraph())));
+    }
+
+    /**
+     * Selects {@code reversed} if the byte order of the buffer is not the native one.
+     */
+    private static ValueNode emitByteOrder(GraphBuilderContext b, ValueNode buffer, ValueNode value, ValueNode reversed) {
+        ValueNode nativeByteOrder = b.add(LoadFieldNode.create(b.getAssumptions(), buffer, b.getMetaAccess().lookupJavaField(NATIVE_BYTE_ORDER_FIELD)));
+        LogicNode nonNative = b.add(IntegerEqualsNode.create(nativeByteOrder, ConstantNode.forInt(0, b.getGraph()), b.getConstantReflection()));
+        return b.add(new ConditionalNode(nonNative, reversed, value));
+    }
+
+    private ValueNode reverseBytes(GraphBuilderContext b, ValueNode value) {
+        switch (accessKind()) {
+            case Char:
+                return b.add(new UnsignedRightShiftNode(b.add(new ReverseBytesNode(value)), ConstantNode.forInt(16, b.getGraph())));
+            case Short:
+                return b.add(new RightShiftNode(b.add(new ReverseBytesNode(value)), ConstantNode.forInt(16, b.getGraph())));
+            case Int:
+            case Long:
+                return b.add(new ReverseBytesNode(value));
+            default:
+                throw GraalError.shouldNotReachHere();
+        }
+    }
+}
@@ -22,6 +22,7 @@
  */
 package com.oracle.graal.replacements.amd64;
 
+import static com.oracle.graal.compiler.common.util.Util.Java8OrEarlier;
 import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.COS;
 import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.EXP;
 import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.LOG;
@@ -29,6 +30,9 @@ import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOp
 import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.SIN;
 import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.TAN;
 
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
 import com.oracle.graal.compiler.common.LocationIdentity;
 import com.oracle.graal.lir.amd64.AMD64ArithmeticLIRGeneratorTool.RoundingMode;
 import com.oracle.graal.nodes.ValueNode;
@@ -68,6 +72,11 @@ public class AMD64GraphBuilderPlugins {
                 registerIntegerLongPlugins(invocationPlugins, LongSubstitutions.class, JavaKind.Long, arch);
                 registerUnsafePlugins(invocationPlugins);
                 registerMathPlugins(invocationPlugins, arch, arithmeticStubs);
+                if (Java8OrEarlier) {
+                    registerStringPlugins(invocationPlugins, arch);
+                }
+                registerArraysPlugins(invocationPlugins);
+                registerByteBufferPlugins(invocationPlugins);
             }
         });
     }
@@ -171,6 +180,44 @@ public class AMD64GraphBuilderPlugins {
         });
     }
 
+    private static void registerStringPlugins(InvocationPlugins plugins, AMD64 arch) {
+        Registration r = new Registration(plugins, String.class);
+        r.registerMethodSubstitution(AMD64StringSubstitutions.class, "compareTo", Receiver.class, String.class);
+        r.registerMethodSubstitution(AMD64StringSubstitutions.class, "indexOf", Receiver.class, int.class, int.class);
+        if (arch.getFeatures().contains(CPUFeature.SSE4_2)) {
+            // pcmpestri
+            r.registerMethodSubstitution(AMD64StringSubstitutions.class, "indexOf", Receiver.class, String.class, int.class);
+        }
+        if (arch.getFeatures().contains(CPUFeature.SSE4_1)) {
+            // pmulld and pmovzxwd
+            r.registerMethodSubstitution(AMD64StringSubstitutions.class, "hashCode", Receiver.class);
+        }
+    }
+
+    private static void registerArraysPlugins(InvocationPlugins plugins) {
+        Registration r = new Registration(plugins, Arrays.class);
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class, long.class}) {
+            Class<?> arrayType = Array.newInstance(type, 0).getClass();
+            r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "fill", arrayType, type);
+            r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "fill", arrayType, int.class, int.class, type);
+            if (!Java8OrEarlier) {
+                r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "mismatch", arrayType, arrayType);
+            }
+        }
+    }
+
+    private static void registerByteBufferPlugins(InvocationPlugins plugins) {
+        for (boolean direct : new boolean[]{true, false}) {
+            Registration r = new Registration(plugins, direct ? "java.nio.DirectByteBuffer" : "java.nio.HeapByteBuffer");
+            for (JavaKind kind : new JavaKind[]{JavaKind.Byte, JavaKind.Char, JavaKind.Short, JavaKind.Int, JavaKind.Long, JavaKind.Float, JavaKind.Double}) {
+                String kindName = kind == JavaKind.Byte ? "" : kind.name();
+                AMD64ByteBufferPlugin plugin = new AMD64ByteBufferPlugin(kind, direct);
+                r.register2("get" + kindName, Receiver.class, int.class, plugin);
+                r.register3("put" + kindName, Receiver.class, int.class, kind.toJavaClass(), plugin);
+            }
+        }
+    }
+
     private static void registerUnsafePlugins(InvocationPlugins plugins) {
         Registration r = new Registration(plugins, Unsafe.class);
 
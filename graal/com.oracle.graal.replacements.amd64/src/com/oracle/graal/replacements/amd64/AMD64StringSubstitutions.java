@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.amd64;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.replacements.StringSubstitutions;
+import com.oracle.graal.replacements.nodes.ArrayCompareToNode;
+import com.oracle.graal.replacements.nodes.ArrayHashCodeNode;
+import com.oracle.graal.replacements.nodes.ArrayIndexOfNode;
+import com.oracle.graal.replacements.nodes.StringIndexOfNode;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@link java.lang.String} methods that are backed by AMD64 specific vector
+ * code.
+ */
+@ClassSubstitution(String.class)
+public class AMD64StringSubstitutions {
+
+    @MethodSubstitution(isStatic = false)
+    public static int compareTo(String thisString, String anotherString) {
+        char[] array1 = StringSubstitutions.getValue(thisString);
+        char[] array2 = StringSubstitutions.getValue(anotherString);
+        return ArrayCompareToNode.compareTo(array1, array2, array1.length, array2.length);
+    }
+
+    @MethodSubstitution(isStatic = false)
+    public static int indexOf(String thisString, int ch, int fromIndex) {
+        char[] value = StringSubstitutions.getValue(thisString);
+        int from = fromIndex < 0 ? 0 : fromIndex;
+        if (from >= value.length) {
+            return -1;
+        }
+        if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            if (ch < 0) {
+                // no char is negative
+                return -1;
+            }
+            return ArrayIndexOfNode.indexOf(value, from, value.length, ch);
+        }
+        // supplementary code points are searched as surrogate pairs by the original method
+        return thisString.indexOf(ch, fromIndex);
+    }
+
+    @MethodSubstitution(isStatic = false)
+    public static int indexOf(String thisString, String str, int fromIndex) {
+        char[] source = StringSubstitutions.getValue(thisString);
+        char[] target = StringSubstitutions.getValue(str);
+        int sourceCount = source.length;
+        int targetCount = target.length;
+        if (fromIndex >= sourceCount) {
+            return targetCount == 0 ? sourceCount : -1;
+        }
+        int from = fromIndex < 0 ? 0 : fromIndex;
+        if (targetCount == 0) {
+            return from;
+        }
+        if (targetCount > sourceCount - from) {
+            return -1;
+        }
+        return StringIndexOfNode.indexOf(source, from, sourceCount, target, targetCount);
+    }
+
+    @MethodSubstitution(isStatic = false)
+    public static int hashCode(String thisString) {
+        int h = StringSubstitutions.getHash(thisString);
+        if (h == 0) {
+            char[] value = StringSubstitutions.getValue(thisString);
+            if (value.length > 0) {
+                h = ArrayHashCodeNode.hashCode(value, value.length);
+                StringSubstitutions.setHash(thisString, h);
+            }
+        }
+        return h;
+    }
+}
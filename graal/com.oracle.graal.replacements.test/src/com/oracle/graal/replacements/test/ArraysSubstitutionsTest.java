@@ -22,14 +22,22 @@
  */
 package com.oracle.graal.replacements.test;
 
+import static com.oracle.graal.nodes.StructuredGraph.NO_PROFILING_INFO;
+import static com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.CompilationContext.ROOT_COMPILATION;
+
+import java.lang.reflect.Array;
 import java.util.Arrays;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
+import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.nodes.ReturnNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext;
 import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.inlining.InliningPhase;
@@ -37,8 +45,13 @@ import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.tiers.PhaseContext;
 import com.oracle.graal.replacements.ArraysSubstitutions;
 import com.oracle.graal.replacements.nodes.ArrayEqualsNode;
+import com.oracle.graal.replacements.nodes.ArrayMismatchNode;
 import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
 
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
 /**
  * Tests {@link ArraysSubstitutions}.
  */
@@ -396,4 +409,228 @@ public class ArraysSubstitutionsTest extends MethodSubstitutionTest {
         int[] array2 = new int[]{1, 2, 3, 4};
         return Arrays.equals(array1, array2);
     }
+
+    private static final int[] FILL_LENGTHS = {0, 1, 2, 3, 7, 8, 9, 15, 16, 17, 31, 33, 100, 4099};
+
+    private void testFill(String snippet, Object value) {
+        for (int length : FILL_LENGTHS) {
+            test(snippet, length, 0, length, value);
+            test(snippet, length, length / 3, length - length / 4, value);
+        }
+        // out of range
+        test(snippet, 10, -1, 5, value);
+        test(snippet, 10, 6, 5, value);
+        test(snippet, 10, 0, 11, value);
+    }
+
+    @Test
+    public void testFillBoolean() {
+        testFill("fillBooleanSnippet", true);
+    }
+
+    public static boolean[] fillBooleanSnippet(int length, int fromIndex, int toIndex, boolean value) {
+        boolean[] array = new boolean[length];
+        Arrays.fill(array, fromIndex, toIndex, value);
+        return array;
+    }
+
+    @Test
+    public void testFillByte() {
+        testFill("fillByteSnippet", (byte) -85);
+    }
+
+    public static byte[] fillByteSnippet(int length, int fromIndex, int toIndex, byte value) {
+        byte[] array = new byte[length];
+        Arrays.fill(array, fromIndex, toIndex, value);
+        return array;
+    }
+
+    @Test
+    public void testFillChar() {
+        testFill("fillCharSnippet", '\u20ac');
+    }
+
+    public static char[] fillCharSnippet(int length, int fromIndex, int toIndex, char value) {
+        char[] array = new char[length];
+        Arrays.fill(array, fromIndex, toIndex, value);
+        return array;
+    }
+
+    @Test
+    public void testFillShort() {
+        testFill("fillShortSnippet", (short) -12345);
+    }
+
+    public static short[] fillShortSnippet(int length, int fromIndex, int toIndex, short value) {
+        short[] array = new short[length];
+        Arrays.fill(array, fromIndex, toIndex, value);
+        return array;
+    }
+
+    /**
+     * Fills 2-byte element ranges that start at every offset within a 16-byte vector so that the
+     * head of the fill is not aligned to the vector size.
+     */
+    private void testFillUnaligned(String snippet, Object value) {
+        for (int fromIndex = 0; fromIndex < 8; fromIndex++) {
+            for (int count : new int[]{1, 2, 3, 4, 7, 8, 9, 15, 16, 17, 33}) {
+                test(snippet, 64, fromIndex, fromIndex + count, value);
+            }
+        }
+    }
+
+    @Test
+    public void testFillCharUnaligned() {
+        testFillUnaligned("fillCharSnippet", '\u20ac');
+    }
+
+    @Test
+    public void testFillShortUnaligned() {
+        testFillUnaligned("fillShortSnippet", (short) -12345);
+    }
+
+    @Test
+    public void testFillInt() {
+        testFill("fillIntSnippet", 0xCAFEBABE);
+    }
+
+    public static int[] fillIntSnippet(int length, int fromIndex, int toIndex, int value) {
+        int[] array = new int[length];
+        Arrays.fill(array, fromIndex, toIndex, value);
+        return array;
+    }
+
+    @Test
+    public void testFillLong() {
+        testFill("fillLongSnippet", 0x123456789ABCDEFL);
+    }
+
+    public static long[] fillLongSnippet(int length, int fromIndex, int toIndex, long value) {
+        long[] array = new long[length];
+        Arrays.fill(array, fromIndex, toIndex, value);
+        return array;
+    }
+
+    private static final int[] MISMATCH_LENGTHS = {0, 1, 2, 7, 8, 9, 15, 16, 17, 31, 32, 33, 63, 64, 65};
+
+    private static Object element(Class<?> componentType, int i) {
+        if (componentType == boolean.class) {
+            return (i & 1) == 0;
+        } else if (componentType == byte.class) {
+            return (byte) (i * 37);
+        } else if (componentType == char.class) {
+            return (char) (0x7FF0 + i * 31);
+        } else if (componentType == short.class) {
+            return (short) (0x7FF0 + i * 31);
+        } else if (componentType == int.class) {
+            return i * 0x01010101;
+        } else {
+            assert componentType == long.class;
+            return i * 0x0101010101010101L;
+        }
+    }
+
+    /**
+     * Gets an element that differs from {@code element(componentType, i)} only in the sign bit of
+     * the element, or in its value for {@code boolean}.
+     */
+    private static Object otherElement(Class<?> componentType, int i) {
+        if (componentType == boolean.class) {
+            return (i & 1) != 0;
+        } else if (componentType == byte.class) {
+            return (byte) ((byte) element(componentType, i) ^ Byte.MIN_VALUE);
+        } else if (componentType == char.class) {
+            return (char) ((char) element(componentType, i) ^ 0x8000);
+        } else if (componentType == short.class) {
+            return (short) ((short) element(componentType, i) ^ Short.MIN_VALUE);
+        } else if (componentType == int.class) {
+            return (int) element(componentType, i) ^ Integer.MIN_VALUE;
+        } else {
+            return (long) element(componentType, i) ^ Long.MIN_VALUE;
+        }
+    }
+
+    private static Object newArray(Class<?> componentType, int length) {
+        Object array = Array.newInstance(componentType, length);
+        for (int i = 0; i < length; i++) {
+            Array.set(array, i, element(componentType, i));
+        }
+        return array;
+    }
+
+    /**
+     * Compiles the {@code Arrays.mismatch} substitution for {@code componentType} and compares it
+     * with the JDK method for equal arrays, for arrays of different length and for a mismatch at
+     * every index, i.e., in the vector loop as well as in the tail of the compared range.
+     */
+    private void testMismatch(Class<?> componentType) {
+        Assume.assumeFalse("Arrays.mismatch only exists since JDK 9", Java8OrEarlier);
+        Class<?> arrayType = Array.newInstance(componentType, 0).getClass();
+        ResolvedJavaMethod method = getResolvedJavaMethod(Arrays.class, "mismatch", arrayType, arrayType);
+        StructuredGraph subst = getReplacements().getSubstitution(method, 0);
+        StructuredGraph graph = null;
+        if (subst != null) {
+            // compile the substitution itself as the root method
+            ResolvedJavaMethod substMethod = subst.method();
+            graph = new StructuredGraph(substMethod, AllowAssumptions.YES, NO_PROFILING_INFO);
+            GraphBuilderConfiguration config = GraphBuilderConfiguration.getSnippetDefault(getDefaultGraphBuilderPlugins());
+            IntrinsicContext initialReplacementContext = new IntrinsicContext(method, substMethod, ROOT_COMPILATION);
+            new GraphBuilderPhase.Instance(getMetaAccess(), getProviders().getStampProvider(), getConstantReflection(), getProviders().getConstantFieldProvider(), config,
+                            OptimisticOptimizations.NONE, initialReplacementContext).apply(graph);
+            assertInGraph(graph, ArrayMismatchNode.class);
+        } else {
+            Assert.assertFalse(getTarget().arch instanceof AMD64);
+        }
+        InstalledCode code = getCode(method, graph, true);
+        for (int length : MISMATCH_LENGTHS) {
+            Object a = newArray(componentType, length);
+            checkMismatch(method, code, a, a);
+            checkMismatch(method, code, a, newArray(componentType, length));
+            checkMismatch(method, code, a, newArray(componentType, length + 3));
+            checkMismatch(method, code, newArray(componentType, length + 1), a);
+            for (int i = 0; i < length; i++) {
+                Object b = newArray(componentType, length);
+                Array.set(b, i, otherElement(componentType, i));
+                checkMismatch(method, code, a, b);
+                // a second mismatch after the first one must not change the result
+                Array.set(b, length - 1, otherElement(componentType, length - 1));
+                checkMismatch(method, code, a, b);
+            }
+        }
+    }
+
+    private void checkMismatch(ResolvedJavaMethod method, InstalledCode code, Object a, Object b) {
+        Object expected = invokeSafe(method, null, a, b);
+        assertDeepEquals(expected, executeVarargsSafe(code, a, b));
+    }
+
+    @Test
+    public void testMismatchBoolean() {
+        testMismatch(boolean.class);
+    }
+
+    @Test
+    public void testMismatchByte() {
+        testMismatch(byte.class);
+    }
+
+    @Test
+    public void testMismatchChar() {
+        testMismatch(char.class);
+    }
+
+    @Test
+    public void testMismatchShort() {
+        testMismatch(short.class);
+    }
+
+    @Test
+    public void testMismatchInt() {
+        testMismatch(int.class);
+    }
+
+    @Test
+    public void testMismatchLong() {
+        testMismatch(long.class);
+    }
 }
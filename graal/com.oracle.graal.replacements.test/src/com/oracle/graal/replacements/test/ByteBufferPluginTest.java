@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.nodes.Invoke;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.extended.UnsafeLoadNode;
+import com.oracle.graal.nodes.extended.UnsafeStoreNode;
+import com.oracle.graal.nodes.java.NewInstanceNode;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the plugins for the absolute get and put methods of direct and heap byte buffers in both
+ * byte orders, including accesses outside of the buffer, and checks that the plugins replace the
+ * calls once the type of the buffer is known.
+ */
+public class ByteBufferPluginTest extends GraalCompilerTest {
+
+    private static final int SIZE = 64;
+
+    private static final int[] INDICES = {0, 1, 3, 8, SIZE - 30, SIZE - 29, SIZE - 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE};
+
+    private static ByteOrder order(boolean bigEndian) {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    public static long directBuffer(int index, boolean bigEndian) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SIZE).order(order(bigEndian));
+        buffer.put(index, (byte) 0x12).putChar(index + 1, (char) 0x3456).putShort(index + 3, (short) -2).putInt(index + 5, 0x789ABCDE);
+        buffer.putLong(index + 9, 0x0123456789ABCDEFL).putFloat(index + 17, 1.5F).putDouble(index + 21, -2.25D);
+        long result = buffer.get(index);
+        result = result * 31 + buffer.getChar(index + 1);
+        result = result * 31 + buffer.getShort(index + 3);
+        result = result * 31 + buffer.getInt(index + 5);
+        result = result * 31 + buffer.getLong(index + 9);
+        result = result * 31 + Float.floatToRawIntBits(buffer.getFloat(index + 17));
+        result = result * 31 + Double.doubleToRawLongBits(buffer.getDouble(index + 21));
+        // unaligned reads across the values written above
+        result = result * 31 + buffer.getInt(index + 2);
+        result = result * 31 + buffer.getLong(index + 14);
+        return result;
+    }
+
+    public static long heapBuffer(int index, boolean bigEndian) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE).order(order(bigEndian));
+        buffer.put(index, (byte) 0x12).putChar(index + 1, (char) 0x3456).putShort(index + 3, (short) -2).putInt(index + 5, 0x789ABCDE);
+        buffer.putLong(index + 9, 0x0123456789ABCDEFL).putFloat(index + 17, 1.5F).putDouble(index + 21, -2.25D);
+        long result = buffer.get(index);
+        result = result * 31 + buffer.getChar(index + 1);
+        result = result * 31 + buffer.getShort(index + 3);
+        result = result * 31 + buffer.getInt(index + 5);
+        result = result * 31 + buffer.getLong(index + 9);
+        result = result * 31 + Float.floatToRawIntBits(buffer.getFloat(index + 17));
+        result = result * 31 + Double.doubleToRawLongBits(buffer.getDouble(index + 21));
+        result = result * 31 + buffer.getInt(index + 2);
+        result = result * 31 + buffer.getLong(index + 14);
+        return result;
+    }
+
+    public static long slicedHeapBuffer(byte[] array, int index, boolean bigEndian) {
+        ByteBuffer buffer = ByteBuffer.wrap(array, 5, array.length - 5).slice().order(order(bigEndian));
+        buffer.putInt(index, 0x789ABCDE).putLong(index + 4, 0x0123456789ABCDEFL);
+        return buffer.getLong(index) + buffer.getShort(index + 6);
+    }
+
+    /**
+     * The limit of the buffer is smaller than the size of the value.
+     */
+    public static int smallDirectBuffer(int index) {
+        return ByteBuffer.allocateDirect(2).getInt(index);
+    }
+
+    public static int directGetInt(int index) {
+        return ByteBuffer.allocateDirect(SIZE).getInt(index);
+    }
+
+    public static ByteBuffer directPutInt(int index, int value) {
+        return ByteBuffer.allocateDirect(SIZE).putInt(index, value);
+    }
+
+    public static int heapGetInt(int index) {
+        return ByteBuffer.allocate(SIZE).getInt(index);
+    }
+
+    public static ByteBuffer heapPutInt(int index, int value) {
+        return ByteBuffer.allocate(SIZE).putInt(index, value);
+    }
+
+    /*
+     * The following snippets access local arrays at constant indices, so escape analysis
+     * virtualizes the arrays and sees multi-byte accesses to single byte elements.
+     */
+
+    public static int localGetInt() {
+        return ByteBuffer.wrap(new byte[]{1, 2, 3, 4}).getInt(0);
+    }
+
+    public static long localGetLong() {
+        return ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9}).order(ByteOrder.LITTLE_ENDIAN).getLong(1);
+    }
+
+    public static int localPutInt(int value) {
+        byte[] array = new byte[4];
+        ByteBuffer.wrap(array).putInt(0, value);
+        return array[1];
+    }
+
+    public static long localPutLong(long value) {
+        byte[] array = new byte[10];
+        ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN).putLong(2, value);
+        return array[0] + array[2] * 31L + array[5] * 961L + array[9];
+    }
+
+    public static char localPutGetChar(byte value) {
+        byte[] array = new byte[4];
+        array[2] = value;
+        ByteBuffer buffer = ByteBuffer.wrap(array);
+        buffer.putChar(0, (char) 0x1234);
+        return (char) (buffer.getChar(1) + array[0]);
+    }
+
+    /**
+     * Inlines the calls of the given snippet and checks that the absolute get and put methods were
+     * replaced by the plugin: no call of these methods or of {@code checkIndex} remains, no
+     * {@link IndexOutOfBoundsException} is allocated, and the graph contains the guarded access.
+     */
+    private void assertIntrinsified(String snippet, boolean isGet) {
+        if (!(getTarget().arch instanceof AMD64)) {
+            return;
+        }
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        HighTierContext context = getDefaultHighTierContext();
+        new InliningPhase(new CanonicalizerPhase()).apply(graph, context);
+        new CanonicalizerPhase().apply(graph, context);
+        for (Invoke invoke : graph.getInvokes()) {
+            ResolvedJavaMethod target = invoke.callTarget().targetMethod();
+            String name = target.getName();
+            boolean bufferAccess = (name.startsWith("get") || name.startsWith("put")) && getMetaAccess().lookupJavaType(ByteBuffer.class).isAssignableFrom(target.getDeclaringClass());
+            Assert.assertFalse(snippet + ": " + target.format("%H.%n(%p)"), bufferAccess || name.equals("checkIndex"));
+        }
+        for (NewInstanceNode newInstance : graph.getNodes().filter(NewInstanceNode.class)) {
+            Assert.assertFalse(snippet, newInstance.instanceClass().equals(getMetaAccess().lookupJavaType(IndexOutOfBoundsException.class)));
+        }
+        if (isGet) {
+            boolean guardedLoad = false;
+            for (UnsafeLoadNode load : graph.getNodes().filter(UnsafeLoadNode.class)) {
+                guardedLoad |= load.getGuardingCondition() != null;
+            }
+            Assert.assertTrue(snippet + ": no guarded UnsafeLoadNode", guardedLoad);
+        } else {
+            Assert.assertTrue(snippet + ": no UnsafeStoreNode", graph.getNodes().filter(UnsafeStoreNode.class).isNotEmpty());
+        }
+    }
+
+    @Test
+    public void testIntrinsified() {
+        assertIntrinsified("directGetInt", true);
+        assertIntrinsified("directPutInt", false);
+        assertIntrinsified("heapGetInt", true);
+        assertIntrinsified("heapPutInt", false);
+    }
+
+    @Test
+    public void testLocalArray() {
+        test("localGetInt");
+        test("localGetLong");
+        test("localPutInt", 0x789ABCDE);
+        test("localPutLong", 0x0123456789ABCDEFL);
+        test("localPutGetChar", (byte) 0x56);
+    }
+
+    @Test
+    public void testSmallBuffer() {
+        for (int index : new int[]{0, 1, 2, -1, -3, Integer.MIN_VALUE}) {
+            test("smallDirectBuffer", index);
+        }
+    }
+
+    @Test
+    public void testDirect() {
+        for (int index : INDICES) {
+            test("directBuffer", index, true);
+            test("directBuffer", index, false);
+        }
+    }
+
+    @Test
+    public void testHeap() {
+        for (int index : INDICES) {
+            test("heapBuffer", index, true);
+            test("heapBuffer", index, false);
+        }
+    }
+
+    @Test
+    public void testSlicedHeap() {
+        for (int index : INDICES) {
+            test("slicedHeapBuffer", new byte[SIZE], index, true);
+            test("slicedHeapBuffer", new byte[SIZE], index, false);
+        }
+    }
+}
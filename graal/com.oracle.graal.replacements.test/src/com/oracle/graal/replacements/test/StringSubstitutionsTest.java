@@ -26,8 +26,13 @@ import org.junit.Test;
 
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.replacements.StringSubstitutions;
+import com.oracle.graal.replacements.nodes.ArrayCompareToNode;
 import com.oracle.graal.replacements.nodes.ArrayEqualsNode;
+import com.oracle.graal.replacements.nodes.ArrayHashCodeNode;
+import com.oracle.graal.replacements.nodes.StringIndexOfNode;
 
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
 import jdk.vm.ci.code.InstalledCode;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 
@@ -101,4 +106,106 @@ public class StringSubstitutionsTest extends MethodSubstitutionTest {
         return a.equals(b);
     }
 
+    private static final String[] STRINGS = {"", "a", "b", "ab", "abcdefgh", "abcdefghijklmnop", "abcdefghijklmnopq", "abcdefghijklmnopr", "abcdefgh\u20acijklmnop", "\u20ac\u20ac",
+                    "\ud83d\ude00abc"};
+
+    @Test
+    public void testCompareTo() {
+        if (!Java8OrEarlier) {
+            // StringSubstitutions are disabled in 1.9
+            return;
+        }
+        if (getTarget().arch instanceof AMD64) {
+            assertInGraph(testGraph("stringCompareTo"), ArrayCompareToNode.class);
+        }
+        for (String a : STRINGS) {
+            for (String b : STRINGS) {
+                test("stringCompareTo", a, b);
+            }
+        }
+    }
+
+    public static int stringCompareTo(String a, String b) {
+        return a.compareTo(b);
+    }
+
+    @Test
+    public void testIndexOf() {
+        if (!Java8OrEarlier) {
+            // StringSubstitutions are disabled in 1.9
+            return;
+        }
+        int[] chars = {'a', 'h', 'p', 'r', '\u20ac', 0x1F600, -1};
+        int[] fromIndices = {-1, 0, 1, 8, 16, 100};
+        for (String s : STRINGS) {
+            for (int ch : chars) {
+                for (int fromIndex : fromIndices) {
+                    test("stringIndexOf", s, ch, fromIndex);
+                }
+            }
+        }
+    }
+
+    public static int stringIndexOf(String s, int ch, int fromIndex) {
+        return s.indexOf(ch, fromIndex);
+    }
+
+    private static final String[] SOURCES = {"", "a", "abcdefgh", "abcdefghabcdefgh", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaab", "abcdefgabcdefghi", "xxxxxxxabcdefghijklmnopqrxxxxxxx",
+                    "abcdefghijklmnopqrstuvwxyz0123456789", "\u20acabc\u20acabcdefgh\u20ac", "\ud83d\ude00abc\ud83d\ude00", "abababababababababababababababac"};
+
+    private static final String[] TARGETS = {"", "a", "b", "ab", "ac", "bc", "h", "abcdefgh", "abcdefghi", "hijklmnopq", "ijklmnopqr", "abcdefghijklmnopqrstuvwxyz0123456789", "aaab", "ababac",
+                    "\u20acabcdefgh", "\ude00abc", "\ud83d\ude00", "789", "xyz", "not found"};
+
+    @Test
+    public void testIndexOfString() {
+        if (!Java8OrEarlier) {
+            // StringSubstitutions are disabled in 1.9
+            return;
+        }
+        if (getTarget().arch instanceof AMD64 && ((AMD64) getTarget().arch).getFeatures().contains(CPUFeature.SSE4_2)) {
+            assertInGraph(testGraph("stringIndexOfString"), StringIndexOfNode.class);
+        }
+        int[] fromIndices = {-1, 0, 1, 7, 8, 9, 16, 23, 100};
+        for (String source : SOURCES) {
+            for (String target : TARGETS) {
+                for (int fromIndex : fromIndices) {
+                    test("stringIndexOfString", source, target, fromIndex);
+                }
+            }
+        }
+    }
+
+    public static int stringIndexOfString(String source, String target, int fromIndex) {
+        return source.indexOf(target, fromIndex);
+    }
+
+    @Test
+    public void testHashCode() {
+        if (!Java8OrEarlier) {
+            // StringSubstitutions are disabled in 1.9
+            return;
+        }
+        if (getTarget().arch instanceof AMD64 && ((AMD64) getTarget().arch).getFeatures().contains(CPUFeature.SSE4_1)) {
+            assertInGraph(testGraph("stringHashCode"), ArrayHashCodeNode.class);
+        }
+        for (int length = 0; length <= 40; length++) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) ('a' + i);
+            }
+            test("stringHashCode", chars);
+            if (length > 0) {
+                // chars above 0x7fff must not be sign extended
+                chars[length - 1] = '\uffff';
+                chars[0] = '\u8000';
+                test("stringHashCode", chars);
+            }
+        }
+        test("stringHashCode", (Object) STRINGS[STRINGS.length - 1].toCharArray());
+    }
+
+    public static int stringHashCode(char[] chars) {
+        // a fresh string has no cached hash code
+        return new String(chars).hashCode();
+    }
 }
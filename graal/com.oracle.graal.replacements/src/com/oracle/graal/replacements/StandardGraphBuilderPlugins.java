@@ -93,6 +93,7 @@ import com.oracle.graal.nodes.java.DynamicNewInstanceNode;
 import com.oracle.graal.nodes.java.InstanceOfDynamicNode;
 import com.oracle.graal.nodes.java.LoadFieldNode;
 import com.oracle.graal.nodes.java.RegisterFinalizerNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
 import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.nodes.virtual.EnsureVirtualizedNode;
 import com.oracle.graal.phases.common.instrumentation.nodes.InstrumentationBeginNode;
@@ -146,10 +147,12 @@ public class StandardGraphBuilderPlugins {
     }
 
     private static final Field STRING_VALUE_FIELD;
+    private static final Field STRING_HASH_FIELD;
 
     static {
         try {
             STRING_VALUE_FIELD = String.class.getDeclaredField("value");
+            STRING_HASH_FIELD = String.class.getDeclaredField("hash");
         } catch (NoSuchFieldException e) {
             throw new GraalError(e);
         }
@@ -168,6 +171,22 @@ public class StandardGraphBuilderPlugins {
                 return true;
             }
         });
+        r.register1("getHash", String.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode value) {
+                ResolvedJavaField field = b.getMetaAccess().lookupJavaField(STRING_HASH_FIELD);
+                b.addPush(JavaKind.Int, LoadFieldNode.create(b.getAssumptions(), value, field));
+                return true;
+            }
+        });
+        r.register2("setHash", String.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode value, ValueNode hash) {
+                ResolvedJavaField field = b.getMetaAccess().lookupJavaField(STRING_HASH_FIELD);
+                b.add(new StoreFieldNode(value, field, hash));
+                return true;
+            }
+        });
     }
 
     private static void registerArraysPlugins(InvocationPlugins plugins) {
@@ -27,6 +27,7 @@ import com.oracle.graal.api.replacements.MethodSubstitution;
 import com.oracle.graal.compiler.common.SuppressFBWarnings;
 import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugin;
 import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
 import com.oracle.graal.replacements.nodes.ArrayEqualsNode;
 
 // JaCoCo Exclude
@@ -63,5 +64,15 @@ public class StringSubstitutions {
     /**
      * Will be intrinsified with an {@link InvocationPlugin} to a {@link LoadFieldNode}.
      */
-    private static native char[] getValue(String s);
+    public static native char[] getValue(String s);
+
+    /**
+     * Will be intrinsified with an {@link InvocationPlugin} to a {@link LoadFieldNode}.
+     */
+    public static native int getHash(String s);
+
+    /**
+     * Will be intrinsified with an {@link InvocationPlugin} to a {@link StoreFieldNode}.
+     */
+    public static native void setHash(String s, int hash);
 }
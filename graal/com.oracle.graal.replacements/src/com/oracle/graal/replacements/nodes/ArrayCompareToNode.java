@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.spi.Canonicalizable;
+import com.oracle.graal.graph.spi.CanonicalizerTool;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValueNodeUtil;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+import com.oracle.graal.nodes.util.GraphUtil;
+
+import jdk.vm.ci.meta.ConstantReflectionProvider;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+// JaCoCo Exclude
+
+/**
+ * Lexicographically compares two arrays of possibly different length.
+ */
+@NodeInfo
+public final class ArrayCompareToNode extends FixedWithNextNode implements LIRLowerable, Canonicalizable, MemoryAccess {
+
+    public static final NodeClass<ArrayCompareToNode> TYPE = NodeClass.create(ArrayCompareToNode.class);
+    /** {@link JavaKind} of the arrays to compare. */
+    protected final JavaKind kind;
+
+    /** One array to be compared. */
+    @Input ValueNode array1;
+
+    /** The other array to be compared. */
+    @Input ValueNode array2;
+
+    /** Number of elements of {@link #array1} to compare. */
+    @Input ValueNode length1;
+
+    /** Number of elements of {@link #array2} to compare. */
+    @Input ValueNode length2;
+
+    @OptionalInput(InputType.Memory) MemoryNode lastLocationAccess;
+
+    public ArrayCompareToNode(ValueNode array1, ValueNode array2, ValueNode length1, ValueNode length2, @ConstantNodeParameter JavaKind kind) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        this.kind = kind;
+        this.array1 = array1;
+        this.array2 = array2;
+        this.length1 = length1;
+        this.length2 = length2;
+    }
+
+    public ValueNode getArray1() {
+        return array1;
+    }
+
+    public ValueNode getArray2() {
+        return array2;
+    }
+
+    public ValueNode getLength1() {
+        return length1;
+    }
+
+    public ValueNode getLength2() {
+        return length2;
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (tool.allUsagesAvailable() && hasNoUsages()) {
+            return null;
+        }
+        if (GraphUtil.unproxify(array1) == GraphUtil.unproxify(array2) && GraphUtil.unproxify(length1) == GraphUtil.unproxify(length2)) {
+            return ConstantNode.forInt(0);
+        }
+        if (length1.isConstant() && length2.isConstant() && isStableArray(array1) && isStableArray(array2)) {
+            ConstantReflectionProvider constantReflection = tool.getConstantReflection();
+            JavaConstant constant1 = array1.asJavaConstant();
+            JavaConstant constant2 = array2.asJavaConstant();
+            int len1 = length1.asJavaConstant().asInt();
+            int len2 = length2.asJavaConstant().asInt();
+            Integer length = constantReflection.readArrayLength(constant1);
+            Integer otherLength = constantReflection.readArrayLength(constant2);
+            if (length != null && otherLength != null && len1 <= length && len2 <= otherLength) {
+                int min = Math.min(len1, len2);
+                for (int i = 0; i < min; i++) {
+                    JavaConstant element1 = constantReflection.readArrayElement(constant1, i);
+                    JavaConstant element2 = constantReflection.readArrayElement(constant2, i);
+                    if (element1 == null || element2 == null) {
+                        return this;
+                    }
+                    int c1 = element1.asInt();
+                    int c2 = element2.asInt();
+                    if (c1 != c2) {
+                        return ConstantNode.forInt(c1 - c2);
+                    }
+                }
+                return ConstantNode.forInt(len1 - len2);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Determines if {@code array} is a constant whose elements are known to never change.
+     */
+    static boolean isStableArray(ValueNode array) {
+        if (array.isConstant() && !array.isNullConstant() && array.asJavaConstant() != null) {
+            ConstantNode constant = (ConstantNode) array;
+            return constant.getStableDimension() > 0 && constant.isDefaultStable();
+        }
+        return false;
+    }
+
+    @NodeIntrinsic
+    public static native int compareTo(Object array1, Object array2, int length1, int length2, @ConstantNodeParameter JavaKind kind);
+
+    public static int compareTo(char[] array1, char[] array2, int length1, int length2) {
+        return compareTo(array1, array2, length1, length2, JavaKind.Char);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitArrayCompareTo(kind, gen.operand(array1), gen.operand(array2), gen.operand(length1), gen.operand(length2));
+        gen.setResult(this, result);
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+
+    @Override
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.memory.AbstractMemoryCheckpoint;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Stores a value into a range of elements of a primitive array, as done by
+ * {@link java.util.Arrays#fill(int[], int, int, int)}. The range must have been checked against
+ * the bounds of the array.
+ */
+@NodeInfo(allowedUsageTypes = {InputType.Memory})
+public final class ArrayFillNode extends AbstractMemoryCheckpoint implements LIRLowerable, MemoryCheckpoint.Single {
+
+    public static final NodeClass<ArrayFillNode> TYPE = NodeClass.create(ArrayFillNode.class);
+    /** {@link JavaKind} of the array to fill. */
+    protected final JavaKind kind;
+
+    /** The array to be filled. */
+    @Input ValueNode array;
+
+    /** Index of the first element to fill. */
+    @Input ValueNode fromIndex;
+
+    /** Index after the last element to fill. */
+    @Input ValueNode toIndex;
+
+    /** The value to store, widened to {@code long}. */
+    @Input ValueNode value;
+
+    public ArrayFillNode(ValueNode array, ValueNode fromIndex, ValueNode toIndex, ValueNode value, @ConstantNodeParameter JavaKind kind) {
+        super(TYPE, StampFactory.forVoid());
+        assert kind != JavaKind.Float && kind != JavaKind.Double;
+        this.kind = kind;
+        this.array = array;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.value = value;
+    }
+
+    public ValueNode getArray() {
+        return array;
+    }
+
+    public ValueNode getFromIndex() {
+        return fromIndex;
+    }
+
+    public ValueNode getToIndex() {
+        return toIndex;
+    }
+
+    public ValueNode getValue() {
+        return value;
+    }
+
+    @NodeIntrinsic
+    public static native void fill(Object array, int fromIndex, int toIndex, long value, @ConstantNodeParameter JavaKind kind);
+
+    public static void fill(boolean[] array, int fromIndex, int toIndex, boolean value) {
+        fill(array, fromIndex, toIndex, value ? 1L : 0L, JavaKind.Boolean);
+    }
+
+    public static void fill(byte[] array, int fromIndex, int toIndex, byte value) {
+        fill(array, fromIndex, toIndex, value, JavaKind.Byte);
+    }
+
+    public static void fill(char[] array, int fromIndex, int toIndex, char value) {
+        fill(array, fromIndex, toIndex, value, JavaKind.Char);
+    }
+
+    public static void fill(short[] array, int fromIndex, int toIndex, short value) {
+        fill(array, fromIndex, toIndex, value, JavaKind.Short);
+    }
+
+    public static void fill(int[] array, int fromIndex, int toIndex, int value) {
+        fill(array, fromIndex, toIndex, value, JavaKind.Int);
+    }
+
+    public static void fill(long[] array, int fromIndex, int toIndex, long value) {
+        fill(array, fromIndex, toIndex, value, JavaKind.Long);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.getLIRGeneratorTool().emitArrayFill(kind, gen.operand(array), gen.operand(fromIndex), gen.operand(toIndex), gen.operand(value));
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+}
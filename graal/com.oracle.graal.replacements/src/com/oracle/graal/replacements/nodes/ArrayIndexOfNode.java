@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.spi.Canonicalizable;
+import com.oracle.graal.graph.spi.CanonicalizerTool;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValueNodeUtil;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.ConstantReflectionProvider;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+// JaCoCo Exclude
+
+/**
+ * Searches a range of an array for the first occurrence of a value.
+ */
+@NodeInfo
+public final class ArrayIndexOfNode extends FixedWithNextNode implements LIRLowerable, Canonicalizable, MemoryAccess {
+
+    public static final NodeClass<ArrayIndexOfNode> TYPE = NodeClass.create(ArrayIndexOfNode.class);
+    /** {@link JavaKind} of the array to search. */
+    protected final JavaKind kind;
+
+    /** The array to be searched. */
+    @Input ValueNode array;
+
+    /** Index of the first element to search. */
+    @Input ValueNode fromIndex;
+
+    /** Index after the last element to search. */
+    @Input ValueNode length;
+
+    /** The value to search for. */
+    @Input ValueNode value;
+
+    @OptionalInput(InputType.Memory) MemoryNode lastLocationAccess;
+
+    public ArrayIndexOfNode(ValueNode array, ValueNode fromIndex, ValueNode length, ValueNode value, @ConstantNodeParameter JavaKind kind) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        this.kind = kind;
+        this.array = array;
+        this.fromIndex = fromIndex;
+        this.length = length;
+        this.value = value;
+    }
+
+    public ValueNode getArray() {
+        return array;
+    }
+
+    public ValueNode getFromIndex() {
+        return fromIndex;
+    }
+
+    public ValueNode getLength() {
+        return length;
+    }
+
+    public ValueNode getValue() {
+        return value;
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (tool.allUsagesAvailable() && hasNoUsages()) {
+            return null;
+        }
+        if (fromIndex.isConstant() && length.isConstant() && value.isConstant() && ArrayCompareToNode.isStableArray(array)) {
+            ConstantReflectionProvider constantReflection = tool.getConstantReflection();
+            JavaConstant arrayConstant = array.asJavaConstant();
+            int from = fromIndex.asJavaConstant().asInt();
+            int end = length.asJavaConstant().asInt();
+            int searched = value.asJavaConstant().asInt();
+            Integer arrayLength = constantReflection.readArrayLength(arrayConstant);
+            if (arrayLength != null && from >= 0 && end <= arrayLength) {
+                for (int i = from; i < end; i++) {
+                    JavaConstant element = constantReflection.readArrayElement(arrayConstant, i);
+                    if (element == null) {
+                        return this;
+                    }
+                    if (element.asInt() == searched) {
+                        return ConstantNode.forInt(i);
+                    }
+                }
+                return ConstantNode.forInt(-1);
+            }
+        }
+        return this;
+    }
+
+    @NodeIntrinsic
+    public static native int indexOf(Object array, int fromIndex, int length, int value, @ConstantNodeParameter JavaKind kind);
+
+    public static int indexOf(char[] array, int fromIndex, int length, int value) {
+        return indexOf(array, fromIndex, length, value, JavaKind.Char);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitArrayIndexOf(kind, gen.operand(array), gen.operand(fromIndex), gen.operand(length), gen.operand(value));
+        gen.setResult(this, result);
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+
+    @Override
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
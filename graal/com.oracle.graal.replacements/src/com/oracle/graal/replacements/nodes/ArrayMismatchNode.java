@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.spi.Canonicalizable;
+import com.oracle.graal.graph.spi.CanonicalizerTool;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValueNodeUtil;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+import com.oracle.graal.nodes.util.GraphUtil;
+
+import jdk.vm.ci.meta.ConstantReflectionProvider;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+// JaCoCo Exclude
+
+/**
+ * Finds the index of the first element that differs between two arrays. Elements are compared
+ * bitwise, so this node must not be used for {@code float} or {@code double} arrays.
+ */
+@NodeInfo
+public final class ArrayMismatchNode extends FixedWithNextNode implements LIRLowerable, Canonicalizable, MemoryAccess {
+
+    public static final NodeClass<ArrayMismatchNode> TYPE = NodeClass.create(ArrayMismatchNode.class);
+    /** {@link JavaKind} of the arrays to compare. */
+    protected final JavaKind kind;
+
+    /** One array to be compared. */
+    @Input ValueNode array1;
+
+    /** The other array to be compared. */
+    @Input ValueNode array2;
+
+    /** Number of elements to compare. */
+    @Input ValueNode length;
+
+    @OptionalInput(InputType.Memory) MemoryNode lastLocationAccess;
+
+    public ArrayMismatchNode(ValueNode array1, ValueNode array2, ValueNode length, @ConstantNodeParameter JavaKind kind) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        assert kind != JavaKind.Float && kind != JavaKind.Double;
+        this.kind = kind;
+        this.array1 = array1;
+        this.array2 = array2;
+        this.length = length;
+    }
+
+    public ValueNode getArray1() {
+        return array1;
+    }
+
+    public ValueNode getArray2() {
+        return array2;
+    }
+
+    public ValueNode getLength() {
+        return length;
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (tool.allUsagesAvailable() && hasNoUsages()) {
+            return null;
+        }
+        if (GraphUtil.unproxify(array1) == GraphUtil.unproxify(array2)) {
+            return ConstantNode.forInt(-1);
+        }
+        if (length.isConstant() && ArrayCompareToNode.isStableArray(array1) && ArrayCompareToNode.isStableArray(array2)) {
+            ConstantReflectionProvider constantReflection = tool.getConstantReflection();
+            JavaConstant constant1 = array1.asJavaConstant();
+            JavaConstant constant2 = array2.asJavaConstant();
+            int len = length.asJavaConstant().asInt();
+            Integer length1 = constantReflection.readArrayLength(constant1);
+            Integer length2 = constantReflection.readArrayLength(constant2);
+            if (length1 != null && length2 != null && len <= length1 && len <= length2) {
+                for (int i = 0; i < len; i++) {
+                    JavaConstant element1 = constantReflection.readArrayElement(constant1, i);
+                    JavaConstant element2 = constantReflection.readArrayElement(constant2, i);
+                    if (element1 == null || element2 == null) {
+                        return this;
+                    }
+                    if (!element1.equals(element2)) {
+                        return ConstantNode.forInt(i);
+                    }
+                }
+                return ConstantNode.forInt(-1);
+            }
+        }
+        return this;
+    }
+
+    @NodeIntrinsic
+    public static native int mismatch(Object array1, Object array2, int length, @ConstantNodeParameter JavaKind kind);
+
+    public static int mismatch(boolean[] array1, boolean[] array2, int length) {
+        return mismatch(array1, array2, length, JavaKind.Boolean);
+    }
+
+    public static int mismatch(byte[] array1, byte[] array2, int length) {
+        return mismatch(array1, array2, length, JavaKind.Byte);
+    }
+
+    public static int mismatch(char[] array1, char[] array2, int length) {
+        return mismatch(array1, array2, length, JavaKind.Char);
+    }
+
+    public static int mismatch(short[] array1, short[] array2, int length) {
+        return mismatch(array1, array2, length, JavaKind.Short);
+    }
+
+    public static int mismatch(int[] array1, int[] array2, int length) {
+        return mismatch(array1, array2, length, JavaKind.Int);
+    }
+
+    public static int mismatch(long[] array1, long[] array2, int length) {
+        return mismatch(array1, array2, length, JavaKind.Long);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitArrayMismatch(kind, gen.operand(array1), gen.operand(array2), gen.operand(length));
+        gen.setResult(this, result);
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+
+    @Override
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.memory.AbstractMemoryCheckpoint;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Encodes the bytes {@code src[sp..sl)} into Base64 characters stored at {@code dst[dp]}. The
+ * number of bytes must be a multiple of three and the ranges must have been checked against the
+ * bounds of the arrays.
+ */
+@NodeInfo(allowedUsageTypes = {InputType.Memory})
+public final class Base64EncodeBlockNode extends AbstractMemoryCheckpoint implements LIRLowerable, MemoryCheckpoint.Single {
+
+    public static final NodeClass<Base64EncodeBlockNode> TYPE = NodeClass.create(Base64EncodeBlockNode.class);
+
+    @Input ValueNode src;
+    @Input ValueNode sp;
+    @Input ValueNode sl;
+    @Input ValueNode dst;
+    @Input ValueNode dp;
+    @Input ValueNode isURL;
+
+    public Base64EncodeBlockNode(ValueNode src, ValueNode sp, ValueNode sl, ValueNode dst, ValueNode dp, ValueNode isURL) {
+        super(TYPE, StampFactory.forVoid());
+        this.src = src;
+        this.sp = sp;
+        this.sl = sl;
+        this.dst = dst;
+        this.dp = dp;
+        this.isURL = isURL;
+    }
+
+    @NodeIntrinsic
+    public static native void encodeBlock(byte[] src, int sp, int sl, byte[] dst, int dp, boolean isURL);
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.getLIRGeneratorTool().emitBase64EncodeBlock(gen.operand(src), gen.operand(sp), gen.operand(sl), gen.operand(dst), gen.operand(dp), gen.operand(isURL));
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(JavaKind.Byte);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.memory.AbstractMemoryCheckpoint;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+// JaCoCo Exclude
+
+/**
+ * Stores a byte value into a range of memory starting at a raw address, as done by
+ * {@code sun.misc.Unsafe.setMemory}. Like any other address inside of an object, the address
+ * must not be live across a safepoint.
+ */
+@NodeInfo(allowedUsageTypes = {InputType.Memory})
+public final class MemoryFillNode extends AbstractMemoryCheckpoint implements LIRLowerable, MemoryCheckpoint.Single {
+
+    public static final NodeClass<MemoryFillNode> TYPE = NodeClass.create(MemoryFillNode.class);
+
+    /** The address of the first byte to fill. */
+    @Input ValueNode address;
+
+    /** The number of bytes to fill. */
+    @Input ValueNode length;
+
+    /** The value to store. */
+    @Input ValueNode value;
+
+    public MemoryFillNode(ValueNode address, ValueNode length, ValueNode value) {
+        super(TYPE, StampFactory.forVoid());
+        this.address = address;
+        this.length = length;
+        this.value = value;
+    }
+
+    public ValueNode getAddress() {
+        return address;
+    }
+
+    public ValueNode getLength() {
+        return length;
+    }
+
+    public ValueNode getValue() {
+        return value;
+    }
+
+    @NodeIntrinsic
+    public static native void fill(long address, long length, byte value);
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.getLIRGeneratorTool().emitMemoryFill(gen.operand(address), gen.operand(length), gen.operand(value));
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return LocationIdentity.any();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.spi.Canonicalizable;
+import com.oracle.graal.graph.spi.CanonicalizerTool;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValueNodeUtil;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.ConstantReflectionProvider;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+// JaCoCo Exclude
+
+/**
+ * Searches a range of a {@code char} array for the first occurrence of a non-empty prefix of
+ * another {@code char} array.
+ */
+@NodeInfo
+public final class StringIndexOfNode extends FixedWithNextNode implements LIRLowerable, Canonicalizable, MemoryAccess {
+
+    public static final NodeClass<StringIndexOfNode> TYPE = NodeClass.create(StringIndexOfNode.class);
+
+    /** The array to be searched. */
+    @Input ValueNode source;
+
+    /** Index of the first element to search. */
+    @Input ValueNode fromIndex;
+
+    /** Index after the last element to search. */
+    @Input ValueNode length;
+
+    /** The array holding the characters to search for. */
+    @Input ValueNode target;
+
+    /** Number of characters of {@link #target} to search for. */
+    @Input ValueNode targetCount;
+
+    @OptionalInput(InputType.Memory) MemoryNode lastLocationAccess;
+
+    public StringIndexOfNode(ValueNode source, ValueNode fromIndex, ValueNode length, ValueNode target, ValueNode targetCount) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        this.source = source;
+        this.fromIndex = fromIndex;
+        this.length = length;
+        this.target = target;
+        this.targetCount = targetCount;
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (tool.allUsagesAvailable() && hasNoUsages()) {
+            return null;
+        }
+        if (fromIndex.isConstant() && length.isConstant() && targetCount.isConstant() && ArrayCompareToNode.isStableArray(source) && ArrayCompareToNode.isStableArray(target)) {
+            ConstantReflectionProvider constantReflection = tool.getConstantReflection();
+            JavaConstant sourceConstant = source.asJavaConstant();
+            JavaConstant targetConstant = target.asJavaConstant();
+            int from = fromIndex.asJavaConstant().asInt();
+            int end = length.asJavaConstant().asInt();
+            int count = targetCount.asJavaConstant().asInt();
+            Integer sourceLength = constantReflection.readArrayLength(sourceConstant);
+            Integer targetLength = constantReflection.readArrayLength(targetConstant);
+            if (sourceLength != null && targetLength != null && from >= 0 && end <= sourceLength && count > 0 && count <= targetLength) {
+                for (int i = from; i <= end - count; i++) {
+                    int j = 0;
+                    while (j < count) {
+                        JavaConstant element = constantReflection.readArrayElement(sourceConstant, i + j);
+                        JavaConstant searched = constantReflection.readArrayElement(targetConstant, j);
+                        if (element == null || searched == null) {
+                            return this;
+                        }
+                        if (element.asInt() != searched.asInt()) {
+                            break;
+                        }
+                        j++;
+                    }
+                    if (j == count) {
+                        return ConstantNode.forInt(i);
+                    }
+                }
+                return ConstantNode.forInt(-1);
+            }
+        }
+        return this;
+    }
+
+    @NodeIntrinsic
+    public static native int indexOf(char[] source, int fromIndex, int length, char[] target, int targetCount);
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitStringIndexOf(gen.operand(source), gen.operand(fromIndex), gen.operand(length), gen.operand(target), gen.operand(targetCount));
+        gen.setResult(this, result);
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(JavaKind.Char);
+    }
+
+    @Override
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
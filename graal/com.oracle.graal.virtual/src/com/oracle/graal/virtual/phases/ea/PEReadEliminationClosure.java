@@ -152,7 +152,8 @@ public class PEReadEliminationClosure extends PartialEscapeClosure<PEReadElimina
     private boolean processUnsafeLoad(UnsafeLoadNode load, PEReadEliminationBlockState state, GraphEffectList effects) {
         if (load.offset().isConstant()) {
             ResolvedJavaType type = StampTool.typeOrNull(load.object());
-            if (type != null && type.isArray()) {
+            // accesses of a different width than the elements cannot be served by a single entry
+            if (type != null && type.isArray() && load.accessKind() == type.getComponentType().getJavaKind()) {
                 long offset = load.offset().asJavaConstant().asLong();
                 int index = VirtualArrayNode.entryIndexForOffset(offset, load.accessKind(), type.getComponentType(), Integer.MAX_VALUE);
                 ValueNode object = GraphUtil.unproxify(load.object());
@@ -174,7 +175,7 @@ public class PEReadEliminationClosure extends PartialEscapeClosure<PEReadElimina
         ResolvedJavaType type = StampTool.typeOrNull(store.object());
         if (type != null && type.isArray()) {
             LocationIdentity location = NamedLocationIdentity.getArrayLocation(type.getComponentType().getJavaKind());
-            if (store.offset().isConstant()) {
+            if (store.offset().isConstant() && store.accessKind() == type.getComponentType().getJavaKind()) {
                 long offset = store.offset().asJavaConstant().asLong();
                 int index = VirtualArrayNode.entryIndexForOffset(offset, store.accessKind(), type.getComponentType(), Integer.MAX_VALUE);
                 return processStore(store, store.object(), location, index, store.value(), state, effects);